@@ -16,13 +16,47 @@
 
 package org.killbill.billing.account.api;
 
+import org.killbill.billing.account.dao.AccountDao;
+import org.killbill.billing.platform.api.LifecycleHandlerType;
+import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
+import org.killbill.billing.util.config.PaginationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+
 public class DefaultAccountService implements AccountService {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultAccountService.class);
+
     private static final String ACCOUNT_SERVICE_NAME = "account-service";
 
+    private final AccountDao accountDao;
+    private final PaginationConfig paginationConfig;
+
+    @Inject
+    public DefaultAccountService(final AccountDao accountDao, final PaginationConfig paginationConfig) {
+        this.accountDao = accountDao;
+        this.paginationConfig = paginationConfig;
+    }
+
     @Override
     public String getName() {
         return ACCOUNT_SERVICE_NAME;
     }
 
+    @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
+    public void start() {
+        // Accounts created before account_search_keys existed: the scan isn't free, so only done on demand
+        if (!paginationConfig.isSearchKeysBackfillOnStart()) {
+            return;
+        }
+
+        try {
+            accountDao.backfillSearchKeys();
+        } catch (final RuntimeException e) {
+            // Typically another node backfilling the same accounts (see the unique index on account_search_keys): its keys win
+            log.warn("Unable to backfill the account search keys, the backfill will be retried on next start", e);
+        }
+    }
 }
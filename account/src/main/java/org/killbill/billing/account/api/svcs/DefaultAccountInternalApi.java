@@ -16,7 +16,9 @@
 
 package org.killbill.billing.account.api.svcs;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
@@ -119,6 +121,24 @@ public class DefaultAccountInternalApi implements AccountInternalApi {
         return accountModelDao.getId();
     }
 
+    @Override
+    public Map<Long, Account> getAccountsFromRecordId(final Long lastRecordId, final int limit, final InternalTenantContext context) {
+        return toAccountsByRecordId(accountDao.getAccountsFromRecordId(lastRecordId, (long) limit, context));
+    }
+
+    @Override
+    public Map<Long, Account> searchAccountsFromRecordId(final String searchKey, final Long lastRecordId, final int limit, final InternalTenantContext context) {
+        return toAccountsByRecordId(accountDao.searchAccountsFromRecordId(searchKey, lastRecordId, (long) limit, context));
+    }
+
+    private Map<Long, Account> toAccountsByRecordId(final Iterable<AccountModelDao> accountModelDaos) {
+        final Map<Long, Account> accounts = new LinkedHashMap<Long, Account>();
+        for (final AccountModelDao accountModelDao : accountModelDaos) {
+            accounts.put(accountModelDao.getRecordId(), new DefaultAccount(accountModelDao));
+        }
+        return accounts;
+    }
+
     private AccountModelDao getAccountModelDaoByRecordId(final Long recordId, final InternalTenantContext context) throws AccountApiException {
         final AccountModelDao accountModelDao = accountDao.getByRecordId(recordId, context);
         if (accountModelDao == null) {
@@ -32,6 +32,22 @@ public interface AccountDao extends EntityDao<AccountModelDao, Account, AccountA
 
     public Pagination<AccountModelDao> searchAccounts(String searchKey, Long offset, Long limit, InternalTenantContext context);
 
+    /**
+     * Keyset scan of all the accounts of a tenant, ordered by record id
+     *
+     * @param lastRecordId record id of the last account of the previous chunk (0 to start from the beginning)
+     * @param limit        maximum number of accounts to return
+     */
+    public List<AccountModelDao> getAccountsFromRecordId(Long lastRecordId, Long limit, InternalTenantContext context);
+
+    /**
+     * Keyset variant of searchAccounts: the matching accounts right after lastRecordId, ordered by record id
+     *
+     * @param lastRecordId record id of the last account of the previous page (0 to start from the beginning)
+     * @param limit        maximum number of accounts to return
+     */
+    public List<AccountModelDao> searchAccountsFromRecordId(String searchKey, Long lastRecordId, Long limit, InternalTenantContext context);
+
     /**
      * @throws AccountApiException when externalKey is null
      */
@@ -50,4 +66,11 @@ public interface AccountDao extends EntityDao<AccountModelDao, Account, AccountA
     public void removeEmail(AccountEmailModelDao email, InternalCallContext context);
 
     public List<AccountEmailModelDao> getEmailsByAccountId(UUID accountId, InternalTenantContext context);
+
+    /**
+     * Compute the search keys of the accounts (of all tenants) which don't have any yet, e.g. created before account_search_keys existed
+     *
+     * @return the number of accounts updated
+     */
+    public int backfillSearchKeys();
 }
@@ -16,10 +16,13 @@
 
 package org.killbill.billing.account.dao;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 
@@ -30,6 +33,7 @@ import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.entity.dao.Audited;
 import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoStringTemplate;
+import org.killbill.commons.jdbi.statement.SmartFetchSize;
 
 @EntitySqlDaoStringTemplate
 public interface AccountSqlDao extends EntitySqlDao<AccountModelDao, Account> {
@@ -52,4 +56,48 @@ public interface AccountSqlDao extends EntitySqlDao<AccountModelDao, Account> {
     public void updatePaymentMethod(@Bind("id") String accountId,
                                     @Bind("paymentMethodId") String paymentMethodId,
                                     @BindBean final InternalCallContext context);
+
+    @SqlQuery
+    @SmartFetchSize(shouldStream = true)
+    public Iterator<AccountModelDao> getFromRecordId(@Bind("lastRecordId") final Long lastRecordId,
+                                                     @Bind("rowCount") final Long rowCount,
+                                                     @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    @SmartFetchSize(shouldStream = true)
+    public Iterator<AccountModelDao> searchFromRecordId(@Bind("searchKey") final String searchKey,
+                                                        @Bind("likeSearchKey") final String likeSearchKey,
+                                                        @Bind("lastRecordId") final Long lastRecordId,
+                                                        @Bind("rowCount") final Long rowCount,
+                                                        @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    @SmartFetchSize(shouldStream = true)
+    public Iterator<AccountModelDao> searchByKeys(@Bind("likeSearchKey") final String likeSearchKey,
+                                                  @Bind("offset") final Long offset,
+                                                  @Bind("rowCount") final Long rowCount,
+                                                  @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    public Long getSearchByKeysCount(@Bind("likeSearchKey") final String likeSearchKey,
+                                     @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    @SmartFetchSize(shouldStream = true)
+    public Iterator<AccountModelDao> searchByKeysFromRecordId(@Bind("likeSearchKey") final String likeSearchKey,
+                                                              @Bind("lastRecordId") final Long lastRecordId,
+                                                              @Bind("rowCount") final Long rowCount,
+                                                              @BindBean final InternalTenantContext context);
+
+    @SqlBatch
+    public void addSearchKeys(@Bind("accountRecordId") final Long accountRecordId,
+                              @Bind("searchKey") final Iterable<String> searchKeys,
+                              @BindBean final InternalCallContext context);
+
+    @SqlQuery
+    public List<AccountModelDao> getAccountsWithoutSearchKeys(@Bind("rowCount") final Long rowCount);
+
+    @SqlUpdate
+    public void removeSearchKeys(@Bind("accountRecordId") final Long accountRecordId,
+                                 @BindBean final InternalCallContext context);
 }
@@ -31,6 +31,7 @@ import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.user.DefaultAccountChangeEvent;
 import org.killbill.billing.account.api.user.DefaultAccountCreationEvent;
 import org.killbill.billing.account.api.user.DefaultAccountCreationEvent.DefaultAccountData;
+import org.killbill.billing.util.config.PaginationConfig;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -41,8 +42,11 @@ import org.killbill.billing.events.AccountChangeInternalEvent;
 import org.killbill.billing.events.AccountCreationInternalEvent;
 import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.UserType;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.PaginationIteratorBuilder;
 import org.killbill.billing.util.entity.dao.EntityDaoBase;
@@ -50,22 +54,29 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.entity.dao.SearchKeys;
 
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, AccountApiException> implements AccountDao {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultAccountDao.class);
 
+    // Number of accounts backfilled in a single transaction
+    private static final long SEARCH_KEYS_BACKFILL_CHUNK_SIZE = 500L;
+
     private final PersistentBus eventBus;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final SearchKeys searchKeys;
 
     @Inject
     public DefaultAccountDao(final IDBI dbi, final PersistentBus eventBus, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher,
-                             final InternalCallContextFactory internalCallContextFactory, final NonEntityDao nonEntityDao) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao), AccountSqlDao.class);
+                             final InternalCallContextFactory internalCallContextFactory, final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling, final PaginationConfig paginationConfig) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, aggregatedProfiling), AccountSqlDao.class, paginationConfig);
         this.eventBus = eventBus;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.searchKeys = new SearchKeys(paginationConfig);
     }
 
     @Override
@@ -73,6 +84,22 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
         return new AccountApiException(ErrorCode.ACCOUNT_ALREADY_EXISTS, account.getExternalKey());
     }
 
+    @Override
+    protected EntitySqlDaoTransactionWrapper<Void> getCreateEntitySqlDaoTransactionWrapper(final AccountModelDao account, final InternalCallContext context) {
+        final EntitySqlDaoTransactionWrapper<Void> createEntitySqlDaoTransactionWrapper = super.getCreateEntitySqlDaoTransactionWrapper(account, context);
+        return new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                createEntitySqlDaoTransactionWrapper.inTransaction(entitySqlDaoWrapperFactory);
+
+                final AccountSqlDao accountSqlDao = entitySqlDaoWrapperFactory.become(AccountSqlDao.class);
+                final Long accountRecordId = accountSqlDao.getRecordId(account.getId().toString(), context);
+                accountSqlDao.addSearchKeys(accountRecordId, getSearchKeys(account), context);
+                return null;
+            }
+        };
+    }
+
     @Override
     protected void postBusEventFromTransaction(final AccountModelDao account, final AccountModelDao savedAccount, final ChangeType changeType,
                                                final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final InternalCallContext context) throws BillingExceptionBase {
@@ -106,18 +133,80 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
         });
     }
 
+    @Override
+    public List<AccountModelDao> getAccountsFromRecordId(final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<AccountModelDao>>() {
+            @Override
+            public List<AccountModelDao> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                return ImmutableList.<AccountModelDao>copyOf(entitySqlDaoWrapperFactory.become(AccountSqlDao.class).getFromRecordId(lastRecordId, limit, context));
+            }
+        });
+    }
+
+    @Override
+    public List<AccountModelDao> searchAccountsFromRecordId(final String searchKey, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<AccountModelDao>>() {
+            @Override
+            public List<AccountModelDao> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final AccountSqlDao accountSqlDao = entitySqlDaoWrapperFactory.become(AccountSqlDao.class);
+                if (!searchKeys.isIndexedSearch()) {
+                    return ImmutableList.<AccountModelDao>copyOf(accountSqlDao.searchFromRecordId(searchKey, searchKeys.toLikeSearchKey(searchKey), lastRecordId, limit, context));
+                }
+
+                final String normalizedSearchKey = SearchKeys.normalize(searchKey);
+                final String likeSearchKey = searchKeys.toLikeSearchKey(normalizedSearchKey == null ? "" : normalizedSearchKey);
+                return ImmutableList.<AccountModelDao>copyOf(accountSqlDao.searchByKeysFromRecordId(likeSearchKey, lastRecordId, limit, context));
+            }
+        });
+    }
+
     @Override
     public Pagination<AccountModelDao> searchAccounts(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
+        if (!searchKeys.isIndexedSearch()) {
+            return searchAccountsWithLike(searchKey, offset, limit, context);
+        }
+
+        // Search keys are stored normalized (see getSearchKeys)
+        final String normalizedSearchKey = SearchKeys.normalize(searchKey);
+        final String likeSearchKey = searchKeys.toLikeSearchKey(normalizedSearchKey == null ? "" : normalizedSearchKey);
         return paginationHelper.getPagination(AccountSqlDao.class,
                                               new PaginationIteratorBuilder<AccountModelDao, Account, AccountSqlDao>() {
                                                   @Override
                                                   public Long getCount(final AccountSqlDao accountSqlDao, final InternalTenantContext context) {
-                                                      return accountSqlDao.getSearchCount(searchKey, String.format("%%%s%%", searchKey), context);
+                                                      return accountSqlDao.getSearchByKeysCount(likeSearchKey, context);
                                                   }
 
                                                   @Override
                                                   public Iterator<AccountModelDao> build(final AccountSqlDao accountSqlDao, final Long limit, final InternalTenantContext context) {
-                                                      return accountSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
+                                                      return accountSqlDao.searchByKeys(likeSearchKey, offset, limit, context);
+                                                  }
+
+                                                  @Override
+                                                  public String getQueryKey() {
+                                                      return "searchByKeys:" + likeSearchKey;
+                                                  }
+                                              },
+                                              offset,
+                                              limit,
+                                              context);
+    }
+
+    private Pagination<AccountModelDao> searchAccountsWithLike(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
+        return paginationHelper.getPagination(AccountSqlDao.class,
+                                              new PaginationIteratorBuilder<AccountModelDao, Account, AccountSqlDao>() {
+                                                  @Override
+                                                  public Long getCount(final AccountSqlDao accountSqlDao, final InternalTenantContext context) {
+                                                      return accountSqlDao.getSearchCount(searchKey, searchKeys.toLikeSearchKey(searchKey), context);
+                                                  }
+
+                                                  @Override
+                                                  public Iterator<AccountModelDao> build(final AccountSqlDao accountSqlDao, final Long limit, final InternalTenantContext context) {
+                                                      return accountSqlDao.search(searchKey, searchKeys.toLikeSearchKey(searchKey), offset, limit, context);
+                                                  }
+
+                                                  @Override
+                                                  public String getQueryKey() {
+                                                      return "search:" + searchKey;
                                                   }
                                               },
                                               offset,
@@ -154,6 +243,11 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
 
                 transactional.update(specifiedAccount, context);
 
+                // Keep the search keys in sync (the external key is never updated)
+                final Long accountRecordId = transactional.getRecordId(accountId.toString(), context);
+                transactional.removeSearchKeys(accountRecordId, context);
+                transactional.addSearchKeys(accountRecordId, getSearchKeys(accountId, currentAccount.getExternalKey(), specifiedAccount), context);
+
                 final AccountChangeInternalEvent changeEvent = new DefaultAccountChangeEvent(accountId,
                                                                                              currentAccount,
                                                                                              specifiedAccount,
@@ -172,6 +266,49 @@ public class DefaultAccountDao extends EntityDaoBase<AccountModelDao, Account, A
         });
     }
 
+    @Override
+    public int backfillSearchKeys() {
+        int nbAccounts = 0;
+        while (true) {
+            // Accounts always get at least one search key (their id), so each chunk makes progress
+            final int nbAccountsInChunk = transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Integer>() {
+                @Override
+                public Integer inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                    final AccountSqlDao accountSqlDao = entitySqlDaoWrapperFactory.become(AccountSqlDao.class);
+                    final List<AccountModelDao> accounts = accountSqlDao.getAccountsWithoutSearchKeys(SEARCH_KEYS_BACKFILL_CHUNK_SIZE);
+                    for (final AccountModelDao account : accounts) {
+                        final InternalCallContext context = internalCallContextFactory.createInternalCallContext(account.getTenantRecordId(), account.getRecordId(), "AccountService",
+                                                                                                                 CallOrigin.INTERNAL, UserType.SYSTEM, null);
+                        accountSqlDao.addSearchKeys(account.getRecordId(), getSearchKeys(account), context);
+                    }
+                    return accounts.size();
+                }
+            });
+
+            nbAccounts += nbAccountsInChunk;
+            if (nbAccountsInChunk < SEARCH_KEYS_BACKFILL_CHUNK_SIZE) {
+                break;
+            }
+        }
+
+        if (nbAccounts > 0) {
+            log.info("Backfilled search keys for {} accounts", nbAccounts);
+        }
+        return nbAccounts;
+    }
+
+    private Iterable<String> getSearchKeys(final AccountModelDao account) {
+        return getSearchKeys(account.getId(), account.getExternalKey(), account);
+    }
+
+    private Iterable<String> getSearchKeys(final UUID accountId, final String externalKey, final AccountModelDao account) {
+        return SearchKeys.tokenize(accountId.toString(),
+                                   externalKey,
+                                   account.getName(),
+                                   account.getEmail(),
+                                   account.getCompanyName());
+    }
+
     @Override
     public void updatePaymentMethod(final UUID accountId, final UUID paymentMethodId, final InternalCallContext context) throws AccountApiException {
         transactionalSqlDao.execute(AccountApiException.class, new EntitySqlDaoTransactionWrapper<Void>() {
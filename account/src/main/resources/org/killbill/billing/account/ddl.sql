@@ -107,3 +107,14 @@ CREATE TABLE account_email_history (
 ) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
 CREATE INDEX account_email_target_record_id ON account_email_history(target_record_id);
 CREATE INDEX account_email_history_tenant_account_record_id ON account_email_history(tenant_record_id, account_record_id);
+
+DROP TABLE IF EXISTS account_search_keys;
+CREATE TABLE account_search_keys (
+    record_id int(11) unsigned NOT NULL AUTO_INCREMENT,
+    account_record_id int(11) unsigned NOT NULL,
+    search_key varchar(255) NOT NULL,
+    tenant_record_id int(11) unsigned default null,
+    PRIMARY KEY(record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
+CREATE INDEX account_search_keys_tenant_search_key ON account_search_keys(tenant_record_id, search_key);
+CREATE UNIQUE INDEX account_search_keys_account_record_id_search_key ON account_search_keys(account_record_id, search_key);
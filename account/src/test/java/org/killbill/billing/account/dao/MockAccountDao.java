@@ -19,8 +19,11 @@ package org.killbill.billing.account.dao;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
 
+import javax.annotation.Nullable;
+
 import org.testng.Assert;
 
 import org.killbill.billing.BillingExceptionBase;
@@ -108,10 +111,7 @@ public class MockAccountDao extends MockEntityDaoBase<AccountModelDao, Account,
     public Pagination<AccountModelDao> searchAccounts(final String searchKey, final Long offset, final Long limit, final InternalTenantContext context) {
         final List<AccountModelDao> results = new LinkedList<AccountModelDao>();
         for (final AccountModelDao account : getAll(context)) {
-            if ((account.getName() != null && account.getName().contains(searchKey)) ||
-                (account.getEmail() != null && account.getEmail().contains(searchKey)) ||
-                (account.getExternalKey() != null && account.getExternalKey().contains(searchKey)) ||
-                (account.getCompanyName() != null && account.getCompanyName().contains(searchKey))) {
+            if (matches(account, searchKey)) {
                 results.add(account);
             }
         }
@@ -119,6 +119,38 @@ public class MockAccountDao extends MockEntityDaoBase<AccountModelDao, Account,
         return DefaultPagination.<AccountModelDao>build(offset, limit, results);
     }
 
+    @Override
+    public List<AccountModelDao> getAccountsFromRecordId(final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+        return searchAccountsFromRecordId(null, lastRecordId, limit, context);
+    }
+
+    @Override
+    public List<AccountModelDao> searchAccountsFromRecordId(@Nullable final String searchKey, final Long lastRecordId, final Long limit, final InternalTenantContext context) {
+        final Map<Long, AccountModelDao> accountsByRecordId = new TreeMap<Long, AccountModelDao>();
+        for (final AccountModelDao account : getAll(context)) {
+            final Long recordId = getRecordId(account.getId(), context);
+            if (recordId > lastRecordId && (searchKey == null || matches(account, searchKey))) {
+                accountsByRecordId.put(recordId, account);
+            }
+        }
+
+        final List<AccountModelDao> results = new LinkedList<AccountModelDao>();
+        for (final AccountModelDao account : accountsByRecordId.values()) {
+            if (results.size() >= limit) {
+                break;
+            }
+            results.add(account);
+        }
+        return results;
+    }
+
+    private boolean matches(final AccountModelDao account, final String searchKey) {
+        return (account.getName() != null && account.getName().contains(searchKey)) ||
+               (account.getEmail() != null && account.getEmail().contains(searchKey)) ||
+               (account.getExternalKey() != null && account.getExternalKey().contains(searchKey)) ||
+               (account.getCompanyName() != null && account.getCompanyName().contains(searchKey));
+    }
+
     @Override
     public UUID getIdFromKey(final String externalKey, final InternalTenantContext context) {
         final AccountModelDao account = getAccountByKey(externalKey, context);
@@ -163,4 +195,9 @@ public class MockAccountDao extends MockEntityDaoBase<AccountModelDao, Account,
         }));
     }
 
+
+    @Override
+    public int backfillSearchKeys() {
+        return 0;
+    }
 }
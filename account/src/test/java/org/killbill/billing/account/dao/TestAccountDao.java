@@ -17,6 +17,7 @@
 package org.killbill.billing.account.dao;
 
 import java.sql.SQLException;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
 
@@ -49,6 +50,8 @@ import org.killbill.billing.util.tag.DescriptiveTag;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.dao.TagDefinitionModelDao;
 import org.killbill.billing.util.tag.dao.TagModelDao;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.tweak.HandleCallback;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -189,6 +192,165 @@ public class TestAccountDao extends AccountTestSuiteWithEmbeddedDB {
         accountDao.getIdFromKey(null, internalCallContext);
     }
 
+    @Test(groups = "slow", description = "Test Account DAO: indexed search")
+    public void testSearchAccounts() throws Exception {
+        final AccountModelDao account = createTestAccount();
+        accountDao.create(account, internalCallContext);
+        final AccountModelDao otherAccount = createTestAccount();
+        accountDao.create(otherAccount, internalCallContext);
+
+        // Full values
+        checkSearchAccounts(account.getId().toString(), account);
+        checkSearchAccounts(account.getExternalKey(), account);
+        checkSearchAccounts(account.getName(), account);
+        checkSearchAccounts(account.getEmail(), account);
+        // Prefixes, case insensitive
+        checkSearchAccounts(account.getName().substring(0, 20).toUpperCase(), account);
+        checkSearchAccounts(account.getEmail().substring(0, 6), account);
+        // No substring match
+        checkSearchAccounts(account.getName().substring(20), null);
+
+        // Update the searchable fields: the search keys follow
+        final MutableAccountData updatedAccountData = new DefaultAccount(account).toMutableAccountData();
+        updatedAccountData.setName("Jean-Pierre Dupont");
+        updatedAccountData.setEmail("jp.dupont@example.com");
+        updatedAccountData.setCompanyName(null);
+        accountDao.update(new AccountModelDao(account.getId(), updatedAccountData), internalCallContext);
+
+        checkSearchAccounts(account.getName(), null);
+        checkSearchAccounts(account.getEmail(), null);
+        checkSearchAccounts("jean-pierre dupont", account);
+        checkSearchAccounts("Dupont", account);
+        checkSearchAccounts("pierre", account);
+        checkSearchAccounts("jp.dup", account);
+        checkSearchAccounts(account.getExternalKey(), account);
+
+        // Wildcards in the search key are matched literally
+        checkSearchAccounts("%", null);
+        checkSearchAccounts("_", null);
+    }
+
+    @Test(groups = "slow", description = "Test Account DAO: search keys backfill")
+    public void testBackfillSearchKeys() throws Exception {
+        final AccountModelDao account = createTestAccount();
+        accountDao.create(account, internalCallContext);
+        final MutableAccountData updatedAccountData = new DefaultAccount(account).toMutableAccountData();
+        updatedAccountData.setName("Jean-Pierre  Dupont");
+        accountDao.update(new AccountModelDao(account.getId(), updatedAccountData), internalCallContext);
+
+        // Simulate an account created before account_search_keys existed
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                handle.execute("delete from account_search_keys");
+                return null;
+            }
+        });
+        checkSearchAccounts("dupont", null);
+
+        Assert.assertEquals(accountDao.backfillSearchKeys(), 1);
+        // Same keys as the ones computed on creation and update
+        checkSearchAccounts("jean-pierre dupont", account);
+        checkSearchAccounts("Dupont", account);
+        checkSearchAccounts(account.getEmail(), account);
+        checkSearchAccounts(account.getExternalKey(), account);
+
+        // Nothing left to do
+        Assert.assertEquals(accountDao.backfillSearchKeys(), 0);
+
+        // A concurrent backfill can't add the same keys twice
+        try {
+            dbi.withHandle(new HandleCallback<Void>() {
+                @Override
+                public Void withHandle(final Handle handle) throws Exception {
+                    handle.execute("insert into account_search_keys (account_record_id, search_key, tenant_record_id) " +
+                                   "select account_record_id, search_key, tenant_record_id from account_search_keys where search_key = 'dupont'");
+                    return null;
+                }
+            });
+            Assert.fail("Duplicate search keys shouldn't be allowed");
+        } catch (final RuntimeException e) {
+            checkSearchAccounts("dupont", account);
+        }
+    }
+
+    private void checkSearchAccounts(final String searchKey, final AccountModelDao expectedAccount) {
+        final Pagination<AccountModelDao> accounts = accountDao.searchAccounts(searchKey, 0L, 100L, internalCallContext);
+        final List<AccountModelDao> results = ImmutableList.<AccountModelDao>copyOf(accounts.iterator());
+        if (expectedAccount == null) {
+            Assert.assertEquals(results.size(), 0);
+            Assert.assertEquals(accounts.getTotalNbRecords(), (Long) 0L);
+        } else {
+            Assert.assertEquals(results.size(), 1);
+            Assert.assertEquals(results.get(0).getId(), expectedAccount.getId());
+            Assert.assertEquals(accounts.getTotalNbRecords(), (Long) 1L);
+        }
+    }
+
+    @Test(groups = "slow", description = "Test Account DAO: keyset pagination")
+    public void testGetAccountsFromRecordId() throws Exception {
+        final List<UUID> accountIds = new LinkedList<UUID>();
+        for (int i = 0; i < 5; i++) {
+            final AccountModelDao account = createTestAccount();
+            accountDao.create(account, internalCallContext);
+            accountIds.add(account.getId());
+        }
+
+        final List<UUID> seenAccountIds = new LinkedList<UUID>();
+        Long lastRecordId = 0L;
+        while (true) {
+            final List<AccountModelDao> page = accountDao.getAccountsFromRecordId(lastRecordId, 2L, internalCallContext);
+            if (page.isEmpty()) {
+                break;
+            }
+            Assert.assertTrue(page.size() <= 2);
+            for (final AccountModelDao account : page) {
+                Assert.assertTrue(account.getRecordId() > lastRecordId);
+                seenAccountIds.add(account.getId());
+            }
+            lastRecordId = page.get(page.size() - 1).getRecordId();
+
+            if (seenAccountIds.size() == 2) {
+                // Accounts created while paginating show up at the end, without shifting the next pages
+                final AccountModelDao account = createTestAccount();
+                accountDao.create(account, internalCallContext);
+                accountIds.add(account.getId());
+            }
+        }
+        Assert.assertEquals(seenAccountIds, accountIds);
+
+        // Stale cursor (e.g. past the last account)
+        Assert.assertEquals(accountDao.getAccountsFromRecordId(lastRecordId, 2L, internalCallContext).size(), 0);
+    }
+
+    @Test(groups = "slow", description = "Test Account DAO: keyset search")
+    public void testSearchAccountsFromRecordId() throws Exception {
+        final List<UUID> matchingAccountIds = new LinkedList<UUID>();
+        for (int i = 0; i < 6; i++) {
+            final AccountModelDao account = createTestAccount();
+            if (i % 2 == 0) {
+                account.setName("Jean Dupont " + i);
+                matchingAccountIds.add(account.getId());
+            }
+            accountDao.create(account, internalCallContext);
+        }
+
+        final List<UUID> seenAccountIds = new LinkedList<UUID>();
+        Long lastRecordId = 0L;
+        List<AccountModelDao> page;
+        do {
+            page = accountDao.searchAccountsFromRecordId("dupont", lastRecordId, 2L, internalCallContext);
+            for (final AccountModelDao account : page) {
+                seenAccountIds.add(account.getId());
+                lastRecordId = account.getRecordId();
+            }
+        } while (page.size() == 2);
+        Assert.assertEquals(seenAccountIds, matchingAccountIds);
+
+        Assert.assertEquals(accountDao.searchAccountsFromRecordId("dupont", lastRecordId, 2L, internalCallContext).size(), 0);
+        Assert.assertEquals(accountDao.searchAccountsFromRecordId(UUID.randomUUID().toString(), 0L, 2L, internalCallContext).size(), 0);
+    }
+
     @Test(groups = "slow", description = "Test Account DAO: basic update (1)")
     public void testUpdate() throws Exception {
         final AccountModelDao account = createTestAccount();
@@ -17,6 +17,7 @@
 package org.killbill.billing.account.api;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.killbill.billing.callcontext.InternalCallContext;
@@ -40,4 +41,25 @@ public interface AccountInternalApi {
     public void updatePaymentMethod(UUID accountId, UUID paymentMethodId, InternalCallContext context) throws AccountApiException;
 
     public UUID getByRecordId(Long recordId, InternalTenantContext context) throws AccountApiException;
+
+    /**
+     * Keyset scan of all the accounts of a tenant
+     *
+     * @param lastRecordId record id of the last account of the previous chunk (0 to start from the beginning)
+     * @param limit        maximum number of accounts to return
+     * @param context      tenant callcontext (the account record id is not used)
+     * @return mapping account record id -> account, ordered by record id
+     */
+    public Map<Long, Account> getAccountsFromRecordId(Long lastRecordId, int limit, InternalTenantContext context);
+
+    /**
+     * Keyset search of the accounts of a tenant
+     *
+     * @param searchKey    what to search for (see AccountUserApi#searchAccounts)
+     * @param lastRecordId record id of the last account of the previous page (0 to start from the beginning)
+     * @param limit        maximum number of accounts to return
+     * @param context      tenant callcontext (the account record id is not used)
+     * @return mapping account record id -> account, ordered by record id
+     */
+    public Map<Long, Account> searchAccountsFromRecordId(String searchKey, Long lastRecordId, int limit, InternalTenantContext context);
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.audit;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.api.AuditLevel;
+import org.killbill.billing.util.audit.AccountAuditLogs;
+
+public interface AuditInternalApi {
+
+    /**
+     * Retrieve the audit logs of several account records at once
+     *
+     * @param accountIds account ids
+     * @param auditLevel audit level
+     * @param context    tenant callcontext (the account record id is not used)
+     * @return mapping account id -> audit logs (only the ones for the account object itself are populated)
+     */
+    public Map<UUID, AccountAuditLogs> getAccountAuditLogs(Collection<UUID> accountIds, AuditLevel auditLevel, InternalTenantContext context);
+}
@@ -16,12 +16,34 @@
 
 package org.killbill.billing.entitlement;
 
+import java.util.List;
 import java.util.UUID;
 
+import org.joda.time.LocalDate;
+import org.killbill.billing.catalog.api.BillingActionPolicy;
 import org.killbill.billing.entitlement.api.EntitlementApiException;
+import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.TenantContext;
 
 public interface EntitlementInternalApi {
 
     public AccountEntitlements getAllEntitlementsForAccountId(UUID accountId, TenantContext context) throws EntitlementApiException;
+
+    /**
+     * Transfer several bundles from one account to another, in batches of bundles
+     * (see {@link org.killbill.billing.util.config.SubscriptionConfig#getBulkTransferBatchSize()}).
+     * The subscriptions of each batch are blocked on the source account as soon as the batch has been transferred.
+     *
+     * @param sourceAccountId the unique id for the account on which the bundles are currently attached
+     * @param destAccountId   the unique id for the account to which the bundles will be transferred
+     * @param externalKeys    the externalKeys of the bundles to transfer
+     * @param effectiveDate   the date at which this transfer should occur
+     * @param billingPolicy   the override billing policy for the cancellation on the source account
+     * @param context         the context
+     * @return the ids of the new bundles, in the order of the externalKeys
+     * @throws EntitlementApiException if the transfer of any of the bundles was not successful; the message lists the
+     *                                 bundles which were already transferred by the previous batches, if any
+     */
+    public List<UUID> transferEntitlements(UUID sourceAccountId, UUID destAccountId, List<String> externalKeys, LocalDate effectiveDate,
+                                           BillingActionPolicy billingPolicy, CallContext context) throws EntitlementApiException;
 }
@@ -18,6 +18,7 @@ package org.killbill.billing.invoice.api;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -40,6 +41,24 @@ public interface InvoiceInternalApi {
 
     public BigDecimal getAccountBalance(UUID accountId, InternalTenantContext context);
 
+    /**
+     * Compute the balance and CBA of several accounts at once
+     *
+     * @param accountIds account ids
+     * @param context    tenant callcontext (the account record id is not used)
+     * @return mapping account id -> balance (accounts without any invoice are omitted)
+     */
+    public Map<UUID, InvoiceAccountBalance> getAccountBalances(Collection<UUID> accountIds, InternalTenantContext context);
+
+    /**
+     * Retrieve the unpaid invoices (positive balance) of several accounts at once, without loading invoice items and payments
+     *
+     * @param accountIds account ids
+     * @param context    tenant callcontext (the account record id is not used)
+     * @return mapping account id -> unpaid invoice balances, ordered by invoice date (accounts without any unpaid invoice are omitted)
+     */
+    public Map<UUID, List<InvoiceUnpaidBalance>> getUnpaidInvoiceBalances(Collection<UUID> accountIds, InternalTenantContext context);
+
     public void notifyOfPayment(UUID invoiceId, BigDecimal amountOutstanding, Currency currency, Currency processedCurrency, UUID paymentId, DateTime paymentDate, InternalCallContext context) throws InvoiceApiException;
 
     public void notifyOfPayment(InvoicePayment invoicePayment, InternalCallContext context) throws InvoiceApiException;
@@ -32,4 +32,12 @@ public interface OverdueUserApi {
 
     public BillingState getBillingStateFor(Account overdueable, TenantContext context) throws OverdueException;
 
+    /**
+     * Queue the re-evaluation of the overdue state of all the accounts of the tenant, which happens asynchronously
+     *
+     * @param context the tenant callcontext
+     * @throws OverdueException if the sweep cannot be queued
+     */
+    public void scheduleOverdueSweep(CallContext context) throws OverdueException;
+
 }
@@ -16,6 +16,7 @@
 
 package org.killbill.billing.subscription.api.migration;
 
+import java.io.File;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -119,6 +120,41 @@ public interface SubscriptionBaseMigrationApi {
         public DateTime getCancelledDate();
     }
 
+    /**
+     * The interface {@code BulkMigrationResult} summarizes what a bulk migration imported.
+     */
+    public interface BulkMigrationResult {
+
+        /**
+         *
+         * @return the number of accounts found in the input file
+         */
+        public int getNbAccounts();
+
+        /**
+         *
+         * @return the number of bundles imported
+         */
+        public int getNbBundles();
+
+        /**
+         *
+         * @return the number of bundles skipped because they already existed (e.g. when resuming an import)
+         */
+        public int getNbSkippedBundles();
+
+        /**
+         *
+         * @return the number of subscriptions imported
+         */
+        public int getNbSubscriptions();
+
+        /**
+         *
+         * @return the number of subscription events imported
+         */
+        public int getNbEvents();
+    }
 
     /**
      * Migrate all the existing entitlements associated with that account.
@@ -130,4 +166,20 @@ public interface SubscriptionBaseMigrationApi {
      */
     public void migrate(AccountMigration toBeMigrated, CallContext context)
             throws SubscriptionBaseMigrationApiException;
+
+    /**
+     * Migrate the entitlements of many accounts, from a file (see BulkMigrationReader for the format).
+     * <p/>
+     * The whole file is validated against the catalog before anything is written. Accounts are then
+     * written by batches, each batch in its own transaction, without sending any bus event. Bundles which already
+     * exist are skipped, so an interrupted import can be resumed by running it again on the same file.
+     *
+     * @param input   the file to import
+     * @param context the call context
+     * @return a summary of the import
+     * @throws SubscriptionBaseMigrationApiException
+     *          if the file is invalid (nothing is written in that case)
+     */
+    public BulkMigrationResult bulkMigrate(File input, CallContext context)
+            throws SubscriptionBaseMigrationApiException;
 }
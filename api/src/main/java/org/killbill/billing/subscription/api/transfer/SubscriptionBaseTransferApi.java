@@ -16,6 +16,8 @@
 
 package org.killbill.billing.subscription.api.transfer;
 
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -43,4 +45,22 @@ public interface SubscriptionBaseTransferApi {
     public SubscriptionBaseBundle transferBundle(final UUID sourceAccountId, final UUID destAccountId, final String bundleKey, final DateTime requestedDate,
                                              final boolean transferAddOn, final boolean cancelImmediately, final CallContext context)
             throws SubscriptionBaseTransferApiException;
+
+    /**
+     * Bulk version of {@code transferBundle}: bundles are moved in as few transactions as possible and a single invoice run
+     * is triggered per account and per transaction, instead of one per transferred subscription.
+     *
+     * @param sourceAccountId           the unique id for the account on which the bundles will be transferred from
+     * @param destAccountId             the unique id for the account on which the bundles will be transferred to
+     * @param requestedDateByBundleKeys the externalKeys for the bundles, with the date at which each transfer should occur
+     * @param transferAddOn             whether or not we should also transfer ADD_ON subscriptions existing on these {@code SubscriptionBaseBundle}
+     * @param cancelImmediately         whether cancellation on the sourceAccount occurs immediately
+     * @param context                   the user callcontext
+     * @return the newly created {@code SubscriptionBaseBundle}, in the iteration order of requestedDateByBundleKeys
+     * @throws SubscriptionBaseTransferApiException
+     *          if the system could not transfer one of the {@code SubscriptionBaseBundle} (transfers from previous transactions are not rolled back)
+     */
+    public List<SubscriptionBaseBundle> transferBundles(final UUID sourceAccountId, final UUID destAccountId, final Map<String, DateTime> requestedDateByBundleKeys,
+                                                       final boolean transferAddOn, final boolean cancelImmediately, final CallContext context)
+            throws SubscriptionBaseTransferApiException;
 }
@@ -16,7 +16,9 @@
 
 package org.killbill.billing.tag;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.killbill.billing.ObjectType;
@@ -40,6 +42,16 @@ public interface TagInternalApi {
      */
     public List<Tag> getTags(UUID objectId, ObjectType objectType, InternalTenantContext context);
 
+    /**
+     * Return tags for a set of objects of the same type, in one round trip
+     *
+     * @param objectIds  the object ids
+     * @param objectType the object type
+     * @param context    call callcontext
+     * @return mapping object id -> tags (empty list for objects without tags)
+     */
+    public Map<UUID, List<Tag>> getTagsForObjects(Collection<UUID> objectIds, ObjectType objectType, InternalTenantContext context);
+
     public void addTag(final UUID objectId, final ObjectType objectType, UUID tagDefinitionId, InternalCallContext context) throws TagApiException;
 
     public void removeTag(final UUID objectId, final ObjectType objectType, final UUID tagDefinitionId, InternalCallContext context) throws TagApiException;
@@ -53,12 +53,19 @@ public class DefaultBeatrixService implements BeatrixService {
         }
     }
 
+    @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
+    public void start() {
+        beatrixListener.start();
+    }
+
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
     public void unregisterForNotifications() {
         try {
             eventBus.unregister(beatrixListener);
         } catch (final PersistentBus.EventBusException e) {
             throw new RuntimeException("Unable to unregister to the EventBus!", e);
+        } finally {
+            beatrixListener.stop();
         }
     }
 }
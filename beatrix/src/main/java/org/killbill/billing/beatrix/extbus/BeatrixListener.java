@@ -51,13 +51,17 @@ import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.ExtBusConfig;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.bus.api.BusEvent;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.killbill.clock.Clock;
+import org.skife.jdbi.v2.IDBI;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
@@ -66,13 +70,11 @@ import com.google.common.eventbus.Subscribe;
 
 public class BeatrixListener {
 
-    private static final Logger log = LoggerFactory.getLogger(BeatrixListener.class);
-
-    private final PersistentBus externalBus;
     private final InternalCallContextFactory internalCallContextFactory;
     private final AccountInternalApi accountApi;
     private final NonEntityDao nonEntityDao;
     private final CacheControllerDispatcher cacheControllerDispatcher;
+    private final ExternalBusEventWriter externalBusEventWriter;
 
     protected final ObjectMapper objectMapper;
 
@@ -81,29 +83,45 @@ public class BeatrixListener {
                            final InternalCallContextFactory internalCallContextFactory,
                            final AccountInternalApi accountApi,
                            final  CacheControllerDispatcher cacheControllerDispatcher,
-                           final NonEntityDao nonEntityDao) {
-        this.externalBus = externalBus;
+                           final NonEntityDao nonEntityDao,
+                           final AggregatedProfiling aggregatedProfiling,
+                           final IDBI dbi,
+                           final Clock clock,
+                           final ExtBusConfig extBusConfig,
+                           final MetricRegistry metricRegistry) {
         this.internalCallContextFactory = internalCallContextFactory;
         this.accountApi = accountApi;
         this.nonEntityDao = nonEntityDao;
         this.cacheControllerDispatcher = cacheControllerDispatcher;
+        this.externalBusEventWriter = new ExternalBusEventWriter(externalBus,
+                                                                 new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, aggregatedProfiling),
+                                                                 extBusConfig,
+                                                                 metricRegistry);
         this.objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JodaModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     }
 
+    public void start() {
+        externalBusEventWriter.start();
+    }
+
+    public void stop() {
+        externalBusEventWriter.stop();
+    }
+
     @AllowConcurrentEvents
     @Subscribe
-    public void handleAllInternalKillbillEvents(final BusInternalEvent event) {
+    public void handleAllInternalKillbillEvents(final BusInternalEvent event) throws EventBusException {
+        final long receivedNanos = System.nanoTime();
         final InternalCallContext internalContext = internalCallContextFactory.createInternalCallContext(event.getSearchKey2(), event.getSearchKey1(), "BeatrixListener", CallOrigin.INTERNAL, UserType.SYSTEM, event.getUserToken());
-        try {
-            final BusEvent externalEvent = computeExtBusEventEntryFromBusInternalEvent(event, internalContext);
-            if (externalEvent != null) {
-                externalBus.post(externalEvent);
-            }
-        } catch (final EventBusException e) {
-            log.warn("Failed to dispatch external bus events", e);
+        final BusEvent externalEvent = computeExtBusEventEntryFromBusInternalEvent(event, internalContext);
+        if (externalEvent == null) {
+            return;
         }
+
+        // Only returns once the external event is written, so that the internal bus event is acked (or retried) accordingly
+        externalBusEventWriter.post(externalEvent, receivedNanos);
     }
 
     private BusEvent computeExtBusEventEntryFromBusInternalEvent(final BusInternalEvent event, final InternalCallContext context) {
@@ -243,12 +261,16 @@ public class BeatrixListener {
 
             default:
         }
+
+        if (eventBusType == null) {
+            return null;
+        }
+
+        // Both lookups go through the OBJECT_ID cache
         final UUID accountId = getAccountIdFromRecordId(event.getBusEventType(), objectId, context.getAccountRecordId());
         final UUID tenantId = nonEntityDao.retrieveIdFromObject(context.getTenantRecordId(), ObjectType.TENANT, cacheControllerDispatcher.getCacheController(CacheType.OBJECT_ID));
 
-        return eventBusType != null ?
-               new DefaultBusExternalEvent(objectId, objectType, eventBusType, accountId, tenantId, context.getAccountRecordId(), context.getTenantRecordId(), context.getUserToken()) :
-               null;
+        return new DefaultBusExternalEvent(objectId, objectType, eventBusType, accountId, tenantId, context.getAccountRecordId(), context.getTenantRecordId(), context.getUserToken());
     }
 
     private UUID getAccountIdFromRecordId(final BusInternalEventType eventType, final UUID objectId, final Long recordId) {
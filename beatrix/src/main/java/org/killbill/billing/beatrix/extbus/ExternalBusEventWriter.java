@@ -0,0 +1,237 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.beatrix.extbus;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.killbill.billing.util.config.ExtBusConfig;
+import org.killbill.billing.util.entity.dao.EntitySqlDao;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.bus.api.BusEvent;
+import org.killbill.bus.api.PersistentBus;
+import org.killbill.bus.api.PersistentBus.EventBusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Writes external bus events, grouping the events posted concurrently by the bus handlers in a single transaction.
+ * <p/>
+ * {@link #post(BusEvent, long)} only returns once the event has been written: the internal bus event which triggered it
+ * is then acked by the internal bus, and if the write fails the exception propagates to the internal bus, which retries it.
+ */
+public class ExternalBusEventWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ExternalBusEventWriter.class);
+
+    private static final String FLUSHER_THREAD_NAME = "beatrix-extbus-flusher";
+
+    private final PersistentBus externalBus;
+    private final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao;
+    private final ExtBusConfig extBusConfig;
+    private final BlockingQueue<StagedExternalEvent> stagedEvents;
+    private final Timer lag;
+    private final Meter flushes;
+
+    private volatile boolean isStarted;
+    private Thread flusherThread;
+
+    public ExternalBusEventWriter(final PersistentBus externalBus,
+                                  final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao,
+                                  final ExtBusConfig extBusConfig,
+                                  final MetricRegistry metricRegistry) {
+        this.externalBus = externalBus;
+        this.transactionalSqlDao = transactionalSqlDao;
+        this.extBusConfig = extBusConfig;
+        this.stagedEvents = new LinkedBlockingQueue<StagedExternalEvent>();
+
+        this.lag = metricRegistry.timer(MetricRegistry.name(BeatrixListener.class, "lag"));
+        this.flushes = metricRegistry.meter(MetricRegistry.name(BeatrixListener.class, "flushes"));
+        final String stagedName = MetricRegistry.name(BeatrixListener.class, "staged");
+        if (!metricRegistry.getGauges().containsKey(stagedName)) {
+            metricRegistry.register(stagedName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return stagedEvents.size();
+                }
+            });
+        }
+    }
+
+    public synchronized void start() {
+        if (isStarted || extBusConfig.getExtBusBatchSize() <= 1) {
+            return;
+        }
+
+        isStarted = true;
+        flusherThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (isStarted) {
+                    try {
+                        flushNextBatch();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        }, FLUSHER_THREAD_NAME);
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+    }
+
+    public synchronized void stop() {
+        if (!isStarted) {
+            return;
+        }
+
+        // The flusher notices within a second, once its current batch (if any) has been written
+        isStarted = false;
+        try {
+            flusherThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flusherThread = null;
+
+        // Release the handlers still waiting on their event
+        final List<StagedExternalEvent> remaining = new LinkedList<StagedExternalEvent>();
+        stagedEvents.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    public void post(final BusEvent event, final long receivedNanos) throws EventBusException {
+        final StagedExternalEvent stagedEvent = new StagedExternalEvent(event, receivedNanos);
+        if (!isStarted) {
+            postNow(stagedEvent);
+            return;
+        }
+
+        stagedEvents.add(stagedEvent);
+        try {
+            stagedEvent.getResult().get(extBusConfig.getExtBusFlushTimeout().getMillis(), TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventBusException("Interrupted while waiting for external bus event " + event + " to be written", e);
+        } catch (final TimeoutException e) {
+            // The event may still be written later on, in which case the retry will post it twice
+            throw new EventBusException("Timed out waiting for external bus event " + event + " to be written", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof EventBusException) {
+                throw (EventBusException) e.getCause();
+            }
+            throw new EventBusException("Failed to write external bus event " + event, e.getCause());
+        }
+    }
+
+    private void flushNextBatch() throws InterruptedException {
+        final StagedExternalEvent first = stagedEvents.poll(1, TimeUnit.SECONDS);
+        if (first == null) {
+            return;
+        }
+
+        // No added delay: whatever was staged while the previous batch was being written goes in this one
+        final int batchSize = extBusConfig.getExtBusBatchSize();
+        final List<StagedExternalEvent> batch = new ArrayList<StagedExternalEvent>(batchSize);
+        batch.add(first);
+        stagedEvents.drainTo(batch, batchSize - 1);
+
+        flush(batch);
+    }
+
+    private void flush(final List<StagedExternalEvent> batch) {
+        try {
+            // One transaction for the whole batch instead of one per event
+            transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+                @Override
+                public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                    for (final StagedExternalEvent stagedEvent : batch) {
+                        externalBus.postFromTransaction(stagedEvent.getEvent(), entitySqlDaoWrapperFactory.getSqlDao());
+                    }
+                    return null;
+                }
+            });
+        } catch (final RuntimeException e) {
+            log.warn("Failed to dispatch a batch of " + batch.size() + " external bus events, posting them one by one", e);
+            for (final StagedExternalEvent stagedEvent : batch) {
+                try {
+                    postNow(stagedEvent);
+                    stagedEvent.getResult().set(null);
+                } catch (final EventBusException ex) {
+                    stagedEvent.getResult().setException(ex);
+                } catch (final RuntimeException ex) {
+                    stagedEvent.getResult().setException(ex);
+                }
+            }
+            return;
+        }
+
+        flushes.mark();
+        for (final StagedExternalEvent stagedEvent : batch) {
+            lag.update(System.nanoTime() - stagedEvent.getReceivedNanos(), TimeUnit.NANOSECONDS);
+            stagedEvent.getResult().set(null);
+        }
+    }
+
+    private void postNow(final StagedExternalEvent stagedEvent) throws EventBusException {
+        externalBus.post(stagedEvent.getEvent());
+        lag.update(System.nanoTime() - stagedEvent.getReceivedNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static final class StagedExternalEvent {
+
+        private final BusEvent event;
+        private final long receivedNanos;
+        private final SettableFuture<Void> result;
+
+        private StagedExternalEvent(final BusEvent event, final long receivedNanos) {
+            this.event = event;
+            this.receivedNanos = receivedNanos;
+            this.result = SettableFuture.create();
+        }
+
+        public BusEvent getEvent() {
+            return event;
+        }
+
+        public long getReceivedNanos() {
+            return receivedNanos;
+        }
+
+        public SettableFuture<Void> getResult() {
+            return result;
+        }
+    }
+}
@@ -22,7 +22,9 @@ import org.killbill.billing.beatrix.DefaultBeatrixService;
 import org.killbill.billing.beatrix.bus.api.BeatrixService;
 import org.killbill.billing.beatrix.extbus.BeatrixListener;
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.ExtBusConfig;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class BeatrixModule extends KillBillModule {
 
@@ -36,6 +38,9 @@ public class BeatrixModule extends KillBillModule {
     }
 
     protected void installExternalBus() {
+        final ExtBusConfig extBusConfig = new ConfigurationObjectFactory(skifeConfigSource).build(ExtBusConfig.class);
+        bind(ExtBusConfig.class).toInstance(extBusConfig);
+
         bind(BeatrixService.class).to(DefaultBeatrixService.class);
         bind(DefaultBeatrixService.class).asEagerSingleton();
 
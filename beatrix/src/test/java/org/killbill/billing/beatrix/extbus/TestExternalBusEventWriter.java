@@ -0,0 +1,152 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.beatrix.extbus;
+
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.beatrix.BeatrixTestSuite;
+import org.killbill.billing.notification.plugin.api.ExtBusEventType;
+import org.killbill.billing.util.config.ExtBusConfig;
+import org.killbill.billing.util.entity.dao.EntitySqlDao;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.bus.api.BusEvent;
+import org.killbill.bus.api.PersistentBus;
+import org.killbill.bus.api.PersistentBus.EventBusException;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.skife.config.TimeSpan;
+import org.skife.jdbi.v2.sqlobject.mixins.Transmogrifier;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestExternalBusEventWriter extends BeatrixTestSuite {
+
+    private PersistentBus externalBus;
+    private EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao;
+    private EntitySqlDao entitySqlDao;
+    private ExternalBusEventWriter writer;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        externalBus = Mockito.mock(PersistentBus.class);
+        transactionalSqlDao = Mockito.mock(EntitySqlDaoTransactionalJdbiWrapper.class);
+        entitySqlDao = Mockito.mock(EntitySqlDao.class);
+
+        final ExtBusConfig extBusConfig = Mockito.mock(ExtBusConfig.class);
+        Mockito.when(extBusConfig.getExtBusBatchSize()).thenReturn(10);
+        Mockito.when(extBusConfig.getExtBusFlushTimeout()).thenReturn(new TimeSpan("10s"));
+
+        writer = new ExternalBusEventWriter(externalBus, transactionalSqlDao, extBusConfig, new MetricRegistry());
+        writer.start();
+    }
+
+    @AfterMethod(groups = "fast")
+    public void afterMethod() throws Exception {
+        writer.stop();
+    }
+
+    @Test(groups = "fast")
+    public void testFailedFlushIsNotAcked() throws Exception {
+        final BusEvent event = createEvent();
+
+        // The batch transaction fails, and so does the fallback post
+        Mockito.doThrow(new RuntimeException("Database is down")).when(transactionalSqlDao).execute(Mockito.<EntitySqlDaoTransactionWrapper<Object>>any());
+        Mockito.doThrow(new EventBusException("Database is down")).when(externalBus).post(event);
+        try {
+            writer.post(event, System.nanoTime());
+            Assert.fail("The failure should have been propagated to the internal bus");
+        } catch (final EventBusException e) {
+            Assert.assertEquals(e.getMessage(), "Database is down");
+        }
+
+        // The internal bus retries the event once the database is back
+        Mockito.reset(externalBus);
+        Mockito.doAnswer(new RunTransaction()).when(transactionalSqlDao).execute(Mockito.<EntitySqlDaoTransactionWrapper<Object>>any());
+        writer.post(event, System.nanoTime());
+
+        Mockito.verify(externalBus).postFromTransaction(event, entitySqlDao);
+    }
+
+    @Test(groups = "fast")
+    public void testFailedFlushFallsBackToIndividualPosts() throws Exception {
+        final BusEvent event = createEvent();
+
+        Mockito.doThrow(new RuntimeException("Deadlock")).when(transactionalSqlDao).execute(Mockito.<EntitySqlDaoTransactionWrapper<Object>>any());
+        writer.post(event, System.nanoTime());
+
+        Mockito.verify(externalBus).post(event);
+        Mockito.verify(externalBus, Mockito.never()).postFromTransaction(Mockito.<BusEvent>any(), Mockito.<Transmogrifier>any());
+    }
+
+    @Test(groups = "fast")
+    public void testConcurrentEventsAreAllWritten() throws Exception {
+        Mockito.doAnswer(new RunTransaction()).when(transactionalSqlDao).execute(Mockito.<EntitySqlDaoTransactionWrapper<Object>>any());
+
+        final int nbEvents = 50;
+        final ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            final Future<?>[] posts = new Future<?>[nbEvents];
+            for (int i = 0; i < nbEvents; i++) {
+                posts[i] = executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        writer.post(createEvent(), System.nanoTime());
+                        return null;
+                    }
+                });
+            }
+            for (final Future<?> post : posts) {
+                post.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Each post() only returned once its event was written
+        Mockito.verify(externalBus, Mockito.times(nbEvents)).postFromTransaction(Mockito.<BusEvent>any(), Mockito.<Transmogrifier>any());
+        Mockito.verify(externalBus, Mockito.never()).post(Mockito.<BusEvent>any());
+    }
+
+    private BusEvent createEvent() {
+        return new DefaultBusExternalEvent(UUID.randomUUID(), ObjectType.ACCOUNT, ExtBusEventType.ACCOUNT_CHANGE, UUID.randomUUID(), UUID.randomUUID(), 1L, 2L, UUID.randomUUID());
+    }
+
+    private final class RunTransaction implements Answer<Object> {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object answer(final InvocationOnMock invocation) throws Throwable {
+            final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory = Mockito.mock(EntitySqlDaoWrapperFactory.class);
+            Mockito.when(entitySqlDaoWrapperFactory.getSqlDao()).thenReturn(entitySqlDao);
+            return ((EntitySqlDaoTransactionWrapper<?>) invocation.getArguments()[0]).inTransaction(entitySqlDaoWrapperFactory);
+        }
+    }
+}
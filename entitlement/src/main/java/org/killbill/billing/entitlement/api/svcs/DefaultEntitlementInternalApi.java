@@ -16,22 +16,35 @@
 
 package org.killbill.billing.entitlement.api.svcs;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import javax.inject.Inject;
 
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.killbill.billing.BillingExceptionBase;
+import org.killbill.billing.ErrorCode;
 import org.killbill.billing.account.api.AccountInternalApi;
+import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.catalog.api.BillingActionPolicy;
 import org.killbill.clock.Clock;
 import org.killbill.billing.entitlement.AccountEntitlements;
 import org.killbill.billing.entitlement.AccountEventsStreams;
 import org.killbill.billing.entitlement.EntitlementInternalApi;
+import org.killbill.billing.entitlement.EntitlementService;
 import org.killbill.billing.entitlement.EventsStream;
+import org.killbill.billing.entitlement.api.BlockingState;
+import org.killbill.billing.entitlement.api.BlockingStateType;
 import org.killbill.billing.entitlement.api.DefaultEntitlement;
+import org.killbill.billing.entitlement.api.DefaultEntitlementApi;
 import org.killbill.billing.entitlement.api.Entitlement;
 import org.killbill.billing.entitlement.api.EntitlementApi;
 import org.killbill.billing.entitlement.api.EntitlementApiException;
@@ -40,15 +53,29 @@ import org.killbill.billing.entitlement.block.BlockingChecker;
 import org.killbill.billing.entitlement.dao.BlockingStateDao;
 import org.killbill.billing.entitlement.engine.core.EntitlementUtils;
 import org.killbill.billing.entitlement.engine.core.EventsStreamBuilder;
+import org.killbill.billing.junction.DefaultBlockingState;
 import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
+import org.killbill.billing.subscription.api.transfer.SubscriptionBaseTransferApi;
+import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
+import org.killbill.billing.subscription.api.user.SubscriptionBaseBundle;
+import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.SubscriptionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Iterables;
 
 public class DefaultEntitlementInternalApi implements EntitlementInternalApi {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultEntitlementInternalApi.class);
+
     private final EntitlementApi entitlementApi;
     private final SubscriptionBaseInternalApi subscriptionInternalApi;
+    private final SubscriptionBaseTransferApi subscriptionBaseTransferApi;
     private final Clock clock;
     private final InternalCallContextFactory internalCallContextFactory;
     private final BlockingChecker checker;
@@ -57,22 +84,26 @@ public class DefaultEntitlementInternalApi implements EntitlementInternalApi {
     private final EventsStreamBuilder eventsStreamBuilder;
     private final EntitlementUtils entitlementUtils;
     private final NotificationQueueService notificationQueueService;
+    private final SubscriptionConfig subscriptionConfig;
 
     @Inject
     public DefaultEntitlementInternalApi(final EntitlementApi entitlementApi, final InternalCallContextFactory internalCallContextFactory,
-                                         final SubscriptionBaseInternalApi subscriptionInternalApi,
+                                         final SubscriptionBaseInternalApi subscriptionInternalApi, final SubscriptionBaseTransferApi subscriptionBaseTransferApi,
                                          final AccountInternalApi accountApi, final BlockingStateDao blockingStateDao, final Clock clock,
                                          final BlockingChecker checker, final NotificationQueueService notificationQueueService,
-                                         final EventsStreamBuilder eventsStreamBuilder, final EntitlementUtils entitlementUtils) {
+                                         final EventsStreamBuilder eventsStreamBuilder, final EntitlementUtils entitlementUtils,
+                                         final SubscriptionConfig subscriptionConfig) {
         this.entitlementApi = entitlementApi;
         this.internalCallContextFactory = internalCallContextFactory;
         this.subscriptionInternalApi = subscriptionInternalApi;
+        this.subscriptionBaseTransferApi = subscriptionBaseTransferApi;
         this.clock = clock;
         this.checker = checker;
         this.blockingStateDao = blockingStateDao;
         this.notificationQueueService = notificationQueueService;
         this.eventsStreamBuilder = eventsStreamBuilder;
         this.entitlementUtils = entitlementUtils;
+        this.subscriptionConfig = subscriptionConfig;
         this.dateHelper = new EntitlementDateHelper(accountApi, clock);
     }
 
@@ -98,4 +129,85 @@ public class DefaultEntitlementInternalApi implements EntitlementInternalApi {
 
         return new DefaultAccountEntitlements(accountEventsStreams, entitlementsPerBundle);
     }
+
+    @Override
+    public List<UUID> transferEntitlements(final UUID sourceAccountId, final UUID destAccountId, final List<String> externalKeys, final LocalDate effectiveDate,
+                                           final BillingActionPolicy billingPolicy, final CallContext context) throws EntitlementApiException {
+        final boolean cancelImm;
+        switch (billingPolicy) {
+            case IMMEDIATE:
+                cancelImm = true;
+                break;
+            case END_OF_TERM:
+                cancelImm = false;
+                break;
+            default:
+                throw new RuntimeException("Unexpected billing policy " + billingPolicy);
+        }
+
+        final InternalCallContext contextWithValidAccountRecordId = internalCallContextFactory.createInternalCallContext(sourceAccountId, context);
+        try {
+            // Validate all bundles first, so that nothing is transferred if one of the keys is invalid
+            final Map<String, DateTime> requestedDateByBundleKeys = new LinkedHashMap<String, DateTime>();
+            final Map<String, SubscriptionBaseBundle> baseBundleByKeys = new HashMap<String, SubscriptionBaseBundle>();
+            for (final String externalKey : externalKeys) {
+                final UUID activeSubscriptionIdForKey = entitlementUtils.getFirstActiveSubscriptionIdForKeyOrNull(externalKey, contextWithValidAccountRecordId);
+                final SubscriptionBase baseSubscription = activeSubscriptionIdForKey != null ?
+                                                          subscriptionInternalApi.getSubscriptionFromId(activeSubscriptionIdForKey, contextWithValidAccountRecordId) : null;
+                final SubscriptionBaseBundle baseBundle = baseSubscription != null ?
+                                                          subscriptionInternalApi.getBundleFromId(baseSubscription.getBundleId(), contextWithValidAccountRecordId) : null;
+
+                if (baseBundle == null || !baseBundle.getAccountId().equals(sourceAccountId)) {
+                    throw new EntitlementApiException(new SubscriptionBaseApiException(ErrorCode.SUB_GET_INVALID_BUNDLE_KEY, externalKey));
+                }
+
+                requestedDateByBundleKeys.put(externalKey, dateHelper.fromLocalDateAndReferenceTime(effectiveDate, baseSubscription.getStartDate(), contextWithValidAccountRecordId));
+                baseBundleByKeys.put(externalKey, baseBundle);
+            }
+
+            // Transfer the bundles batch by batch and block the source subscriptions of each batch right away, so that a failure
+            // never leaves transferred bundles active on the source account
+            final List<UUID> newBundleIds = new ArrayList<UUID>(requestedDateByBundleKeys.size());
+            final List<String> transferredKeys = new ArrayList<String>(requestedDateByBundleKeys.size());
+            final int batchSize = Math.max(1, subscriptionConfig.getBulkTransferBatchSize());
+            for (final List<String> batch : Iterables.partition(requestedDateByBundleKeys.keySet(), batchSize)) {
+                final Map<String, DateTime> requestedDateForBatch = new LinkedHashMap<String, DateTime>();
+                for (final String externalKey : batch) {
+                    requestedDateForBatch.put(externalKey, requestedDateByBundleKeys.get(externalKey));
+                }
+
+                try {
+                    final List<SubscriptionBaseBundle> newBundles = subscriptionBaseTransferApi.transferBundles(sourceAccountId, destAccountId, requestedDateForBatch, true, cancelImm, context);
+                    transferredKeys.addAll(batch);
+                    blockTransferredSubscriptions(requestedDateForBatch, baseBundleByKeys, contextWithValidAccountRecordId);
+                    for (final SubscriptionBaseBundle newBundle : newBundles) {
+                        newBundleIds.add(newBundle.getId());
+                    }
+                } catch (final BillingExceptionBase e) {
+                    if (transferredKeys.isEmpty()) {
+                        throw e;
+                    }
+                    log.warn("Bulk transfer from account {} to account {} failed after transferring bundles {}", sourceAccountId, destAccountId, transferredKeys);
+                    throw new EntitlementApiException(e, e.getCode(), String.format("%s (bundles already transferred: %s)", e.getMessage(), transferredKeys));
+                }
+            }
+            return newBundleIds;
+        } catch (EntitlementApiException e) {
+            throw e;
+        } catch (BillingExceptionBase e) {
+            throw new EntitlementApiException(e);
+        }
+    }
+
+    // Block all associated subscriptions, as in DefaultEntitlementApi#transferEntitlementsOverrideBillingPolicy
+    private void blockTransferredSubscriptions(final Map<String, DateTime> requestedDateByBundleKeys, final Map<String, SubscriptionBaseBundle> baseBundleByKeys,
+                                               final InternalCallContext context) throws SubscriptionBaseApiException {
+        for (final String externalKey : requestedDateByBundleKeys.keySet()) {
+            final DateTime requestedDate = requestedDateByBundleKeys.get(externalKey);
+            for (final SubscriptionBase subscriptionBase : subscriptionInternalApi.getSubscriptionsForBundle(baseBundleByKeys.get(externalKey).getId(), null, context)) {
+                final BlockingState blockingState = new DefaultBlockingState(subscriptionBase.getId(), BlockingStateType.SUBSCRIPTION, DefaultEntitlementApi.ENT_STATE_CANCELLED, EntitlementService.ENTITLEMENT_SERVICE_NAME, true, true, false, requestedDate);
+                entitlementUtils.setBlockingStateAndPostBlockingTransitionEvent(blockingState, context);
+            }
+        }
+    }
 }
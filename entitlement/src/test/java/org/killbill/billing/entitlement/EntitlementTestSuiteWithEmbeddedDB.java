@@ -76,6 +76,8 @@ public class EntitlementTestSuiteWithEmbeddedDB extends GuicyKillbillTestSuiteWi
     @Inject
     protected EntitlementApi entitlementApi;
     @Inject
+    protected EntitlementInternalApi entitlementInternalApi;
+    @Inject
     protected SubscriptionApi subscriptionApi;
     @Inject
     protected BlockingStateDao blockingStateDao;
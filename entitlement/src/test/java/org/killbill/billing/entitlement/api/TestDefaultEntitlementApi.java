@@ -37,6 +37,8 @@ import org.killbill.billing.entitlement.EntitlementTestSuiteWithEmbeddedDB;
 import org.killbill.billing.entitlement.api.Entitlement.EntitlementSourceType;
 import org.killbill.billing.entitlement.api.Entitlement.EntitlementState;
 
+import com.google.common.collect.ImmutableList;
+
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
 
@@ -435,4 +437,66 @@ public class TestDefaultEntitlementApi extends EntitlementTestSuiteWithEmbeddedD
         assertEquals(newBaseEntitlement.getEffectiveStartDate(), effectiveDate);
         assertEquals(newBaseEntitlement.getEffectiveEndDate(), null);
     }
+
+    @Test(groups = "slow")
+    public void testTransferBundles() throws AccountApiException, EntitlementApiException {
+        final LocalDate initialDate = new LocalDate(2013, 8, 7);
+        clock.setDay(initialDate);
+
+        final Account accountSrc = accountApi.createAccount(getAccountData(7), callContext);
+        final Account accountDesc = accountApi.createAccount(getAccountData(15), callContext);
+
+        final PlanPhaseSpecifier spec = new PlanPhaseSpecifier("Shotgun", ProductCategory.BASE, BillingPeriod.ANNUAL, PriceListSet.DEFAULT_PRICELIST_NAME, null);
+
+        // Create two entitlements
+        final String firstExternalKey = accountSrc.getExternalKey();
+        final String secondExternalKey = accountSrc.getExternalKey() + "-2";
+        testListener.pushExpectedEvents(NextEvent.CREATE, NextEvent.CREATE);
+        final Entitlement firstEntitlement = entitlementApi.createBaseEntitlement(accountSrc.getId(), spec, firstExternalKey, initialDate, callContext);
+        final Entitlement secondEntitlement = entitlementApi.createBaseEntitlement(accountSrc.getId(), spec, secondExternalKey, initialDate, callContext);
+        assertListenerStatus();
+
+        final DateTime ctd = clock.getUTCNow().plusDays(30).plusMonths(1);
+        testListener.pushExpectedEvents(NextEvent.PHASE, NextEvent.PHASE);
+        clock.addDays(32);
+        // Set manually since no invoice
+        subscriptionInternalApi.setChargedThroughDate(firstEntitlement.getId(), ctd, internalCallContext);
+        subscriptionInternalApi.setChargedThroughDate(secondEntitlement.getId(), ctd, internalCallContext);
+        assertListenerStatus();
+
+        final LocalDate effectiveDate = new LocalDate(clock.getUTCNow(), accountSrc.getTimeZone());
+
+        // An unknown key fails the whole request before anything is transferred
+        try {
+            entitlementInternalApi.transferEntitlements(accountSrc.getId(), accountDesc.getId(), ImmutableList.<String>of(firstExternalKey, "unknown-key"),
+                                                        effectiveDate, BillingActionPolicy.END_OF_TERM, callContext);
+            Assert.fail("Transfer of an unknown bundle should fail");
+        } catch (final EntitlementApiException e) {
+            assertEquals(e.getCode(), ErrorCode.SUB_GET_INVALID_BUNDLE_KEY.getCode());
+        }
+        assertEquals(entitlementApi.getAllEntitlementsForAccountIdAndExternalKey(accountSrc.getId(), firstExternalKey, callContext).get(0).getState(), EntitlementState.ACTIVE);
+
+        // Transfer both bundles to dest account
+        testListener.pushExpectedEvents(NextEvent.TRANSFER, NextEvent.TRANSFER, NextEvent.BLOCK, NextEvent.BLOCK);
+        final List<UUID> newBundleIds = entitlementInternalApi.transferEntitlements(accountSrc.getId(), accountDesc.getId(), ImmutableList.<String>of(firstExternalKey, secondExternalKey),
+                                                                                    effectiveDate, BillingActionPolicy.END_OF_TERM, callContext);
+        assertListenerStatus();
+        assertEquals(newBundleIds.size(), 2);
+
+        for (final String externalKey : ImmutableList.<String>of(firstExternalKey, secondExternalKey)) {
+            final Entitlement oldBaseEntitlement = entitlementApi.getAllEntitlementsForAccountIdAndExternalKey(accountSrc.getId(), externalKey, callContext).get(0);
+            assertEquals(oldBaseEntitlement.getEffectiveEndDate(), effectiveDate);
+            assertEquals(oldBaseEntitlement.getState(), EntitlementState.CANCELLED);
+        }
+
+        for (final UUID newBundleId : newBundleIds) {
+            final List<Entitlement> entitlements = entitlementApi.getAllEntitlementsForBundle(newBundleId, callContext);
+            assertEquals(entitlements.size(), 1);
+            assertEquals(entitlements.get(0).getAccountId(), accountDesc.getId());
+            assertEquals(entitlements.get(0).getState(), EntitlementState.ACTIVE);
+            assertEquals(entitlements.get(0).getEffectiveStartDate(), effectiveDate);
+        }
+        assertEquals(entitlementApi.getAllEntitlementsForBundle(newBundleIds.get(0), callContext).get(0).getExternalKey(), firstExternalKey);
+        assertEquals(entitlementApi.getAllEntitlementsForBundle(newBundleIds.get(1), callContext).get(0).getExternalKey(), secondExternalKey);
+    }
 }
@@ -65,11 +65,13 @@ import org.killbill.billing.invoice.model.DefaultInvoice;
 import org.killbill.billing.invoice.model.FixedPriceInvoiceItem;
 import org.killbill.billing.invoice.model.InvoiceItemFactory;
 import org.killbill.billing.invoice.model.RecurringInvoiceItem;
+import org.killbill.billing.invoice.notification.NextBillingDatePoster;
 import org.killbill.billing.invoice.plugin.api.InvoicePluginApi;
 import org.killbill.billing.junction.BillingEventSet;
 import org.killbill.billing.junction.BillingInternalApi;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
 import org.killbill.billing.payment.api.PluginProperty;
+import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
 import org.killbill.billing.util.cache.Cachable.CacheType;
@@ -99,6 +101,8 @@ public class InvoiceDispatcher {
 
     private static final Logger log = LoggerFactory.getLogger(InvoiceDispatcher.class);
     private static final int NB_LOCK_TRY = 5;
+    // Delay before retrying an invoice run which couldn't get the account lock
+    private static final int LOCK_FAILURE_RETRY_DELAY_SEC = 30;
 
     private final InvoiceGenerator generator;
     private final BillingInternalApi billingApi;
@@ -107,6 +111,7 @@ public class InvoiceDispatcher {
     private final InvoiceDao invoiceDao;
     private final NonEntityDao nonEntityDao;
     private final InvoiceNotifier invoiceNotifier;
+    private final NextBillingDatePoster nextBillingDatePoster;
     private final GlobalLocker locker;
     private final PersistentBus eventBus;
     private final Clock clock;
@@ -121,6 +126,7 @@ public class InvoiceDispatcher {
                              final InvoiceDao invoiceDao,
                              final NonEntityDao nonEntityDao,
                              final InvoiceNotifier invoiceNotifier,
+                             final NextBillingDatePoster nextBillingDatePoster,
                              final GlobalLocker locker,
                              final PersistentBus eventBus,
                              final Clock clock, final CacheControllerDispatcher controllerDispatcher) {
@@ -132,6 +138,7 @@ public class InvoiceDispatcher {
         this.invoiceDao = invoiceDao;
         this.nonEntityDao = nonEntityDao;
         this.invoiceNotifier = invoiceNotifier;
+        this.nextBillingDatePoster = nextBillingDatePoster;
         this.locker = locker;
         this.eventBus = eventBus;
         this.clock = clock;
@@ -145,37 +152,80 @@ public class InvoiceDispatcher {
         processSubscription(subscriptionId, targetDate, context);
     }
 
-    public void processSubscription(final UUID subscriptionId, final DateTime targetDate, final InternalCallContext context) throws InvoiceApiException {
+    // Returns false if the account lock couldn't be acquired (the invoice run was re-enqueued)
+    public boolean processSubscription(final UUID subscriptionId, final DateTime targetDate, final InternalCallContext context) throws InvoiceApiException {
+        if (subscriptionId == null) {
+            log.error("Failed handling SubscriptionBase change.", new InvoiceApiException(ErrorCode.INVOICE_INVALID_TRANSITION));
+            return true;
+        }
+
+        final UUID accountId;
         try {
-            if (subscriptionId == null) {
-                log.error("Failed handling SubscriptionBase change.", new InvoiceApiException(ErrorCode.INVOICE_INVALID_TRANSITION));
-                return;
-            }
-            final UUID accountId = subscriptionApi.getAccountIdFromSubscriptionId(subscriptionId, context);
-            processAccount(accountId, targetDate, null, context);
+            accountId = subscriptionApi.getAccountIdFromSubscriptionId(subscriptionId, context);
         } catch (final SubscriptionBaseApiException e) {
             log.error("Failed handling SubscriptionBase change.",
                       new InvoiceApiException(ErrorCode.INVOICE_NO_ACCOUNT_ID_FOR_SUBSCRIPTION_ID, subscriptionId.toString()));
+            return true;
+        }
+
+        try {
+            lockAndProcessAccount(accountId, targetDate, null, context);
+        } catch (final LockFailedException e) {
+            log.warn(String.format("Failed to lock account %s to process invoice for subscription %s, targetDate %s",
+                                   accountId, subscriptionId, targetDate));
+            reEnqueueInvoiceRun(accountId, subscriptionId, context);
+            return false;
         }
+        return true;
     }
 
     public Invoice processAccount(final UUID accountId, final DateTime targetDate,
                                   @Nullable final DryRunArguments dryRunArguments, final InternalCallContext context) throws InvoiceApiException {
+        try {
+            return lockAndProcessAccount(accountId, targetDate, dryRunArguments, context);
+        } catch (final LockFailedException e) {
+            if (dryRunArguments != null) {
+                log.warn(String.format("Failed to lock account %s for dry-run invoice, targetDate %s", accountId, targetDate));
+            } else {
+                log.warn(String.format("Failed to lock account %s to process invoice, targetDate %s", accountId, targetDate));
+                reEnqueueInvoiceRun(accountId, null, context);
+            }
+        }
+        return null;
+    }
+
+    // The invoice run covers the whole account, so any of its subscriptions can be used for the next billing date notification
+    private void reEnqueueInvoiceRun(final UUID accountId, @Nullable final UUID subscriptionId, final InternalCallContext context) {
+        UUID notificationSubscriptionId = subscriptionId;
+        if (notificationSubscriptionId == null) {
+            for (final List<SubscriptionBase> subscriptions : subscriptionApi.getSubscriptionsForAccount(context).values()) {
+                if (!subscriptions.isEmpty()) {
+                    notificationSubscriptionId = subscriptions.get(0).getId();
+                    break;
+                }
+            }
+        }
+
+        if (notificationSubscriptionId == null) {
+            log.warn("Unable to re-enqueue invoice run for account {}: no subscription found", accountId);
+            return;
+        }
+
+        nextBillingDatePoster.insertNextBillingNotification(accountId, notificationSubscriptionId, clock.getUTCNow().plusSeconds(LOCK_FAILURE_RETRY_DELAY_SEC), context.getUserToken());
+    }
+
+    private Invoice lockAndProcessAccount(final UUID accountId, final DateTime targetDate,
+                                          @Nullable final DryRunArguments dryRunArguments, final InternalCallContext context) throws InvoiceApiException, LockFailedException {
         GlobalLock lock = null;
         try {
             lock = locker.lockWithNumberOfTries(LockerType.ACCOUNT_FOR_INVOICE_PAYMENTS.toString(), accountId.toString(), NB_LOCK_TRY);
 
             return processAccountWithLock(accountId, targetDate, dryRunArguments, context);
-        } catch (final LockFailedException e) {
-            // Not good!
-            log.error(String.format("Failed to process invoice for account %s, targetDate %s",
-                                    accountId.toString(), targetDate), e);
         } finally {
             if (lock != null) {
                 lock.release();
             }
         }
-        return null;
     }
 
     private Invoice processAccountWithLock(final UUID accountId, final DateTime targetDateTime,
@@ -18,6 +18,8 @@ package org.killbill.billing.invoice.api.svcs;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -39,13 +41,16 @@ import org.killbill.billing.catalog.api.ProductCategory;
 import org.killbill.clock.Clock;
 import org.killbill.billing.entitlement.api.Entitlement.EntitlementState;
 import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceAccountBalance;
 import org.killbill.billing.invoice.api.InvoiceApiException;
 import org.killbill.billing.invoice.api.InvoiceInternalApi;
 import org.killbill.billing.invoice.api.InvoicePayment;
 import org.killbill.billing.invoice.api.InvoicePaymentType;
+import org.killbill.billing.invoice.api.InvoiceUnpaidBalance;
 import org.killbill.billing.invoice.dao.InvoiceDao;
 import org.killbill.billing.invoice.dao.InvoiceModelDao;
 import org.killbill.billing.invoice.dao.InvoicePaymentModelDao;
+import org.killbill.billing.invoice.dao.UnpaidInvoiceBalanceModelDao;
 import org.killbill.billing.invoice.model.DefaultInvoice;
 import org.killbill.billing.invoice.model.DefaultInvoicePayment;
 import org.killbill.billing.invoice.notification.NextBillingDatePoster;
@@ -56,6 +61,7 @@ import org.killbill.billing.util.timezone.DateAndTimeZoneContext;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 
 public class DefaultInvoiceInternalApi implements InvoiceInternalApi {
@@ -97,6 +103,23 @@ public class DefaultInvoiceInternalApi implements InvoiceInternalApi {
         return dao.getAccountBalance(accountId, context);
     }
 
+    @Override
+    public Map<UUID, InvoiceAccountBalance> getAccountBalances(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        return ImmutableMap.<UUID, InvoiceAccountBalance>copyOf(dao.getAccountBalances(accountIds, context));
+    }
+
+    @Override
+    public Map<UUID, List<InvoiceUnpaidBalance>> getUnpaidInvoiceBalances(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        final Map<UUID, List<InvoiceUnpaidBalance>> balances = new LinkedHashMap<UUID, List<InvoiceUnpaidBalance>>();
+        for (final UnpaidInvoiceBalanceModelDao cur : dao.getUnpaidInvoiceBalances(accountIds, context)) {
+            if (balances.get(cur.getAccountId()) == null) {
+                balances.put(cur.getAccountId(), new LinkedList<InvoiceUnpaidBalance>());
+            }
+            balances.get(cur.getAccountId()).add(cur);
+        }
+        return balances;
+    }
+
     @Override
     public void notifyOfPayment(final UUID invoiceId, final BigDecimal amount, final Currency currency, final Currency processedCurrency, final UUID paymentId, final DateTime paymentDate, final InternalCallContext context) throws InvoiceApiException {
         final InvoicePayment invoicePayment = new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, paymentId, invoiceId, paymentDate, amount, currency, processedCurrency);
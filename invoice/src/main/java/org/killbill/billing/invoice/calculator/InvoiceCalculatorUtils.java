@@ -27,7 +27,7 @@ import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.api.InvoicePayment;
 import org.killbill.billing.invoice.api.InvoicePaymentType;
-import org.killbill.billing.util.currency.KillBillMoney;
+import org.killbill.billing.util.currency.MoneyAccumulator;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
@@ -68,26 +68,22 @@ public abstract class InvoiceCalculatorUtils {
     public static BigDecimal computeInvoiceBalance(final Currency currency,
                                                    @Nullable final Iterable<InvoiceItem> invoiceItems,
                                                    @Nullable final Iterable<InvoicePayment> invoicePayments) {
-        final BigDecimal invoiceBalance = computeInvoiceAmountCharged(currency, invoiceItems)
-                .add(computeInvoiceAmountCredited(currency, invoiceItems))
-                .add(computeInvoiceAmountAdjustedForAccountCredit(currency, invoiceItems))
-                .add(
-                        computeInvoiceAmountPaid(currency, invoicePayments).negate()
-                                .add(
-                                        computeInvoiceAmountRefunded(currency, invoicePayments).negate()
-                                    )
-                    );
-
-        return KillBillMoney.of(invoiceBalance, currency);
+        return new MoneyAccumulator().add(computeInvoiceAmountCharged(currency, invoiceItems))
+                                     .add(computeInvoiceAmountCredited(currency, invoiceItems))
+                                     .add(computeInvoiceAmountAdjustedForAccountCredit(currency, invoiceItems))
+                                     .add(computeInvoiceAmountPaid(currency, invoicePayments).negate())
+                                     .add(computeInvoiceAmountRefunded(currency, invoicePayments).negate())
+                                     .toMoney(currency);
     }
 
     // Snowflake for the CREDIT_ADJ on its own invoice
     private static BigDecimal computeInvoiceAmountAdjustedForAccountCredit(final Currency currency, final Iterable<InvoiceItem> invoiceItems) {
-        BigDecimal amountAdjusted = BigDecimal.ZERO;
         if (invoiceItems == null || !invoiceItems.iterator().hasNext()) {
-            return amountAdjusted;
+            return BigDecimal.ZERO;
         }
 
+        final MoneyAccumulator amountAdjusted = new MoneyAccumulator();
+
         for (final InvoiceItem invoiceItem : invoiceItems) {
             final Iterable<InvoiceItem> otherInvoiceItems = Iterables.filter(invoiceItems, new Predicate<InvoiceItem>() {
                 @Override
@@ -101,19 +97,20 @@ public abstract class InvoiceCalculatorUtils {
                  InvoiceItemType.CBA_ADJ.equals(otherInvoiceItems.iterator().next().getInvoiceItemType()) &&
                  otherInvoiceItems.iterator().next().getInvoiceId().equals(invoiceItem.getInvoiceId()) &&
                  otherInvoiceItems.iterator().next().getAmount().compareTo(invoiceItem.getAmount().negate()) == 0)) {
-                amountAdjusted = amountAdjusted.add(invoiceItem.getAmount());
+                amountAdjusted.add(invoiceItem.getAmount());
             }
         }
 
-        return KillBillMoney.of(amountAdjusted, currency);
+        return amountAdjusted.toMoney(currency);
     }
 
     public static BigDecimal computeInvoiceAmountCharged(final Currency currency, @Nullable final Iterable<InvoiceItem> invoiceItems) {
-        BigDecimal amountCharged = BigDecimal.ZERO;
         if (invoiceItems == null || !invoiceItems.iterator().hasNext()) {
-            return amountCharged;
+            return BigDecimal.ZERO;
         }
 
+        final MoneyAccumulator amountCharged = new MoneyAccumulator();
+
         for (final InvoiceItem invoiceItem : invoiceItems) {
             final Iterable<InvoiceItem> otherInvoiceItems = Iterables.filter(invoiceItems, new Predicate<InvoiceItem>() {
                 @Override
@@ -125,72 +122,76 @@ public abstract class InvoiceCalculatorUtils {
             if (isCharge(invoiceItem) ||
                 isInvoiceAdjustmentItem(invoiceItem, otherInvoiceItems) ||
                 isInvoiceItemAdjustmentItem(invoiceItem)) {
-                amountCharged = amountCharged.add(invoiceItem.getAmount());
+                amountCharged.add(invoiceItem.getAmount());
             }
         }
 
-        return KillBillMoney.of(amountCharged, currency);
+        return amountCharged.toMoney(currency);
     }
 
     public static BigDecimal computeInvoiceOriginalAmountCharged(final DateTime invoiceCreatedDate, final Currency currency, @Nullable final Iterable<InvoiceItem> invoiceItems) {
-        BigDecimal amountCharged = BigDecimal.ZERO;
         if (invoiceItems == null || !invoiceItems.iterator().hasNext()) {
-            return amountCharged;
+            return BigDecimal.ZERO;
         }
 
+        final MoneyAccumulator amountCharged = new MoneyAccumulator();
+
         for (final InvoiceItem invoiceItem : invoiceItems) {
             if (isCharge(invoiceItem) &&
                 invoiceItem.getCreatedDate().equals(invoiceCreatedDate)) {
-                amountCharged = amountCharged.add(invoiceItem.getAmount());
+                amountCharged.add(invoiceItem.getAmount());
             }
         }
 
-        return KillBillMoney.of(amountCharged, currency);
+        return amountCharged.toMoney(currency);
     }
 
     public static BigDecimal computeInvoiceAmountCredited(final Currency currency, @Nullable final Iterable<InvoiceItem> invoiceItems) {
-        BigDecimal amountCredited = BigDecimal.ZERO;
         if (invoiceItems == null || !invoiceItems.iterator().hasNext()) {
-            return amountCredited;
+            return BigDecimal.ZERO;
         }
 
+        final MoneyAccumulator amountCredited = new MoneyAccumulator();
+
         for (final InvoiceItem invoiceItem : invoiceItems) {
             if (isAccountCreditItem(invoiceItem)) {
-                amountCredited = amountCredited.add(invoiceItem.getAmount());
+                amountCredited.add(invoiceItem.getAmount());
             }
         }
 
-        return KillBillMoney.of(amountCredited, currency);
+        return amountCredited.toMoney(currency);
     }
 
     public static BigDecimal computeInvoiceAmountPaid(final Currency currency, @Nullable final Iterable<InvoicePayment> invoicePayments) {
-        BigDecimal amountPaid = BigDecimal.ZERO;
         if (invoicePayments == null || !invoicePayments.iterator().hasNext()) {
-            return amountPaid;
+            return BigDecimal.ZERO;
         }
 
+        final MoneyAccumulator amountPaid = new MoneyAccumulator();
+
         for (final InvoicePayment invoicePayment : invoicePayments) {
             if (InvoicePaymentType.ATTEMPT.equals(invoicePayment.getType())) {
-                amountPaid = amountPaid.add(invoicePayment.getAmount());
+                amountPaid.add(invoicePayment.getAmount());
             }
         }
 
-        return KillBillMoney.of(amountPaid, currency);
+        return amountPaid.toMoney(currency);
     }
 
     public static BigDecimal computeInvoiceAmountRefunded(final Currency currency, @Nullable final Iterable<InvoicePayment> invoicePayments) {
-        BigDecimal amountRefunded = BigDecimal.ZERO;
         if (invoicePayments == null || !invoicePayments.iterator().hasNext()) {
-            return amountRefunded;
+            return BigDecimal.ZERO;
         }
 
+        final MoneyAccumulator amountRefunded = new MoneyAccumulator();
+
         for (final InvoicePayment invoicePayment : invoicePayments) {
             if (InvoicePaymentType.REFUND.equals(invoicePayment.getType()) ||
                 InvoicePaymentType.CHARGED_BACK.equals(invoicePayment.getType())) {
-                amountRefunded = amountRefunded.add(invoicePayment.getAmount());
+                amountRefunded.add(invoicePayment.getAmount());
             }
         }
 
-        return KillBillMoney.of(amountRefunded, currency);
+        return amountRefunded.toMoney(currency);
     }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.invoice.api.InvoiceAccountBalance;
+import org.killbill.billing.util.dao.MapperBase;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import com.google.common.base.Objects;
+
+public class AccountBalanceModelDao implements InvoiceAccountBalance {
+
+    private final UUID accountId;
+    private final Currency currency;
+    private final BigDecimal balance;
+    private final BigDecimal cba;
+
+    public AccountBalanceModelDao(final UUID accountId, final Currency currency, final BigDecimal balance, final BigDecimal cba) {
+        this.accountId = accountId;
+        this.currency = currency;
+        this.balance = Objects.firstNonNull(balance, BigDecimal.ZERO);
+        this.cba = Objects.firstNonNull(cba, BigDecimal.ZERO);
+    }
+
+    @Override
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    @Override
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    @Override
+    public BigDecimal getCBA() {
+        return cba;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("AccountBalanceModelDao{");
+        sb.append("accountId=").append(accountId);
+        sb.append(", currency=").append(currency);
+        sb.append(", balance=").append(balance);
+        sb.append(", cba=").append(cba);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static class AccountBalanceModelDaoMapper extends MapperBase implements ResultSetMapper<AccountBalanceModelDao> {
+
+        @Override
+        public AccountBalanceModelDao map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            final UUID accountId = getUUID(r, "account_id");
+            final Currency currency = Currency.valueOf(r.getString("currency"));
+            final BigDecimal balance = r.getBigDecimal("balance");
+            final BigDecimal cba = r.getBigDecimal("cba");
+            return new AccountBalanceModelDao(accountId, currency, balance, cba);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -42,7 +43,10 @@ import org.killbill.billing.invoice.api.user.DefaultInvoiceAdjustmentEvent;
 import org.killbill.billing.invoice.notification.NextBillingDatePoster;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.PaginationConfig;
+import org.killbill.billing.util.currency.KillBillMoney;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.PaginationIteratorBuilder;
 import org.killbill.billing.util.entity.dao.EntityDaoBase;
@@ -58,10 +62,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Ordering;
@@ -91,9 +98,10 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                              final PersistentBus eventBus,
                              final Clock clock,
                              final CacheControllerDispatcher cacheControllerDispatcher,
-                             final NonEntityDao nonEntityDao,
-                             final InternalCallContextFactory internalCallContextFactory) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao), InvoiceSqlDao.class);
+                             final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling,
+                             final InternalCallContextFactory internalCallContextFactory,
+                             final PaginationConfig paginationConfig) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, aggregatedProfiling), InvoiceSqlDao.class, paginationConfig);
         this.nextBillingDatePoster = nextBillingDatePoster;
         this.eventBus = eventBus;
         this.internalCallContextFactory = internalCallContextFactory;
@@ -278,6 +286,11 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
                                                           return Iterators.<InvoiceModelDao>emptyIterator();
                                                       }
                                                   }
+
+                                                  @Override
+                                                  public String getQueryKey() {
+                                                      return invoiceNumber != null ? null : "search:" + searchKey;
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -313,6 +326,60 @@ public class DefaultInvoiceDao extends EntityDaoBase<InvoiceModelDao, Invoice, I
         });
     }
 
+    @Override
+    public Map<UUID, AccountBalanceModelDao> getAccountBalances(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        if (accountIds.isEmpty()) {
+            return ImmutableMap.<UUID, AccountBalanceModelDao>of();
+        }
+
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Map<UUID, AccountBalanceModelDao>>() {
+            @Override
+            public Map<UUID, AccountBalanceModelDao> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final Collection<String> accountIdsAsStrings = Collections2.transform(accountIds, Functions.toStringFunction());
+                final List<AccountBalanceModelDao> balancesPerCurrency = entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class).getAccountBalances(accountIdsAsStrings, context);
+
+                final Map<UUID, AccountBalanceModelDao> balances = new HashMap<UUID, AccountBalanceModelDao>();
+                for (final AccountBalanceModelDao cur : balancesPerCurrency) {
+                    final BigDecimal balance = KillBillMoney.of(cur.getBalance(), cur.getCurrency());
+                    final BigDecimal cba = KillBillMoney.of(cur.getCBA(), cur.getCurrency());
+
+                    final AccountBalanceModelDao existing = balances.get(cur.getAccountId());
+                    if (existing == null) {
+                        balances.put(cur.getAccountId(), new AccountBalanceModelDao(cur.getAccountId(), cur.getCurrency(), balance, cba));
+                    } else {
+                        balances.put(cur.getAccountId(), new AccountBalanceModelDao(cur.getAccountId(), existing.getCurrency(), existing.getBalance().add(balance), existing.getCBA().add(cba)));
+                    }
+                }
+                return balances;
+            }
+        });
+    }
+
+    @Override
+    public List<UnpaidInvoiceBalanceModelDao> getUnpaidInvoiceBalances(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        if (accountIds.isEmpty()) {
+            return ImmutableList.<UnpaidInvoiceBalanceModelDao>of();
+        }
+
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<UnpaidInvoiceBalanceModelDao>>() {
+            @Override
+            public List<UnpaidInvoiceBalanceModelDao> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final Collection<String> accountIdsAsStrings = Collections2.transform(accountIds, Functions.toStringFunction());
+                final List<UnpaidInvoiceBalanceModelDao> rawBalances = entitySqlDaoWrapperFactory.become(InvoiceSqlDao.class).getUnpaidInvoiceBalances(accountIdsAsStrings, context);
+
+                final List<UnpaidInvoiceBalanceModelDao> balances = new ArrayList<UnpaidInvoiceBalanceModelDao>(rawBalances.size());
+                for (final UnpaidInvoiceBalanceModelDao cur : rawBalances) {
+                    // Same rounding as InvoiceCalculatorUtils#computeInvoiceBalance
+                    final BigDecimal balance = KillBillMoney.of(cur.getBalance(), cur.getCurrency());
+                    if (balance.compareTo(BigDecimal.ZERO) > 0) {
+                        balances.add(new UnpaidInvoiceBalanceModelDao(cur.getInvoiceId(), cur.getAccountId(), cur.getInvoiceDate(), cur.getTargetDate(), cur.getCurrency(), balance));
+                    }
+                }
+                return balances;
+            }
+        });
+    }
+
     @Override
     public List<InvoiceModelDao> getUnpaidInvoicesByAccountId(final UUID accountId, @Nullable final LocalDate upToDate, final InternalTenantContext context) {
         return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<InvoiceModelDao>>() {
@@ -17,6 +17,7 @@
 package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -62,6 +63,10 @@ public interface InvoiceDao extends EntityDao<InvoiceModelDao, Invoice, InvoiceA
 
     public BigDecimal getAccountCBA(UUID accountId, InternalTenantContext context);
 
+    public Map<UUID, AccountBalanceModelDao> getAccountBalances(Collection<UUID> accountIds, InternalTenantContext context);
+
+    public List<UnpaidInvoiceBalanceModelDao> getUnpaidInvoiceBalances(Collection<UUID> accountIds, InternalTenantContext context);
+
     List<InvoiceModelDao> getUnpaidInvoicesByAccountId(UUID accountId, @Nullable LocalDate upToDate, InternalTenantContext context);
 
     // Include migrated invoices
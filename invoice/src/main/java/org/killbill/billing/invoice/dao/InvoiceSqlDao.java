@@ -16,12 +16,15 @@
 
 package org.killbill.billing.invoice.dao;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
+import org.skife.jdbi.v2.sqlobject.customizers.Mapper;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.invoice.api.Invoice;
@@ -35,6 +38,16 @@ public interface InvoiceSqlDao extends EntitySqlDao<InvoiceModelDao, Invoice> {
     List<InvoiceModelDao> getInvoicesBySubscription(@Bind("subscriptionId") final String subscriptionId,
                                                     @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    @Mapper(AccountBalanceModelDao.AccountBalanceModelDaoMapper.class)
+    List<AccountBalanceModelDao> getAccountBalances(@BindIn("accountIds") final Collection<String> accountIds,
+                                                    @BindBean final InternalTenantContext context);
+
+    @SqlQuery
+    @Mapper(UnpaidInvoiceBalanceModelDao.UnpaidInvoiceBalanceModelDaoMapper.class)
+    List<UnpaidInvoiceBalanceModelDao> getUnpaidInvoiceBalances(@BindIn("accountIds") final Collection<String> accountIds,
+                                                                @BindBean final InternalTenantContext context);
+
     @SqlQuery
     UUID getInvoiceIdByPaymentId(@Bind("paymentId") final String paymentId,
                                  @BindBean final InternalTenantContext context);
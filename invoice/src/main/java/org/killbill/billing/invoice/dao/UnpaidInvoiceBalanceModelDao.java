@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.invoice.dao;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import org.joda.time.LocalDate;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.invoice.api.InvoiceUnpaidBalance;
+import org.killbill.billing.util.dao.MapperBase;
+import org.skife.jdbi.v2.StatementContext;
+import org.skife.jdbi.v2.tweak.ResultSetMapper;
+
+import com.google.common.base.Objects;
+
+public class UnpaidInvoiceBalanceModelDao implements InvoiceUnpaidBalance {
+
+    private final UUID invoiceId;
+    private final UUID accountId;
+    private final LocalDate invoiceDate;
+    private final LocalDate targetDate;
+    private final Currency currency;
+    private final BigDecimal balance;
+
+    public UnpaidInvoiceBalanceModelDao(final UUID invoiceId, final UUID accountId, final LocalDate invoiceDate,
+                                        final LocalDate targetDate, final Currency currency, final BigDecimal balance) {
+        this.invoiceId = invoiceId;
+        this.accountId = accountId;
+        this.invoiceDate = invoiceDate;
+        this.targetDate = targetDate;
+        this.currency = currency;
+        this.balance = Objects.firstNonNull(balance, BigDecimal.ZERO);
+    }
+
+    @Override
+    public UUID getInvoiceId() {
+        return invoiceId;
+    }
+
+    @Override
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    @Override
+    public LocalDate getInvoiceDate() {
+        return invoiceDate;
+    }
+
+    @Override
+    public LocalDate getTargetDate() {
+        return targetDate;
+    }
+
+    @Override
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    @Override
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("UnpaidInvoiceBalanceModelDao{");
+        sb.append("invoiceId=").append(invoiceId);
+        sb.append(", accountId=").append(accountId);
+        sb.append(", invoiceDate=").append(invoiceDate);
+        sb.append(", targetDate=").append(targetDate);
+        sb.append(", currency=").append(currency);
+        sb.append(", balance=").append(balance);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static class UnpaidInvoiceBalanceModelDaoMapper extends MapperBase implements ResultSetMapper<UnpaidInvoiceBalanceModelDao> {
+
+        @Override
+        public UnpaidInvoiceBalanceModelDao map(final int index, final ResultSet r, final StatementContext ctx) throws SQLException {
+            final UUID invoiceId = getUUID(r, "invoice_id");
+            final UUID accountId = getUUID(r, "account_id");
+            final LocalDate invoiceDate = getDate(r, "invoice_date");
+            final LocalDate targetDate = getDate(r, "target_date");
+            final Currency currency = Currency.valueOf(r.getString("currency"));
+            final BigDecimal balance = r.getBigDecimal("balance");
+            return new UnpaidInvoiceBalanceModelDao(invoiceId, accountId, invoiceDate, targetDate, currency, balance);
+        }
+    }
+}
@@ -53,7 +53,7 @@ import org.killbill.billing.usage.api.UsageUserApi;
 import org.killbill.billing.util.cache.Cachable.CacheType;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.config.InvoiceConfig;
-import org.killbill.billing.util.currency.KillBillMoney;
+import org.killbill.billing.util.currency.MoneyAccumulator;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.clock.Clock;
 import org.slf4j.Logger;
@@ -286,7 +286,7 @@ public class DefaultInvoiceGenerator implements InvoiceGenerator {
                     final BigDecimal rate = thisEvent.getRecurringPrice();
 
                     if (rate != null) {
-                        final BigDecimal amount = KillBillMoney.of(itemDatum.getNumberOfCycles().multiply(rate), currency);
+                        final BigDecimal amount = new MoneyAccumulator().addProduct(itemDatum.getNumberOfCycles(), rate).toMoney(currency);
 
                         final RecurringInvoiceItem recurringItem = new RecurringInvoiceItem(invoiceId,
                                                                                             accountId,
@@ -16,7 +16,9 @@
 
 package org.killbill.billing.invoice.notification;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
@@ -26,7 +28,9 @@ import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
 import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.invoice.InvoiceListener;
 import org.killbill.billing.invoice.api.DefaultInvoiceService;
+import org.killbill.clock.Clock;
 import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationEventWithMetadata;
 import org.killbill.notificationq.api.NotificationQueue;
 import org.killbill.notificationq.api.NotificationQueueService;
 import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
@@ -36,6 +40,12 @@ import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.config.InvoiceConfig;
 import org.killbill.billing.subscription.api.SubscriptionBaseInternalApi;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 public class DefaultNextBillingDateNotifier implements NextBillingDateNotifier {
@@ -49,6 +59,13 @@ public class DefaultNextBillingDateNotifier implements NextBillingDateNotifier {
     private final SubscriptionBaseInternalApi subscriptionApi;
     private final InvoiceListener listener;
     private final InternalCallContextFactory callContextFactory;
+    private final Clock clock;
+    private final long coalescingWindowMillis;
+    // Last invoice run triggered by this queue, per account record id
+    private final Cache<Long, AccountRun> lastAccountRuns;
+    private final Meter triggers;
+    private final Meter runs;
+    private final Meter collapsed;
 
     private NotificationQueue nextBillingQueue;
 
@@ -57,12 +74,33 @@ public class DefaultNextBillingDateNotifier implements NextBillingDateNotifier {
                                           final InvoiceConfig config,
                                           final SubscriptionBaseInternalApi subscriptionApi,
                                           final InvoiceListener listener,
-                                          final InternalCallContextFactory callContextFactory) {
+                                          final InternalCallContextFactory callContextFactory,
+                                          final Clock clock,
+                                          final MetricRegistry metricRegistry) {
         this.notificationQueueService = notificationQueueService;
         this.config = config;
         this.subscriptionApi = subscriptionApi;
         this.listener = listener;
         this.callContextFactory = callContextFactory;
+        this.clock = clock;
+        this.coalescingWindowMillis = config.getNextBillingDateCoalescingWindow().getMillis();
+        this.lastAccountRuns = CacheBuilder.newBuilder()
+                                           .expireAfterWrite(Math.max(coalescingWindowMillis, 1), TimeUnit.MILLISECONDS)
+                                           .build();
+
+        final String metricPrefix = MetricRegistry.name(DefaultNextBillingDateNotifier.class, NEXT_BILLING_DATE_NOTIFIER_QUEUE);
+        this.triggers = metricRegistry.meter(MetricRegistry.name(metricPrefix, "triggers"));
+        this.runs = metricRegistry.meter(MetricRegistry.name(metricPrefix, "runs"));
+        this.collapsed = metricRegistry.meter(MetricRegistry.name(metricPrefix, "collapsed"));
+        final String collapseRatioName = MetricRegistry.name(metricPrefix, "collapse-ratio");
+        if (!metricRegistry.getGauges().containsKey(collapseRatioName)) {
+            metricRegistry.register(collapseRatioName, new RatioGauge() {
+                @Override
+                protected Ratio getRatio() {
+                    return Ratio.of(collapsed.getCount(), triggers.getCount());
+                }
+            });
+        }
     }
 
     @Override
@@ -113,6 +151,69 @@ public class DefaultNextBillingDateNotifier implements NextBillingDateNotifier {
     }
 
     private void processEvent(final UUID subscriptionId, final DateTime eventDateTime, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
-        listener.handleNextBillingDateEvent(subscriptionId, eventDateTime, userToken, accountRecordId, tenantRecordId);
+        triggers.mark();
+        if (coalescingWindowMillis <= 0) {
+            listener.handleNextBillingDateEvent(subscriptionId, eventDateTime, userToken, accountRecordId, tenantRecordId);
+            runs.mark();
+            return;
+        }
+
+        // Another run for that account, which started after this notification was due, already covered it
+        final AccountRun lastAccountRun = lastAccountRuns.getIfPresent(accountRecordId);
+        if (lastAccountRun != null && lastAccountRun.covers(eventDateTime)) {
+            log.debug("Collapsing next billing date notification for subscriptionId {} and eventDateTime {}", subscriptionId, eventDateTime);
+            collapsed.mark();
+            return;
+        }
+
+        // Other notifications for that account which are already due will be covered by this run: they all share the account invoice
+        final DateTime startedAt = clock.getUTCNow();
+        final List<NotificationEventWithMetadata<NextBillingDateNotificationKey>> dueNotifications = getDueNotifications(startedAt, accountRecordId, tenantRecordId);
+        DateTime targetDateTime = eventDateTime;
+        for (final NotificationEventWithMetadata<NextBillingDateNotificationKey> dueNotification : dueNotifications) {
+            if (dueNotification.getEffectiveDate().isAfter(targetDateTime)) {
+                targetDateTime = dueNotification.getEffectiveDate();
+            }
+        }
+
+        final boolean processed = listener.handleNextBillingDateEvent(subscriptionId, targetDateTime, userToken, accountRecordId, tenantRecordId);
+        runs.mark();
+        if (!processed) {
+            // Leave the other notifications alone, they will trigger their own run
+            return;
+        }
+
+        lastAccountRuns.put(accountRecordId, new AccountRun(startedAt, targetDateTime));
+        for (final NotificationEventWithMetadata<NextBillingDateNotificationKey> dueNotification : dueNotifications) {
+            nextBillingQueue.removeNotification(dueNotification.getRecordId());
+            triggers.mark();
+            collapsed.mark();
+        }
+    }
+
+    private List<NotificationEventWithMetadata<NextBillingDateNotificationKey>> getDueNotifications(final DateTime now, final Long accountRecordId, final Long tenantRecordId) {
+        final ImmutableList.Builder<NotificationEventWithMetadata<NextBillingDateNotificationKey>> dueNotifications = ImmutableList.<NotificationEventWithMetadata<NextBillingDateNotificationKey>>builder();
+        final List<NotificationEventWithMetadata<NextBillingDateNotificationKey>> notifications = nextBillingQueue.getFutureNotificationForSearchKeys(accountRecordId, tenantRecordId);
+        for (final NotificationEventWithMetadata<NextBillingDateNotificationKey> notification : notifications) {
+            if (!notification.getEffectiveDate().isAfter(now)) {
+                dueNotifications.add(notification);
+            }
+        }
+        return dueNotifications.build();
+    }
+
+    private static final class AccountRun {
+
+        private final DateTime startedAt;
+        private final DateTime targetDateTime;
+
+        private AccountRun(final DateTime startedAt, final DateTime targetDateTime) {
+            this.startedAt = startedAt;
+            this.targetDateTime = targetDateTime;
+        }
+
+        public boolean covers(final DateTime eventDateTime) {
+            return !eventDateTime.isAfter(startedAt) && !eventDateTime.isAfter(targetDateTime);
+        }
     }
 }
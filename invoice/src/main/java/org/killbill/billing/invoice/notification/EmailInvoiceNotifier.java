@@ -19,54 +19,83 @@ package org.killbill.billing.invoice.notification;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
+import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountEmail;
+import org.killbill.billing.account.api.AccountInternalApi;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.api.InvoiceInternalApi;
 import org.killbill.billing.invoice.api.InvoiceNotifier;
+import org.killbill.billing.invoice.notification.InvoiceEmailQueue.InvoiceEmailDelivery;
 import org.killbill.billing.invoice.template.HtmlInvoice;
 import org.killbill.billing.invoice.template.HtmlInvoiceGenerator;
+import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
-import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.callcontext.TenantContext;
-import org.killbill.billing.util.email.DefaultEmailSender;
 import org.killbill.billing.util.email.EmailApiException;
 import org.killbill.billing.util.email.EmailConfig;
 import org.killbill.billing.util.email.EmailSender;
-import org.killbill.billing.account.api.AccountInternalApi;
-import org.killbill.billing.tag.TagInternalApi;
 import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.Tag;
 
 import com.google.inject.Inject;
 
-public class EmailInvoiceNotifier implements InvoiceNotifier {
+/**
+ * Invoice emails are queued (see InvoiceEmailQueue) and rendered and sent asynchronously, outside of the invoice flow.
+ */
+public class EmailInvoiceNotifier implements InvoiceNotifier, InvoiceEmailDelivery {
 
     private final AccountInternalApi accountApi;
+    private final InvoiceInternalApi invoiceApi;
     private final TagInternalApi tagUserApi;
     private final HtmlInvoiceGenerator generator;
     private final EmailConfig config;
+    private final EmailSender sender;
+    private final InvoiceEmailQueue invoiceEmailQueue;
     private final InternalCallContextFactory internalCallContextFactory;
 
     @Inject
     public EmailInvoiceNotifier(final AccountInternalApi accountApi,
+                                final InvoiceInternalApi invoiceApi,
                                 final TagInternalApi tagUserApi,
                                 final HtmlInvoiceGenerator generator,
                                 final EmailConfig config,
+                                final EmailSender sender,
+                                final InvoiceEmailQueue invoiceEmailQueue,
                                 final InternalCallContextFactory internalCallContextFactory) {
         this.accountApi = accountApi;
+        this.invoiceApi = invoiceApi;
         this.tagUserApi = tagUserApi;
         this.generator = generator;
         this.config = config;
+        this.sender = sender;
+        this.invoiceEmailQueue = invoiceEmailQueue;
         this.internalCallContextFactory = internalCallContextFactory;
+
+        invoiceEmailQueue.register(this);
     }
 
     @Override
     public void notify(final Account account, final Invoice invoice, final TenantContext context) throws InvoiceApiException {
         final InternalTenantContext internalTenantContext = internalCallContextFactory.createInternalTenantContext(account.getId(), context);
+        try {
+            invoiceEmailQueue.enqueue(account.getId(), invoice.getId(), internalTenantContext);
+        } catch (IOException e) {
+            throw new InvoiceApiException(e, ErrorCode.EMAIL_SENDING_FAILED);
+        }
+    }
+
+    @Override
+    public void deliver(final UUID accountId, final UUID invoiceId, final InternalTenantContext internalTenantContext) throws InvoiceApiException, AccountApiException {
+        final Account account = accountApi.getAccountById(accountId, internalTenantContext);
+        final Invoice invoice = invoiceApi.getInvoiceById(invoiceId, internalTenantContext);
+
         final List<String> to = new ArrayList<String>();
         to.add(account.getEmail());
 
@@ -99,7 +128,6 @@ public class EmailInvoiceNotifier implements InvoiceNotifier {
             subject = config.getInvoiceEmailSubject();
         }
 
-        final EmailSender sender = new DefaultEmailSender(config);
         try {
             sender.sendHTMLEmail(to, cc, subject, htmlInvoice.getBody());
         } catch (EmailApiException e) {
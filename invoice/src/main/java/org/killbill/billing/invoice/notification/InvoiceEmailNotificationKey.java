@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.invoice.notification;
+
+import java.util.UUID;
+
+import org.killbill.notificationq.api.NotificationEvent;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class InvoiceEmailNotificationKey implements NotificationEvent {
+
+    private final UUID accountId;
+    private final UUID invoiceId;
+    private final int attemptNumber;
+
+    @JsonCreator
+    public InvoiceEmailNotificationKey(@JsonProperty("accountId") final UUID accountId,
+                                       @JsonProperty("invoiceId") final UUID invoiceId,
+                                       @JsonProperty("attemptNumber") final int attemptNumber) {
+        this.accountId = accountId;
+        this.invoiceId = invoiceId;
+        this.attemptNumber = attemptNumber;
+    }
+
+    public UUID getAccountId() {
+        return accountId;
+    }
+
+    public UUID getInvoiceId() {
+        return invoiceId;
+    }
+
+    public int getAttemptNumber() {
+        return attemptNumber;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("InvoiceEmailNotificationKey{");
+        sb.append("accountId=").append(accountId);
+        sb.append(", invoiceId=").append(invoiceId);
+        sb.append(", attemptNumber=").append(attemptNumber);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.invoice.notification;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.DefaultInvoiceService;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.InvoiceConfig;
+import org.killbill.clock.Clock;
+import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueAlreadyExists;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.Inject;
+
+/**
+ * Durable outbound queue for invoice emails, so that invoice generation doesn't wait on the MTA.
+ * <p/>
+ * Only the account and invoice ids are queued: the email is rendered at delivery time. Deliveries are rate limited
+ * and failed ones are retried with an exponential backoff, up to the configured number of retries.
+ */
+public class InvoiceEmailQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(InvoiceEmailQueue.class);
+
+    public static final String INVOICE_EMAIL_QUEUE = "invoice-email-queue";
+
+    public interface InvoiceEmailDelivery {
+
+        public void deliver(UUID accountId, UUID invoiceId, InternalTenantContext context) throws Exception;
+    }
+
+    private final NotificationQueueService notificationQueueService;
+    private final InvoiceConfig config;
+    private final InternalCallContextFactory callContextFactory;
+    private final Clock clock;
+    private final RateLimiter rateLimiter;
+    private final Meter delivered;
+    private final Meter retried;
+    private final Meter dropped;
+
+    private volatile InvoiceEmailDelivery delivery;
+    private NotificationQueue emailQueue;
+
+    @Inject
+    public InvoiceEmailQueue(final NotificationQueueService notificationQueueService,
+                             final InvoiceConfig config,
+                             final InternalCallContextFactory callContextFactory,
+                             final Clock clock,
+                             final MetricRegistry metricRegistry) {
+        this.notificationQueueService = notificationQueueService;
+        this.config = config;
+        this.callContextFactory = callContextFactory;
+        this.clock = clock;
+        this.rateLimiter = config.getEmailRateLimit() > 0 ? RateLimiter.create(config.getEmailRateLimit()) : null;
+
+        final String metricPrefix = MetricRegistry.name(InvoiceEmailQueue.class, INVOICE_EMAIL_QUEUE);
+        this.delivered = metricRegistry.meter(MetricRegistry.name(metricPrefix, "delivered"));
+        this.retried = metricRegistry.meter(MetricRegistry.name(metricPrefix, "retried"));
+        this.dropped = metricRegistry.meter(MetricRegistry.name(metricPrefix, "dropped"));
+    }
+
+    public void register(final InvoiceEmailDelivery delivery) {
+        this.delivery = delivery;
+    }
+
+    public void initialize() throws NotificationQueueAlreadyExists {
+        final NotificationQueueHandler notificationQueueHandler = new NotificationQueueHandler() {
+            @Override
+            public void handleReadyNotification(final NotificationEvent notificationKey, final DateTime eventDate, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+                if (!(notificationKey instanceof InvoiceEmailNotificationKey)) {
+                    log.error("Invoice email queue received an unexpected event type {}", notificationKey.getClass().getName());
+                    return;
+                }
+                deliver((InvoiceEmailNotificationKey) notificationKey, userToken, callContextFactory.createInternalTenantContext(tenantRecordId, accountRecordId));
+            }
+        };
+
+        emailQueue = notificationQueueService.createNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME,
+                                                                      INVOICE_EMAIL_QUEUE,
+                                                                      notificationQueueHandler);
+    }
+
+    public void start() {
+        emailQueue.startQueue();
+    }
+
+    public void stop() throws NoSuchNotificationQueue {
+        if (emailQueue != null) {
+            emailQueue.stopQueue();
+            notificationQueueService.deleteNotificationQueue(emailQueue.getServiceName(), emailQueue.getQueueName());
+        }
+    }
+
+    public void enqueue(final UUID accountId, final UUID invoiceId, final InternalTenantContext context) throws IOException {
+        record(clock.getUTCNow(), new InvoiceEmailNotificationKey(accountId, invoiceId, 0), null, context);
+    }
+
+    private void deliver(final InvoiceEmailNotificationKey key, final UUID userToken, final InternalTenantContext context) {
+        final InvoiceEmailDelivery currentDelivery = delivery;
+        if (currentDelivery == null) {
+            log.warn("Dropping invoice email for invoiceId {}: email notifications are disabled", key.getInvoiceId());
+            dropped.mark();
+            return;
+        }
+
+        if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+
+        try {
+            currentDelivery.deliver(key.getAccountId(), key.getInvoiceId(), context);
+            delivered.mark();
+        } catch (final Exception e) {
+            onDeliveryFailure(key, userToken, context, e);
+        }
+    }
+
+    private void onDeliveryFailure(final InvoiceEmailNotificationKey key, final UUID userToken, final InternalTenantContext context, final Exception e) {
+        if (key.getAttemptNumber() >= config.getEmailMaxRetries()) {
+            log.error(String.format("Giving up on invoice email for invoiceId %s after %s retries", key.getInvoiceId(), key.getAttemptNumber()), e);
+            dropped.mark();
+            return;
+        }
+
+        final int attemptNumber = key.getAttemptNumber() + 1;
+        final DateTime effectiveDate = clock.getUTCNow().plus(getRetryDelayMillis(attemptNumber));
+        log.warn(String.format("Failed to deliver invoice email for invoiceId %s, will retry at %s", key.getInvoiceId(), effectiveDate), e);
+        try {
+            record(effectiveDate, new InvoiceEmailNotificationKey(key.getAccountId(), key.getInvoiceId(), attemptNumber), userToken, context);
+            retried.mark();
+        } catch (final IOException ioe) {
+            log.error("Failed to schedule retry of invoice email for invoiceId " + key.getInvoiceId(), ioe);
+            dropped.mark();
+        }
+    }
+
+    private void record(final DateTime effectiveDate, final InvoiceEmailNotificationKey key, final UUID userToken, final InternalTenantContext context) throws IOException {
+        emailQueue.recordFutureNotification(effectiveDate, key, userToken, context.getAccountRecordId(), context.getTenantRecordId());
+    }
+
+    // Exponential backoff: delay, 2 * delay, 4 * delay, ... up to the configured maximum
+    private long getRetryDelayMillis(final int attemptNumber) {
+        final int exponent = Math.min(Math.max(attemptNumber - 1, 0), 20);
+        return Math.min(config.getEmailRetryDelay().getMillis() << exponent, config.getEmailRetryMaxDelay().getMillis());
+    }
+}
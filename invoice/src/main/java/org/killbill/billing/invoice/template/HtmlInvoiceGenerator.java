@@ -31,6 +31,7 @@ import org.killbill.billing.invoice.api.formatters.InvoiceFormatterFactory;
 import org.killbill.billing.invoice.template.translator.DefaultInvoiceTranslator;
 import org.killbill.billing.util.LocaleUtils;
 import org.killbill.billing.util.email.templates.TemplateEngine;
+import org.killbill.billing.util.template.translation.TranslationBundleCache;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
 
 import com.google.common.base.Strings;
@@ -41,14 +42,16 @@ public class HtmlInvoiceGenerator {
     private final InvoiceFormatterFactory factory;
     private final TemplateEngine templateEngine;
     private final TranslatorConfig config;
+    private final TranslationBundleCache bundleCache;
     private final CurrencyConversionApi currencyConversionApi;
 
     @Inject
     public HtmlInvoiceGenerator(final InvoiceFormatterFactory factory, final TemplateEngine templateEngine,
-                                final TranslatorConfig config, final CurrencyConversionApi currencyConversionApi) {
+                                final TranslatorConfig config, final TranslationBundleCache bundleCache, final CurrencyConversionApi currencyConversionApi) {
         this.factory = factory;
         this.templateEngine = templateEngine;
         this.config = config;
+        this.bundleCache = bundleCache;
         this.currencyConversionApi = currencyConversionApi;
     }
 
@@ -60,7 +63,7 @@ public class HtmlInvoiceGenerator {
 
         HtmlInvoice invoiceData = new HtmlInvoice();
         final Map<String, Object> data = new HashMap<String, Object>();
-        final DefaultInvoiceTranslator invoiceTranslator = new DefaultInvoiceTranslator(config);
+        final DefaultInvoiceTranslator invoiceTranslator = new DefaultInvoiceTranslator(config, bundleCache);
         final String accountLocale = Strings.emptyToNull(account.getLocale());
         // If no Locale is defined, use the default JVM one
         final Locale locale = accountLocale == null ? Locale.getDefault() : LocaleUtils.toLocale(accountLocale);
@@ -45,6 +45,7 @@ import org.killbill.billing.invoice.api.formatters.InvoiceFormatter;
 import org.killbill.billing.invoice.model.CreditAdjInvoiceItem;
 import org.killbill.billing.invoice.model.CreditBalanceAdjInvoiceItem;
 import org.killbill.billing.invoice.model.DefaultInvoice;
+import org.killbill.billing.util.template.translation.TranslationBundleCache;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
 
 import com.google.common.base.Objects;
@@ -61,13 +62,19 @@ public class DefaultInvoiceFormatter implements InvoiceFormatter {
     private final static Logger logger = LoggerFactory.getLogger(DefaultInvoiceFormatter.class);
 
     private final TranslatorConfig config;
+    private final TranslationBundleCache bundleCache;
     private final Invoice invoice;
     private final DateTimeFormatter dateFormatter;
     private final Locale locale;
     private final CurrencyConversionApi currencyConversionApi;
 
     public DefaultInvoiceFormatter(final TranslatorConfig config, final Invoice invoice, final Locale locale, final CurrencyConversionApi currencyConversionApi) {
+        this(config, new TranslationBundleCache(), invoice, locale, currencyConversionApi);
+    }
+
+    public DefaultInvoiceFormatter(final TranslatorConfig config, final TranslationBundleCache bundleCache, final Invoice invoice, final Locale locale, final CurrencyConversionApi currencyConversionApi) {
         this.config = config;
+        this.bundleCache = bundleCache;
         this.invoice = invoice;
         dateFormatter = DateTimeFormat.mediumDate().withLocale(locale);
         this.locale = locale;
@@ -109,7 +116,7 @@ public class DefaultInvoiceFormatter implements InvoiceFormatter {
 
         final List<InvoiceItem> formatters = new ArrayList<InvoiceItem>();
         for (final InvoiceItem item : invoiceItems) {
-            formatters.add(new DefaultInvoiceItemFormatter(config, item, dateFormatter, locale));
+            formatters.add(new DefaultInvoiceItemFormatter(config, bundleCache, item, dateFormatter, locale));
         }
         return formatters;
     }
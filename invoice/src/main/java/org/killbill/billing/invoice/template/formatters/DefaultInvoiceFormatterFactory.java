@@ -22,12 +22,26 @@ import org.killbill.billing.currency.api.CurrencyConversionApi;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.formatters.InvoiceFormatter;
 import org.killbill.billing.invoice.api.formatters.InvoiceFormatterFactory;
+import org.killbill.billing.util.template.translation.TranslationBundleCache;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
 
+import com.google.inject.Inject;
+
 public class DefaultInvoiceFormatterFactory implements InvoiceFormatterFactory {
 
+    private final TranslationBundleCache bundleCache;
+
+    @Inject
+    public DefaultInvoiceFormatterFactory(final TranslationBundleCache bundleCache) {
+        this.bundleCache = bundleCache;
+    }
+
+    public DefaultInvoiceFormatterFactory() {
+        this(new TranslationBundleCache());
+    }
+
     @Override
     public InvoiceFormatter createInvoiceFormatter(final TranslatorConfig config, final Invoice invoice, final Locale locale, CurrencyConversionApi currencyConversionApi) {
-        return new DefaultInvoiceFormatter(config, invoice, locale, currencyConversionApi);
+        return new DefaultInvoiceFormatter(config, bundleCache, invoice, locale, currencyConversionApi);
     }
 }
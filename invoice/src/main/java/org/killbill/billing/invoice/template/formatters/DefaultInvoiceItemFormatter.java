@@ -30,6 +30,7 @@ import org.killbill.billing.invoice.api.InvoiceItem;
 import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.api.formatters.InvoiceItemFormatter;
 import org.killbill.billing.util.template.translation.DefaultCatalogTranslator;
+import org.killbill.billing.util.template.translation.TranslationBundleCache;
 import org.killbill.billing.util.template.translation.Translator;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
 
@@ -50,11 +51,15 @@ public class DefaultInvoiceItemFormatter implements InvoiceItemFormatter {
     private final Locale locale;
 
     public DefaultInvoiceItemFormatter(final TranslatorConfig config, final InvoiceItem item, final DateTimeFormatter dateFormatter, final Locale locale) {
+        this(config, new TranslationBundleCache(), item, dateFormatter, locale);
+    }
+
+    public DefaultInvoiceItemFormatter(final TranslatorConfig config, final TranslationBundleCache bundleCache, final InvoiceItem item, final DateTimeFormatter dateFormatter, final Locale locale) {
         this.item = item;
         this.dateFormatter = dateFormatter;
         this.locale = locale;
 
-        this.translator = new DefaultCatalogTranslator(config);
+        this.translator = new DefaultCatalogTranslator(config, bundleCache);
     }
 
     @Override
@@ -19,6 +19,7 @@ package org.killbill.billing.invoice.template.translator;
 import java.util.Locale;
 
 import org.killbill.billing.util.template.translation.DefaultTranslatorBase;
+import org.killbill.billing.util.template.translation.TranslationBundleCache;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
 
 import com.google.inject.Inject;
@@ -28,6 +29,10 @@ public class DefaultInvoiceTranslator extends DefaultTranslatorBase implements I
     private Locale locale;
 
     @Inject
+    public DefaultInvoiceTranslator(final TranslatorConfig config, final TranslationBundleCache bundleCache) {
+        super(config, bundleCache);
+    }
+
     public DefaultInvoiceTranslator(final TranslatorConfig config) {
         super(config);
     }
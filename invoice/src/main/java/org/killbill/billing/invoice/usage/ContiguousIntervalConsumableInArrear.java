@@ -39,6 +39,7 @@ import org.killbill.billing.usage.api.RolledUpUnit;
 import org.killbill.billing.usage.api.RolledUpUsage;
 import org.killbill.billing.usage.api.UsageUserApi;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.currency.MoneyAccumulator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -140,7 +141,7 @@ public class ContiguousIntervalConsumableInArrear {
         for (final RolledUpUsage ru : allUsage) {
 
             // Compute total price amount that should be billed for that period of time (and usage section) across unitTypes.
-            BigDecimal toBeBilledUsage = BigDecimal.ZERO;
+            final MoneyAccumulator toBeBilledUsageAccumulator = new MoneyAccumulator();
             for (final RolledUpUnit cur : ru.getRolledUpUnits()) {
                 if (!unitTypes.contains(cur.getUnitType())) {
                     log.warn("ContiguousIntervalConsumableInArrear is skipping unitType " + cur.getUnitType());
@@ -148,9 +149,10 @@ public class ContiguousIntervalConsumableInArrear {
                 }
 
                 final BigDecimal toBeBilledForUnit = computeToBeBilledUsage(cur.getAmount(), cur.getUnitType());
-                toBeBilledUsage = toBeBilledUsage.add(toBeBilledForUnit);
+                toBeBilledUsageAccumulator.add(toBeBilledForUnit);
 
             }
+            final BigDecimal toBeBilledUsage = toBeBilledUsageAccumulator.toBigDecimal();
             // Retrieves current price amount billed for that period of time (and usage section)
             final Iterable<InvoiceItem> billedItems = getBilledItems(ru.getStart(), ru.getEnd(), existingUsage);
             final BigDecimal billedUsage = computeBilledUsage(billedItems);
@@ -190,7 +192,7 @@ public class ContiguousIntervalConsumableInArrear {
 
         Preconditions.checkState(isBuilt.get());
 
-        BigDecimal result = BigDecimal.ZERO;
+        final MoneyAccumulator result = new MoneyAccumulator();
         final List<TieredBlock> tieredBlocks = getConsumableInArrearTieredBlocks(usage, unitType);
         int remainingUnits = nbUnits.intValue();
         for (TieredBlock tieredBlock : tieredBlocks) {
@@ -205,9 +207,9 @@ public class ContiguousIntervalConsumableInArrear {
                 nbUsedTierBlocks = tmp;
                 remainingUnits = 0;
             }
-            result = result.add(tieredBlock.getPrice().getPrice(getCurrency()).multiply(new BigDecimal(nbUsedTierBlocks)));
+            result.addProduct(tieredBlock.getPrice().getPrice(getCurrency()), nbUsedTierBlocks);
         }
-        return result;
+        return result.toBigDecimal();
     }
 
     /**
@@ -218,12 +220,12 @@ public class ContiguousIntervalConsumableInArrear {
     BigDecimal computeBilledUsage(final Iterable<InvoiceItem> filteredUsageForInterval) {
 
         Preconditions.checkState(isBuilt.get());
-        BigDecimal billedAmount = BigDecimal.ZERO;
+        final MoneyAccumulator billedAmount = new MoneyAccumulator();
         for (InvoiceItem ii : filteredUsageForInterval) {
-            billedAmount = billedAmount.add(ii.getAmount());
+            billedAmount.add(ii.getAmount());
         }
         // Return the billed $ amount (not the # of units)
-        return billedAmount;
+        return billedAmount.toBigDecimal();
     }
 
     Iterable<InvoiceItem> getBilledItems(final LocalDate startDate, final LocalDate endDate, final List<InvoiceItem> existingUsage) {
@@ -36,6 +36,7 @@ import org.killbill.billing.invoice.template.HtmlInvoiceGenerator;
 import org.killbill.billing.invoice.template.formatters.DefaultInvoiceFormatterFactory;
 import org.killbill.billing.util.email.templates.MustacheTemplateEngine;
 import org.killbill.billing.util.email.templates.TemplateEngine;
+import org.killbill.billing.util.template.translation.TranslationBundleCache;
 import org.killbill.billing.util.template.translation.TranslatorConfig;
 import org.mockito.Mockito;
 import org.skife.config.ConfigurationObjectFactory;
@@ -53,8 +54,9 @@ public class TestHtmlInvoiceGenerator extends InvoiceTestSuiteNoDB {
         super.beforeClass();
         final TranslatorConfig config = new ConfigurationObjectFactory(skifeConfigSource).build(TranslatorConfig.class);
         final TemplateEngine templateEngine = new MustacheTemplateEngine();
-        final InvoiceFormatterFactory factory = new DefaultInvoiceFormatterFactory();
-        g = new HtmlInvoiceGenerator(factory, templateEngine, config, null);
+        final TranslationBundleCache bundleCache = new TranslationBundleCache();
+        final InvoiceFormatterFactory factory = new DefaultInvoiceFormatterFactory(bundleCache);
+        g = new HtmlInvoiceGenerator(factory, templateEngine, config, bundleCache, null);
     }
 
     @Test(groups = "fast")
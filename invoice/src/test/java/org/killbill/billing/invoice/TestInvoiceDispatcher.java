@@ -30,6 +30,7 @@ import org.joda.time.LocalDate;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.MockPlan;
 import org.killbill.billing.catalog.MockPlanPhase;
 import org.killbill.billing.catalog.api.BillingMode;
@@ -48,18 +49,25 @@ import org.killbill.billing.invoice.api.InvoiceItemType;
 import org.killbill.billing.invoice.api.InvoiceNotifier;
 import org.killbill.billing.invoice.dao.InvoiceItemModelDao;
 import org.killbill.billing.invoice.dao.InvoiceModelDao;
+import org.killbill.billing.invoice.notification.NextBillingDatePoster;
 import org.killbill.billing.invoice.notification.NullInvoiceNotifier;
 import org.killbill.billing.junction.BillingEventSet;
 import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
 import org.killbill.billing.util.timezone.DateAndTimeZoneContext;
 import org.killbill.clock.ClockMock;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.LockFailedException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
 public class TestInvoiceDispatcher extends InvoiceTestSuiteWithEmbeddedDB {
 
     private Account account;
@@ -95,7 +103,7 @@ public class TestInvoiceDispatcher extends InvoiceTestSuiteWithEmbeddedDB {
 
         final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(pluginRegistry, generator, accountApi, billingApi, subscriptionApi, invoiceDao,
-                                                                   nonEntityDao, invoiceNotifier, locker, busService.getBus(),
+                                                                   nonEntityDao, invoiceNotifier, nextBillingDatePoster, locker, busService.getBus(),
                                                                    clock, controllerDispatcher);
 
         Invoice invoice = dispatcher.processAccount(accountId, target, new DryRunFutureDateArguments(), context);
@@ -148,7 +156,7 @@ public class TestInvoiceDispatcher extends InvoiceTestSuiteWithEmbeddedDB {
         Mockito.when(billingApi.getBillingEventsForAccountAndUpdateAccountBCD(Mockito.<UUID>any(), Mockito.<DryRunArguments>any(), Mockito.<InternalCallContext>any())).thenReturn(events);
         final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(pluginRegistry, generator, accountApi, billingApi, subscriptionApi, invoiceDao,
-                                                                   nonEntityDao, invoiceNotifier, locker, busService.getBus(),
+                                                                   nonEntityDao, invoiceNotifier, nextBillingDatePoster, locker, busService.getBus(),
                                                                    clock, controllerDispatcher);
 
         final Invoice invoice = dispatcher.processAccount(account.getId(), new DateTime("2012-07-30T00:00:00.000Z"), null, context);
@@ -191,6 +199,39 @@ public class TestInvoiceDispatcher extends InvoiceTestSuiteWithEmbeddedDB {
         }
     }
 
+    @Test(groups = "slow")
+    public void testReEnqueueInvoiceRunOnLockFailure() throws Exception {
+        final GlobalLocker busyLocker = Mockito.mock(GlobalLocker.class);
+        Mockito.when(busyLocker.lockWithNumberOfTries(Mockito.anyString(), Mockito.anyString(), Mockito.anyInt())).thenThrow(new LockFailedException());
+        final NextBillingDatePoster retryPoster = Mockito.mock(NextBillingDatePoster.class);
+        Mockito.when(subscriptionApi.getAccountIdFromSubscriptionId(Mockito.eq(subscription.getId()), Mockito.<InternalTenantContext>any())).thenReturn(account.getId());
+        Mockito.when(subscriptionApi.getSubscriptionsForAccount(Mockito.<InternalTenantContext>any())).thenReturn(ImmutableMap.<UUID, List<SubscriptionBase>>of(UUID.randomUUID(), ImmutableList.<SubscriptionBase>of(subscription)));
+
+        final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
+        final InvoiceDispatcher dispatcher = new InvoiceDispatcher(pluginRegistry, generator, accountApi, billingApi, subscriptionApi, invoiceDao,
+                                                                   nonEntityDao, invoiceNotifier, retryPoster, busyLocker, busService.getBus(),
+                                                                   clock, controllerDispatcher);
+        final DateTime target = clock.getUTCNow();
+
+        // Subscription transition: the run is retried later for that subscription
+        final DateTime beforeSubscriptionRun = clock.getUTCNow();
+        Assert.assertFalse(dispatcher.processSubscription(subscription.getId(), target, context));
+        final ArgumentCaptor<DateTime> retryDate = ArgumentCaptor.forClass(DateTime.class);
+        Mockito.verify(retryPoster).insertNextBillingNotification(Mockito.eq(account.getId()), Mockito.eq(subscription.getId()), retryDate.capture(), Mockito.eq(context.getUserToken()));
+        Assert.assertFalse(retryDate.getValue().isBefore(beforeSubscriptionRun.plusSeconds(30)));
+        Assert.assertFalse(retryDate.getValue().isAfter(clock.getUTCNow().plusSeconds(30)));
+
+        // Account run: the run is retried later on one of the account subscriptions
+        Assert.assertNull(dispatcher.processAccount(account.getId(), target, null, context));
+        Mockito.verify(retryPoster, Mockito.times(2)).insertNextBillingNotification(Mockito.eq(account.getId()), Mockito.eq(subscription.getId()), Mockito.<DateTime>any(), Mockito.eq(context.getUserToken()));
+
+        // Dry run: nothing to retry
+        Assert.assertNull(dispatcher.processAccount(account.getId(), target, new DryRunFutureDateArguments(), context));
+        Mockito.verifyNoMoreInteractions(retryPoster);
+
+        Assert.assertEquals(invoiceDao.getInvoicesByAccount(context).size(), 0);
+    }
+
     @Test(groups = "slow")
     public void testCreateNextFutureNotificationDate() throws Exception {
 
@@ -206,7 +247,7 @@ public class TestInvoiceDispatcher extends InvoiceTestSuiteWithEmbeddedDB {
 
         final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(pluginRegistry, generator, accountApi, billingApi, subscriptionApi, invoiceDao,
-                                                                   nonEntityDao, invoiceNotifier, locker, busService.getBus(),
+                                                                   nonEntityDao, invoiceNotifier, nextBillingDatePoster, locker, busService.getBus(),
                                                                    clock, controllerDispatcher);
 
         final Map<UUID, List<DateTime>> result = dispatcher.createNextFutureNotificationDate(Collections.singletonList(item), null, dateAndTimeZoneContext);
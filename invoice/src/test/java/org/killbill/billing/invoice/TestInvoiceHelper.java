@@ -62,6 +62,7 @@ import org.killbill.billing.invoice.dao.InvoiceModelDaoHelper;
 import org.killbill.billing.invoice.dao.InvoicePaymentModelDao;
 import org.killbill.billing.invoice.dao.InvoicePaymentSqlDao;
 import org.killbill.billing.invoice.generator.InvoiceGenerator;
+import org.killbill.billing.invoice.notification.NextBillingDatePoster;
 import org.killbill.billing.invoice.notification.NullInvoiceNotifier;
 import org.killbill.billing.invoice.plugin.api.InvoicePluginApi;
 import org.killbill.billing.junction.BillingEvent;
@@ -150,6 +151,7 @@ public class TestInvoiceHelper {
     private final SubscriptionBaseInternalApi subscriptionApi;
     private final BusService busService;
     private final InvoiceDao invoiceDao;
+    private final NextBillingDatePoster nextBillingDatePoster;
     private final GlobalLocker locker;
     private final Clock clock;
     private final InternalCallContext internalCallContext;
@@ -164,7 +166,7 @@ public class TestInvoiceHelper {
     @Inject
     public TestInvoiceHelper(final OSGIServiceRegistration<InvoicePluginApi> pluginRegistry, final InvoiceGenerator generator, final IDBI dbi,
                              final BillingInternalApi billingApi, final AccountInternalApi accountApi, final AccountUserApi accountUserApi, final SubscriptionBaseInternalApi subscriptionApi, final BusService busService,
-                             final InvoiceDao invoiceDao, final GlobalLocker locker, final Clock clock, final NonEntityDao nonEntityDao, final InternalCallContext internalCallContext,
+                             final InvoiceDao invoiceDao, final NextBillingDatePoster nextBillingDatePoster, final GlobalLocker locker, final Clock clock, final NonEntityDao nonEntityDao, final InternalCallContext internalCallContext,
                              final InternalCallContextFactory internalCallContextFactory, final CacheControllerDispatcher cacheControllerDispatcher) {
         this.pluginRegistry = pluginRegistry;
         this.generator = generator;
@@ -174,6 +176,7 @@ public class TestInvoiceHelper {
         this.subscriptionApi = subscriptionApi;
         this.busService = busService;
         this.invoiceDao = invoiceDao;
+        this.nextBillingDatePoster = nextBillingDatePoster;
         this.locker = locker;
         this.clock = clock;
         this.nonEntityDao = nonEntityDao;
@@ -202,7 +205,7 @@ public class TestInvoiceHelper {
 
         final InvoiceNotifier invoiceNotifier = new NullInvoiceNotifier();
         final InvoiceDispatcher dispatcher = new InvoiceDispatcher(pluginRegistry, generator, accountApi, billingApi, subscriptionApi,
-                                                                   invoiceDao, nonEntityDao, invoiceNotifier, locker, busService.getBus(),
+                                                                   invoiceDao, nonEntityDao, invoiceNotifier, nextBillingDatePoster, locker, busService.getBus(),
                                                                    clock, cacheControllerDispatcher);
 
         Invoice invoice = dispatcher.processAccount(account.getId(), targetDate, new DryRunFutureDateArguments(), internalCallContext);
@@ -18,6 +18,7 @@ package org.killbill.billing.invoice.dao;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -235,6 +236,18 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
         return balance;
     }
 
+    @Override
+    public List<UnpaidInvoiceBalanceModelDao> getUnpaidInvoiceBalances(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        final List<UnpaidInvoiceBalanceModelDao> balances = new ArrayList<UnpaidInvoiceBalanceModelDao>();
+        for (final UUID accountId : accountIds) {
+            for (final InvoiceModelDao invoice : getUnpaidInvoicesByAccountId(accountId, null, context)) {
+                balances.add(new UnpaidInvoiceBalanceModelDao(invoice.getId(), accountId, invoice.getInvoiceDate(), invoice.getTargetDate(),
+                                                              invoice.getCurrency(), InvoiceModelDaoHelper.getBalance(invoice)));
+            }
+        }
+        return balances;
+    }
+
     @Override
     public List<InvoiceModelDao> getUnpaidInvoicesByAccountId(final UUID accountId, final LocalDate upToDate, final InternalTenantContext context) {
         final List<InvoiceModelDao> unpaidInvoices = new ArrayList<InvoiceModelDao>();
@@ -333,6 +346,15 @@ public class MockInvoiceDao extends MockEntityDaoBase<InvoiceModelDao, Invoice,
         return null;
     }
 
+    @Override
+    public Map<UUID, AccountBalanceModelDao> getAccountBalances(final Collection<UUID> accountIds, final InternalTenantContext context) {
+        final Map<UUID, AccountBalanceModelDao> balances = new LinkedHashMap<UUID, AccountBalanceModelDao>();
+        for (final UUID accountId : accountIds) {
+            balances.put(accountId, new AccountBalanceModelDao(accountId, null, getAccountBalance(accountId, context), BigDecimal.ZERO));
+        }
+        return balances;
+    }
+
     @Override
     public InvoicePaymentModelDao createRefund(final UUID paymentId, final BigDecimal amount, final boolean isInvoiceAdjusted,
                                                final Map<UUID, BigDecimal> invoiceItemIdsWithAmounts, final String transactionExternalKey,
@@ -525,6 +525,74 @@ public class TestInvoiceDao extends InvoiceTestSuiteWithEmbeddedDB {
         assertEquals(balance.compareTo(rate1.add(rate2).subtract(payment1)), 0);
     }
 
+    @Test(groups = "slow")
+    public void testAccountBalancesMatchAccountBalance() throws EntityPersistenceException {
+        final UUID accountId = account.getId();
+        final UUID bundleId = UUID.randomUUID();
+        final LocalDate targetDate1 = new LocalDate(2011, 10, 6);
+        final Invoice invoice1 = new DefaultInvoice(accountId, clock.getUTCToday(), targetDate1, Currency.USD);
+        invoiceUtil.createInvoice(invoice1, true, context);
+
+        final LocalDate startDate = new LocalDate(2011, 3, 1);
+        final LocalDate endDate = startDate.plusMonths(1);
+
+        final BigDecimal rate1 = new BigDecimal("17.0");
+        final BigDecimal rate2 = new BigDecimal("42.0");
+
+        final RecurringInvoiceItem item1 = new RecurringInvoiceItem(invoice1.getId(), accountId, bundleId, UUID.randomUUID(), "test plan", "test phase A", startDate,
+                                                                    endDate, rate1, rate1, Currency.USD);
+        invoiceUtil.createInvoiceItem(item1, context);
+
+        final RecurringInvoiceItem item2 = new RecurringInvoiceItem(invoice1.getId(), accountId, bundleId, UUID.randomUUID(), "test plan", "test phase B", startDate,
+                                                                    endDate, rate2, rate2, Currency.USD);
+        invoiceUtil.createInvoiceItem(item2, context);
+
+        final CreditAdjInvoiceItem creditItem = new CreditAdjInvoiceItem(invoice1.getId(), accountId, new LocalDate(), rate1.negate(), Currency.USD);
+        invoiceUtil.createInvoiceItem(creditItem, context);
+
+        final BigDecimal payment1 = new BigDecimal("20.0");
+        final InvoicePayment payment = new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, UUID.randomUUID(), invoice1.getId(), new DateTime(), payment1, Currency.USD, Currency.USD);
+        invoiceUtil.createPayment(payment, context);
+
+        final UUID accountWithoutInvoices = UUID.randomUUID();
+        final Map<UUID, AccountBalanceModelDao> balances = invoiceDao.getAccountBalances(ImmutableList.<UUID>of(accountId, accountWithoutInvoices), context);
+        assertEquals(balances.size(), 1);
+        assertEquals(balances.get(accountId).getBalance().compareTo(invoiceDao.getAccountBalance(accountId, context)), 0);
+        assertEquals(balances.get(accountId).getCBA().compareTo(invoiceDao.getAccountCBA(accountId, context)), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testUnpaidInvoiceBalancesMatchUnpaidInvoices() throws EntityPersistenceException {
+        final UUID accountId = account.getId();
+        final UUID bundleId = UUID.randomUUID();
+        final LocalDate startDate = new LocalDate(2011, 3, 1);
+        final LocalDate endDate = startDate.plusMonths(1);
+        final BigDecimal rate = new BigDecimal("17.0");
+
+        final Invoice paidInvoice = new DefaultInvoice(accountId, clock.getUTCToday(), new LocalDate(2011, 10, 6), Currency.USD);
+        invoiceUtil.createInvoice(paidInvoice, true, context);
+        invoiceUtil.createInvoiceItem(new RecurringInvoiceItem(paidInvoice.getId(), accountId, bundleId, UUID.randomUUID(), "test plan", "test phase A", startDate,
+                                                               endDate, rate, rate, Currency.USD), context);
+        invoiceUtil.createPayment(new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, UUID.randomUUID(), paidInvoice.getId(), new DateTime(), rate, Currency.USD, Currency.USD), context);
+
+        final Invoice unpaidInvoice = new DefaultInvoice(accountId, clock.getUTCToday(), new LocalDate(2011, 11, 6), Currency.USD);
+        invoiceUtil.createInvoice(unpaidInvoice, true, context);
+        invoiceUtil.createInvoiceItem(new RecurringInvoiceItem(unpaidInvoice.getId(), accountId, bundleId, UUID.randomUUID(), "test plan", "test phase B", startDate,
+                                                               endDate, rate, rate, Currency.USD), context);
+        final BigDecimal partialPayment = new BigDecimal("7.0");
+        invoiceUtil.createPayment(new DefaultInvoicePayment(InvoicePaymentType.ATTEMPT, UUID.randomUUID(), unpaidInvoice.getId(), new DateTime(), partialPayment, Currency.USD, Currency.USD), context);
+
+        final List<InvoiceModelDao> unpaidInvoices = invoiceDao.getUnpaidInvoicesByAccountId(accountId, null, context);
+        final List<UnpaidInvoiceBalanceModelDao> unpaidBalances = invoiceDao.getUnpaidInvoiceBalances(ImmutableList.<UUID>of(accountId, UUID.randomUUID()), context);
+        assertEquals(unpaidBalances.size(), 1);
+        assertEquals(unpaidInvoices.size(), 1);
+        assertEquals(unpaidBalances.get(0).getInvoiceId(), unpaidInvoice.getId());
+        assertEquals(unpaidBalances.get(0).getAccountId(), accountId);
+        assertEquals(unpaidBalances.get(0).getTargetDate(), unpaidInvoice.getTargetDate());
+        assertEquals(unpaidBalances.get(0).getBalance().compareTo(InvoiceModelDaoHelper.getBalance(unpaidInvoices.get(0))), 0);
+        assertEquals(unpaidBalances.get(0).getBalance().compareTo(rate.subtract(partialPayment)), 0);
+    }
+
     @Test(groups = "slow")
     public void testAccountBalanceWithCredit() throws EntityPersistenceException {
         final UUID accountId = account.getId();
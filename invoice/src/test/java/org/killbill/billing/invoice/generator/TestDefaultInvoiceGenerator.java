@@ -63,6 +63,7 @@ import org.killbill.billing.util.currency.KillBillMoney;
 import org.killbill.clock.Clock;
 import org.killbill.clock.DefaultClock;
 import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.testng.annotations.Test;
@@ -111,6 +112,31 @@ public class TestDefaultInvoiceGenerator extends InvoiceTestSuiteNoDB {
             public boolean isInsertZeroUsageItems() {
                 return true;
             }
+
+            @Override
+            public TimeSpan getNextBillingDateCoalescingWindow() {
+                return new TimeSpan("0s");
+            }
+
+            @Override
+            public int getEmailMaxRetries() {
+                return 5;
+            }
+
+            @Override
+            public TimeSpan getEmailRetryDelay() {
+                return new TimeSpan("1m");
+            }
+
+            @Override
+            public TimeSpan getEmailRetryMaxDelay() {
+                return new TimeSpan("1h");
+            }
+
+            @Override
+            public double getEmailRateLimit() {
+                return 10;
+            }
         };
         this.generator = new DefaultInvoiceGenerator(clock, null, invoiceConfig, null, controllerDispatcher);
     }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.invoice.notification;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.InvoiceTestSuiteNoDB;
+import org.killbill.billing.invoice.notification.InvoiceEmailQueue.InvoiceEmailDelivery;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.InvoiceConfig;
+import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueAlreadyExists;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueHandler;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestInvoiceEmailQueue extends InvoiceTestSuiteNoDB {
+
+    private static final int MAX_RETRIES = 3;
+    private static final long RETRY_DELAY_MILLIS = 60000L;
+    // Caps the last retry (which would otherwise be 4 minutes)
+    private static final long RETRY_MAX_DELAY_MILLIS = 180000L;
+
+    private NotificationQueue notificationQueue;
+    private NotificationQueueHandler notificationQueueHandler;
+    private MetricRegistry metricRegistry;
+    private InvoiceEmailQueue invoiceEmailQueue;
+
+    @Override
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() {
+        super.beforeMethod();
+
+        notificationQueue = Mockito.mock(NotificationQueue.class);
+        final NotificationQueueService notificationQueueService = Mockito.mock(NotificationQueueService.class);
+
+        final InvoiceConfig invoiceConfig = Mockito.mock(InvoiceConfig.class);
+        Mockito.when(invoiceConfig.getEmailMaxRetries()).thenReturn(MAX_RETRIES);
+        Mockito.when(invoiceConfig.getEmailRetryDelay()).thenReturn(new TimeSpan("1m"));
+        Mockito.when(invoiceConfig.getEmailRetryMaxDelay()).thenReturn(new TimeSpan("3m"));
+        Mockito.when(invoiceConfig.getEmailRateLimit()).thenReturn(0.0);
+
+        final InternalCallContextFactory callContextFactory = Mockito.mock(InternalCallContextFactory.class);
+        Mockito.when(callContextFactory.createInternalTenantContext(Mockito.<Long>any(), Mockito.<Long>any())).thenReturn(internalCallContext);
+
+        metricRegistry = new MetricRegistry();
+        invoiceEmailQueue = new InvoiceEmailQueue(notificationQueueService, invoiceConfig, callContextFactory, clock, metricRegistry);
+        final ArgumentCaptor<NotificationQueueHandler> handler = ArgumentCaptor.forClass(NotificationQueueHandler.class);
+        try {
+            Mockito.when(notificationQueueService.createNotificationQueue(Mockito.anyString(), Mockito.anyString(), handler.capture())).thenReturn(notificationQueue);
+            invoiceEmailQueue.initialize();
+        } catch (final NotificationQueueAlreadyExists e) {
+            throw new IllegalStateException(e);
+        }
+        notificationQueueHandler = handler.getValue();
+    }
+
+    @Test(groups = "fast")
+    public void testDelivery() throws Exception {
+        final InvoiceEmailDelivery delivery = Mockito.mock(InvoiceEmailDelivery.class);
+        invoiceEmailQueue.register(delivery);
+
+        final InvoiceEmailNotificationKey key = new InvoiceEmailNotificationKey(UUID.randomUUID(), UUID.randomUUID(), 0);
+        dispatch(key);
+
+        Mockito.verify(delivery).deliver(Mockito.eq(key.getAccountId()), Mockito.eq(key.getInvoiceId()), Mockito.<InternalTenantContext>any());
+        Mockito.verify(notificationQueue, Mockito.never()).recordFutureNotification(Mockito.<DateTime>any(), Mockito.<NotificationEvent>any(), Mockito.<UUID>any(), Mockito.<Long>any(), Mockito.<Long>any());
+        Assert.assertEquals(getMeterCount("delivered"), 1);
+        Assert.assertEquals(getMeterCount("retried"), 0);
+        Assert.assertEquals(getMeterCount("dropped"), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testFailingDeliveryIsRetriedThenDropped() throws Exception {
+        final InvoiceEmailDelivery delivery = Mockito.mock(InvoiceEmailDelivery.class);
+        Mockito.doThrow(new RuntimeException("MTA unavailable")).when(delivery).deliver(Mockito.<UUID>any(), Mockito.<UUID>any(), Mockito.<InternalTenantContext>any());
+        invoiceEmailQueue.register(delivery);
+
+        final UUID userToken = UUID.randomUUID();
+        InvoiceEmailNotificationKey key = new InvoiceEmailNotificationKey(UUID.randomUUID(), UUID.randomUUID(), 0);
+        for (int retry = 1; retry <= MAX_RETRIES; retry++) {
+            final DateTime beforeDispatch = clock.getUTCNow();
+            notificationQueueHandler.handleReadyNotification(key, beforeDispatch, userToken, internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId());
+
+            // Each failure schedules the next attempt, with a bounded exponential backoff
+            final ArgumentCaptor<DateTime> timeOfRetry = ArgumentCaptor.forClass(DateTime.class);
+            final ArgumentCaptor<NotificationEvent> retryKey = ArgumentCaptor.forClass(NotificationEvent.class);
+            Mockito.verify(notificationQueue, Mockito.times(retry)).recordFutureNotification(timeOfRetry.capture(), retryKey.capture(), Mockito.eq(userToken),
+                                                                                              Mockito.eq(internalCallContext.getAccountRecordId()), Mockito.eq(internalCallContext.getTenantRecordId()));
+            final long expectedDelayMillis = Math.min(RETRY_DELAY_MILLIS << (retry - 1), RETRY_MAX_DELAY_MILLIS);
+            Assert.assertFalse(getLast(timeOfRetry.getAllValues()).isBefore(beforeDispatch.plus(expectedDelayMillis)));
+            Assert.assertFalse(getLast(timeOfRetry.getAllValues()).isAfter(clock.getUTCNow().plus(expectedDelayMillis)));
+
+            key = (InvoiceEmailNotificationKey) getLast(retryKey.getAllValues());
+            Assert.assertEquals(key.getAttemptNumber(), retry);
+            Assert.assertEquals(getMeterCount("retried"), retry);
+            Assert.assertEquals(getMeterCount("dropped"), 0);
+        }
+
+        // Last attempt: the email is dropped, nothing else is scheduled
+        dispatch(key);
+        Mockito.verify(delivery, Mockito.times(MAX_RETRIES + 1)).deliver(Mockito.eq(key.getAccountId()), Mockito.eq(key.getInvoiceId()), Mockito.<InternalTenantContext>any());
+        Mockito.verify(notificationQueue, Mockito.times(MAX_RETRIES)).recordFutureNotification(Mockito.<DateTime>any(), Mockito.<NotificationEvent>any(), Mockito.<UUID>any(), Mockito.<Long>any(), Mockito.<Long>any());
+        Assert.assertEquals(getMeterCount("retried"), MAX_RETRIES);
+        Assert.assertEquals(getMeterCount("dropped"), 1);
+        Assert.assertEquals(getMeterCount("delivered"), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testDroppedWhenNotificationsDisabled() throws Exception {
+        dispatch(new InvoiceEmailNotificationKey(UUID.randomUUID(), UUID.randomUUID(), 0));
+
+        Mockito.verify(notificationQueue, Mockito.never()).recordFutureNotification(Mockito.<DateTime>any(), Mockito.<NotificationEvent>any(), Mockito.<UUID>any(), Mockito.<Long>any(), Mockito.<Long>any());
+        Assert.assertEquals(getMeterCount("dropped"), 1);
+    }
+
+    private void dispatch(final InvoiceEmailNotificationKey key) {
+        notificationQueueHandler.handleReadyNotification(key, clock.getUTCNow(), null, internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId());
+    }
+
+    private long getMeterCount(final String name) {
+        return metricRegistry.meter(MetricRegistry.name(InvoiceEmailQueue.class, InvoiceEmailQueue.INVOICE_EMAIL_QUEUE, name)).getCount();
+    }
+
+    private <T> T getLast(final List<T> values) {
+        return values.get(values.size() - 1);
+    }
+}
@@ -61,4 +61,31 @@ public class TestNextBillingDateNotifier extends InvoiceTestSuiteWithEmbeddedDB
         Assert.assertEquals(testInvoiceNotificationQListener.getEventCount(), 1);
         Assert.assertEquals(testInvoiceNotificationQListener.getLatestSubscriptionId(), subscriptionId);
     }
+
+    @Test(groups = "slow")
+    public void testInvoiceNotifierCoalescing() throws Exception {
+        final int initialEventCount = testInvoiceNotificationQListener.getEventCount();
+        final DateTime now = clock.getUTCNow();
+
+        final NotificationQueue nextBillingQueue = notificationQueueService.getNotificationQueue(DefaultInvoiceService.INVOICE_SERVICE_NAME, DefaultNextBillingDateNotifier.NEXT_BILLING_DATE_NOTIFIER_QUEUE);
+
+        // Three subscriptions of the same account sharing the same billing date
+        for (int i = 0; i < 3; i++) {
+            final SubscriptionBase subscription = invoiceUtil.createSubscription();
+            nextBillingQueue.recordFutureNotification(now, new NextBillingDateNotificationKey(subscription.getId()), internalCallContext.getUserToken(), internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId());
+        }
+
+        ((ClockMock) clock).addDeltaFromReality(3000);
+
+        await().atMost(1, MINUTES).until(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                return testInvoiceNotificationQListener.getEventCount() > initialEventCount &&
+                       nextBillingQueue.getFutureNotificationForSearchKeys(internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId()).isEmpty();
+            }
+        });
+
+        // Only one invoice run for the account
+        Assert.assertEquals(testInvoiceNotificationQListener.getEventCount(), initialEventCount + 1);
+    }
 }
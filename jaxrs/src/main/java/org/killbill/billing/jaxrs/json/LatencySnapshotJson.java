@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.jaxrs.json;
+
+import org.killbill.billing.util.profiling.LatencySnapshot;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class LatencySnapshotJson {
+
+    private final String type;
+    private final String name;
+    private final Long count;
+    private final Long totalUsec;
+    private final Long meanUsec;
+    private final Long p50Usec;
+    private final Long p90Usec;
+    private final Long p99Usec;
+    private final Long maxUsec;
+
+    @JsonCreator
+    public LatencySnapshotJson(@JsonProperty("type") final String type,
+                               @JsonProperty("name") final String name,
+                               @JsonProperty("count") final Long count,
+                               @JsonProperty("totalUsec") final Long totalUsec,
+                               @JsonProperty("meanUsec") final Long meanUsec,
+                               @JsonProperty("p50Usec") final Long p50Usec,
+                               @JsonProperty("p90Usec") final Long p90Usec,
+                               @JsonProperty("p99Usec") final Long p99Usec,
+                               @JsonProperty("maxUsec") final Long maxUsec) {
+        this.type = type;
+        this.name = name;
+        this.count = count;
+        this.totalUsec = totalUsec;
+        this.meanUsec = meanUsec;
+        this.p50Usec = p50Usec;
+        this.p90Usec = p90Usec;
+        this.p99Usec = p99Usec;
+        this.maxUsec = maxUsec;
+    }
+
+    public LatencySnapshotJson(final LatencySnapshot snapshot) {
+        this(snapshot.getType(),
+             snapshot.getName(),
+             snapshot.getCount(),
+             snapshot.getTotalUsec(),
+             snapshot.getMeanUsec(),
+             snapshot.getP50Usec(),
+             snapshot.getP90Usec(),
+             snapshot.getP99Usec(),
+             snapshot.getMaxUsec());
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getCount() {
+        return count;
+    }
+
+    public Long getTotalUsec() {
+        return totalUsec;
+    }
+
+    public Long getMeanUsec() {
+        return meanUsec;
+    }
+
+    public Long getP50Usec() {
+        return p50Usec;
+    }
+
+    public Long getP90Usec() {
+        return p90Usec;
+    }
+
+    public Long getP99Usec() {
+        return p99Usec;
+    }
+
+    public Long getMaxUsec() {
+        return maxUsec;
+    }
+}
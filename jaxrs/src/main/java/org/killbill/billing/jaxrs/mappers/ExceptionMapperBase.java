@@ -157,6 +157,14 @@ public abstract class ExceptionMapperBase {
         return responseBuilder.build();
     }
 
+    protected Response buildServiceUnavailableResponse(final Exception e, final UriInfo uriInfo) {
+        log.warn("Service unavailable: " + e.getMessage());
+
+        final Response.ResponseBuilder responseBuilder = Response.status(Status.SERVICE_UNAVAILABLE);
+        serializeException(e, uriInfo, responseBuilder);
+        return responseBuilder.build();
+    }
+
     protected Response buildPluginTimeoutResponse(final Exception e, final UriInfo uriInfo) {
         final Response.ResponseBuilder responseBuilder = Response.status(Status.ACCEPTED);
         serializeException(e, uriInfo, responseBuilder);
@@ -16,6 +16,8 @@
 
 package org.killbill.billing.jaxrs.mappers;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import javax.inject.Singleton;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
@@ -46,6 +48,9 @@ public class RuntimeExceptionMapper extends ExceptionMapperBase implements Excep
             exception.printStackTrace();
             log.warn("Exception : " + exception.getMessage());
             return buildBadRequestResponse(exception, uriInfo);
+        } else if (exception instanceof RejectedExecutionException) {
+            // The JAX-RS executor is saturated (see JaxrsExecutors)
+            return buildServiceUnavailableResponse(exception, uriInfo);
         } else if (exception instanceof WebApplicationException) {
             // e.g. com.sun.jersey.api.NotFoundException
             return ((WebApplicationException) exception).getResponse();
@@ -18,6 +18,8 @@
 
 package org.killbill.billing.jaxrs.resources;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.util.ArrayList;
@@ -25,8 +27,15 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
+import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -39,24 +48,33 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountData;
 import org.killbill.billing.account.api.AccountEmail;
+import org.killbill.billing.account.api.AccountInternalApi;
 import org.killbill.billing.account.api.AccountUserApi;
 import org.killbill.billing.account.api.MutableAccountData;
+import org.killbill.billing.audit.AuditInternalApi;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.entitlement.api.SubscriptionApi;
 import org.killbill.billing.entitlement.api.SubscriptionApiException;
 import org.killbill.billing.entitlement.api.SubscriptionBundle;
 import org.killbill.billing.invoice.api.Invoice;
+import org.killbill.billing.invoice.api.InvoiceAccountBalance;
 import org.killbill.billing.invoice.api.InvoiceApiException;
+import org.killbill.billing.invoice.api.InvoiceInternalApi;
 import org.killbill.billing.invoice.api.InvoicePayment;
 import org.killbill.billing.invoice.api.InvoicePaymentApi;
 import org.killbill.billing.invoice.api.InvoiceUserApi;
@@ -64,6 +82,7 @@ import org.killbill.billing.jaxrs.json.AccountEmailJson;
 import org.killbill.billing.jaxrs.json.AccountJson;
 import org.killbill.billing.jaxrs.json.AccountTimelineJson;
 import org.killbill.billing.jaxrs.json.BundleJson;
+import org.killbill.billing.jaxrs.json.CreditJson;
 import org.killbill.billing.jaxrs.json.CustomFieldJson;
 import org.killbill.billing.jaxrs.json.InvoiceEmailJson;
 import org.killbill.billing.jaxrs.json.InvoiceJson;
@@ -74,6 +93,7 @@ import org.killbill.billing.jaxrs.json.PaymentMethodJson;
 import org.killbill.billing.jaxrs.json.PaymentTransactionJson;
 import org.killbill.billing.jaxrs.json.TagJson;
 import org.killbill.billing.jaxrs.util.Context;
+import org.killbill.billing.jaxrs.util.JaxrsExecutors;
 import org.killbill.billing.jaxrs.util.JaxrsUriBuilder;
 import org.killbill.billing.overdue.OverdueApiException;
 import org.killbill.billing.overdue.OverdueState;
@@ -94,18 +114,23 @@ import org.killbill.billing.util.api.TagDefinitionApiException;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.audit.AccountAuditLogs;
 import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.clock.Clock;
 
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import com.wordnik.swagger.annotations.Api;
@@ -126,6 +151,11 @@ public class AccountResource extends JaxRsResourceBase {
     private final InvoiceUserApi invoiceApi;
     private final InvoicePaymentApi invoicePaymentApi;
     private final OverdueUserApi overdueApi;
+    private final JaxrsExecutors jaxrsExecutors;
+    private final InvoiceInternalApi invoiceInternalApi;
+    private final AuditInternalApi auditInternalApi;
+    private final AccountInternalApi accountInternalApi;
+    private final InternalCallContextFactory internalCallContextFactory;
 
     @Inject
     public AccountResource(final JaxrsUriBuilder uriBuilder,
@@ -139,12 +169,22 @@ public class AccountResource extends JaxRsResourceBase {
                            final SubscriptionApi subscriptionApi,
                            final OverdueUserApi overdueApi,
                            final Clock clock,
-                           final Context context) {
+                           final Context context,
+                           final JaxrsExecutors jaxrsExecutors,
+                           final InvoiceInternalApi invoiceInternalApi,
+                           final AuditInternalApi auditInternalApi,
+                           final AccountInternalApi accountInternalApi,
+                           final InternalCallContextFactory internalCallContextFactory) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountApi, paymentApi, clock, context);
         this.subscriptionApi = subscriptionApi;
         this.invoiceApi = invoiceApi;
         this.invoicePaymentApi = invoicePaymentApi;
         this.overdueApi = overdueApi;
+        this.jaxrsExecutors = jaxrsExecutors;
+        this.invoiceInternalApi = invoiceInternalApi;
+        this.auditInternalApi = auditInternalApi;
+        this.accountInternalApi = accountInternalApi;
+        this.internalCallContextFactory = internalCallContextFactory;
     }
 
     @Timed
@@ -161,8 +201,7 @@ public class AccountResource extends JaxRsResourceBase {
                                @javax.ws.rs.core.Context final HttpServletRequest request) throws AccountApiException {
         final TenantContext tenantContext = context.createContext(request);
         final Account account = accountUserApi.getAccountById(UUID.fromString(accountId), tenantContext);
-        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(account.getId(), auditMode.getLevel(), tenantContext);
-        final AccountJson accountJson = getAccount(account, accountWithBalance, accountWithBalanceAndCBA, accountAuditLogs, tenantContext);
+        final AccountJson accountJson = getAccount(account, accountWithBalance, accountWithBalanceAndCBA, auditMode, tenantContext);
         return Response.status(Status.OK).entity(accountJson).build();
     }
 
@@ -174,25 +213,23 @@ public class AccountResource extends JaxRsResourceBase {
     @ApiResponses(value = {})
     public Response getAccounts(@QueryParam(QUERY_SEARCH_OFFSET) @DefaultValue("0") final Long offset,
                                 @QueryParam(QUERY_SEARCH_LIMIT) @DefaultValue("100") final Long limit,
+                                @QueryParam(QUERY_SEARCH_LAST_RECORD_ID) final Long lastRecordId,
                                 @QueryParam(QUERY_ACCOUNT_WITH_BALANCE) @DefaultValue("false") final Boolean accountWithBalance,
                                 @QueryParam(QUERY_ACCOUNT_WITH_BALANCE_AND_CBA) @DefaultValue("false") final Boolean accountWithBalanceAndCBA,
                                 @QueryParam(QUERY_AUDIT) @DefaultValue("NONE") final AuditMode auditMode,
                                 @javax.ws.rs.core.Context final HttpServletRequest request) throws AccountApiException {
         final TenantContext tenantContext = context.createContext(request);
+        final Map<String, String> nextPageParams = ImmutableMap.<String, String>of(QUERY_ACCOUNT_WITH_BALANCE, accountWithBalance.toString(),
+                                                                                   QUERY_ACCOUNT_WITH_BALANCE_AND_CBA, accountWithBalanceAndCBA.toString(),
+                                                                                   QUERY_AUDIT, auditMode.getLevel().toString());
+        if (lastRecordId != null) {
+            final Map<Long, Account> accountsByRecordId = accountInternalApi.getAccountsFromRecordId(lastRecordId, limit.intValue(), internalCallContextFactory.createInternalTenantContext(tenantContext));
+            return buildAccountsPaginationResponseFromRecordId("getAccounts", accountsByRecordId, offset, limit, nextPageParams, accountWithBalance, accountWithBalanceAndCBA, auditMode, tenantContext);
+        }
+
         final Pagination<Account> accounts = accountUserApi.getAccounts(offset, limit, tenantContext);
-        final URI nextPageUri = uriBuilder.nextPage(AccountResource.class, "getAccounts", accounts.getNextOffset(), limit, ImmutableMap.<String, String>of(QUERY_ACCOUNT_WITH_BALANCE, accountWithBalance.toString(),
-                                                                                                                                                           QUERY_ACCOUNT_WITH_BALANCE_AND_CBA, accountWithBalanceAndCBA.toString(),
-                                                                                                                                                           QUERY_AUDIT, auditMode.getLevel().toString()));
-        return buildStreamingPaginationResponse(accounts,
-                                                new Function<Account, AccountJson>() {
-                                                    @Override
-                                                    public AccountJson apply(final Account account) {
-                                                        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(account.getId(), auditMode.getLevel(), tenantContext);
-                                                        return getAccount(account, accountWithBalance, accountWithBalanceAndCBA, accountAuditLogs, tenantContext);
-                                                    }
-                                                },
-                                                nextPageUri
-                                               );
+        final URI nextPageUri = uriBuilder.nextPage(AccountResource.class, "getAccounts", accounts.getNextOffset(), limit, nextPageParams);
+        return buildAccountsPaginationResponse(accounts, limit, accountWithBalance, accountWithBalanceAndCBA, auditMode, nextPageUri, tenantContext);
     }
 
     @Timed
@@ -204,26 +241,24 @@ public class AccountResource extends JaxRsResourceBase {
     public Response searchAccounts(@PathParam("searchKey") final String searchKey,
                                    @QueryParam(QUERY_SEARCH_OFFSET) @DefaultValue("0") final Long offset,
                                    @QueryParam(QUERY_SEARCH_LIMIT) @DefaultValue("100") final Long limit,
+                                   @QueryParam(QUERY_SEARCH_LAST_RECORD_ID) final Long lastRecordId,
                                    @QueryParam(QUERY_ACCOUNT_WITH_BALANCE) @DefaultValue("false") final Boolean accountWithBalance,
                                    @QueryParam(QUERY_ACCOUNT_WITH_BALANCE_AND_CBA) @DefaultValue("false") final Boolean accountWithBalanceAndCBA,
                                    @QueryParam(QUERY_AUDIT) @DefaultValue("NONE") final AuditMode auditMode,
                                    @javax.ws.rs.core.Context final HttpServletRequest request) throws AccountApiException {
         final TenantContext tenantContext = context.createContext(request);
+        final Map<String, String> nextPageParams = ImmutableMap.<String, String>of("searchKey", searchKey,
+                                                                                   QUERY_ACCOUNT_WITH_BALANCE, accountWithBalance.toString(),
+                                                                                   QUERY_ACCOUNT_WITH_BALANCE_AND_CBA, accountWithBalanceAndCBA.toString(),
+                                                                                   QUERY_AUDIT, auditMode.getLevel().toString());
+        if (lastRecordId != null) {
+            final Map<Long, Account> accountsByRecordId = accountInternalApi.searchAccountsFromRecordId(searchKey, lastRecordId, limit.intValue(), internalCallContextFactory.createInternalTenantContext(tenantContext));
+            return buildAccountsPaginationResponseFromRecordId("searchAccounts", accountsByRecordId, offset, limit, nextPageParams, accountWithBalance, accountWithBalanceAndCBA, auditMode, tenantContext);
+        }
+
         final Pagination<Account> accounts = accountUserApi.searchAccounts(searchKey, offset, limit, tenantContext);
-        final URI nextPageUri = uriBuilder.nextPage(AccountResource.class, "searchAccounts", accounts.getNextOffset(), limit, ImmutableMap.<String, String>of("searchKey", searchKey,
-                                                                                                                                                              QUERY_ACCOUNT_WITH_BALANCE, accountWithBalance.toString(),
-                                                                                                                                                              QUERY_ACCOUNT_WITH_BALANCE_AND_CBA, accountWithBalanceAndCBA.toString(),
-                                                                                                                                                              QUERY_AUDIT, auditMode.getLevel().toString()));
-        return buildStreamingPaginationResponse(accounts,
-                                                new Function<Account, AccountJson>() {
-                                                    @Override
-                                                    public AccountJson apply(final Account account) {
-                                                        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(account.getId(), auditMode.getLevel(), tenantContext);
-                                                        return getAccount(account, accountWithBalance, accountWithBalanceAndCBA, accountAuditLogs, tenantContext);
-                                                    }
-                                                },
-                                                nextPageUri
-                                               );
+        final URI nextPageUri = uriBuilder.nextPage(AccountResource.class, "searchAccounts", accounts.getNextOffset(), limit, nextPageParams);
+        return buildAccountsPaginationResponse(accounts, limit, accountWithBalance, accountWithBalanceAndCBA, auditMode, nextPageUri, tenantContext);
     }
 
     @Timed
@@ -266,23 +301,101 @@ public class AccountResource extends JaxRsResourceBase {
                                     @javax.ws.rs.core.Context final HttpServletRequest request) throws AccountApiException {
         final TenantContext tenantContext = context.createContext(request);
         final Account account = accountUserApi.getAccountByKey(externalKey, tenantContext);
-        final AccountAuditLogs accountAuditLogs = auditUserApi.getAccountAuditLogs(account.getId(), auditMode.getLevel(), tenantContext);
-        final AccountJson accountJson = getAccount(account, accountWithBalance, accountWithBalanceAndCBA, accountAuditLogs, tenantContext);
+        final AccountJson accountJson = getAccount(account, accountWithBalance, accountWithBalanceAndCBA, auditMode, tenantContext);
         return Response.status(Status.OK).entity(accountJson).build();
     }
 
     private AccountJson getAccount(final Account account, final Boolean accountWithBalance, final Boolean accountWithBalanceAndCBA,
-                                   final AccountAuditLogs auditLogs, final TenantContext tenantContext) {
+                                   final AuditMode auditMode, final TenantContext tenantContext) {
+        // The balance, CBA and audit lookups are independent: compute the invoice ones in the background
+        final ExecutorService executor = jaxrsExecutors.getJaxrsExecutorService();
+        final Future<BigDecimal> accountBalanceFuture;
+        if (accountWithBalance || accountWithBalanceAndCBA) {
+            accountBalanceFuture = executor.submit(new Callable<BigDecimal>() {
+                @Override
+                public BigDecimal call() throws Exception {
+                    return invoiceApi.getAccountBalance(account.getId(), tenantContext);
+                }
+            });
+        } else {
+            accountBalanceFuture = null;
+        }
+        final Future<BigDecimal> accountCBAFuture;
         if (accountWithBalanceAndCBA) {
-            final BigDecimal accountBalance = invoiceApi.getAccountBalance(account.getId(), tenantContext);
-            final BigDecimal accountCBA = invoiceApi.getAccountCBA(account.getId(), tenantContext);
-            return new AccountJson(account, accountBalance, accountCBA, auditLogs);
-        } else if (accountWithBalance) {
-            final BigDecimal accountBalance = invoiceApi.getAccountBalance(account.getId(), tenantContext);
-            return new AccountJson(account, accountBalance, null, auditLogs);
+            accountCBAFuture = executor.submit(new Callable<BigDecimal>() {
+                @Override
+                public BigDecimal call() throws Exception {
+                    return invoiceApi.getAccountCBA(account.getId(), tenantContext);
+                }
+            });
+        } else {
+            accountCBAFuture = null;
+        }
+
+        final AccountAuditLogs auditLogs = auditUserApi.getAccountAuditLogs(account.getId(), auditMode.getLevel(), tenantContext);
+        final BigDecimal accountBalance = accountBalanceFuture == null ? null : Futures.getUnchecked(accountBalanceFuture);
+        final BigDecimal accountCBA = accountCBAFuture == null ? null : Futures.getUnchecked(accountCBAFuture);
+        return new AccountJson(account, accountBalance, accountCBA, auditLogs);
+    }
+
+    // Keyset pagination (opt-in, by specifying lastRecordId=0 on the first page): the next page URI carries the record id
+    // of the last account of this page, so the database seeks to it instead of skipping offset rows. Counts aren't computed.
+    private Response buildAccountsPaginationResponseFromRecordId(final String getMethodName, final Map<Long, Account> accountsByRecordId, final Long offset, final Long limit,
+                                                                 final Map<String, String> nextPageParams, final Boolean accountWithBalance, final Boolean accountWithBalanceAndCBA,
+                                                                 final AuditMode auditMode, final TenantContext tenantContext) {
+        final URI nextPageUri;
+        if (accountsByRecordId.size() < limit) {
+            // Last page
+            nextPageUri = null;
         } else {
-            return new AccountJson(account, null, null, auditLogs);
+            final Map<String, String> params = ImmutableMap.<String, String>builder()
+                                                           .putAll(nextPageParams)
+                                                           .put(QUERY_SEARCH_LAST_RECORD_ID, Iterables.getLast(accountsByRecordId.keySet()).toString())
+                                                           .build();
+            nextPageUri = uriBuilder.nextPage(AccountResource.class, getMethodName, offset + limit, limit, params);
         }
+
+        final Pagination<Account> accounts = new DefaultPagination<Account>(offset, limit, null, null, accountsByRecordId.values().iterator());
+        return buildAccountsPaginationResponse(accounts, limit, accountWithBalance, accountWithBalanceAndCBA, auditMode, nextPageUri, tenantContext);
+    }
+
+    private Response buildAccountsPaginationResponse(final Pagination<Account> accounts, final Long limit, final Boolean accountWithBalance, final Boolean accountWithBalanceAndCBA,
+                                                     final AuditMode auditMode, final URI nextPageUri, final TenantContext tenantContext) {
+        // The page is bounded by the limit: load it upfront so that balances and audit logs are retrieved with a single query each
+        final List<Account> accountsInPage = ImmutableList.<Account>copyOf(accounts);
+        final List<UUID> accountIds = Lists.<Account, UUID>transform(accountsInPage, new Function<Account, UUID>() {
+            @Override
+            public UUID apply(final Account account) {
+                return account.getId();
+            }
+        });
+
+        final InternalTenantContext internalTenantContext = internalCallContextFactory.createInternalTenantContext(tenantContext);
+        final Map<UUID, InvoiceAccountBalance> accountBalances = (accountWithBalance || accountWithBalanceAndCBA) ?
+                                                                 invoiceInternalApi.getAccountBalances(accountIds, internalTenantContext) :
+                                                                 ImmutableMap.<UUID, InvoiceAccountBalance>of();
+        final Map<UUID, AccountAuditLogs> accountsAuditLogs = auditInternalApi.getAccountAuditLogs(accountIds, auditMode.getLevel(), internalTenantContext);
+
+        return buildStreamingPaginationResponse(new DefaultPagination<Account>(accounts, limit, accountsInPage.iterator()),
+                                                new Function<Account, AccountJson>() {
+                                                    @Override
+                                                    public AccountJson apply(final Account account) {
+                                                        final InvoiceAccountBalance accountBalance = accountBalances.get(account.getId());
+                                                        // Accounts without any invoice don't show up in the grouped query
+                                                        final BigDecimal balance = accountBalance == null ? BigDecimal.ZERO : accountBalance.getBalance();
+                                                        final BigDecimal cba = accountBalance == null ? BigDecimal.ZERO : accountBalance.getCBA();
+                                                        final AccountAuditLogs accountAuditLogs = accountsAuditLogs.get(account.getId());
+                                                        if (accountWithBalanceAndCBA) {
+                                                            return new AccountJson(account, balance, cba, accountAuditLogs);
+                                                        } else if (accountWithBalance) {
+                                                            return new AccountJson(account, balance, null, accountAuditLogs);
+                                                        } else {
+                                                            return new AccountJson(account, null, null, accountAuditLogs);
+                                                        }
+                                                    }
+                                                },
+                                                nextPageUri
+                                               );
     }
 
     @Timed
@@ -379,6 +492,148 @@ public class AccountResource extends JaxRsResourceBase {
         return Response.status(Status.OK).entity(json).build();
     }
 
+    @Timed
+    @GET
+    @Path("/{accountId:" + UUID_PATTERN + "}/" + TIMELINE + "/" + STREAM)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Stream account timeline", response = AccountTimelineJson.class)
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid account id supplied"),
+                           @ApiResponse(code = 404, message = "Account not found")})
+    public Response getAccountTimelineStream(@PathParam("accountId") final String accountIdString,
+                                             @QueryParam(QUERY_AUDIT) @DefaultValue("NONE") final AuditMode auditMode,
+                                             @QueryParam(QUERY_START_DATE) final String startDate,
+                                             @QueryParam(QUERY_END_DATE) final String endDate,
+                                             @javax.ws.rs.core.Context final HttpServletRequest request) throws AccountApiException {
+        final TenantContext tenantContext = context.createContext(request);
+
+        final UUID accountId = UUID.fromString(accountIdString);
+        final Account account = accountUserApi.getAccountById(accountId, tenantContext);
+        final LocalDate from = startDate == null ? null : toLocalDate(account, startDate, tenantContext);
+        final LocalDate to = endDate == null ? null : toLocalDate(account, endDate, tenantContext);
+
+        // The audit logs and the bundles are needed to write every section: fetch them concurrently
+        final ExecutorService executor = jaxrsExecutors.getJaxrsExecutorService();
+        final List<Future<?>> futures = new LinkedList<Future<?>>();
+        final Future<AccountAuditLogs> accountAuditLogsFuture;
+        final Future<List<SubscriptionBundle>> bundlesFuture;
+        try {
+            accountAuditLogsFuture = submit(executor, futures, new Callable<AccountAuditLogs>() {
+                @Override
+                public AccountAuditLogs call() throws Exception {
+                    return auditUserApi.getAccountAuditLogs(accountId, auditMode.getLevel(), tenantContext);
+                }
+            });
+            bundlesFuture = submit(executor, futures, new Callable<List<SubscriptionBundle>>() {
+                @Override
+                public List<SubscriptionBundle> call() throws Exception {
+                    return subscriptionApi.getSubscriptionBundlesForAccountId(accountId, tenantContext);
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            // Executor saturated: don't leave the sections already submitted running (the 503 is built by RuntimeExceptionMapper)
+            cancel(futures);
+            throw e;
+        }
+
+        final StreamingOutput json = new StreamingOutput() {
+            @Override
+            public void write(final OutputStream output) throws IOException, WebApplicationException {
+                final JsonGenerator generator = mapper.getFactory().createJsonGenerator(output);
+                generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
+                try {
+                    final AccountAuditLogs accountAuditLogs = accountAuditLogsFuture.get();
+
+                    generator.writeStartObject();
+                    generator.writeObjectField("account", new AccountJson(account, null, null, accountAuditLogs));
+                    generator.flush();
+
+                    final List<SubscriptionBundle> bundles = bundlesFuture.get();
+                    generator.writeArrayFieldStart("bundles");
+                    for (final SubscriptionBundle bundle : bundles) {
+                        if (isInRange(bundle.getCreatedDate(), account, from, to)) {
+                            generator.writeObject(new BundleJson(bundle, accountAuditLogs));
+                        }
+                    }
+                    generator.writeEndArray();
+                    generator.flush();
+
+                    // The invoices and the payments are only fetched once the previous section has been written,
+                    // so that at most one of them is held in memory
+                    writeTimelineInvoices(generator, account, from, to, bundles, accountAuditLogs, tenantContext);
+                    generator.flush();
+
+                    writeTimelinePayments(generator, account, from, to, accountAuditLogs, tenantContext);
+
+                    generator.writeEndObject();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                } catch (final ExecutionException e) {
+                    throw new IOException(e.getCause());
+                } catch (final PaymentApiException e) {
+                    throw new IOException(e);
+                } finally {
+                    // No-op on success. Otherwise (e.g. client gone), stop the sections which are still being fetched
+                    cancel(futures);
+                    generator.close();
+                }
+            }
+        };
+        return Response.status(Status.OK).entity(json).build();
+    }
+
+    private void writeTimelineInvoices(final JsonGenerator generator, final Account account, @Nullable final LocalDate from, @Nullable final LocalDate to,
+                                       final List<SubscriptionBundle> bundles, final AccountAuditLogs accountAuditLogs, final TenantContext tenantContext) throws IOException {
+        final Collection<Invoice> invoices = Collections2.filter(invoiceApi.getInvoicesByAccount(account.getId(), tenantContext), new Predicate<Invoice>() {
+            @Override
+            public boolean apply(final Invoice invoice) {
+                return (from == null || !invoice.getInvoiceDate().isBefore(from)) &&
+                       (to == null || !invoice.getInvoiceDate().isAfter(to));
+            }
+        });
+        final List<CreditJson> credits = AccountTimelineJson.getCredits(invoices, accountAuditLogs);
+        generator.writeArrayFieldStart("invoices");
+        for (final Invoice invoice : invoices) {
+            generator.writeObject(new InvoiceJson(invoice,
+                                                  AccountTimelineJson.getBundleExternalKey(invoice, bundles),
+                                                  credits,
+                                                  accountAuditLogs.getAuditLogsForInvoice(invoice.getId())));
+        }
+        generator.writeEndArray();
+    }
+
+    private void writeTimelinePayments(final JsonGenerator generator, final Account account, @Nullable final LocalDate from, @Nullable final LocalDate to,
+                                       final AccountAuditLogs accountAuditLogs, final TenantContext tenantContext) throws IOException, PaymentApiException {
+        final List<InvoicePayment> invoicePayments = invoicePaymentApi.getInvoicePaymentsByAccount(account.getId(), tenantContext);
+        generator.writeArrayFieldStart("payments");
+        for (final Payment payment : paymentApi.getAccountPayments(account.getId(), false, ImmutableList.<PluginProperty>of(), tenantContext)) {
+            if (isInRange(payment.getCreatedDate(), account, from, to)) {
+                final UUID invoiceId = getInvoiceId(invoicePayments, payment);
+                generator.writeObject(new InvoicePaymentJson(payment, invoiceId, accountAuditLogs));
+            }
+        }
+        generator.writeEndArray();
+    }
+
+    private <T> Future<T> submit(final ExecutorService executor, final List<Future<?>> futures, final Callable<T> callable) {
+        final Future<T> future = executor.submit(callable);
+        futures.add(future);
+        return future;
+    }
+
+    private void cancel(final Iterable<Future<?>> futures) {
+        for (final Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    private boolean isInRange(final DateTime createdDate, final Account account, @Nullable final LocalDate from, @Nullable final LocalDate to) {
+        final LocalDate createdLocalDate = new LocalDate(createdDate, account.getTimeZone());
+        return (from == null || !createdLocalDate.isBefore(from)) &&
+               (to == null || !createdLocalDate.isAfter(to));
+    }
+
     /*
     * ************************** EMAIL NOTIFICATIONS FOR INVOICES ********************************
     */
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.jaxrs.resources;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.shiro.SecurityUtils;
+import org.killbill.billing.account.api.AccountUserApi;
+import org.killbill.billing.jaxrs.json.LatencySnapshotJson;
+import org.killbill.billing.jaxrs.util.Context;
+import org.killbill.billing.jaxrs.util.JaxrsUriBuilder;
+import org.killbill.billing.overdue.OverdueUserApi;
+import org.killbill.billing.overdue.config.api.OverdueException;
+import org.killbill.billing.payment.api.PaymentApi;
+import org.killbill.billing.util.api.AuditUserApi;
+import org.killbill.billing.util.api.CustomFieldUserApi;
+import org.killbill.billing.util.api.TagUserApi;
+import org.killbill.billing.util.email.templates.TemplateEngine;
+import org.killbill.billing.util.glue.KillBillShiroModule;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
+import org.killbill.billing.util.profiling.LatencySnapshot;
+import org.killbill.billing.util.template.translation.TranslationBundleCache;
+import org.killbill.clock.Clock;
+
+import com.codahale.metrics.annotation.Timed;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+@Singleton
+@Path(JaxrsResource.ADMIN_PATH)
+@Api(value = JaxrsResource.ADMIN_PATH, description = "Admin operations")
+public class AdminResource extends JaxRsResourceBase {
+
+    // There is no admin Permission (killbill-api) yet: checked against the Shiro subject directly, as DefaultSecurityApi does
+    private static final String RESET_LATENCIES_PERMISSION = "admin:reset_latencies";
+    private static final String INVALIDATE_TEMPLATES_PERMISSION = "admin:invalidate_templates";
+
+    private final OverdueUserApi overdueApi;
+    private final AggregatedProfiling aggregatedProfiling;
+    private final TemplateEngine templateEngine;
+    private final TranslationBundleCache translationBundleCache;
+
+    @Inject
+    public AdminResource(final JaxrsUriBuilder uriBuilder,
+                         final TagUserApi tagUserApi,
+                         final CustomFieldUserApi customFieldUserApi,
+                         final AuditUserApi auditUserApi,
+                         final AccountUserApi accountUserApi,
+                         final PaymentApi paymentApi,
+                         final OverdueUserApi overdueApi,
+                         final AggregatedProfiling aggregatedProfiling,
+                         final TemplateEngine templateEngine,
+                         final TranslationBundleCache translationBundleCache,
+                         final Clock clock,
+                         final Context context) {
+        super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, clock, context);
+        this.overdueApi = overdueApi;
+        this.aggregatedProfiling = aggregatedProfiling;
+        this.templateEngine = templateEngine;
+        this.translationBundleCache = translationBundleCache;
+    }
+
+    // Not @Timed, to avoid polluting the numbers we are reporting
+    @GET
+    @Path("/" + LATENCY)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Retrieve the aggregated API and DAO latencies, slowest first", response = LatencySnapshotJson.class, responseContainer = "List")
+    @ApiResponses(value = {})
+    public Response getLatencies(@javax.ws.rs.core.Context final HttpServletRequest request) {
+        final List<LatencySnapshotJson> result = new LinkedList<LatencySnapshotJson>();
+        for (final LatencySnapshot snapshot : aggregatedProfiling.getSnapshots()) {
+            result.add(new LatencySnapshotJson(snapshot));
+        }
+        return Response.status(Status.OK).entity(result).build();
+    }
+
+    @DELETE
+    @Path("/" + LATENCY)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Reset the aggregated API and DAO latencies")
+    @ApiResponses(value = {@ApiResponse(code = 401, message = "Missing the " + RESET_LATENCIES_PERMISSION + " permission")})
+    public Response resetLatencies(@javax.ws.rs.core.Context final HttpServletRequest request) {
+        if (KillBillShiroModule.isRBACEnabled()) {
+            // Throws an AuthorizationException, see ShiroExceptionMapper
+            SecurityUtils.getSubject().checkPermission(RESET_LATENCIES_PERMISSION);
+        }
+        aggregatedProfiling.reset();
+        return Response.status(Status.NO_CONTENT).build();
+    }
+
+    @DELETE
+    @Path("/" + TEMPLATES)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Invalidate the cached email templates and translation bundles, after they have been updated")
+    @ApiResponses(value = {@ApiResponse(code = 401, message = "Missing the " + INVALIDATE_TEMPLATES_PERMISSION + " permission")})
+    public Response invalidateTemplates(@javax.ws.rs.core.Context final HttpServletRequest request) {
+        if (KillBillShiroModule.isRBACEnabled()) {
+            // Throws an AuthorizationException, see ShiroExceptionMapper
+            SecurityUtils.getSubject().checkPermission(INVALIDATE_TEMPLATES_PERMISSION);
+        }
+        templateEngine.invalidateTemplates();
+        translationBundleCache.invalidate();
+        return Response.status(Status.NO_CONTENT).build();
+    }
+
+    @Timed
+    @POST
+    @Path("/" + OVERDUE_SWEEP)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Re-evaluate asynchronously the overdue state of all the accounts of the tenant")
+    @ApiResponses(value = {})
+    public Response scheduleOverdueSweep(@HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                         @HeaderParam(HDR_REASON) final String reason,
+                                         @HeaderParam(HDR_COMMENT) final String comment,
+                                         @javax.ws.rs.core.Context final HttpServletRequest request) throws OverdueException {
+        overdueApi.scheduleOverdueSweep(context.createContext(createdBy, reason, comment, request));
+        return Response.status(Status.ACCEPTED).build();
+    }
+}
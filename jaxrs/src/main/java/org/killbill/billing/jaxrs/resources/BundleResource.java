@@ -17,7 +17,10 @@
 package org.killbill.billing.jaxrs.resources;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -44,6 +47,7 @@ import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.AccountApiException;
 import org.killbill.billing.account.api.AccountUserApi;
 import org.killbill.billing.catalog.api.BillingActionPolicy;
+import org.killbill.billing.entitlement.EntitlementInternalApi;
 import org.killbill.billing.entitlement.api.EntitlementApi;
 import org.killbill.billing.entitlement.api.EntitlementApiException;
 import org.killbill.billing.entitlement.api.SubscriptionApi;
@@ -69,6 +73,7 @@ import org.killbill.clock.Clock;
 
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
 import com.wordnik.swagger.annotations.Api;
@@ -86,6 +91,7 @@ public class BundleResource extends JaxRsResourceBase {
 
     private final SubscriptionApi subscriptionApi;
     private final EntitlementApi entitlementApi;
+    private final EntitlementInternalApi entitlementInternalApi;
 
     @Inject
     public BundleResource(final JaxrsUriBuilder uriBuilder,
@@ -95,11 +101,13 @@ public class BundleResource extends JaxRsResourceBase {
                           final AccountUserApi accountUserApi,
                           final SubscriptionApi subscriptionApi,
                           final EntitlementApi entitlementApi,
+                          final EntitlementInternalApi entitlementInternalApi,
                           final PaymentApi paymentApi,
                           final Clock clock,
                           final Context context) {
         super(uriBuilder, tagUserApi, customFieldUserApi, auditUserApi, accountUserApi, paymentApi, clock, context);
         this.entitlementApi = entitlementApi;
+        this.entitlementInternalApi = entitlementInternalApi;
         this.subscriptionApi = subscriptionApi;
     }
 
@@ -330,6 +338,51 @@ public class BundleResource extends JaxRsResourceBase {
         return uriBuilder.buildResponse(BundleResource.class, "getBundle", newBundleId, uriInfo.getBaseUri().toString());
     }
 
+    @Timed
+    @PUT
+    @Path("/" + TRANSFER)
+    @Consumes(APPLICATION_JSON)
+    @Produces(APPLICATION_JSON)
+    @ApiOperation(value = "Transfer several bundles to other accounts", response = BundleJson.class, responseContainer = "List")
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid bundle id, requested date or policy supplied"),
+                           @ApiResponse(code = 404, message = "Bundle not found")})
+    public Response transferBundles(final List<BundleJson> json,
+                                    @QueryParam(QUERY_REQUESTED_DT) final String requestedDate,
+                                    @QueryParam(QUERY_BILLING_POLICY) @DefaultValue("END_OF_TERM") final String policyString,
+                                    @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                    @HeaderParam(HDR_REASON) final String reason,
+                                    @HeaderParam(HDR_COMMENT) final String comment,
+                                    @javax.ws.rs.core.Context final HttpServletRequest request) throws EntitlementApiException, SubscriptionApiException, AccountApiException {
+        verifyNonNullOrEmpty(json, "BundleJson body should be specified");
+
+        final BillingActionPolicy policy = BillingActionPolicy.valueOf(policyString.toUpperCase());
+        final CallContext callContext = context.createContext(createdBy, reason, comment, request);
+
+        // Group the bundles per (source account, destination account), so that each pair is transferred in as few transactions as possible
+        final Map<List<UUID>, List<String>> externalKeysPerAccounts = new LinkedHashMap<List<UUID>, List<String>>();
+        for (final BundleJson bundleJson : json) {
+            verifyNonNullOrEmpty(bundleJson.getBundleId(), "BundleJson bundleId needs to be set",
+                                 bundleJson.getAccountId(), "BundleJson accountId needs to be set");
+
+            final SubscriptionBundle bundle = subscriptionApi.getSubscriptionBundle(UUID.fromString(bundleJson.getBundleId()), callContext);
+            final List<UUID> accounts = ImmutableList.<UUID>of(bundle.getAccountId(), UUID.fromString(bundleJson.getAccountId()));
+            if (externalKeysPerAccounts.get(accounts) == null) {
+                externalKeysPerAccounts.put(accounts, new LinkedList<String>());
+            }
+            externalKeysPerAccounts.get(accounts).add(bundle.getExternalKey());
+        }
+
+        final List<BundleJson> result = new ArrayList<BundleJson>(json.size());
+        for (final List<UUID> accounts : externalKeysPerAccounts.keySet()) {
+            final LocalDate inputLocalDate = toLocalDate(accounts.get(0), requestedDate, callContext);
+            final List<UUID> newBundleIds = entitlementInternalApi.transferEntitlements(accounts.get(0), accounts.get(1), externalKeysPerAccounts.get(accounts), inputLocalDate, policy, callContext);
+            for (final UUID newBundleId : newBundleIds) {
+                result.add(new BundleJson(subscriptionApi.getSubscriptionBundle(newBundleId, callContext), null));
+            }
+        }
+        return Response.status(Status.OK).entity(result).build();
+    }
+
     @Timed
     @POST
     @Path("/{bundleId:" + UUID_PATTERN + "}/" + TAGS)
@@ -22,12 +22,16 @@ import java.util.UUID;
 
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.StreamingOutput;
 
 import org.killbill.billing.account.api.AccountUserApi;
@@ -39,6 +43,7 @@ import org.killbill.billing.util.api.CustomFieldUserApi;
 import org.killbill.billing.util.api.ExportUserApi;
 import org.killbill.billing.util.api.TagUserApi;
 import org.killbill.billing.util.callcontext.CallContext;
+import org.killbill.billing.util.export.dao.ColumnarExportOutputStream;
 import org.killbill.clock.Clock;
 
 import com.codahale.metrics.annotation.Timed;
@@ -48,6 +53,7 @@ import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 
+import static javax.ws.rs.core.MediaType.APPLICATION_OCTET_STREAM;
 import static javax.ws.rs.core.MediaType.TEXT_PLAIN;
 
 @Singleton
@@ -74,22 +80,35 @@ public class ExportResource extends JaxRsResourceBase {
     @Timed
     @GET
     @Path("/{accountId:" + UUID_PATTERN + "}")
-    @Produces(TEXT_PLAIN)
-    @ApiOperation(value = "Export account data", response = String.class)
-    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid account id supplied"),
+    @Produces({TEXT_PLAIN, APPLICATION_OCTET_STREAM})
+    @ApiOperation(value = "Export account data (CSV by default, or the compact COLUMNAR binary format)", response = String.class)
+    @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid account id or format supplied"),
                            @ApiResponse(code = 404, message = "Account not found")})
-    public StreamingOutput exportDataForAccount(@PathParam("accountId") final String accountId,
-                                                @HeaderParam(HDR_CREATED_BY) final String createdBy,
-                                                @HeaderParam(HDR_REASON) final String reason,
-                                                @HeaderParam(HDR_COMMENT) final String comment,
-                                                @javax.ws.rs.core.Context final HttpServletRequest request) {
+    public Response exportDataForAccount(@PathParam("accountId") final String accountId,
+                                         @QueryParam(QUERY_EXPORT_FORMAT) @DefaultValue("CSV") final ExportFormat format,
+                                         @HeaderParam(HDR_CREATED_BY) final String createdBy,
+                                         @HeaderParam(HDR_REASON) final String reason,
+                                         @HeaderParam(HDR_COMMENT) final String comment,
+                                         @javax.ws.rs.core.Context final HttpServletRequest request) {
         final CallContext callContext = context.createContext(createdBy, reason, comment, request);
-        return new StreamingOutput() {
+        final StreamingOutput streamingOutput = new StreamingOutput() {
             @Override
             public void write(final OutputStream output) throws IOException, WebApplicationException {
-                // CSV by default for now
-                exportUserApi.exportDataAsCSVForAccount(UUID.fromString(accountId), output, callContext);
+                if (format == ExportFormat.COLUMNAR) {
+                    exportUserApi.exportDataForAccount(UUID.fromString(accountId), new ColumnarExportOutputStream(output), callContext);
+                } else {
+                    exportUserApi.exportDataAsCSVForAccount(UUID.fromString(accountId), output, callContext);
+                }
             }
         };
+        return Response.status(Status.OK)
+                       .entity(streamingOutput)
+                       .type(format == ExportFormat.COLUMNAR ? APPLICATION_OCTET_STREAM : TEXT_PLAIN)
+                       .build();
+    }
+
+    public enum ExportFormat {
+        CSV,
+        COLUMNAR
     }
 }
@@ -26,9 +26,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -137,12 +139,20 @@ public abstract class JaxRsResourceBase implements JaxrsResource {
         final List<Tag> tags = tagUserApi.getTagsForObject(taggedObjectId, getObjectType(), includeDeleted, context);
         final AccountAuditLogsForObjectType tagsAuditLogs = auditUserApi.getAccountAuditLogs(accountId, ObjectType.TAG, auditMode.getLevel(), context);
 
+        // Resolve all tag definitions in one round trip
+        final Set<UUID> tagDefinitionIds = new HashSet<UUID>();
+        for (final Tag tag : tags) {
+            tagDefinitionIds.add(tag.getTagDefinitionId());
+        }
         final Map<UUID, TagDefinition> tagDefinitionsCache = new HashMap<UUID, TagDefinition>();
+        if (!tagDefinitionIds.isEmpty()) {
+            for (final TagDefinition tagDefinition : tagUserApi.getTagDefinitions(tagDefinitionIds, context)) {
+                tagDefinitionsCache.put(tagDefinition.getId(), tagDefinition);
+            }
+        }
+
         final Collection<TagJson> result = new LinkedList<TagJson>();
         for (final Tag tag : tags) {
-            if (tagDefinitionsCache.get(tag.getTagDefinitionId()) == null) {
-                tagDefinitionsCache.put(tag.getTagDefinitionId(), tagUserApi.getTagDefinition(tag.getTagDefinitionId(), context));
-            }
             final TagDefinition tagDefinition = tagDefinitionsCache.get(tag.getTagDefinitionId());
 
             final List<AuditLog> auditLogs = tagsAuditLogs.getAuditLogs(tag.getId());
@@ -27,6 +27,7 @@ public interface JaxrsResource {
     public static final String PREFIX = API_PREFIX + API_VERSION + API_POSTFIX;
 
     public static final String TIMELINE = "timeline";
+    public static final String STREAM = "stream";
     public static final String REGISTER_NOTIFICATION_CALLBACK = "registerNotificationCallback";
     public static final String SEARCH = "search";
 
@@ -70,6 +71,7 @@ public interface JaxrsResource {
     public static final String QUERY_ENTITLEMENT_POLICY = "entitlementPolicy";
     public static final String QUERY_SEARCH_OFFSET = "offset";
     public static final String QUERY_SEARCH_LIMIT = "limit";
+    public static final String QUERY_SEARCH_LAST_RECORD_ID = "lastRecordId";
 
     public static final String QUERY_ACCOUNT_WITH_BALANCE = "accountWithBalance";
     public static final String QUERY_ACCOUNT_WITH_BALANCE_AND_CBA = "accountWithBalanceAndCBA";
@@ -107,6 +109,8 @@ public interface JaxrsResource {
 
     public static final String QUERY_AUDIT = "audit";
 
+    public static final String QUERY_EXPORT_FORMAT = "format";
+
     public static final String QUERY_NOTIFICATION_CALLBACK = "cb";
 
     public static final String PAGINATION = "pagination";
@@ -194,10 +198,17 @@ public interface JaxrsResource {
     public static final String TEST = "test";
     public static final String TEST_PATH = PREFIX + "/" + TEST;
 
+    public static final String ADMIN = "admin";
+    public static final String ADMIN_PATH = PREFIX + "/" + ADMIN;
+    public static final String LATENCY = "latency";
+    public static final String OVERDUE_SWEEP = "overdueSweep";
+    public static final String TEMPLATES = "templates";
+
     public static final String CBA_REBALANCING = "cbaRebalancing";
 
     public static final String PAUSE = "pause";
     public static final String RESUME = "resume";
+    public static final String TRANSFER = "transfer";
 
     public static final String AUTHORIZATION = "authorization";
     public static final String CAPTURE = "capture";
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.jaxrs.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.killbill.billing.util.config.JaxrsConfig;
+import org.killbill.commons.concurrent.WithProfilingThreadPoolExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Shared pool used by resources to run independent API calls concurrently. The queue is bounded: when full,
+// submissions fail with a RejectedExecutionException, which is returned as a 503 (see RuntimeExceptionMapper).
+@Singleton
+public class JaxrsExecutors {
+
+    private static final Logger log = LoggerFactory.getLogger(JaxrsExecutors.class);
+
+    private static final String JAXRS_THREAD_PREFIX = "jaxrs-th-";
+    private static final long SHUTDOWN_TIMEOUT_SEC = 5;
+
+    private final ExecutorService jaxrsExecutorService;
+
+    @Inject
+    public JaxrsExecutors(final JaxrsConfig jaxrsConfig) {
+        this.jaxrsExecutorService = new WithProfilingThreadPoolExecutor(jaxrsConfig.getJaxrsThreadNb(), jaxrsConfig.getJaxrsThreadNb(),
+                                                                        0L, TimeUnit.MILLISECONDS,
+                                                                        new LinkedBlockingQueue<Runnable>(jaxrsConfig.getJaxrsQueueSize()),
+                                                                        new ThreadFactory() {
+                                                                            @Override
+                                                                            public Thread newThread(final Runnable r) {
+                                                                                final Thread th = new Thread(r);
+                                                                                th.setName(JAXRS_THREAD_PREFIX + th.getId());
+                                                                                th.setDaemon(true);
+                                                                                return th;
+                                                                            }
+                                                                        });
+    }
+
+    public ExecutorService getJaxrsExecutorService() {
+        return jaxrsExecutorService;
+    }
+
+    public void stop() {
+        jaxrsExecutorService.shutdown();
+        try {
+            if (!jaxrsExecutorService.awaitTermination(SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+                log.warn("JAX-RS executor still busy after {} seconds, interrupting", SHUTDOWN_TIMEOUT_SEC);
+                jaxrsExecutorService.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            jaxrsExecutorService.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
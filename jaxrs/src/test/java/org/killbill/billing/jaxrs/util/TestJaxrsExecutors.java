@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.jaxrs.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import org.killbill.billing.jaxrs.JaxrsTestSuiteNoDB;
+import org.killbill.billing.jaxrs.mappers.RuntimeExceptionMapper;
+import org.killbill.billing.util.config.JaxrsConfig;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestJaxrsExecutors extends JaxrsTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testBoundedQueue() throws Exception {
+        final JaxrsConfig jaxrsConfig = Mockito.mock(JaxrsConfig.class);
+        Mockito.when(jaxrsConfig.getJaxrsThreadNb()).thenReturn(1);
+        Mockito.when(jaxrsConfig.getJaxrsQueueSize()).thenReturn(1);
+        final JaxrsExecutors jaxrsExecutors = new JaxrsExecutors(jaxrsConfig);
+        final ExecutorService executor = jaxrsExecutors.getJaxrsExecutorService();
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        final Callable<Void> blockingCall = new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                started.countDown();
+                released.await(5, TimeUnit.SECONDS);
+                return null;
+            }
+        };
+
+        // One running, one waiting in the queue
+        executor.submit(blockingCall);
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.submit(blockingCall);
+
+        try {
+            executor.submit(blockingCall);
+            Assert.fail("The queue should be full");
+        } catch (final RejectedExecutionException e) {
+            Assert.assertEquals(new RuntimeExceptionMapper(Mockito.mock(UriInfo.class)).toResponse(e).getStatus(), Status.SERVICE_UNAVAILABLE.getStatusCode());
+        }
+
+        released.countDown();
+        jaxrsExecutors.stop();
+        Assert.assertTrue(executor.isTerminated());
+    }
+}
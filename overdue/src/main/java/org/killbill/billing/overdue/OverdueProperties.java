@@ -28,4 +28,14 @@ public interface OverdueProperties extends KillbillConfig {
     @Default("NoOverdueConfig.xml")
     @Description("Overdue configuration location. Either in the classpath or in the filesystem")
     public String getConfigURI();
+
+    @Config("org.killbill.overdue.sweep.chunkSize")
+    @Default("500")
+    @Description("Number of accounts evaluated at once during a bulk overdue sweep")
+    public int getSweepChunkSize();
+
+    @Config("org.killbill.overdue.sweep.nbThreads")
+    @Default("4")
+    @Description("Number of threads used to evaluate a chunk of accounts during a bulk overdue sweep")
+    public int getSweepNbThreads();
 }
@@ -33,6 +33,7 @@ import org.killbill.billing.overdue.config.OverdueConfig;
 import org.killbill.billing.overdue.config.api.BillingState;
 import org.killbill.billing.overdue.config.api.OverdueException;
 import org.killbill.billing.overdue.config.api.OverdueStateSet;
+import org.killbill.billing.overdue.notification.OverdueSweepNotifier;
 import org.killbill.billing.overdue.wrapper.OverdueWrapper;
 import org.killbill.billing.overdue.wrapper.OverdueWrapperFactory;
 import org.killbill.billing.util.callcontext.CallContext;
@@ -48,14 +49,17 @@ public class DefaultOverdueUserApi implements OverdueUserApi {
     private final OverdueWrapperFactory factory;
     private final BlockingInternalApi accessApi;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final OverdueSweepNotifier sweepNotifier;
 
     private OverdueConfig overdueConfig;
 
     @Inject
-    public DefaultOverdueUserApi(final OverdueWrapperFactory factory, final BlockingInternalApi accessApi, final InternalCallContextFactory internalCallContextFactory) {
+    public DefaultOverdueUserApi(final OverdueWrapperFactory factory, final BlockingInternalApi accessApi, final InternalCallContextFactory internalCallContextFactory,
+                                 final OverdueSweepNotifier sweepNotifier) {
         this.factory = factory;
         this.accessApi = accessApi;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.sweepNotifier = sweepNotifier;
     }
 
     @SuppressWarnings("unchecked")
@@ -88,6 +92,12 @@ public class DefaultOverdueUserApi implements OverdueUserApi {
         return internalCallContextFactory.createInternalCallContext(blockable.getId(), ObjectType.ACCOUNT, context);
     }
 
+    @Override
+    public void scheduleOverdueSweep(final CallContext context) throws OverdueException {
+        log.info("Overdue sweep requested");
+        sweepNotifier.scheduleSweep(internalCallContextFactory.createInternalCallContext(context));
+    }
+
     @Override
     public void setOverrideBillingStateForAccount(final Account overdueable, final BillingState state, final CallContext context) {
         throw new UnsupportedOperationException();
@@ -35,6 +35,7 @@ import org.killbill.billing.overdue.config.api.OverdueException;
 import org.killbill.billing.overdue.config.api.PaymentResponse;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.invoice.api.InvoiceInternalApi;
+import org.killbill.billing.invoice.api.InvoiceUnpaidBalance;
 import org.killbill.billing.util.tag.Tag;
 
 import com.google.inject.Inject;
@@ -75,10 +76,45 @@ public class BillingStateCalculator {
             dateOfEarliestUnpaidInvoice = invoice.getInvoiceDate();
             idOfEarliestUnpaidInvoice = invoice.getId();
         }
+        return createBillingState(account, numberOfUnpaidInvoices, unpaidInvoiceBalance, dateOfEarliestUnpaidInvoice, idOfEarliestUnpaidInvoice);
+    }
+
+    /**
+     * Same as calculateBillingState above, but from balances already retrieved in bulk (see InvoiceInternalApi#getUnpaidInvoiceBalances)
+     *
+     * @param account         the account
+     * @param unpaidBalances  all unpaid invoice balances for that account (not yet filtered by target date)
+     * @return the billing state
+     */
+    public BillingState calculateBillingState(final Account account, final Iterable<InvoiceUnpaidBalance> unpaidBalances) {
+        final LocalDate today = clock.getToday(account.getTimeZone());
+
+        int numberOfUnpaidInvoices = 0;
+        BigDecimal unpaidInvoiceBalance = BigDecimal.ZERO;
+        InvoiceUnpaidBalance earliest = null;
+        for (final InvoiceUnpaidBalance unpaidBalance : unpaidBalances) {
+            // Same filtering as InvoiceInternalApi#getUnpaidInvoicesByAccountId with upToDate = today
+            if (unpaidBalance.getTargetDate().isAfter(today)) {
+                continue;
+            }
+
+            numberOfUnpaidInvoices++;
+            unpaidInvoiceBalance = unpaidInvoiceBalance.add(unpaidBalance.getBalance());
+            if (earliest == null || unpaidBalance.getInvoiceDate().isBefore(earliest.getInvoiceDate())) {
+                earliest = unpaidBalance;
+            }
+        }
+
+        final LocalDate dateOfEarliestUnpaidInvoice = earliest == null ? null : earliest.getInvoiceDate();
+        final UUID idOfEarliestUnpaidInvoice = earliest == null ? null : earliest.getInvoiceId();
+        return createBillingState(account, numberOfUnpaidInvoices, unpaidInvoiceBalance, dateOfEarliestUnpaidInvoice, idOfEarliestUnpaidInvoice);
+    }
+
+    private BillingState createBillingState(final Account account, final int numberOfUnpaidInvoices, final BigDecimal unpaidInvoiceBalance,
+                                            final LocalDate dateOfEarliestUnpaidInvoice, final UUID idOfEarliestUnpaidInvoice) {
         final PaymentResponse responseForLastFailedPayment = PaymentResponse.INSUFFICIENT_FUNDS; //TODO MDW
         final Tag[] tags = new Tag[]{}; //TODO MDW
 
-
         return new BillingState(account.getId(), numberOfUnpaidInvoices, unpaidInvoiceBalance, dateOfEarliestUnpaidInvoice, account.getTimeZone(), idOfEarliestUnpaidInvoice, responseForLastFailedPayment, tags);
     }
 
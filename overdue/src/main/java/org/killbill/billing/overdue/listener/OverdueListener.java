@@ -54,7 +54,8 @@ public class OverdueListener {
     private final OverduePoster asyncPoster;
     private final Clock clock;
 
-    private OverdueConfig config;
+    // Computed once per config load
+    private volatile boolean overdueEnabled = false;
 
     private static final Logger log = LoggerFactory.getLogger(OverdueListener.class);
 
@@ -100,16 +101,14 @@ public class OverdueListener {
     }
 
     private void insertBusEventIntoNotificationQueue(final UUID accountId, final BusEvent event, final OverdueAsyncBusNotificationAction action) {
-        final boolean shouldInsertNotification = shouldInsertNotification();
-
-        if (shouldInsertNotification) {
+        // Optimization: don't bother running the Overdue machinery if it's disabled
+        if (overdueEnabled) {
             final OverdueAsyncBusNotificationKey notificationKey = new OverdueAsyncBusNotificationKey(accountId, action);
             asyncPoster.insertOverdueNotification(accountId, clock.getUTCNow(), OverdueAsyncBusNotifier.OVERDUE_ASYNC_BUS_NOTIFIER_QUEUE, notificationKey, createCallContext(event.getUserToken(), event.getSearchKey1(), event.getSearchKey2()));
         }
     }
 
-    // Optimization: don't bother running the Overdue machinery if it's disabled
-    private boolean shouldInsertNotification() {
+    private static boolean isOverdueEnabled(final OverdueConfig config) {
         if (config == null || config.getStateSet() == null || config.getStateSet().getStates() == null) {
             return false;
         }
@@ -128,6 +127,6 @@ public class OverdueListener {
     }
 
     public void setOverdueConfig(final OverdueConfig config) {
-        this.config = config;
+        this.overdueEnabled = isOverdueEnabled(config);
     }
 }
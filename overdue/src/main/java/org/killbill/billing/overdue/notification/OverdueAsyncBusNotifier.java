@@ -16,6 +16,7 @@
 
 package org.killbill.billing.overdue.notification;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -24,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationEventWithMetadata;
 import org.killbill.notificationq.api.NotificationQueueService;
 import org.killbill.billing.overdue.OverdueProperties;
 import org.killbill.billing.overdue.listener.OverdueDispatcher;
@@ -68,6 +70,7 @@ public class OverdueAsyncBusNotifier extends DefaultOverdueNotifierBase implemen
                     break;
                 case REFRESH:
                     dispatcher.processOverdueForAccount(key.getUuidKey(), createCallContext(userToken, accountRecordId, tenantRecordId));
+                    removeCoalescedRefreshNotifications(key, eventDate, accountRecordId, tenantRecordId);
                     break;
                 default:
                     throw new RuntimeException("Unexpected action " + key.getAction() + " for account " + key.getUuidKey());
@@ -77,5 +80,23 @@ public class OverdueAsyncBusNotifier extends DefaultOverdueNotifierBase implemen
         }
     }
 
+    // REFRESH notifications for the same account which were already due when this one started would recompute the exact same state:
+    // drop them. We only do it when nothing else (i.e. a CLEAR) is pending, to preserve the ordering between actions.
+    private void removeCoalescedRefreshNotifications(final OverdueAsyncBusNotificationKey key, final DateTime eventDate, final Long accountRecordId, final Long tenantRecordId) {
+        final List<NotificationEventWithMetadata<OverdueAsyncBusNotificationKey>> pendingNotifications = overdueQueue.getFutureNotificationForSearchKeys(accountRecordId, tenantRecordId);
+        for (final NotificationEventWithMetadata<OverdueAsyncBusNotificationKey> cur : pendingNotifications) {
+            if (!key.equals(cur.getEvent())) {
+                return;
+            }
+        }
+
+        for (final NotificationEventWithMetadata<OverdueAsyncBusNotificationKey> cur : pendingNotifications) {
+            if (!cur.getEffectiveDate().isAfter(eventDate)) {
+                log.debug("Coalescing overdue REFRESH notification {} for account {}", cur.getRecordId(), key.getUuidKey());
+                overdueQueue.removeNotification(cur.getRecordId());
+            }
+        }
+    }
+
 
 }
@@ -21,8 +21,10 @@ package org.killbill.billing.overdue.notification;
 import java.util.Collection;
 
 import org.joda.time.DateTime;
+import org.killbill.billing.overdue.notification.OverdueAsyncBusNotificationKey.OverdueAsyncBusNotificationAction;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 import org.killbill.clock.Clock;
@@ -38,18 +40,38 @@ public class OverdueAsyncBusPoster extends DefaultOverduePosterBase {
     @Inject
     public OverdueAsyncBusPoster(final NotificationQueueService notificationQueueService,
                                  final IDBI dbi, final Clock clock,
-                                 final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao) {
-        super(notificationQueueService, dbi, clock, cacheControllerDispatcher, nonEntityDao);
+                                 final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling) {
+        super(notificationQueueService, dbi, clock, cacheControllerDispatcher, nonEntityDao, aggregatedProfiling);
     }
 
     @Override
     protected <T extends OverdueCheckNotificationKey> boolean cleanupFutureNotificationsFormTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory,
                                                                                                         final Collection<NotificationEventWithMetadata<T>> futureNotifications,
                                                                                                         final DateTime futureNotificationTime,
+                                                                                                        final T notificationKey,
                                                                                                         final NotificationQueue overdueQueue) {
-        // If we already have notification for that account we don't insert the new one
-        // Note that this is slightly incorrect because we could for instance already have a REFRESH and insert a CLEAR, but if that were the case,
-        // if means overdue state would change very rapidly and the behavior would anyway be non deterministic
-        return futureNotifications.isEmpty();
+        final OverdueAsyncBusNotificationAction action = getAction(notificationKey);
+
+        // A pending notification with the same action will already pick up the latest state of the account: don't insert another one.
+        // A pending REFRESH is superseded by a new CLEAR, but a new REFRESH must still run after a pending CLEAR.
+        boolean shouldInsertNewNotification = true;
+        for (final NotificationEventWithMetadata<T> cur : futureNotifications) {
+            final OverdueAsyncBusNotificationAction pendingAction = getAction(cur.getEvent());
+            if (pendingAction == action) {
+                if (shouldInsertNewNotification) {
+                    shouldInsertNewNotification = false;
+                } else {
+                    // For sanity, only keep one of them
+                    overdueQueue.removeNotificationFromTransaction(entitySqlDaoWrapperFactory.getSqlDao(), cur.getRecordId());
+                }
+            } else if (action == OverdueAsyncBusNotificationAction.CLEAR && pendingAction == OverdueAsyncBusNotificationAction.REFRESH) {
+                overdueQueue.removeNotificationFromTransaction(entitySqlDaoWrapperFactory.getSqlDao(), cur.getRecordId());
+            }
+        }
+        return shouldInsertNewNotification;
+    }
+
+    private static OverdueAsyncBusNotificationAction getAction(final OverdueCheckNotificationKey notificationKey) {
+        return notificationKey instanceof OverdueAsyncBusNotificationKey ? ((OverdueAsyncBusNotificationKey) notificationKey).getAction() : null;
     }
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.overdue.notification;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.ErrorCode;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.overdue.OverdueProperties;
+import org.killbill.billing.overdue.config.api.OverdueException;
+import org.killbill.billing.overdue.listener.OverdueDispatcher;
+import org.killbill.billing.overdue.wrapper.OverdueBulkEvaluator;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.clock.Clock;
+import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+
+/**
+ * Runs the bulk overdue sweep (see OverdueBulkEvaluator) off a notification queue, so that the request returns right away
+ * and the sweep is picked up by a single node, even after a restart.
+ */
+public class OverdueSweepNotifier extends DefaultOverdueNotifierBase implements OverdueNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueSweepNotifier.class);
+
+    public static final String OVERDUE_SWEEP_NOTIFIER_QUEUE = "overdue-sweep-queue";
+
+    private final OverdueBulkEvaluator evaluator;
+    private final Clock clock;
+
+    @Inject
+    public OverdueSweepNotifier(final NotificationQueueService notificationQueueService, final OverdueProperties config,
+                                final InternalCallContextFactory internalCallContextFactory,
+                                final OverdueDispatcher dispatcher,
+                                final OverdueBulkEvaluator evaluator,
+                                final Clock clock) {
+        super(notificationQueueService, config, internalCallContextFactory, dispatcher);
+        this.evaluator = evaluator;
+        this.clock = clock;
+    }
+
+    @Override
+    public String getQueueName() {
+        return OVERDUE_SWEEP_NOTIFIER_QUEUE;
+    }
+
+    /**
+     * @param context tenant callcontext (the account record id is not used)
+     * @return the id of the sweep
+     */
+    public UUID scheduleSweep(final InternalCallContext context) throws OverdueException {
+        final UUID sweepId = UUID.randomUUID();
+        try {
+            overdueQueue.recordFutureNotification(clock.getUTCNow(), new OverdueSweepNotificationKey(sweepId), context.getUserToken(), null, context.getTenantRecordId());
+        } catch (final IOException e) {
+            throw new OverdueException(e, ErrorCode.__UNKNOWN_ERROR_CODE);
+        }
+        log.info("Queued overdue sweep {} for tenantRecordId='{}'", sweepId, context.getTenantRecordId());
+        return sweepId;
+    }
+
+    @Override
+    public void handleReadyNotification(final NotificationEvent notificationKey, final DateTime eventDate, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+        if (!(notificationKey instanceof OverdueSweepNotificationKey)) {
+            log.error("Overdue service received Unexpected notificationKey {}", notificationKey.getClass().getName());
+            return;
+        }
+
+        final OverdueSweepNotificationKey key = (OverdueSweepNotificationKey) notificationKey;
+        final int nbTransitions = evaluator.evaluateAllAccounts(tenantRecordId, userToken);
+        log.info("Overdue sweep {} for tenantRecordId='{}' done: {} state transitions", new Object[]{key.getUuidKey(), tenantRecordId, nbTransitions});
+    }
+}
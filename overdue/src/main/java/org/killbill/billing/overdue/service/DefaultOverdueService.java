@@ -32,6 +32,7 @@ import org.killbill.billing.overdue.config.OverdueConfig;
 import org.killbill.billing.overdue.glue.DefaultOverdueModule;
 import org.killbill.billing.overdue.listener.OverdueListener;
 import org.killbill.billing.overdue.notification.OverdueNotifier;
+import org.killbill.billing.overdue.notification.OverdueSweepNotifier;
 import org.killbill.billing.overdue.wrapper.OverdueWrapperFactory;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
@@ -52,6 +53,7 @@ public class DefaultOverdueService implements OverdueService {
     private final OverdueProperties properties;
     private final OverdueNotifier asyncNotifier;
     private final OverdueNotifier checkNotifier;
+    private final OverdueSweepNotifier sweepNotifier;
     private final BusService busService;
     private final OverdueListener listener;
     private final OverdueWrapperFactory factory;
@@ -65,6 +67,7 @@ public class DefaultOverdueService implements OverdueService {
             final OverdueProperties properties,
             @Named(DefaultOverdueModule.OVERDUE_NOTIFIER_CHECK_NAMED) final OverdueNotifier checkNotifier,
             @Named(DefaultOverdueModule.OVERDUE_NOTIFIER_ASYNC_BUS_NAMED) final OverdueNotifier asyncNotifier,
+            final OverdueSweepNotifier sweepNotifier,
             final BusService busService,
             final OverdueListener listener,
             final OverdueWrapperFactory factory) {
@@ -72,6 +75,7 @@ public class DefaultOverdueService implements OverdueService {
         this.properties = properties;
         this.checkNotifier = checkNotifier;
         this.asyncNotifier = asyncNotifier;
+        this.sweepNotifier = sweepNotifier;
         this.busService = busService;
         this.listener = listener;
         this.factory = factory;
@@ -123,6 +127,7 @@ public class DefaultOverdueService implements OverdueService {
         registerForBus();
         checkNotifier.initialize();
         asyncNotifier.initialize();
+        sweepNotifier.initialize();
     }
 
     private void registerForBus() {
@@ -137,6 +142,7 @@ public class DefaultOverdueService implements OverdueService {
     public void start() {
         checkNotifier.start();
         asyncNotifier.start();
+        sweepNotifier.start();
     }
 
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
@@ -148,5 +154,6 @@ public class DefaultOverdueService implements OverdueService {
         }
         checkNotifier.stop();
         asyncNotifier.stop();
+        sweepNotifier.stop();
     }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.overdue.wrapper;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.account.api.AccountInternalApi;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.invoice.api.InvoiceInternalApi;
+import org.killbill.billing.invoice.api.InvoiceUnpaidBalance;
+import org.killbill.billing.overdue.OverdueApiException;
+import org.killbill.billing.overdue.OverdueProperties;
+import org.killbill.billing.overdue.calculator.BillingStateCalculator;
+import org.killbill.billing.overdue.config.api.BillingState;
+import org.killbill.billing.overdue.config.api.OverdueException;
+import org.killbill.billing.util.callcontext.CallOrigin;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.UserType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+/**
+ * Re-evaluates the overdue state of all the accounts of a tenant (e.g. nightly sweep), as an alternative to
+ * the per-account notifications: accounts are scanned in keyset-paged chunks, the billing states of a chunk are computed
+ * from a single set-based invoice balance query, and only actual state transitions go through the applicator.
+ */
+public class OverdueBulkEvaluator {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueBulkEvaluator.class);
+
+    private static final String SWEEP_THREAD_PREFIX = "overdue-sweep-th-";
+
+    private final AccountInternalApi accountApi;
+    private final InvoiceInternalApi invoiceApi;
+    private final BillingStateCalculator billingStateCalculator;
+    private final OverdueWrapperFactory factory;
+    private final InternalCallContextFactory internalCallContextFactory;
+    private final OverdueProperties properties;
+
+    @Inject
+    public OverdueBulkEvaluator(final AccountInternalApi accountApi,
+                                final InvoiceInternalApi invoiceApi,
+                                final BillingStateCalculator billingStateCalculator,
+                                final OverdueWrapperFactory factory,
+                                final InternalCallContextFactory internalCallContextFactory,
+                                final OverdueProperties properties) {
+        this.accountApi = accountApi;
+        this.invoiceApi = invoiceApi;
+        this.billingStateCalculator = billingStateCalculator;
+        this.factory = factory;
+        this.internalCallContextFactory = internalCallContextFactory;
+        this.properties = properties;
+    }
+
+    /**
+     * @param tenantRecordId tenant to sweep
+     * @param userToken      user token for the resulting state transitions
+     * @return the number of accounts which changed overdue state
+     */
+    public int evaluateAllAccounts(final Long tenantRecordId, final UUID userToken) {
+        // Optimization: don't bother scanning the accounts if overdue is disabled
+        if (!factory.hasOverdueStates()) {
+            return 0;
+        }
+
+        final int chunkSize = Math.max(1, properties.getSweepChunkSize());
+        final int nbThreads = Math.max(1, properties.getSweepNbThreads());
+        final InternalTenantContext tenantContext = internalCallContextFactory.createInternalTenantContext(tenantRecordId, null);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(nbThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread th = new Thread(r);
+                th.setName(SWEEP_THREAD_PREFIX + th.getId());
+                th.setDaemon(true);
+                return th;
+            }
+        });
+
+        int nbAccounts = 0;
+        int nbTransitions = 0;
+        try {
+            Long lastRecordId = 0L;
+            while (true) {
+                final Map<Long, Account> accounts = accountApi.getAccountsFromRecordId(lastRecordId, chunkSize, tenantContext);
+                if (accounts.isEmpty()) {
+                    break;
+                }
+
+                nbTransitions += evaluateChunk(accounts, tenantRecordId, userToken, tenantContext, nbThreads, executor);
+                nbAccounts += accounts.size();
+
+                lastRecordId = Iterables.getLast(accounts.keySet());
+                if (accounts.size() < chunkSize) {
+                    break;
+                }
+            }
+        } catch (final InterruptedException e) {
+            log.warn("Overdue sweep interrupted for tenantRecordId='{}'", tenantRecordId);
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Overdue sweep for tenantRecordId='{}': {} accounts evaluated, {} state transitions", new Object[]{tenantRecordId, nbAccounts, nbTransitions});
+        return nbTransitions;
+    }
+
+    private int evaluateChunk(final Map<Long, Account> accounts, final Long tenantRecordId, final UUID userToken,
+                              final InternalTenantContext tenantContext, final int nbThreads, final ExecutorService executor) throws InterruptedException {
+        final List<UUID> accountIds = new ArrayList<UUID>(accounts.size());
+        for (final Account account : accounts.values()) {
+            accountIds.add(account.getId());
+        }
+        final Map<UUID, List<InvoiceUnpaidBalance>> unpaidBalances = invoiceApi.getUnpaidInvoiceBalances(accountIds, tenantContext);
+
+        // Split the chunk evenly across the workers
+        final List<Map.Entry<Long, Account>> entries = new ArrayList<Map.Entry<Long, Account>>(accounts.entrySet());
+        final int sliceSize = (entries.size() + nbThreads - 1) / nbThreads;
+        final List<Future<Integer>> futures = new LinkedList<Future<Integer>>();
+        for (final List<Map.Entry<Long, Account>> slice : Lists.partition(entries, sliceSize)) {
+            futures.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    int nbTransitions = 0;
+                    for (final Map.Entry<Long, Account> entry : slice) {
+                        final List<InvoiceUnpaidBalance> accountUnpaidBalances = unpaidBalances.get(entry.getValue().getId());
+                        if (evaluateAccount(entry.getValue(), entry.getKey(), tenantRecordId, userToken,
+                                            accountUnpaidBalances == null ? ImmutableList.<InvoiceUnpaidBalance>of() : accountUnpaidBalances)) {
+                            nbTransitions++;
+                        }
+                    }
+                    return nbTransitions;
+                }
+            }));
+        }
+
+        int nbTransitions = 0;
+        for (final Future<Integer> future : futures) {
+            try {
+                nbTransitions += future.get();
+            } catch (final ExecutionException e) {
+                log.warn("Overdue sweep: failed to evaluate accounts for tenantRecordId='" + tenantRecordId + "'", e.getCause());
+            }
+        }
+        return nbTransitions;
+    }
+
+    private boolean evaluateAccount(final Account account, final Long accountRecordId, final Long tenantRecordId,
+                                    final UUID userToken, final Iterable<InvoiceUnpaidBalance> unpaidBalances) {
+        final BillingState billingState = billingStateCalculator.calculateBillingState(account, unpaidBalances);
+        final InternalCallContext context = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, "OverdueService", CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
+        try {
+            return factory.createOverdueWrapperFor(account).refreshOnTransition(billingState, context);
+        } catch (final OverdueException e) {
+            log.warn("Overdue sweep: unable to refresh accountId='" + account.getId() + "'", e);
+        } catch (final OverdueApiException e) {
+            log.warn("Overdue sweep: unable to refresh accountId='" + account.getId() + "'", e);
+        }
+        return false;
+    }
+}
@@ -69,6 +69,29 @@ public class OverdueWrapper {
         return nextOverdueState;
     }
 
+    /**
+     * Re-evaluate the overdue state from a billing state computed in bulk, and only go through the applicator if the state changes
+     * (on a no-op, pending re-evaluation notifications are left as-is)
+     *
+     * @return true if a transition was applied
+     */
+    public boolean refreshOnTransition(final BillingState billingState, final InternalCallContext context) throws OverdueException, OverdueApiException {
+        if (overdueStateSet.size() < 1) { // No configuration available
+            return false;
+        }
+
+        final String previousOverdueStateName = api.getBlockingStateForService(overdueable.getId(), BlockingStateType.ACCOUNT, OverdueService.OVERDUE_SERVICE_NAME, context).getStateName();
+
+        final OverdueState currentOverdueState = overdueStateSet.findState(previousOverdueStateName);
+        final OverdueState nextOverdueState = overdueStateSet.calculateOverdueState(billingState, clock.getToday(billingState.getAccountTimeZone()));
+        if (currentOverdueState.getName().equals(nextOverdueState.getName())) {
+            return false;
+        }
+
+        overdueStateApplicator.apply(overdueStateSet, billingState, overdueable, currentOverdueState, nextOverdueState, context);
+        return true;
+    }
+
     public void clear(final InternalCallContext context) throws OverdueException, OverdueApiException {
         final String previousOverdueStateName = api.getBlockingStateForService(overdueable.getId(), BlockingStateType.ACCOUNT, OverdueService.OVERDUE_SERVICE_NAME, context).getStateName();
         final OverdueState previousOverdueState = overdueStateSet.findState(previousOverdueStateName);
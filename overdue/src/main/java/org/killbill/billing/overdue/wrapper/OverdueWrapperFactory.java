@@ -81,6 +81,10 @@ public class OverdueWrapperFactory {
         }
     }
 
+    public boolean hasOverdueStates() {
+        return getOverdueStateSet().size() > 0;
+    }
+
     private OverdueStateSet getOverdueStateSet() {
         if (config == null || config.getStateSet() == null) {
             return new DefaultOverdueStateSet() {
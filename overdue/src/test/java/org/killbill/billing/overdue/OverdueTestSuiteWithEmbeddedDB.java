@@ -33,10 +33,12 @@ import org.killbill.billing.overdue.glue.TestOverdueModuleWithEmbeddedDB;
 import org.killbill.billing.overdue.notification.OverdueNotifier;
 import org.killbill.billing.overdue.notification.OverduePoster;
 import org.killbill.billing.overdue.service.DefaultOverdueService;
+import org.killbill.billing.overdue.wrapper.OverdueBulkEvaluator;
 import org.killbill.billing.overdue.wrapper.OverdueWrapperFactory;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.notificationq.api.NotificationQueueService;
 import org.testng.annotations.AfterMethod;
@@ -92,8 +94,12 @@ public abstract class OverdueTestSuiteWithEmbeddedDB extends GuicyKillbillTestSu
     @Inject
     protected OverdueWrapperFactory overdueWrapperFactory;
     @Inject
+    protected OverdueBulkEvaluator bulkEvaluator;
+    @Inject
     protected NonEntityDao nonEntityDao;
     @Inject
+    protected AggregatedProfiling aggregatedProfiling;
+    @Inject
     protected TestOverdueHelper testOverdueHelper;
 
     @BeforeClass(groups = "slow")
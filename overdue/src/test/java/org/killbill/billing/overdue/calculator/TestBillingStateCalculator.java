@@ -33,10 +33,13 @@ import org.testng.annotations.Test;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.invoice.api.Invoice;
 import org.killbill.billing.invoice.api.InvoiceItem;
+import org.killbill.billing.invoice.api.InvoiceUnpaidBalance;
 import org.killbill.billing.overdue.OverdueTestSuiteNoDB;
 import org.killbill.billing.overdue.config.api.BillingState;
 import org.killbill.billing.callcontext.InternalTenantContext;
 
+import com.google.common.collect.ImmutableList;
+
 public class TestBillingStateCalculator extends OverdueTestSuiteNoDB {
 
     protected LocalDate now;
@@ -101,4 +104,38 @@ public class TestBillingStateCalculator extends OverdueTestSuiteNoDB {
         final SortedSet<Invoice> invoices = calc.unpaidInvoicesForAccount(new UUID(0L, 0L), DateTimeZone.UTC, internalCallContext);
         Assert.assertEquals(calc.earliest(invoices).getInvoiceDate(), now);
     }
+
+    @Test(groups = "fast")
+    public void testBillingStateFromUnpaidBalances() {
+        final LocalDate today = clock.getUTCToday();
+        final Account account = Mockito.mock(Account.class);
+        Mockito.when(account.getId()).thenReturn(UUID.randomUUID());
+        Mockito.when(account.getTimeZone()).thenReturn(DateTimeZone.UTC);
+
+        final InvoiceUnpaidBalance earliest = createUnpaidBalance(today.minusDays(40), today.minusDays(40), BigDecimal.TEN);
+        final InvoiceUnpaidBalance latest = createUnpaidBalance(today.minusDays(10), today.minusDays(10), new BigDecimal("100.0"));
+        // Not due yet
+        final InvoiceUnpaidBalance future = createUnpaidBalance(today.minusDays(50), today.plusDays(1), BigDecimal.ONE);
+
+        final BillingStateCalculator calc = new BillingStateCalculator(invoiceApi, clock);
+        final BillingState billingState = calc.calculateBillingState(account, ImmutableList.<InvoiceUnpaidBalance>of(latest, future, earliest));
+        Assert.assertEquals(billingState.getNumberOfUnpaidInvoices(), 2);
+        Assert.assertEquals(billingState.getBalanceOfUnpaidInvoices().compareTo(new BigDecimal("110.0")), 0);
+        Assert.assertEquals(billingState.getDateOfEarliestUnpaidInvoice(), today.minusDays(40));
+        Assert.assertEquals(billingState.getIdOfEarliestUnpaidInvoice(), earliest.getInvoiceId());
+
+        final BillingState emptyBillingState = calc.calculateBillingState(account, ImmutableList.<InvoiceUnpaidBalance>of());
+        Assert.assertEquals(emptyBillingState.getNumberOfUnpaidInvoices(), 0);
+        Assert.assertEquals(emptyBillingState.getBalanceOfUnpaidInvoices().compareTo(BigDecimal.ZERO), 0);
+        Assert.assertNull(emptyBillingState.getDateOfEarliestUnpaidInvoice());
+    }
+
+    private InvoiceUnpaidBalance createUnpaidBalance(final LocalDate invoiceDate, final LocalDate targetDate, final BigDecimal balance) {
+        final InvoiceUnpaidBalance unpaidBalance = Mockito.mock(InvoiceUnpaidBalance.class);
+        Mockito.when(unpaidBalance.getInvoiceId()).thenReturn(UUID.randomUUID());
+        Mockito.when(unpaidBalance.getInvoiceDate()).thenReturn(invoiceDate);
+        Mockito.when(unpaidBalance.getTargetDate()).thenReturn(targetDate);
+        Mockito.when(unpaidBalance.getBalance()).thenReturn(balance);
+        return unpaidBalance;
+    }
 }
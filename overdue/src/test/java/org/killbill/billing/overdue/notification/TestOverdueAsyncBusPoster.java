@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.overdue.notification;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.overdue.OverdueTestSuiteWithEmbeddedDB;
+import org.killbill.billing.overdue.notification.OverdueAsyncBusNotificationKey.OverdueAsyncBusNotificationAction;
+import org.killbill.billing.overdue.service.DefaultOverdueService;
+import org.killbill.notificationq.api.NotificationEventWithMetadata;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestOverdueAsyncBusPoster extends OverdueTestSuiteWithEmbeddedDB {
+
+    private NotificationQueue asyncBusQueue;
+    private DateTime futureNotificationTime;
+
+    @Override
+    @BeforeMethod(groups = "slow")
+    public void beforeMethod() throws Exception {
+        super.beforeMethod();
+
+        asyncBusQueue = notificationQueueService.getNotificationQueue(DefaultOverdueService.OVERDUE_SERVICE_NAME,
+                                                                      OverdueAsyncBusNotifier.OVERDUE_ASYNC_BUS_NOTIFIER_QUEUE);
+        Assert.assertTrue(asyncBusQueue.isStarted());
+
+        // Far enough in the future for the notifications to stay pending
+        futureNotificationTime = clock.getUTCNow().plusDays(1);
+    }
+
+    @Test(groups = "slow")
+    public void testPendingNotificationsAreCollapsed() throws Exception {
+        final UUID accountId = UUID.randomUUID();
+
+        // Identical REFRESH are collapsed
+        insertNotification(accountId, OverdueAsyncBusNotificationAction.REFRESH);
+        insertNotification(accountId, OverdueAsyncBusNotificationAction.REFRESH);
+        insertNotification(accountId, OverdueAsyncBusNotificationAction.REFRESH);
+        verifyPendingActions(OverdueAsyncBusNotificationAction.REFRESH);
+
+        // A CLEAR supersedes the pending REFRESH
+        insertNotification(accountId, OverdueAsyncBusNotificationAction.CLEAR);
+        verifyPendingActions(OverdueAsyncBusNotificationAction.CLEAR);
+
+        // A REFRESH must still run after the pending CLEAR, but only once
+        insertNotification(accountId, OverdueAsyncBusNotificationAction.REFRESH);
+        insertNotification(accountId, OverdueAsyncBusNotificationAction.REFRESH);
+        verifyPendingActions(OverdueAsyncBusNotificationAction.CLEAR, OverdueAsyncBusNotificationAction.REFRESH);
+    }
+
+    private void insertNotification(final UUID accountId, final OverdueAsyncBusNotificationAction action) {
+        asyncPoster.insertOverdueNotification(accountId, futureNotificationTime, OverdueAsyncBusNotifier.OVERDUE_ASYNC_BUS_NOTIFIER_QUEUE,
+                                              new OverdueAsyncBusNotificationKey(accountId, action), internalCallContext);
+    }
+
+    private void verifyPendingActions(final OverdueAsyncBusNotificationAction... expectedActions) {
+        final List<NotificationEventWithMetadata<OverdueAsyncBusNotificationKey>> pendingNotifications = asyncBusQueue.getFutureNotificationForSearchKeys(internalCallContext.getAccountRecordId(),
+                                                                                                                                                          internalCallContext.getTenantRecordId());
+        Assert.assertEquals(pendingNotifications.size(), expectedActions.length);
+        for (int i = 0; i < expectedActions.length; i++) {
+            Assert.assertEquals(pendingNotifications.get(i).getEvent().getAction(), expectedActions[i]);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.overdue.wrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.LocalDate;
+import org.killbill.billing.account.api.Account;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.entitlement.api.BlockingState;
+import org.killbill.billing.invoice.api.InvoiceUnpaidBalance;
+import org.killbill.billing.overdue.OverdueTestSuiteWithEmbeddedDB;
+import org.killbill.billing.overdue.config.OverdueConfig;
+import org.killbill.billing.overdue.glue.ApplicatorMockJunctionModule.ApplicatorBlockingApi;
+import org.killbill.xmlloader.XMLLoader;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+public class TestOverdueBulkEvaluator extends OverdueTestSuiteWithEmbeddedDB {
+
+    @Test(groups = "slow")
+    public void testEvaluateAllAccounts() throws Exception {
+        final OverdueConfig config = loadConfig();
+
+        final Account overdueAccount = testOverdueHelper.createAccount(clock.getUTCToday().minusDays(31));
+        final Account goodAccount = createAccountWithoutUnpaidInvoice();
+        setUpAccounts(overdueAccount, goodAccount, clock.getUTCToday().minusDays(31));
+
+        // Only the overdue account transitions
+        Assert.assertEquals(bulkEvaluator.evaluateAllAccounts(internalCallContext.getTenantRecordId(), internalCallContext.getUserToken()), 1);
+        testOverdueHelper.checkStateApplied(config.getStateSet().findState("OD1"));
+        Assert.assertEquals(((ApplicatorBlockingApi) blockingApi).getBlockingState().getBlockedId(), overdueAccount.getId());
+
+        // Already in OD1: no transition the second time around
+        Assert.assertEquals(bulkEvaluator.evaluateAllAccounts(internalCallContext.getTenantRecordId(), internalCallContext.getUserToken()), 0);
+    }
+
+    @Test(groups = "slow")
+    public void testScheduleOverdueSweep() throws Exception {
+        final OverdueConfig config = loadConfig();
+
+        final Account overdueAccount = testOverdueHelper.createAccount(clock.getUTCToday().minusDays(41));
+        final Account goodAccount = createAccountWithoutUnpaidInvoice();
+        setUpAccounts(overdueAccount, goodAccount, clock.getUTCToday().minusDays(41));
+
+        overdueApi.scheduleOverdueSweep(callContext);
+
+        await().atMost(10, SECONDS).until(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                final BlockingState blockingState = ((ApplicatorBlockingApi) blockingApi).getBlockingState();
+                return blockingState != null && blockingState.getBlockedId().equals(overdueAccount.getId());
+            }
+        });
+        testOverdueHelper.checkStateApplied(config.getStateSet().findState("OD2"));
+    }
+
+    private OverdueConfig loadConfig() throws Exception {
+        final InputStream is = new ByteArrayInputStream(testOverdueHelper.getConfigXml().getBytes());
+        final OverdueConfig config = XMLLoader.getObjectFromStreamNoValidation(is, OverdueConfig.class);
+        overdueWrapperFactory.setOverdueConfig(config);
+        return config;
+    }
+
+    private Account createAccountWithoutUnpaidInvoice() {
+        final Account account = Mockito.mock(Account.class);
+        Mockito.when(account.getId()).thenReturn(UUID.randomUUID());
+        Mockito.when(account.getTimeZone()).thenReturn(DateTimeZone.UTC);
+        return account;
+    }
+
+    private void setUpAccounts(final Account overdueAccount, final Account goodAccount, final LocalDate dateOfUnpaidInvoice) {
+        Mockito.when(accountApi.getAccountsFromRecordId(Mockito.<Long>any(), Mockito.anyInt(), Mockito.<InternalTenantContext>any()))
+               .thenReturn(ImmutableMap.<Long, Account>of(1L, overdueAccount, 2L, goodAccount));
+
+        final InvoiceUnpaidBalance unpaidBalance = Mockito.mock(InvoiceUnpaidBalance.class);
+        Mockito.when(unpaidBalance.getInvoiceId()).thenReturn(UUID.randomUUID());
+        Mockito.when(unpaidBalance.getAccountId()).thenReturn(overdueAccount.getId());
+        Mockito.when(unpaidBalance.getInvoiceDate()).thenReturn(dateOfUnpaidInvoice);
+        Mockito.when(unpaidBalance.getTargetDate()).thenReturn(dateOfUnpaidInvoice);
+        Mockito.when(unpaidBalance.getBalance()).thenReturn(BigDecimal.TEN);
+        Mockito.when(invoiceApi.getUnpaidInvoiceBalances(Mockito.<Collection<UUID>>any(), Mockito.<InternalTenantContext>any()))
+               .thenReturn(ImmutableMap.<UUID, List<InvoiceUnpaidBalance>>of(overdueAccount.getId(), ImmutableList.<InvoiceUnpaidBalance>of(unpaidBalance)));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.core;
+
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.payment.dao.PaymentDao;
+import org.killbill.billing.payment.dao.PaymentMethodModelDao;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.cache.CacheLoaderArgument;
+import org.killbill.billing.util.cache.PaymentMethodPluginNameCacheLoader.LoaderCallback;
+
+import com.google.common.annotations.VisibleForTesting;
+
+// The plugin name of a payment method never changes (deleted ones included), so it is safe to cache it
+public class PaymentMethodPluginNameResolver {
+
+    private PaymentMethodPluginNameResolver() {}
+
+    @Nullable
+    public static String getPluginName(final UUID paymentMethodId, final PaymentDao paymentDao, final CacheControllerDispatcher cacheControllerDispatcher, final InternalTenantContext context) {
+        final LoaderCallback loaderCallback = new LoaderCallback() {
+            @Override
+            public String loadPluginName(final UUID paymentMethodId, final InternalTenantContext context) {
+                final PaymentMethodModelDao methodDao = paymentDao.getPaymentMethodIncludedDeleted(paymentMethodId, context);
+                return methodDao == null ? null : methodDao.getPluginName();
+            }
+        };
+
+        final CacheController<Object, Object> cache = cacheControllerDispatcher.getCacheController(CacheType.PAYMENT_METHOD_PLUGIN_NAME);
+        if (cache == null) {
+            return loaderCallback.loadPluginName(paymentMethodId, context);
+        }
+
+        final CacheLoaderArgument arg = new CacheLoaderArgument(ObjectType.PAYMENT_METHOD, new Object[]{loaderCallback}, context);
+        return (String) cache.get(getCacheKey(paymentMethodId, context), arg);
+    }
+
+    public static void invalidate(final UUID paymentMethodId, final CacheControllerDispatcher cacheControllerDispatcher, final InternalTenantContext context) {
+        final CacheController<Object, Object> cache = cacheControllerDispatcher.getCacheController(CacheType.PAYMENT_METHOD_PLUGIN_NAME);
+        if (cache != null) {
+            cache.remove(getCacheKey(paymentMethodId, context));
+        }
+    }
+
+    // Scope the entry to the tenant, so that a lookup can never be served from another tenant's entry
+    @VisibleForTesting
+    static String getCacheKey(final UUID paymentMethodId, final InternalTenantContext context) {
+        return context.getTenantRecordId() + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + paymentMethodId;
+    }
+}
@@ -119,6 +119,7 @@ public class PaymentMethodProcessor extends ProcessorBase {
                                                                                                                 final PaymentMethodModelDao pmModel = new PaymentMethodModelDao(pm.getId(), pm.getExternalKey(), pm.getCreatedDate(), pm.getUpdatedDate(),
                                                                                                                                                                                 pm.getAccountId(), pm.getPluginName(), pm.isActive());
                                                                                                                 paymentDao.insertPaymentMethod(pmModel, context);
+                                                                                                                invalidatePluginNameCache(pm.getId(), context);
 
                                                                                                                 if (setDefault) {
                                                                                                                     accountInternalApi.updatePaymentMethod(account.getId(), pm.getId(), context);
@@ -361,6 +362,7 @@ public class PaymentMethodProcessor extends ProcessorBase {
                         final PaymentPluginApi pluginApi = getPluginApi(paymentMethodId, context);
                         pluginApi.deletePaymentMethod(account.getId(), paymentMethodId, properties, callContext);
                         paymentDao.deletedPaymentMethod(paymentMethodId, context);
+                        invalidatePluginNameCache(paymentMethodId, context);
                         return PluginDispatcher.createPluginDispatcherReturnType(null);
                     } catch (final PaymentPluginApiException e) {
                         log.warn("Error deleting payment method " + paymentMethodId, e);
@@ -31,12 +31,12 @@ import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.osgi.api.OSGIServiceRegistration;
 import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.payment.api.TransactionStatus;
+import org.killbill.billing.payment.core.PaymentMethodPluginNameResolver;
 import org.killbill.billing.payment.core.sm.PaymentEnteringStateCallback;
 import org.killbill.billing.payment.core.sm.PaymentStateMachineHelper;
 import org.killbill.billing.payment.core.sm.PluginRoutingPaymentAutomatonRunner;
 import org.killbill.billing.payment.core.sm.RetryStateMachineHelper;
 import org.killbill.billing.payment.dao.PaymentDao;
-import org.killbill.billing.payment.dao.PaymentMethodModelDao;
 import org.killbill.billing.payment.dao.PaymentModelDao;
 import org.killbill.billing.payment.dao.PaymentTransactionModelDao;
 import org.killbill.billing.payment.plugin.api.PaymentPluginApi;
@@ -98,8 +98,9 @@ public class ErroredPaymentTask extends CompletionTaskBase<PaymentModelDao> {
             return;
         }
 
-        final PaymentMethodModelDao paymentMethod = paymentDao.getPaymentMethod(item.getPaymentMethodId(), internalCallContext);
-        final PaymentPluginApi paymentPluginApi = getPaymentPluginApi(item, paymentMethod.getPluginName());
+        final String pluginName = PaymentMethodPluginNameResolver.getPluginName(item.getPaymentMethodId(), paymentDao, controllerDispatcher, internalCallContext);
+        Preconditions.checkState(pluginName != null, "Janitor ErroredPaymentTask cannot find payment method " + item.getPaymentMethodId() + ", skipping");
+        final PaymentPluginApi paymentPluginApi = getPaymentPluginApi(item, pluginName);
 
 
         PaymentTransactionInfoPlugin pluginErroredTransaction = null;
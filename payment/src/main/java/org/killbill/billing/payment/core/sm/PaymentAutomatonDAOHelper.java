@@ -36,12 +36,13 @@ import org.killbill.billing.payment.api.DefaultPaymentPluginErrorEvent;
 import org.killbill.billing.payment.api.PaymentApiException;
 import org.killbill.billing.payment.api.TransactionStatus;
 import org.killbill.billing.payment.api.TransactionType;
+import org.killbill.billing.payment.core.PaymentMethodPluginNameResolver;
 import org.killbill.billing.payment.dao.PaymentDao;
-import org.killbill.billing.payment.dao.PaymentMethodModelDao;
 import org.killbill.billing.payment.dao.PaymentModelDao;
 import org.killbill.billing.payment.dao.PaymentTransactionModelDao;
 import org.killbill.billing.payment.plugin.api.PaymentPluginApi;
 import org.killbill.billing.payment.plugin.api.PaymentTransactionInfoPlugin;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.slf4j.Logger;
@@ -63,6 +64,7 @@ public class PaymentAutomatonDAOHelper {
 
     private final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry;
     private final PersistentBus eventBus;
+    private final CacheControllerDispatcher cacheControllerDispatcher;
 
     // Used to build new payments and transactions
     public PaymentAutomatonDAOHelper(final PaymentStateContext paymentStateContext,
@@ -70,7 +72,8 @@ public class PaymentAutomatonDAOHelper {
                                      final OSGIServiceRegistration<PaymentPluginApi> pluginRegistry,
                                      final InternalCallContext internalCallContext,
                                      final PersistentBus eventBus,
-                                     final PaymentStateMachineHelper paymentSMHelper) throws PaymentApiException {
+                                     final PaymentStateMachineHelper paymentSMHelper,
+                                     final CacheControllerDispatcher cacheControllerDispatcher) throws PaymentApiException {
         this.paymentStateContext = paymentStateContext;
         this.utcNow = utcNow;
         this.paymentDao = paymentDao;
@@ -78,6 +81,7 @@ public class PaymentAutomatonDAOHelper {
         this.internalCallContext = internalCallContext;
         this.eventBus = eventBus;
         this.paymentSMHelper = paymentSMHelper;
+        this.cacheControllerDispatcher = cacheControllerDispatcher;
     }
 
     public void createNewPaymentTransaction() throws PaymentApiException {
@@ -137,11 +141,11 @@ public class PaymentAutomatonDAOHelper {
     public PaymentPluginApi getPaymentProviderPlugin() throws PaymentApiException {
 
         final UUID paymentMethodId = paymentStateContext.getPaymentMethodId();
-        final PaymentMethodModelDao methodDao = paymentDao.getPaymentMethodIncludedDeleted(paymentMethodId, internalCallContext);
-        if (methodDao == null) {
+        final String pluginName = PaymentMethodPluginNameResolver.getPluginName(paymentMethodId, paymentDao, cacheControllerDispatcher, internalCallContext);
+        if (pluginName == null) {
             throw new PaymentApiException(ErrorCode.PAYMENT_NO_SUCH_PAYMENT_METHOD, paymentMethodId);
         }
-        return getPaymentPluginApi(methodDao.getPluginName());
+        return getPaymentPluginApi(pluginName);
     }
 
     public PaymentModelDao getPayment() throws PaymentApiException {
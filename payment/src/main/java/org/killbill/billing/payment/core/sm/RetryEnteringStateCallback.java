@@ -23,7 +23,6 @@ import org.killbill.automaton.OperationResult;
 import org.killbill.automaton.State;
 import org.killbill.automaton.State.EnteringStateCallback;
 import org.killbill.automaton.State.LeavingStateCallback;
-import org.killbill.billing.ObjectType;
 import org.killbill.billing.payment.dao.PaymentAttemptModelDao;
 import org.killbill.billing.payment.retry.BaseRetryService.RetryServiceScheduler;
 
@@ -50,8 +49,7 @@ public class RetryEnteringStateCallback implements EnteringStateCallback {
         retryablePaymentAutomatonRunner.paymentDao.updatePaymentAttempt(attempt.getId(), transactionId, state.getName(), paymentStateContext.internalCallContext);
 
         if ("RETRIED".equals(state.getName())) {
-            retryServiceScheduler.scheduleRetry(ObjectType.PAYMENT_ATTEMPT, attempt.getId(), attempt.getId(),
-                                                paymentStateContext.getPaymentControlPluginNames(), paymentStateContext.getRetryDate());
+            retryServiceScheduler.scheduleRetry(attempt.getId(), paymentStateContext.getPaymentControlPluginNames(), paymentStateContext.getRetryDate(), paymentStateContext.internalCallContext);
         }
     }
 }
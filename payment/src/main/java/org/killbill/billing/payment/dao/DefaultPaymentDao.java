@@ -42,7 +42,9 @@ import org.killbill.billing.payment.api.PaymentMethod;
 import org.killbill.billing.payment.api.TransactionStatus;
 import org.killbill.billing.payment.api.TransactionType;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.config.PaginationConfig;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.PaginationIteratorBuilder;
@@ -50,6 +52,7 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.entity.dao.SearchKeys;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.clock.Clock;
@@ -69,13 +72,16 @@ public class DefaultPaymentDao implements PaymentDao {
 
     private final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao;
     private final DefaultPaginationSqlDaoHelper paginationHelper;
+    private final SearchKeys searchKeys;
     private final PersistentBus eventBus;
     private final Clock clock;
 
     @Inject
-    public DefaultPaymentDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final PersistentBus eventBus) {
-        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao);
-        this.paginationHelper = new DefaultPaginationSqlDaoHelper(transactionalSqlDao);
+    public DefaultPaymentDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling, final PersistentBus eventBus,
+                             final PaginationConfig paginationConfig) {
+        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, aggregatedProfiling);
+        this.paginationHelper = new DefaultPaginationSqlDaoHelper(transactionalSqlDao, paginationConfig);
+        this.searchKeys = new SearchKeys(paginationConfig);
         this.eventBus = eventBus;
         this.clock = clock;
     }
@@ -223,12 +229,17 @@ public class DefaultPaymentDao implements PaymentDao {
                                               new PaginationIteratorBuilder<PaymentModelDao, Payment, PaymentSqlDao>() {
                                                   @Override
                                                   public Long getCount(final PaymentSqlDao paymentSqlDao, final InternalTenantContext context) {
-                                                      return paymentSqlDao.getSearchCount(searchKey, String.format("%%%s%%", searchKey), context);
+                                                      return paymentSqlDao.getSearchCount(searchKey, searchKeys.toLikeSearchKey(searchKey), context);
                                                   }
 
                                                   @Override
                                                   public Iterator<PaymentModelDao> build(final PaymentSqlDao paymentSqlDao, final Long limit, final InternalTenantContext context) {
-                                                      return paymentSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
+                                                      return paymentSqlDao.search(searchKey, searchKeys.toLikeSearchKey(searchKey), offset, limit, context);
+                                                  }
+
+                                                  @Override
+                                                  public String getQueryKey() {
+                                                      return "search:" + searchKey;
                                                   }
                                               },
                                               offset,
@@ -430,12 +441,17 @@ public class DefaultPaymentDao implements PaymentDao {
                                               new PaginationIteratorBuilder<PaymentMethodModelDao, PaymentMethod, PaymentMethodSqlDao>() {
                                                   @Override
                                                   public Long getCount(final PaymentMethodSqlDao paymentMethodSqlDao, final InternalTenantContext context) {
-                                                      return paymentMethodSqlDao.getSearchCount(searchKey, String.format("%%%s%%", searchKey), context);
+                                                      return paymentMethodSqlDao.getSearchCount(searchKey, searchKeys.toLikeSearchKey(searchKey), context);
                                                   }
 
                                                   @Override
                                                   public Iterator<PaymentMethodModelDao> build(final PaymentMethodSqlDao paymentMethodSqlDao, final Long limit, final InternalTenantContext context) {
-                                                      return paymentMethodSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
+                                                      return paymentMethodSqlDao.search(searchKey, searchKeys.toLikeSearchKey(searchKey), offset, limit, context);
+                                                  }
+
+                                                  @Override
+                                                  public String getQueryKey() {
+                                                      return "search:" + searchKey;
                                                   }
                                               },
                                               offset,
@@ -28,7 +28,6 @@ import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.joda.time.DateTime;
-import org.killbill.billing.ObjectType;
 import org.killbill.billing.account.api.Account;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
@@ -210,10 +209,14 @@ public final class InvoicePaymentRoutingPluginApi implements PaymentRoutingPlugi
 
     public void process_AUTO_PAY_OFF_removal(final Account account, final InternalCallContext internalCallContext) {
         final List<PluginAutoPayOffModelDao> entries = controlDao.getAutoPayOffEntry(account.getId());
-        for (PluginAutoPayOffModelDao cur : entries) {
-            // TODO In theory we should pass not only PLUGIN_NAME, but also all the plugin list associated which the original call
-            retryServiceScheduler.scheduleRetry(ObjectType.ACCOUNT, account.getId(), cur.getAttemptId(), ImmutableList.<String>of(PLUGIN_NAME), clock.getUTCNow());
-        }
+        final Collection<UUID> attemptIds = Collections2.transform(entries, new Function<PluginAutoPayOffModelDao, UUID>() {
+            @Override
+            public UUID apply(final PluginAutoPayOffModelDao input) {
+                return input.getAttemptId();
+            }
+        });
+        // TODO In theory we should pass not only PLUGIN_NAME, but also all the plugin list associated which the original call
+        retryServiceScheduler.scheduleRetries(attemptIds, ImmutableList.<String>of(PLUGIN_NAME), clock.getUTCNow(), internalCallContext);
         controlDao.removeAutoPayOffEntry(account.getId());
     }
 
@@ -19,19 +19,36 @@
 package org.killbill.billing.payment.retry;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
 
 import org.joda.time.DateTime;
 import org.killbill.billing.ObjectType;
 import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.payment.core.PaymentMethodPluginNameResolver;
+import org.killbill.billing.payment.dao.PaymentAttemptModelDao;
+import org.killbill.billing.payment.dao.PaymentDao;
 import org.killbill.billing.payment.glue.DefaultPaymentService;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.CallOrigin;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.UserType;
+import org.killbill.billing.util.config.PaymentConfig;
 import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.clock.Clock;
 import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationEventWithMetadata;
 import org.killbill.notificationq.api.NotificationQueue;
 import org.killbill.notificationq.api.NotificationQueueService;
 import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
@@ -40,6 +57,12 @@ import org.killbill.notificationq.api.NotificationQueueService.NotificationQueue
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.CachedGauge;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 public abstract class BaseRetryService implements RetryService {
@@ -47,19 +70,62 @@ public abstract class BaseRetryService implements RetryService {
     private static final Logger log = LoggerFactory.getLogger(BaseRetryService.class);
     private static final String PAYMENT_RETRY_SERVICE = "PaymentRetryService";
 
+    // Minimum delay used when a retry has to be deferred because its payment plugin is saturated
+    private static final long MIN_DEFERRAL_DELAY_MS = 60 * 1000;
+
+    // The backlog gauge hits the notification queue, don't let a metrics reporter do it more often than this
+    private static final long BACKLOG_REFRESH_SEC = 10;
+
     private final NotificationQueueService notificationQueueService;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final PaymentConfig paymentConfig;
+    private final PaymentDao paymentDao;
+    private final CacheControllerDispatcher cacheControllerDispatcher;
+    private final MetricRegistry metricRegistry;
+    private final Clock clock;
+    private final Random random = new Random();
+
+    // Number of retries currently being processed, per payment plugin
+    private final ConcurrentMap<String, AtomicInteger> inFlightRetriesPerPlugin = new ConcurrentHashMap<String, AtomicInteger>();
+    // Tenants this node has dispatched retries for: the notification queue only exposes the backlog per tenant
+    private final Set<Long> tenantRecordIdsWithRetries = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
 
     private NotificationQueue retryQueue;
+    private Meter deferredRetries;
 
     public BaseRetryService(final NotificationQueueService notificationQueueService,
-                            final InternalCallContextFactory internalCallContextFactory) {
+                            final InternalCallContextFactory internalCallContextFactory,
+                            final PaymentConfig paymentConfig,
+                            final PaymentDao paymentDao,
+                            final CacheControllerDispatcher cacheControllerDispatcher,
+                            final MetricRegistry metricRegistry,
+                            final Clock clock) {
         this.notificationQueueService = notificationQueueService;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.paymentConfig = paymentConfig;
+        this.paymentDao = paymentDao;
+        this.cacheControllerDispatcher = cacheControllerDispatcher;
+        this.metricRegistry = metricRegistry;
+        this.clock = clock;
     }
 
     @Override
     public void initialize(final String svcName) throws NotificationQueueAlreadyExists {
+        deferredRetries = metricRegistry.meter(MetricRegistry.name(BaseRetryService.class, getQueueName(), "deferred"));
+        final String inFlightName = MetricRegistry.name(BaseRetryService.class, getQueueName(), "in-flight");
+        if (!metricRegistry.getGauges().containsKey(inFlightName)) {
+            metricRegistry.register(inFlightName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    int result = 0;
+                    for (final AtomicInteger inFlight : inFlightRetriesPerPlugin.values()) {
+                        result += inFlight.get();
+                    }
+                    return result;
+                }
+            });
+        }
+
         retryQueue = notificationQueueService.createNotificationQueue(svcName,
                                                                       getQueueName(),
                                                                       new NotificationQueueHandler() {
@@ -71,10 +137,75 @@ public abstract class BaseRetryService implements RetryService {
                                                                               }
                                                                               final PaymentRetryNotificationKey key = (PaymentRetryNotificationKey) notificationKey;
                                                                               final InternalCallContext callContext = internalCallContextFactory.createInternalCallContext(tenantRecordId, accountRecordId, PAYMENT_RETRY_SERVICE, CallOrigin.INTERNAL, UserType.SYSTEM, userToken);
-                                                                              retryPaymentTransaction(key.getAttemptId(), key.getPaymentControlPluginNames(), callContext);
+                                                                              dispatchRetry(key, callContext);
                                                                           }
                                                                       }
                                                                      );
+
+        // Retries scheduled but not dispatched yet, across all nodes, for the tenants this node has seen retries for
+        final String backlogName = getBacklogMetricName(getQueueName());
+        if (!metricRegistry.getGauges().containsKey(backlogName)) {
+            metricRegistry.register(backlogName, new CachedGauge<Long>(BACKLOG_REFRESH_SEC, TimeUnit.SECONDS) {
+                @Override
+                protected Long loadValue() {
+                    if (retryQueue == null) {
+                        return 0L;
+                    }
+
+                    long backlog = 0;
+                    for (final Long tenantRecordId : tenantRecordIdsWithRetries) {
+                        final List<NotificationEventWithMetadata<PaymentRetryNotificationKey>> pendingRetries = retryQueue.getFutureNotificationForSearchKey2(tenantRecordId);
+                        backlog += pendingRetries.size();
+                    }
+                    return backlog;
+                }
+            });
+        }
+    }
+
+    // Retries are grouped by payment plugin: we never let more than getPaymentPluginThreadNb() retries run concurrently
+    // against the same plugin (they would just queue up on the plugin executor). Extra ones are deferred and spread again.
+    @VisibleForTesting
+    void dispatchRetry(final PaymentRetryNotificationKey key, final InternalCallContext callContext) {
+        tenantRecordIdsWithRetries.add(callContext.getTenantRecordId());
+
+        final String pluginName = getPaymentPluginName(key.getAttemptId(), callContext);
+        inFlightRetriesPerPlugin.putIfAbsent(pluginName, new AtomicInteger());
+        final AtomicInteger inFlight = inFlightRetriesPerPlugin.get(pluginName);
+
+        if (inFlight.incrementAndGet() > paymentConfig.getPaymentPluginThreadNb()) {
+            inFlight.decrementAndGet();
+            deferRetry(key, pluginName, callContext);
+            return;
+        }
+
+        try {
+            retryPaymentTransaction(key.getAttemptId(), key.getPaymentControlPluginNames(), callContext);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // Unknown attempts or payment methods are throttled together, the retry itself will deal with them
+    private String getPaymentPluginName(final UUID attemptId, final InternalTenantContext context) {
+        final PaymentAttemptModelDao attempt = paymentDao.getPaymentAttempt(attemptId, context);
+        if (attempt == null || attempt.getPaymentMethodId() == null) {
+            return "";
+        }
+        final String pluginName = PaymentMethodPluginNameResolver.getPluginName(attempt.getPaymentMethodId(), paymentDao, cacheControllerDispatcher, context);
+        return pluginName == null ? "" : pluginName;
+    }
+
+    private void deferRetry(final PaymentRetryNotificationKey key, final String pluginName, final InternalCallContext callContext) {
+        final long windowMs = Math.max(paymentConfig.getPaymentRetryJitter().getMillis(), MIN_DEFERRAL_DELAY_MS);
+        final DateTime timeOfRetry = clock.getUTCNow().plus((long) (random.nextDouble() * windowMs));
+        log.info("Deferring retry for attempt {} to {}: too many concurrent retries for plugin {}", key.getAttemptId(), timeOfRetry, pluginName);
+        try {
+            retryQueue.recordFutureNotification(timeOfRetry, key, callContext.getUserToken(), callContext.getAccountRecordId(), callContext.getTenantRecordId());
+            deferredRetries.mark();
+        } catch (final IOException e) {
+            log.error("Failed to defer retry for attempt " + key.getAttemptId(), e);
+        }
     }
 
     @Override
@@ -93,46 +224,81 @@ public abstract class BaseRetryService implements RetryService {
     @Override
     public abstract String getQueueName();
 
+    @VisibleForTesting
+    static String getBacklogMetricName(final String queueName) {
+        return MetricRegistry.name(BaseRetryService.class, queueName, "backlog");
+    }
+
     public abstract static class RetryServiceScheduler {
 
         private final NotificationQueueService notificationQueueService;
         private final InternalCallContextFactory internalCallContextFactory;
+        private final PaymentConfig paymentConfig;
+        private final Random random = new Random();
 
         @Inject
         public RetryServiceScheduler(final NotificationQueueService notificationQueueService,
-                                     final InternalCallContextFactory internalCallContextFactory) {
+                                     final InternalCallContextFactory internalCallContextFactory,
+                                     final PaymentConfig paymentConfig) {
             this.notificationQueueService = notificationQueueService;
             this.internalCallContextFactory = internalCallContextFactory;
+            this.paymentConfig = paymentConfig;
         }
 
         public boolean scheduleRetry(final ObjectType objectType, final UUID objectId, final UUID attemptId, final List<String> paymentControlPluginNames, final DateTime timeOfRetry) {
-            return scheduleRetryInternal(objectType, objectId, attemptId, paymentControlPluginNames, timeOfRetry, null);
+            final InternalCallContext context = createCallContextFromPaymentId(objectType, objectId);
+            return scheduleRetry(attemptId, paymentControlPluginNames, timeOfRetry, context);
         }
 
+        // Prefer this version when a context is already available, to avoid looking it up from the object id
+        public boolean scheduleRetry(final UUID attemptId, final List<String> paymentControlPluginNames, final DateTime timeOfRetry, final InternalCallContext context) {
+            return scheduleRetries(ImmutableList.<UUID>of(attemptId), paymentControlPluginNames, timeOfRetry, context);
+        }
 
-        private boolean scheduleRetryInternal(final ObjectType objectType, final UUID objectId, final UUID attemptId, final List<String> paymentControlPluginNames, final DateTime timeOfRetry, final EntitySqlDaoWrapperFactory<EntitySqlDao> transactionalDao) {
-            final InternalCallContext context = createCallContextFromPaymentId(objectType, objectId);
+        // Schedule a batch of retries for the same account: each one is spread with jitter over the configured window
+        // to avoid firing all of them at the exact same time
+        public boolean scheduleRetries(final Iterable<UUID> attemptIds, final List<String> paymentControlPluginNames, final DateTime timeOfRetry, final InternalCallContext context) {
+            return scheduleRetriesInternal(attemptIds, paymentControlPluginNames, timeOfRetry, context, null);
+        }
 
+        private boolean scheduleRetriesInternal(final Iterable<UUID> attemptIds, final List<String> paymentControlPluginNames, final DateTime timeOfRetry, final InternalCallContext context,
+                                                @Nullable final EntitySqlDaoWrapperFactory<EntitySqlDao> transactionalDao) {
+            final NotificationQueue retryQueue;
             try {
-                final NotificationQueue retryQueue = notificationQueueService.getNotificationQueue(DefaultPaymentService.SERVICE_NAME, getQueueName());
+                retryQueue = notificationQueueService.getNotificationQueue(DefaultPaymentService.SERVICE_NAME, getQueueName());
+            } catch (NoSuchNotificationQueue e) {
+                log.error(String.format("Failed to retrieve notification queue %s:%s", DefaultPaymentService.SERVICE_NAME, getQueueName()));
+                return false;
+            }
+            if (retryQueue == null) {
+                return true;
+            }
+
+            for (final UUID attemptId : attemptIds) {
                 final NotificationEvent key = new PaymentRetryNotificationKey(attemptId, paymentControlPluginNames);
-                if (retryQueue != null) {
+                final DateTime effectiveTimeOfRetry = withJitter(timeOfRetry);
+                try {
                     if (transactionalDao == null) {
-                        retryQueue.recordFutureNotification(timeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
+                        retryQueue.recordFutureNotification(effectiveTimeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
                     } else {
-                        retryQueue.recordFutureNotificationFromTransaction(transactionalDao.getSqlDao(), timeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
+                        retryQueue.recordFutureNotificationFromTransaction(transactionalDao.getSqlDao(), effectiveTimeOfRetry, key, context.getUserToken(), context.getAccountRecordId(), context.getTenantRecordId());
                     }
+                } catch (IOException e) {
+                    log.error(String.format("Failed to serialize notificationQueue event for attemptId %s", attemptId));
+                    return false;
                 }
-            } catch (NoSuchNotificationQueue e) {
-                log.error(String.format("Failed to retrieve notification queue %s:%s", DefaultPaymentService.SERVICE_NAME, getQueueName()));
-                return false;
-            } catch (IOException e) {
-                log.error(String.format("Failed to serialize notificationQueue event for object %s, objectId %s", objectId));
-                return false;
             }
             return true;
         }
 
+        private DateTime withJitter(final DateTime timeOfRetry) {
+            final long windowMs = paymentConfig.getPaymentRetryJitter().getMillis();
+            if (windowMs <= 0) {
+                return timeOfRetry;
+            }
+            return timeOfRetry.plus((long) (random.nextDouble() * windowMs));
+        }
+
         protected InternalCallContext createCallContextFromPaymentId(final ObjectType objectType, final UUID objectId) {
             return internalCallContextFactory.createInternalCallContext(objectId, objectType, PAYMENT_RETRY_SERVICE, CallOrigin.INTERNAL, UserType.SYSTEM, null);
         }
@@ -21,9 +21,14 @@ import java.util.UUID;
 
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.payment.core.PluginRoutingPaymentProcessor;
+import org.killbill.billing.payment.dao.PaymentDao;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.PaymentConfig;
+import org.killbill.clock.Clock;
 import org.killbill.notificationq.api.NotificationQueueService;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 
 public class DefaultRetryService extends BaseRetryService implements RetryService {
@@ -33,8 +38,10 @@ public class DefaultRetryService extends BaseRetryService implements RetryServic
     private final PluginRoutingPaymentProcessor processor;
 
     @Inject
-    public DefaultRetryService(final NotificationQueueService notificationQueueService, final InternalCallContextFactory internalCallContextFactory, final PluginRoutingPaymentProcessor processor) {
-        super(notificationQueueService, internalCallContextFactory);
+    public DefaultRetryService(final NotificationQueueService notificationQueueService, final InternalCallContextFactory internalCallContextFactory, final PluginRoutingPaymentProcessor processor,
+                               final PaymentConfig paymentConfig, final PaymentDao paymentDao, final CacheControllerDispatcher cacheControllerDispatcher, final MetricRegistry metricRegistry,
+                               final Clock clock) {
+        super(notificationQueueService, internalCallContextFactory, paymentConfig, paymentDao, cacheControllerDispatcher, metricRegistry, clock);
         this.processor = processor;
     }
 
@@ -52,8 +59,9 @@ public class DefaultRetryService extends BaseRetryService implements RetryServic
     public static class DefaultRetryServiceScheduler extends RetryServiceScheduler {
 
         @Inject
-        public DefaultRetryServiceScheduler(final NotificationQueueService notificationQueueService, final InternalCallContextFactory internalCallContextFactory) {
-            super(notificationQueueService, internalCallContextFactory);
+        public DefaultRetryServiceScheduler(final NotificationQueueService notificationQueueService, final InternalCallContextFactory internalCallContextFactory,
+                                            final PaymentConfig paymentConfig) {
+            super(notificationQueueService, internalCallContextFactory, paymentConfig);
         }
 
         @Override
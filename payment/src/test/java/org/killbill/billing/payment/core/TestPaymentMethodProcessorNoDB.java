@@ -26,6 +26,9 @@ import org.killbill.billing.payment.PaymentTestSuiteNoDB;
 import org.killbill.billing.payment.api.PaymentMethod;
 import org.killbill.billing.payment.api.PluginProperty;
 import org.killbill.billing.payment.provider.ExternalPaymentProviderPlugin;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -64,4 +67,35 @@ public class TestPaymentMethodProcessorNoDB extends PaymentTestSuiteNoDB {
             Assert.assertEquals(foundPaymentMethods.get(0).getId(), externalPaymentMethodId);
         }
     }
+
+    @Test(groups = "fast")
+    public void testPluginNameIsCached() throws Exception {
+        final Iterable<PluginProperty> properties = ImmutableList.<PluginProperty>of();
+        final UUID accountId = UUID.randomUUID();
+        final Account account = Mockito.mock(Account.class);
+        Mockito.when(account.getId()).thenReturn(accountId);
+        Mockito.when(account.getExternalKey()).thenReturn(accountId.toString());
+
+        paymentMethodProcessor.createPaymentMethodAndGetExternalPaymentProviderPlugin(UUID.randomUUID().toString(), account, properties, callContext, internalCallContext);
+        final UUID paymentMethodId = paymentMethodProcessor.getPaymentMethods(account.getId(), false, properties, internalCallContext).get(0).getId();
+
+        final CacheController<Object, Object> cache = cacheControllerDispatcher.getCacheController(CacheType.PAYMENT_METHOD_PLUGIN_NAME);
+        Assert.assertNotNull(cache);
+        final int initialSize = cache.size();
+
+        Assert.assertNotNull(paymentMethodProcessor.getPaymentProviderPlugin(paymentMethodId, internalCallContext));
+        Assert.assertEquals(cache.size(), initialSize + 1);
+
+        // Subsequent lookups are served from the cache
+        Assert.assertNotNull(paymentMethodProcessor.getPaymentProviderPlugin(paymentMethodId, internalCallContext));
+        Assert.assertEquals(cache.size(), initialSize + 1);
+
+        // Entries are scoped to the tenant
+        Assert.assertEquals(PaymentMethodPluginNameResolver.getCacheKey(paymentMethodId, internalCallContext), internalCallContext.getTenantRecordId() + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + paymentMethodId);
+        Assert.assertFalse(cache.remove((internalCallContext.getTenantRecordId() + 1) + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + paymentMethodId));
+        Assert.assertEquals(cache.size(), initialSize + 1);
+
+        paymentMethodProcessor.invalidatePluginNameCache(paymentMethodId, internalCallContext);
+        Assert.assertEquals(cache.size(), initialSize);
+    }
 }
@@ -164,7 +164,8 @@ public class TestRetryablePayment extends PaymentTestSuiteNoDB {
                 executor,
                 paymentSMHelper,
                 retrySMHelper,
-                eventBus);
+                eventBus,
+                cacheControllerDispatcher);
 
         paymentStateContext =
                 new RetryablePaymentStateContext(ImmutableList.<String>of(MockPaymentRoutingProviderPlugin.PLUGIN_NAME),
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.payment.retry;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.payment.PaymentTestSuiteNoDB;
+import org.killbill.billing.payment.dao.PaymentAttemptModelDao;
+import org.killbill.billing.payment.dao.PaymentDao;
+import org.killbill.billing.payment.dao.PaymentMethodModelDao;
+import org.killbill.billing.payment.glue.DefaultPaymentService;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.PaymentConfig;
+import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationEventWithMetadata;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueHandler;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestBaseRetryService extends PaymentTestSuiteNoDB {
+
+    private static final String QUEUE_NAME = "test-retry";
+    private static final String QUEUE_FULL_NAME = DefaultPaymentService.SERVICE_NAME + ":" + QUEUE_NAME;
+
+    private NotificationQueue retryQueue;
+    private PaymentDao retryPaymentDao;
+    private MetricRegistry metricRegistry;
+    private BlockingRetryService blockingRetryService;
+
+    @Override
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        super.beforeMethod();
+
+        retryQueue = Mockito.mock(NotificationQueue.class);
+        Mockito.when(retryQueue.getFullQName()).thenReturn(QUEUE_FULL_NAME);
+        final NotificationQueueService notificationQueueService = Mockito.mock(NotificationQueueService.class);
+        Mockito.when(notificationQueueService.createNotificationQueue(Mockito.anyString(), Mockito.anyString(), Mockito.<NotificationQueueHandler>any())).thenReturn(retryQueue);
+
+        // A single retry at a time per payment plugin, deferred retries are spread over the minimum window
+        final PaymentConfig retryPaymentConfig = Mockito.mock(PaymentConfig.class);
+        Mockito.when(retryPaymentConfig.getPaymentPluginThreadNb()).thenReturn(1);
+        Mockito.when(retryPaymentConfig.getPaymentRetryJitter()).thenReturn(new TimeSpan("0s"));
+
+        retryPaymentDao = Mockito.mock(PaymentDao.class);
+        metricRegistry = new MetricRegistry();
+        blockingRetryService = new BlockingRetryService(notificationQueueService, Mockito.mock(InternalCallContextFactory.class), retryPaymentConfig, retryPaymentDao, metricRegistry);
+        blockingRetryService.initialize(DefaultPaymentService.SERVICE_NAME);
+    }
+
+    @Test(groups = "fast")
+    public void testRetriesThrottledPerPaymentPlugin() throws Exception {
+        final PaymentRetryNotificationKey blockingRetry = createRetry("plugin-a");
+        final PaymentRetryNotificationKey samePluginRetry = createRetry("plugin-a");
+        final PaymentRetryNotificationKey otherPluginRetry = createRetry("plugin-b");
+        blockingRetryService.setBlockingAttemptId(blockingRetry.getAttemptId());
+
+        final Thread blockingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                blockingRetryService.dispatchRetry(blockingRetry, internalCallContext);
+            }
+        });
+        blockingThread.start();
+        assertTrue(blockingRetryService.awaitBlockingRetry());
+
+        // Same payment plugin: deferred, with jitter from now
+        final DateTime now = clock.getUTCNow();
+        blockingRetryService.dispatchRetry(samePluginRetry, internalCallContext);
+        final ArgumentCaptor<DateTime> timeOfRetry = ArgumentCaptor.forClass(DateTime.class);
+        Mockito.verify(retryQueue).recordFutureNotification(timeOfRetry.capture(), Mockito.<NotificationEvent>eq(samePluginRetry), Mockito.<UUID>any(), Mockito.<Long>any(), Mockito.<Long>any());
+        assertFalse(timeOfRetry.getValue().isBefore(now));
+        assertFalse(timeOfRetry.getValue().isAfter(clock.getUTCNow().plusMinutes(1)));
+        assertEquals(metricRegistry.meter(MetricRegistry.name(BaseRetryService.class, QUEUE_NAME, "deferred")).getCount(), 1);
+
+        // Other payment plugin: not throttled
+        blockingRetryService.dispatchRetry(otherPluginRetry, internalCallContext);
+
+        blockingRetryService.releaseBlockingRetry();
+        blockingThread.join(TimeUnit.SECONDS.toMillis(5));
+        assertEquals(blockingRetryService.getRetriedAttemptIds(), ImmutableList.<UUID>of(otherPluginRetry.getAttemptId(), blockingRetry.getAttemptId()));
+
+        // Once the plugin is available again, the deferred retry goes through
+        blockingRetryService.dispatchRetry(samePluginRetry, internalCallContext);
+        assertEquals(blockingRetryService.getRetriedAttemptIds(), ImmutableList.<UUID>of(otherPluginRetry.getAttemptId(), blockingRetry.getAttemptId(), samePluginRetry.getAttemptId()));
+        Mockito.verify(retryQueue, Mockito.times(1)).recordFutureNotification(Mockito.<DateTime>any(), Mockito.<NotificationEvent>any(), Mockito.<UUID>any(), Mockito.<Long>any(), Mockito.<Long>any());
+    }
+
+    @Test(groups = "fast")
+    public void testBacklogFromNotificationQueue() throws Exception {
+        final List<NotificationEventWithMetadata<PaymentRetryNotificationKey>> pendingRetries = new LinkedList<NotificationEventWithMetadata<PaymentRetryNotificationKey>>();
+        for (int i = 0; i < 7; i++) {
+            pendingRetries.add(Mockito.mock(NotificationEventWithMetadata.class));
+        }
+        Mockito.when(retryQueue.<PaymentRetryNotificationKey>getFutureNotificationForSearchKey2(internalCallContext.getTenantRecordId())).thenReturn(pendingRetries);
+
+        // The backlog is looked up for the tenants retries have been dispatched for
+        blockingRetryService.dispatchRetry(createRetry("plugin-a"), internalCallContext);
+        assertEquals(metricRegistry.getGauges().get(BaseRetryService.getBacklogMetricName(QUEUE_NAME)).getValue(), 7L);
+    }
+
+    @Test(groups = "fast")
+    public void testPluginNameIsCached() throws Exception {
+        final PaymentRetryNotificationKey retry = createRetry("plugin-a");
+        final PaymentRetryNotificationKey otherRetry = new PaymentRetryNotificationKey(UUID.randomUUID(), ImmutableList.<String>of());
+        final PaymentAttemptModelDao otherAttempt = Mockito.mock(PaymentAttemptModelDao.class);
+        final UUID paymentMethodId = retryPaymentDao.getPaymentAttempt(retry.getAttemptId(), internalCallContext).getPaymentMethodId();
+        Mockito.when(otherAttempt.getPaymentMethodId()).thenReturn(paymentMethodId);
+        Mockito.when(retryPaymentDao.getPaymentAttempt(Mockito.eq(otherRetry.getAttemptId()), Mockito.<InternalTenantContext>any())).thenReturn(otherAttempt);
+
+        // Both attempts use the same payment method: its plugin name is only looked up once
+        blockingRetryService.dispatchRetry(retry, internalCallContext);
+        blockingRetryService.dispatchRetry(otherRetry, internalCallContext);
+        assertEquals(blockingRetryService.getRetriedAttemptIds(), ImmutableList.<UUID>of(retry.getAttemptId(), otherRetry.getAttemptId()));
+        Mockito.verify(retryPaymentDao, Mockito.times(1)).getPaymentMethodIncludedDeleted(Mockito.eq(paymentMethodId), Mockito.<InternalTenantContext>any());
+    }
+
+    private PaymentRetryNotificationKey createRetry(final String pluginName) {
+        final UUID attemptId = UUID.randomUUID();
+        final UUID paymentMethodId = UUID.randomUUID();
+
+        final PaymentAttemptModelDao attempt = Mockito.mock(PaymentAttemptModelDao.class);
+        Mockito.when(attempt.getPaymentMethodId()).thenReturn(paymentMethodId);
+        Mockito.when(retryPaymentDao.getPaymentAttempt(Mockito.eq(attemptId), Mockito.<InternalTenantContext>any())).thenReturn(attempt);
+
+        final PaymentMethodModelDao paymentMethod = Mockito.mock(PaymentMethodModelDao.class);
+        Mockito.when(paymentMethod.getPluginName()).thenReturn(pluginName);
+        Mockito.when(retryPaymentDao.getPaymentMethodIncludedDeleted(Mockito.eq(paymentMethodId), Mockito.<InternalTenantContext>any())).thenReturn(paymentMethod);
+
+        return new PaymentRetryNotificationKey(attemptId, ImmutableList.<String>of());
+    }
+
+    private final class BlockingRetryService extends BaseRetryService {
+
+        private final List<UUID> retriedAttemptIds = new CopyOnWriteArrayList<UUID>();
+        private final CountDownLatch blockingRetryStarted = new CountDownLatch(1);
+        private final CountDownLatch blockingRetryReleased = new CountDownLatch(1);
+
+        private volatile UUID blockingAttemptId;
+
+        private BlockingRetryService(final NotificationQueueService notificationQueueService, final InternalCallContextFactory internalCallContextFactory,
+                                     final PaymentConfig paymentConfig, final PaymentDao paymentDao, final MetricRegistry metricRegistry) {
+            super(notificationQueueService, internalCallContextFactory, paymentConfig, paymentDao, cacheControllerDispatcher, metricRegistry, clock);
+        }
+
+        @Override
+        public String getQueueName() {
+            return QUEUE_NAME;
+        }
+
+        @Override
+        public void retryPaymentTransaction(final UUID attemptId, final List<String> paymentControlPluginNames, final InternalCallContext context) {
+            if (attemptId.equals(blockingAttemptId)) {
+                blockingRetryStarted.countDown();
+                try {
+                    blockingRetryReleased.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            retriedAttemptIds.add(attemptId);
+        }
+
+        public void setBlockingAttemptId(final UUID blockingAttemptId) {
+            this.blockingAttemptId = blockingAttemptId;
+        }
+
+        public boolean awaitBlockingRetry() throws InterruptedException {
+            return blockingRetryStarted.await(5, TimeUnit.SECONDS);
+        }
+
+        public void releaseBlockingRetry() {
+            blockingRetryReleased.countDown();
+        }
+
+        public List<UUID> getRetriedAttemptIds() {
+            return retriedAttemptIds;
+        }
+    }
+}
@@ -18,15 +18,21 @@
 
 package org.killbill.billing.server;
 
+import java.lang.management.ManagementFactory;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.killbill.billing.jaxrs.util.JaxrsExecutors;
 import org.killbill.billing.lifecycle.glue.BusModule;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
 import org.killbill.billing.server.notifications.PushNotificationListener;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
+import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueAlreadyExists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,11 +44,16 @@ public class DefaultServerService implements ServerService {
 
     private final PersistentBus bus;
     private final PushNotificationListener pushNotificationListener;
+    private final JaxrsExecutors jaxrsExecutors;
+    private final AggregatedProfiling aggregatedProfiling;
 
     @Inject
-    public DefaultServerService(@Named(BusModule.EXTERNAL_BUS_NAMED) final PersistentBus bus, final PushNotificationListener pushNotificationListener) {
+    public DefaultServerService(@Named(BusModule.EXTERNAL_BUS_NAMED) final PersistentBus bus, final PushNotificationListener pushNotificationListener,
+                                final JaxrsExecutors jaxrsExecutors, final AggregatedProfiling aggregatedProfiling) {
         this.bus = bus;
         this.pushNotificationListener = pushNotificationListener;
+        this.jaxrsExecutors = jaxrsExecutors;
+        this.aggregatedProfiling = aggregatedProfiling;
     }
 
     @Override
@@ -53,12 +64,21 @@ public class DefaultServerService implements ServerService {
     @LifecycleHandlerType(LifecycleLevel.INIT_SERVICE)
     public void registerForNotifications() {
         try {
+            pushNotificationListener.initialize(getName());
             bus.register(pushNotificationListener);
+        } catch (final NotificationQueueAlreadyExists e) {
+            log.warn("Failed to initialize Server service :", e);
         } catch (final EventBusException e) {
             log.warn("Failed to initialize Server service :", e);
         }
     }
 
+    @LifecycleHandlerType(LifecycleLevel.START_SERVICE)
+    public void start() {
+        pushNotificationListener.start();
+        aggregatedProfiling.registerMBean(ManagementFactory.getPlatformMBeanServer());
+    }
+
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
     public void unregisterForNotifications() {
         try {
@@ -66,5 +86,12 @@ public class DefaultServerService implements ServerService {
         } catch (final EventBusException e) {
             log.warn("Failed to stop Server service :", e);
         }
+        try {
+            pushNotificationListener.stop();
+        } catch (final NoSuchNotificationQueue e) {
+            log.warn("Failed to stop Server service :", e);
+        }
+        jaxrsExecutors.stop();
+        aggregatedProfiling.unregisterMBean(ManagementFactory.getPlatformMBeanServer());
     }
 }
@@ -27,6 +27,7 @@ import org.killbill.billing.currency.glue.CurrencyModule;
 import org.killbill.billing.entitlement.glue.DefaultEntitlementModule;
 import org.killbill.billing.invoice.glue.DefaultInvoiceModule;
 import org.killbill.billing.jaxrs.resources.AccountResource;
+import org.killbill.billing.jaxrs.resources.AdminResource;
 import org.killbill.billing.jaxrs.resources.BundleResource;
 import org.killbill.billing.jaxrs.resources.CatalogResource;
 import org.killbill.billing.jaxrs.resources.CustomFieldResource;
@@ -43,6 +44,7 @@ import org.killbill.billing.jaxrs.resources.TagResource;
 import org.killbill.billing.jaxrs.resources.TenantResource;
 import org.killbill.billing.jaxrs.resources.TestResource;
 import org.killbill.billing.jaxrs.resources.TransactionResource;
+import org.killbill.billing.jaxrs.util.JaxrsExecutors;
 import org.killbill.billing.jaxrs.util.KillbillEventHandler;
 import org.killbill.billing.junction.glue.DefaultJunctionModule;
 import org.killbill.billing.overdue.glue.DefaultOverdueModule;
@@ -56,6 +58,8 @@ import org.killbill.billing.server.notifications.PushNotificationListener;
 import org.killbill.billing.subscription.glue.DefaultSubscriptionModule;
 import org.killbill.billing.tenant.glue.TenantModule;
 import org.killbill.billing.usage.glue.UsageModule;
+import org.killbill.billing.util.config.JaxrsConfig;
+import org.killbill.billing.util.config.NotificationConfig;
 import org.killbill.billing.util.dao.AuditLogModelDaoMapper;
 import org.killbill.billing.util.dao.RecordIdIdMappingsMapper;
 import org.killbill.billing.util.email.EmailModule;
@@ -76,6 +80,7 @@ import org.killbill.billing.util.glue.TagStoreModule;
 import org.killbill.clock.Clock;
 import org.killbill.clock.ClockMock;
 import org.killbill.commons.embeddeddb.EmbeddedDB;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class KillbillServerModule extends KillbillPlatformModule {
 
@@ -137,7 +142,7 @@ public class KillbillServerModule extends KillbillPlatformModule {
         install(new DefaultSubscriptionModule(configSource));
         install(new EmailModule(configSource));
         install(new ExportModule(configSource));
-        install(new GlobalLockerModule(embeddedDB.getDBEngine(), configSource));
+        install(new GlobalLockerModule(embeddedDB.getDBEngine(), daoConfig, configSource));
         install(new KillBillShiroAopModule());
         install(new KillbillApiAopModule());
         install(new KillBillShiroWebModule(servletContext, skifeConfigSource));
@@ -152,7 +157,12 @@ public class KillbillServerModule extends KillbillPlatformModule {
     }
 
     protected void configureResources() {
+        final JaxrsConfig jaxrsConfig = new ConfigurationObjectFactory(skifeConfigSource).build(JaxrsConfig.class);
+        bind(JaxrsConfig.class).toInstance(jaxrsConfig);
+        bind(JaxrsExecutors.class).asEagerSingleton();
+
         bind(AccountResource.class).asEagerSingleton();
+        bind(AdminResource.class).asEagerSingleton();
         bind(BundleResource.class).asEagerSingleton();
         bind(CatalogResource.class).asEagerSingleton();
         bind(CustomFieldResource.class).asEagerSingleton();
@@ -176,6 +186,9 @@ public class KillbillServerModule extends KillbillPlatformModule {
     }
 
     protected void configurePushNotification() {
+        final NotificationConfig notificationConfig = new ConfigurationObjectFactory(skifeConfigSource).build(NotificationConfig.class);
+        bind(NotificationConfig.class).toInstance(notificationConfig);
+
         bind(ServerService.class).to(DefaultServerService.class).asEagerSingleton();
         bind(PushNotificationListener.class).asEagerSingleton();
     }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.server.notifications;
+
+import java.util.UUID;
+
+import org.killbill.billing.jaxrs.json.NotificationJson;
+import org.killbill.notificationq.api.NotificationEvent;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// A single notification to (re-)deliver to a callback URL: batches are split on retry to keep the event_json small
+public class PushNotificationKey implements NotificationEvent {
+
+    private final UUID tenantId;
+    private final String url;
+    private final String eventType;
+    private final String accountId;
+    private final String objectType;
+    private final String objectId;
+    private final int attemptNumber;
+
+    @JsonCreator
+    public PushNotificationKey(@JsonProperty("tenantId") final UUID tenantId,
+                               @JsonProperty("url") final String url,
+                               @JsonProperty("eventType") final String eventType,
+                               @JsonProperty("accountId") final String accountId,
+                               @JsonProperty("objectType") final String objectType,
+                               @JsonProperty("objectId") final String objectId,
+                               @JsonProperty("attemptNumber") final int attemptNumber) {
+        this.tenantId = tenantId;
+        this.url = url;
+        this.eventType = eventType;
+        this.accountId = accountId;
+        this.objectType = objectType;
+        this.objectId = objectId;
+        this.attemptNumber = attemptNumber;
+    }
+
+    public PushNotificationKey(final UUID tenantId, final String url, final NotificationJson notification, final int attemptNumber) {
+        this(tenantId, url, notification.getEventType(), notification.getAccountId(), notification.getObjectType(), notification.getObjectId(), attemptNumber);
+    }
+
+    public UUID getTenantId() {
+        return tenantId;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public String getObjectType() {
+        return objectType;
+    }
+
+    public String getObjectId() {
+        return objectId;
+    }
+
+    public int getAttemptNumber() {
+        return attemptNumber;
+    }
+
+    @JsonIgnore
+    public NotificationJson toNotificationJson() {
+        return new NotificationJson(eventType, accountId, objectType, objectId);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PushNotificationKey{");
+        sb.append("tenantId=").append(tenantId);
+        sb.append(", url='").append(url).append('\'');
+        sb.append(", eventType='").append(eventType).append('\'');
+        sb.append(", objectId='").append(objectId).append('\'');
+        sb.append(", attemptNumber=").append(attemptNumber);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -19,49 +19,160 @@
 package org.killbill.billing.server.notifications;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Inject;
 
+import org.joda.time.DateTime;
+import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.jaxrs.json.NotificationJson;
 import org.killbill.billing.notification.plugin.api.ExtBusEvent;
 import org.killbill.billing.tenant.api.TenantApiException;
 import org.killbill.billing.tenant.api.TenantKV.TenantKey;
 import org.killbill.billing.tenant.api.TenantUserApi;
 import org.killbill.billing.util.callcontext.CallContextFactory;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
 import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.NotificationConfig;
+import org.killbill.clock.Clock;
+import org.killbill.commons.concurrent.Executors;
+import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.notificationq.api.NotificationQueueService.NoSuchNotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueAlreadyExists;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.ning.http.client.AsyncCompletionHandler;
 import com.ning.http.client.AsyncHttpClient;
-import com.ning.http.client.AsyncHttpClient.BoundRequestBuilder;
 import com.ning.http.client.AsyncHttpClientConfig;
-import com.ning.http.client.ListenableFuture;
 import com.ning.http.client.Response;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.Subscribe;
 
+// Callbacks are fired asynchronously: the bus thread never waits on a tenant endpoint. Deliveries which fail, or which
+// cannot be started because the global or per-endpoint in-flight budget is exhausted, are rescheduled on a notification
+// queue with exponential backoff.
 public class PushNotificationListener {
 
     private static final Logger log = LoggerFactory.getLogger(PushNotificationListener.class);
 
-    private static final int TIMEOUT_NOTIFICATION = 15; // 15 seconds
+    public static final String PUSH_NOTIFICATION_RETRY_QUEUE = "push-notification-retry-queue";
 
     private final TenantUserApi tenantApi;
     private final CallContextFactory contextFactory;
+    private final InternalCallContextFactory internalCallContextFactory;
+    private final NotificationQueueService notificationQueueService;
+    private final NotificationConfig config;
+    private final Clock clock;
     private final AsyncHttpClient httpClient;
     private final ObjectMapper mapper;
 
+    private final Semaphore inFlight;
+    private final ConcurrentMap<String, Semaphore> inFlightPerEndpoint = new ConcurrentHashMap<String, Semaphore>();
+    // Notifications waiting for their batch to fill up, per tenant and callback URL (only used when batching is enabled)
+    private final Map<String, PendingBatch> pendingBatches = new HashMap<String, PendingBatch>();
+
+    private final Meter delivered;
+    private final Meter failed;
+    private final Meter deferred;
+    private final Meter dropped;
+
+    private volatile ScheduledExecutorService batchExecutor;
+    private NotificationQueue retryQueue;
+
     @Inject
-    public PushNotificationListener(final ObjectMapper mapper, final TenantUserApi tenantApi, final CallContextFactory contextFactory) {
-        this.httpClient = new AsyncHttpClient(new AsyncHttpClientConfig.Builder().setRequestTimeoutInMs(TIMEOUT_NOTIFICATION * 1000).build());
+    public PushNotificationListener(final ObjectMapper mapper,
+                                    final TenantUserApi tenantApi,
+                                    final CallContextFactory contextFactory,
+                                    final InternalCallContextFactory internalCallContextFactory,
+                                    final NotificationQueueService notificationQueueService,
+                                    final NotificationConfig config,
+                                    final Clock clock,
+                                    final MetricRegistry metricRegistry) {
+        this.httpClient = new AsyncHttpClient(new AsyncHttpClientConfig.Builder().setRequestTimeoutInMs((int) config.getPushNotificationTimeout().getMillis()).build());
         this.tenantApi = tenantApi;
         this.contextFactory = contextFactory;
+        this.internalCallContextFactory = internalCallContextFactory;
+        this.notificationQueueService = notificationQueueService;
+        this.config = config;
+        this.clock = clock;
         this.mapper = mapper;
+        this.inFlight = new Semaphore(config.getPushNotificationMaxInFlight());
+
+        final String metricPrefix = MetricRegistry.name(PushNotificationListener.class);
+        this.delivered = metricRegistry.meter(MetricRegistry.name(metricPrefix, "delivered"));
+        this.failed = metricRegistry.meter(MetricRegistry.name(metricPrefix, "failed"));
+        this.deferred = metricRegistry.meter(MetricRegistry.name(metricPrefix, "deferred"));
+        this.dropped = metricRegistry.meter(MetricRegistry.name(metricPrefix, "dropped"));
+        final String inFlightName = MetricRegistry.name(metricPrefix, "in-flight");
+        if (!metricRegistry.getGauges().containsKey(inFlightName)) {
+            metricRegistry.register(inFlightName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return config.getPushNotificationMaxInFlight() - inFlight.availablePermits();
+                }
+            });
+        }
+    }
+
+    public void initialize(final String svcName) throws NotificationQueueAlreadyExists {
+        retryQueue = notificationQueueService.createNotificationQueue(svcName,
+                                                                      PUSH_NOTIFICATION_RETRY_QUEUE,
+                                                                      new NotificationQueueHandler() {
+                                                                          @Override
+                                                                          public void handleReadyNotification(final NotificationEvent notificationKey, final DateTime eventDateTime, final UUID userToken, final Long accountRecordId, final Long tenantRecordId) {
+                                                                              if (!(notificationKey instanceof PushNotificationKey)) {
+                                                                                  log.error("Push notification service got an unexpected notification type {}", notificationKey.getClass().getName());
+                                                                                  return;
+                                                                              }
+
+                                                                              final PushNotificationKey key = (PushNotificationKey) notificationKey;
+                                                                              deliver(key.getTenantId(), key.getUrl(), ImmutableList.<NotificationJson>of(key.toNotificationJson()), key.getAttemptNumber());
+                                                                          }
+                                                                      });
+    }
+
+    public void start() {
+        if (config.getPushNotificationBatchSize() > 1) {
+            batchExecutor = Executors.newSingleThreadScheduledExecutor("PushNotificationBatcher");
+        }
+        retryQueue.startQueue();
+    }
+
+    public void stop() throws NoSuchNotificationQueue {
+        final ScheduledExecutorService executor = batchExecutor;
+        if (executor != null) {
+            batchExecutor = null;
+            executor.shutdownNow();
+            // Don't lose what was waiting for a batch: hand it over to the retry queue
+            for (final PendingBatch batch : drainPendingBatches()) {
+                scheduleRetries(batch.tenantId, batch.url, batch.notifications, 0);
+            }
+        }
+        if (retryQueue != null) {
+            retryQueue.stopQueue();
+            notificationQueueService.deleteNotificationQueue(retryQueue.getServiceName(), retryQueue.getQueueName());
+        }
+        httpClient.close();
     }
 
     @Subscribe
@@ -73,42 +184,223 @@ public class PushNotificationListener {
             dispatchCallback(event.getTenantId(), event, callbacks);
         } catch (final TenantApiException e) {
             log.warn("Failed to retrieve push notification callback for tenant {}", event.getTenantId());
-        } catch (final IOException e) {
-            log.warn("Failed to retrieve push notification callback for tenant {}", event.getTenantId());
         }
     }
 
-    private void dispatchCallback(final UUID tenantId, final ExtBusEvent event, final Iterable<String> callbacks) throws IOException {
+    private void dispatchCallback(final UUID tenantId, final ExtBusEvent event, final Iterable<String> callbacks) {
         final NotificationJson notification = new NotificationJson(event);
-        final String body = mapper.writeValueAsString(notification);
+        final ScheduledExecutorService executor = batchExecutor;
         for (final String cur : callbacks) {
-            doPost(tenantId, cur, body, TIMEOUT_NOTIFICATION);
+            if (executor != null) {
+                addToBatch(executor, tenantId, cur, notification);
+            } else {
+                deliver(tenantId, cur, ImmutableList.<NotificationJson>of(notification), 0);
+            }
         }
     }
 
-    private boolean doPost(final UUID tenantId, final String url, final String body, final int timeoutSec) {
+    private void addToBatch(final ScheduledExecutorService executor, final UUID tenantId, final String url, final NotificationJson notification) {
+        final String batchKey = tenantId + "::" + url;
+        PendingBatch fullBatch = null;
+        synchronized (pendingBatches) {
+            PendingBatch batch = pendingBatches.get(batchKey);
+            if (batch == null && scheduleBatchFlush(executor, batchKey)) {
+                batch = new PendingBatch(tenantId, url);
+                pendingBatches.put(batchKey, batch);
+            }
+            if (batch == null) {
+                // The listener is being stopped: hand the notification over to the retry queue, like the pending batches
+                fullBatch = new PendingBatch(tenantId, url);
+                fullBatch.notifications.add(notification);
+            } else {
+                batch.notifications.add(notification);
+                if (batch.notifications.size() >= config.getPushNotificationBatchSize()) {
+                    fullBatch = pendingBatches.remove(batchKey);
+                }
+            }
+        }
 
-        final BoundRequestBuilder builder = httpClient.preparePost(url);
-        builder.setBody(body == null ? "{}" : body);
+        if (fullBatch == null) {
+            return;
+        } else if (batchExecutor == null) {
+            scheduleRetries(fullBatch.tenantId, fullBatch.url, fullBatch.notifications, 0);
+        } else {
+            deliver(fullBatch.tenantId, fullBatch.url, fullBatch.notifications, 0);
+        }
+    }
 
-        Response response = null;
+    // Returns false if the batch executor has been shut down
+    private boolean scheduleBatchFlush(final ScheduledExecutorService executor, final String batchKey) {
         try {
-            final ListenableFuture<Response> futureStatus =
-                    builder.execute(new AsyncCompletionHandler<Response>() {
-                        @Override
-                        public Response onCompleted(final Response response) throws Exception {
-                            return response;
-                        }
-                    });
-            response = futureStatus.get(timeoutSec, TimeUnit.SECONDS);
-        } catch (final Exception e) {
-            log.warn(String.format("Failed to push notification %s for the tenant %s", url, tenantId), e);
+            executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    final PendingBatch batch;
+                    synchronized (pendingBatches) {
+                        batch = pendingBatches.remove(batchKey);
+                    }
+                    // The batch may have been sent already because it was full
+                    if (batch != null) {
+                        deliver(batch.tenantId, batch.url, batch.notifications, 0);
+                    }
+                }
+            }, config.getPushNotificationBatchDelay().getMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (final RejectedExecutionException e) {
             return false;
         }
-        return response.getStatusCode() >= 200 && response.getStatusCode() < 300;
+    }
+
+    private List<PendingBatch> drainPendingBatches() {
+        synchronized (pendingBatches) {
+            final List<PendingBatch> batches = new ArrayList<PendingBatch>(pendingBatches.values());
+            pendingBatches.clear();
+            return batches;
+        }
+    }
+
+    private void deliver(final UUID tenantId, final String url, final List<NotificationJson> notifications, final int attemptNumber) {
+        final Semaphore endpointPermits = getEndpointPermits(url);
+        if (!inFlight.tryAcquire()) {
+            deferDelivery(tenantId, url, notifications, attemptNumber);
+            return;
+        }
+        if (!endpointPermits.tryAcquire()) {
+            inFlight.release();
+            deferDelivery(tenantId, url, notifications, attemptNumber);
+            return;
+        }
+
+        final DeliveryHandler handler = new DeliveryHandler(tenantId, url, notifications, attemptNumber, endpointPermits);
+        try {
+            final String body = notifications.size() == 1 ? mapper.writeValueAsString(notifications.get(0)) : mapper.writeValueAsString(notifications);
+            httpClient.preparePost(url)
+                      .setBody(body)
+                      .execute(handler);
+        } catch (final IOException e) {
+            handler.onThrowable(e);
+        } catch (final RuntimeException e) {
+            // e.g. malformed callback URL
+            handler.onThrowable(e);
+        }
+    }
+
+    private Semaphore getEndpointPermits(final String url) {
+        Semaphore permits = inFlightPerEndpoint.get(url);
+        if (permits == null) {
+            inFlightPerEndpoint.putIfAbsent(url, new Semaphore(config.getPushNotificationMaxInFlightPerEndpoint()));
+            permits = inFlightPerEndpoint.get(url);
+        }
+        return permits;
+    }
+
+    // Too many callbacks in flight: try again later, without counting it as a failed attempt
+    private void deferDelivery(final UUID tenantId, final String url, final List<NotificationJson> notifications, final int attemptNumber) {
+        deferred.mark();
+        scheduleRetries(tenantId, url, notifications, attemptNumber);
+    }
+
+    private void onDeliveryFailure(final UUID tenantId, final String url, final List<NotificationJson> notifications, final int attemptNumber) {
+        failed.mark();
+        if (attemptNumber >= config.getPushNotificationMaxRetries()) {
+            dropped.mark(notifications.size());
+            log.warn("Giving up on push notification to {} for tenant {} after {} retries", url, tenantId, attemptNumber);
+            return;
+        }
+        scheduleRetries(tenantId, url, notifications, attemptNumber + 1);
+    }
+
+    private void scheduleRetries(final UUID tenantId, final String url, final List<NotificationJson> notifications, final int attemptNumber) {
+        if (retryQueue == null) {
+            log.warn("Dropping push notification to {} for tenant {}: retry queue isn't initialized", url, tenantId);
+            return;
+        }
+
+        final DateTime effectiveDate = clock.getUTCNow().plus(getRetryDelayMillis(attemptNumber));
+        final InternalTenantContext internalTenantContext = internalCallContextFactory.createInternalTenantContext(contextFactory.createTenantContext(tenantId));
+        for (final NotificationJson notification : notifications) {
+            try {
+                retryQueue.recordFutureNotification(effectiveDate,
+                                                    new PushNotificationKey(tenantId, url, notification, attemptNumber),
+                                                    null,
+                                                    internalTenantContext.getAccountRecordId(),
+                                                    internalTenantContext.getTenantRecordId());
+            } catch (final IOException e) {
+                log.warn(String.format("Failed to schedule retry of push notification %s for the tenant %s", url, tenantId), e);
+            }
+        }
+    }
+
+    // Exponential backoff: delay, 2 * delay, 4 * delay, ... up to the configured maximum
+    private long getRetryDelayMillis(final int attemptNumber) {
+        final long baseDelayMillis = config.getPushNotificationRetryDelay().getMillis();
+        final long maxDelayMillis = config.getPushNotificationRetryMaxDelay().getMillis();
+        final int exponent = Math.min(Math.max(attemptNumber - 1, 0), 30);
+        return Math.min(baseDelayMillis << exponent, maxDelayMillis);
     }
 
     private List<String> getCallbacksForTenant(final TenantContext context) throws TenantApiException {
         return tenantApi.getTenantValueForKey(TenantKey.PUSH_NOTIFICATION_CB.toString(), context);
     }
+
+    private final class DeliveryHandler extends AsyncCompletionHandler<Response> {
+
+        private final UUID tenantId;
+        private final String url;
+        private final List<NotificationJson> notifications;
+        private final int attemptNumber;
+        private final Semaphore endpointPermits;
+        // The client may report a failure both by throwing and through the handler
+        private final AtomicBoolean completed = new AtomicBoolean(false);
+
+        private DeliveryHandler(final UUID tenantId, final String url, final List<NotificationJson> notifications, final int attemptNumber, final Semaphore endpointPermits) {
+            this.tenantId = tenantId;
+            this.url = url;
+            this.notifications = notifications;
+            this.attemptNumber = attemptNumber;
+            this.endpointPermits = endpointPermits;
+        }
+
+        @Override
+        public Response onCompleted(final Response response) throws Exception {
+            if (complete()) {
+                if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
+                    delivered.mark(notifications.size());
+                } else {
+                    log.warn("Failed to push notification {} for the tenant {}: status code {}", url, tenantId, response.getStatusCode());
+                    onDeliveryFailure(tenantId, url, notifications, attemptNumber);
+                }
+            }
+            return response;
+        }
+
+        @Override
+        public void onThrowable(final Throwable t) {
+            if (complete()) {
+                log.warn(String.format("Failed to push notification %s for the tenant %s", url, tenantId), t);
+                onDeliveryFailure(tenantId, url, notifications, attemptNumber);
+            }
+        }
+
+        private boolean complete() {
+            if (!completed.compareAndSet(false, true)) {
+                return false;
+            }
+            endpointPermits.release();
+            inFlight.release();
+            return true;
+        }
+    }
+
+    private static final class PendingBatch {
+
+        private final UUID tenantId;
+        private final String url;
+        private final List<NotificationJson> notifications = new ArrayList<NotificationJson>();
+
+        private PendingBatch(final UUID tenantId, final String url) {
+            this.tenantId = tenantId;
+            this.url = url;
+        }
+    }
 }
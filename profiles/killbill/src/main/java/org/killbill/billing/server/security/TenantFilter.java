@@ -40,6 +40,7 @@ import org.killbill.billing.jaxrs.resources.JaxrsResource;
 import org.killbill.billing.server.listeners.KillbillGuiceListener;
 import org.killbill.billing.tenant.api.Tenant;
 import org.killbill.billing.tenant.api.TenantApiException;
+import org.killbill.billing.tenant.api.TenantCache;
 import org.killbill.billing.tenant.api.TenantUserApi;
 import org.killbill.commons.jdbi.guice.DaoConfig;
 import org.slf4j.Logger;
@@ -61,6 +62,9 @@ public class TenantFilter implements Filter {
     @Inject
     protected DaoConfig daoConfig;
 
+    @Inject
+    protected TenantCache tenantCache;
+
     private ModularRealmAuthenticator modularRealmAuthenticator;
 
     @Override
@@ -94,18 +98,21 @@ public class TenantFilter implements Filter {
             return;
         }
 
-        // Verify the apiKey/apiSecret combo
-        final AuthenticationToken token = new UsernamePasswordToken(apiKey, apiSecret);
-        try {
-            modularRealmAuthenticator.authenticate(token);
-        } catch (final AuthenticationException e) {
-            final String errorMessage = e.getLocalizedMessage();
-            sendAuthError(response, errorMessage);
-            return;
+        // Verify the apiKey/apiSecret combo (the hashing is expensive by design, so we remember successful verifications)
+        if (!tenantCache.isVerified(apiKey, apiSecret)) {
+            final AuthenticationToken token = new UsernamePasswordToken(apiKey, apiSecret);
+            try {
+                modularRealmAuthenticator.authenticate(token);
+            } catch (final AuthenticationException e) {
+                final String errorMessage = e.getLocalizedMessage();
+                sendAuthError(response, errorMessage);
+                return;
+            }
+            tenantCache.cacheVerifiedCredentials(apiKey, apiSecret);
         }
 
         try {
-            // Load the tenant in the request object (apiKey is unique across tenants)
+            // Load the tenant in the request object (apiKey is unique across tenants) - this is cached as well
             final Tenant tenant = tenantUserApi.getTenantByApiKey(apiKey);
             request.setAttribute(TENANT, tenant);
 
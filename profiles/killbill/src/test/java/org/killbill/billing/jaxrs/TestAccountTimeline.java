@@ -20,6 +20,7 @@ package org.killbill.billing.jaxrs;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -36,13 +37,21 @@ import org.killbill.billing.client.model.InvoicePayment;
 import org.killbill.billing.client.model.InvoicePaymentTransaction;
 import org.killbill.billing.client.model.Payment;
 import org.killbill.billing.client.model.PaymentTransaction;
+import org.killbill.billing.jaxrs.resources.JaxrsResource;
 import org.killbill.billing.payment.api.TransactionType;
 import org.killbill.billing.util.api.AuditLevel;
 import org.killbill.billing.util.audit.ChangeType;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.AsyncHttpClient.BoundRequestBuilder;
+import com.ning.http.client.Realm;
+import com.ning.http.client.Realm.AuthScheme;
+import com.ning.http.client.Response;
 
 import static org.testng.Assert.assertEquals;
 
@@ -51,6 +60,8 @@ public class TestAccountTimeline extends TestJaxrsBase {
     private static final String PAYMENT_REQUEST_PROCESSOR = "PaymentRequestProcessor";
     private static final String TRANSITION = "SubscriptionBaseTransition";
 
+    private final ObjectMapper mapper = new ObjectMapper();
+
     @Test(groups = "slow", description = "Can retrieve the timeline without audits")
     public void testAccountTimeline() throws Exception {
         clock.setTime(new DateTime(2012, 4, 25, 0, 3, 42, 0));
@@ -72,6 +83,34 @@ public class TestAccountTimeline extends TestJaxrsBase {
         Assert.assertEquals(events.get(2).getEventType(), "PHASE");
     }
 
+    @Test(groups = "slow", description = "Can stream the timeline")
+    public void testAccountTimelineStream() throws Exception {
+        clock.setTime(new DateTime(2012, 4, 25, 0, 3, 42, 0));
+
+        final Account accountJson = createAccountWithPMBundleAndSubscriptionAndWaitForFirstInvoice();
+        final AccountTimeline timeline = killBillClient.getAccountTimeline(accountJson.getAccountId());
+
+        final Map<String, Object> streamedTimeline = getAccountTimelineStream(accountJson.getAccountId(), null, null);
+        Assert.assertEquals(((Map) streamedTimeline.get("account")).get("accountId"), accountJson.getAccountId().toString());
+        Assert.assertEquals(((List) streamedTimeline.get("bundles")).size(), timeline.getBundles().size());
+        Assert.assertEquals(((Map) ((List) streamedTimeline.get("bundles")).get(0)).get("bundleId"), timeline.getBundles().get(0).getBundleId().toString());
+        Assert.assertEquals(((List) streamedTimeline.get("invoices")).size(), timeline.getInvoices().size());
+        Assert.assertEquals(((List) streamedTimeline.get("payments")).size(), timeline.getPayments().size());
+        Assert.assertEquals(((Map) ((List) streamedTimeline.get("payments")).get(0)).get("paymentId"), timeline.getPayments().get(0).getPaymentId().toString());
+
+        // Only the bundle and the (free) trial invoice date from the first day
+        final Map<String, Object> firstDayTimeline = getAccountTimelineStream(accountJson.getAccountId(), "2012-04-25", "2012-04-25");
+        Assert.assertEquals(((List) firstDayTimeline.get("bundles")).size(), 1);
+        Assert.assertEquals(((List) firstDayTimeline.get("invoices")).size(), 1);
+        Assert.assertEquals(((List) firstDayTimeline.get("payments")).size(), 0);
+
+        final Map<String, Object> outOfRangeTimeline = getAccountTimelineStream(accountJson.getAccountId(), "2013-01-01", null);
+        Assert.assertEquals(((Map) outOfRangeTimeline.get("account")).get("accountId"), accountJson.getAccountId().toString());
+        Assert.assertEquals(((List) outOfRangeTimeline.get("bundles")).size(), 0);
+        Assert.assertEquals(((List) outOfRangeTimeline.get("invoices")).size(), 0);
+        Assert.assertEquals(((List) outOfRangeTimeline.get("payments")).size(), 0);
+    }
+
     @Test(groups = "slow", description = "Can retrieve the timeline with audits")
     public void testAccountTimelineWithAudits() throws Exception {
         final DateTime startTime = clock.getUTCNow();
@@ -299,4 +338,27 @@ public class TestAccountTimeline extends TestJaxrsBase {
         Assert.assertEquals(auditLogJson.getComments(), comments);
         Assert.assertEquals(auditLogJson.getChangedBy(), changedBy);
     }
+
+    private Map<String, Object> getAccountTimelineStream(final UUID accountId, @Nullable final String startDate, @Nullable final String endDate) throws Exception {
+        final AsyncHttpClient httpClient = new AsyncHttpClient();
+        final Response response;
+        try {
+            final BoundRequestBuilder requestBuilder = httpClient.prepareGet(String.format("http://%s:%d%s/%s/%s/%s", config.getServerHost(), config.getServerPort(), JaxrsResource.ACCOUNTS_PATH, accountId, JaxrsResource.TIMELINE, JaxrsResource.STREAM))
+                                                                 .setRealm(new Realm.RealmBuilder().setPrincipal(USERNAME).setPassword(PASSWORD).setUsePreemptiveAuth(true).setScheme(AuthScheme.BASIC).build())
+                                                                 .addHeader(JaxrsResource.HDR_API_KEY, DEFAULT_API_KEY)
+                                                                 .addHeader(JaxrsResource.HDR_API_SECRET, DEFAULT_API_SECRET);
+            if (startDate != null) {
+                requestBuilder.addQueryParameter(JaxrsResource.QUERY_START_DATE, startDate);
+            }
+            if (endDate != null) {
+                requestBuilder.addQueryParameter(JaxrsResource.QUERY_END_DATE, endDate);
+            }
+            response = requestBuilder.execute().get();
+        } finally {
+            httpClient.close();
+        }
+        assertEquals(response.getStatusCode(), 200);
+
+        return mapper.readValue(response.getResponseBody(), new TypeReference<Map<String, Object>>() {});
+    }
 }
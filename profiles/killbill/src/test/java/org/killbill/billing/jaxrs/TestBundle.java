@@ -19,6 +19,7 @@
 package org.killbill.billing.jaxrs;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -28,14 +29,26 @@ import org.killbill.billing.client.model.Account;
 import org.killbill.billing.client.model.Bundle;
 import org.killbill.billing.client.model.Bundles;
 import org.killbill.billing.client.model.Subscription;
+import org.killbill.billing.jaxrs.resources.JaxrsResource;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.ning.http.client.AsyncHttpClient;
+import com.ning.http.client.Realm;
+import com.ning.http.client.Realm.AuthScheme;
+import com.ning.http.client.Response;
+
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 
 public class TestBundle extends TestJaxrsBase {
 
+    private final ObjectMapper mapper = new ObjectMapper();
+
     @Test(groups = "slow", description = "Can retrieve bundles by external key")
     public void testBundleOk() throws Exception {
         final Account accountJson = createAccount();
@@ -102,6 +115,53 @@ public class TestBundle extends TestJaxrsBase {
         assertEquals(newBundle.getAccountId(), newAccount.getAccountId());
     }
 
+    @Test(groups = "slow", description = "Can transfer several bundles at once")
+    public void testBundlesTransfer() throws Exception {
+        final DateTime initialDate = new DateTime(2012, 4, 25, 0, 3, 42, 0);
+        clock.setDeltaFromReality(initialDate.getMillis() - clock.getUTCNow().getMillis());
+
+        final Account accountJson = createAccountWithDefaultPaymentMethod();
+        final Subscription firstSubscription = createEntitlement(accountJson.getAccountId(), "93200", "Shotgun", ProductCategory.BASE, BillingPeriod.MONTHLY, true);
+        final Subscription secondSubscription = createEntitlement(accountJson.getAccountId(), "93201", "Shotgun", ProductCategory.BASE, BillingPeriod.MONTHLY, true);
+
+        final Account newAccount = createAccountWithDefaultPaymentMethod();
+
+        final List<Map<String, String>> body = ImmutableList.<Map<String, String>>of(ImmutableMap.<String, String>of("bundleId", firstSubscription.getBundleId().toString(),
+                                                                                                                     "accountId", newAccount.getAccountId().toString()),
+                                                                                     ImmutableMap.<String, String>of("bundleId", secondSubscription.getBundleId().toString(),
+                                                                                                                     "accountId", newAccount.getAccountId().toString()));
+        final AsyncHttpClient httpClient = new AsyncHttpClient();
+        final Response response;
+        try {
+            response = httpClient.preparePut(String.format("http://%s:%d%s/%s", config.getServerHost(), config.getServerPort(), JaxrsResource.BUNDLES_PATH, JaxrsResource.TRANSFER))
+                                 .setRealm(new Realm.RealmBuilder().setPrincipal(USERNAME).setPassword(PASSWORD).setUsePreemptiveAuth(true).setScheme(AuthScheme.BASIC).build())
+                                 .addHeader(JaxrsResource.HDR_API_KEY, DEFAULT_API_KEY)
+                                 .addHeader(JaxrsResource.HDR_API_SECRET, DEFAULT_API_SECRET)
+                                 .addHeader(JaxrsResource.HDR_CREATED_BY, createdBy)
+                                 .addHeader(JaxrsResource.HDR_REASON, reason)
+                                 .addHeader(JaxrsResource.HDR_COMMENT, comment)
+                                 .addHeader("Content-Type", "application/json")
+                                 .setBody(mapper.writeValueAsString(body))
+                                 .execute()
+                                 .get();
+        } finally {
+            httpClient.close();
+        }
+        assertEquals(response.getStatusCode(), 200);
+
+        // The new bundles are returned in the requested order
+        final List<Map<String, Object>> newBundles = mapper.readValue(response.getResponseBody(), new TypeReference<List<Map<String, Object>>>() {});
+        assertEquals(newBundles.size(), 2);
+        assertEquals(newBundles.get(0).get("externalKey"), "93200");
+        assertEquals(newBundles.get(1).get("externalKey"), "93201");
+        for (final Map<String, Object> newBundle : newBundles) {
+            assertEquals(newBundle.get("accountId"), newAccount.getAccountId().toString());
+            assertNotEquals(newBundle.get("bundleId"), firstSubscription.getBundleId().toString());
+            assertNotEquals(newBundle.get("bundleId"), secondSubscription.getBundleId().toString());
+        }
+        assertEquals(killBillClient.getAccountBundles(newAccount.getAccountId()).size(), 2);
+    }
+
     @Test(groups = "slow", description = "Can paginate and search through all bundles")
     public void testBundlesPagination() throws Exception {
         final Account accountJson = createAccount();
@@ -51,7 +51,9 @@ import org.killbill.billing.server.config.KillbillServerConfig;
 import org.killbill.billing.server.listeners.KillbillGuiceListener;
 import org.killbill.billing.server.modules.KillbillServerModule;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.config.PaginationConfig;
 import org.killbill.billing.util.config.PaymentConfig;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.commons.jdbi.guice.DaoConfig;
 import org.skife.config.ConfigurationObjectFactory;
@@ -90,6 +92,12 @@ public class TestJaxrsBase extends KillbillClient {
     @Inject
     protected TestApiListener busHandler;
 
+    @Inject
+    protected PaginationConfig paginationConfig;
+
+    @Inject
+    protected AggregatedProfiling aggregatedProfiling;
+
     protected DaoConfig daoConfig;
     protected KillbillServerConfig serverConfig;
 
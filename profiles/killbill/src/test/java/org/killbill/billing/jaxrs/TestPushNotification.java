@@ -68,11 +68,19 @@ public class TestPushNotification extends TestJaxrsBase {
     }
 
     private boolean waitForCallbacksToComplete() throws InterruptedException {
+        return waitForCallbacksToComplete(false);
+    }
+
+    private boolean waitForCallbacksToComplete(final boolean moveClockForRetries) throws InterruptedException {
         long remainingMs = 20000;
         do {
             if (callbackCompleted) {
                 break;
             }
+            if (moveClockForRetries && remainingMs % 1000 == 0) {
+                // Make the retries scheduled on the notification queue ready
+                clock.addDeltaFromReality(60 * 1000);
+            }
             Thread.sleep(100);
             remainingMs -= 100;
         } while (remainingMs > 0);
@@ -105,6 +113,25 @@ public class TestPushNotification extends TestJaxrsBase {
         }
     }
 
+    @Test(groups = "slow")
+    public void testPushNotificationRetries() throws Exception {
+        // The callback endpoint fails the first two attempts
+        callbackServer.failNextCalls(2);
+
+        killBillClient.registerCallbackNotificationForTenant("http://127.0.0.1:" + SERVER_PORT + CALLBACK_ENDPPOINT, createdBy, reason, comment);
+        createAccount();
+
+        final boolean success = waitForCallbacksToComplete(true);
+        if (!success) {
+            Assert.fail("Fail to see push notification callbacks being retried");
+        }
+
+        if (callbackCompletedWithError) {
+            Assert.fail("Assertion during callback failed...");
+        }
+        Assert.assertEquals(callbackServer.getNbFailedCalls(), 2);
+    }
+
     public void setCompleted(final boolean withError) {
         callbackCompleted = true;
         callbackCompletedWithError = withError;
@@ -115,24 +142,34 @@ public class TestPushNotification extends TestJaxrsBase {
         private final Server server;
         private final String callbackEndpoint;
         private final TestPushNotification test;
+        private final CallmebackServlet servlet;
 
         public CallbackServer(final TestPushNotification test, final int port, final String callbackEndpoint) {
             this.callbackEndpoint = callbackEndpoint;
             this.test = test;
             this.server = new Server(port);
+            this.servlet = new CallmebackServlet(test, 1);
         }
 
         public void startServer() throws Exception {
             final ServletContextHandler context = new ServletContextHandler();
             context.setContextPath("/");
             server.setHandler(context);
-            context.addServlet(new ServletHolder(new CallmebackServlet(test, 1)), callbackEndpoint);
+            context.addServlet(new ServletHolder(servlet), callbackEndpoint);
             server.start();
         }
 
         public void stopServer() throws Exception {
             server.stop();
         }
+
+        public void failNextCalls(final int nbCalls) {
+            servlet.failNextCalls(nbCalls);
+        }
+
+        public int getNbFailedCalls() {
+            return servlet.getNbFailedCalls();
+        }
     }
 
     public static class CallmebackServlet extends HttpServlet {
@@ -143,6 +180,8 @@ public class TestPushNotification extends TestJaxrsBase {
 
         private final int expectedNbCalls;
         private final AtomicInteger receivedCalls;
+        private final AtomicInteger callsToFail;
+        private final AtomicInteger failedCalls;
         private final TestPushNotification test;
         private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -152,11 +191,28 @@ public class TestPushNotification extends TestJaxrsBase {
             this.expectedNbCalls = expectedNbCalls;
             this.test = test;
             this.receivedCalls = new AtomicInteger(0);
+            this.callsToFail = new AtomicInteger(0);
+            this.failedCalls = new AtomicInteger(0);
             this.withError = false;
         }
 
+        public void failNextCalls(final int nbCalls) {
+            callsToFail.set(nbCalls);
+        }
+
+        public int getNbFailedCalls() {
+            return failedCalls.get();
+        }
+
         @Override
         protected void doPost(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+            if (callsToFail.getAndDecrement() > 0) {
+                failedCalls.incrementAndGet();
+                log.info("CallmebackServlet failing call #{}", failedCalls.get());
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                return;
+            }
+
             final int current = receivedCalls.incrementAndGet();
 
             final String body = CharStreams.toString(new InputStreamReader(request.getInputStream(), "UTF-8"));
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.server.notifications;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.joda.time.DateTime;
+import org.killbill.billing.KillbillTestSuite;
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.notification.plugin.api.ExtBusEvent;
+import org.killbill.billing.notification.plugin.api.ExtBusEventType;
+import org.killbill.billing.tenant.api.TenantUserApi;
+import org.killbill.billing.util.callcontext.CallContextFactory;
+import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.callcontext.TenantContext;
+import org.killbill.billing.util.config.NotificationConfig;
+import org.killbill.clock.ClockMock;
+import org.killbill.notificationq.api.NotificationEvent;
+import org.killbill.notificationq.api.NotificationQueue;
+import org.killbill.notificationq.api.NotificationQueueService;
+import org.killbill.notificationq.api.NotificationQueueService.NotificationQueueHandler;
+import org.mockito.Mockito;
+import org.skife.config.ConfigurationObjectFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CharStreams;
+
+public class TestPushNotificationListener extends KillbillTestSuite {
+
+    private static final int SERVER_PORT = 8089;
+    private static final String CALLBACK_URL = "http://127.0.0.1:" + SERVER_PORT + "/callmeback";
+    private static final String OTHER_CALLBACK_URL = "http://127.0.0.1:" + SERVER_PORT + "/callmebacktoo";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private Server server;
+    private RecordingServlet servlet;
+    private TenantUserApi tenantApi;
+    private NotificationQueue retryQueue;
+    private MetricRegistry metricRegistry;
+    private PushNotificationListener listener;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        servlet = new RecordingServlet();
+        server = new Server(SERVER_PORT);
+        final ServletContextHandler context = new ServletContextHandler();
+        context.setContextPath("/");
+        context.addServlet(new ServletHolder(servlet), "/*");
+        server.setHandler(context);
+        server.start();
+
+        tenantApi = Mockito.mock(TenantUserApi.class);
+        retryQueue = Mockito.mock(NotificationQueue.class);
+        metricRegistry = new MetricRegistry();
+    }
+
+    @AfterMethod(groups = "fast")
+    public void afterMethod() throws Exception {
+        servlet.release();
+        if (listener != null) {
+            listener.stop();
+            listener = null;
+        }
+        server.stop();
+    }
+
+    @Test(groups = "fast")
+    public void testBatching() throws Exception {
+        final Properties properties = new Properties();
+        properties.put("org.killbill.billing.server.notifications.batch.size", "3");
+        properties.put("org.killbill.billing.server.notifications.batch.delay", "1s");
+        startListener(properties);
+
+        final UUID tenantId = UUID.randomUUID();
+        setCallbacks(CALLBACK_URL);
+        for (int i = 0; i < 4; i++) {
+            listener.triggerPushNotifications(createEvent(tenantId));
+        }
+
+        // The first three notifications are sent as soon as the batch is full, in a single POST
+        final JsonNode fullBatch = mapper.readTree(servlet.nextBody());
+        Assert.assertTrue(fullBatch.isArray());
+        Assert.assertEquals(fullBatch.size(), 3);
+
+        // The last one is sent on its own once the batch delay expires
+        final JsonNode partialBatch = mapper.readTree(servlet.nextBody());
+        Assert.assertTrue(partialBatch.isObject());
+        Assert.assertEquals(partialBatch.get("eventType").asText(), ExtBusEventType.ACCOUNT_CREATION.toString());
+
+        Assert.assertNull(servlet.bodies.poll(1500, TimeUnit.MILLISECONDS));
+        verifyNbRetriesScheduled(0);
+    }
+
+    @Test(groups = "fast")
+    public void testMaxInFlightPerEndpoint() throws Exception {
+        final Properties properties = new Properties();
+        properties.put("org.killbill.billing.server.notifications.maxInFlightPerEndpoint", "1");
+        startListener(properties);
+        servlet.block();
+
+        final UUID tenantId = UUID.randomUUID();
+        setCallbacks(CALLBACK_URL);
+        listener.triggerPushNotifications(createEvent(tenantId));
+        Assert.assertNotNull(servlet.nextBody());
+
+        // Same endpoint: deferred to the retry queue, without counting it as a failure
+        listener.triggerPushNotifications(createEvent(tenantId));
+        verifyNbRetriesScheduled(1);
+        Assert.assertEquals(getMeterCount("deferred"), 1);
+        Assert.assertEquals(getMeterCount("failed"), 0);
+
+        // Other endpoint: not throttled
+        setCallbacks(OTHER_CALLBACK_URL);
+        listener.triggerPushNotifications(createEvent(tenantId));
+        Assert.assertNotNull(servlet.nextBody());
+        verifyNbRetriesScheduled(1);
+    }
+
+    @Test(groups = "fast")
+    public void testMaxInFlight() throws Exception {
+        final Properties properties = new Properties();
+        properties.put("org.killbill.billing.server.notifications.maxInFlight", "1");
+        startListener(properties);
+        servlet.block();
+
+        final UUID tenantId = UUID.randomUUID();
+        setCallbacks(CALLBACK_URL);
+        listener.triggerPushNotifications(createEvent(tenantId));
+        Assert.assertNotNull(servlet.nextBody());
+
+        // Global budget exhausted: deferred, whatever the endpoint
+        setCallbacks(OTHER_CALLBACK_URL);
+        listener.triggerPushNotifications(createEvent(tenantId));
+        verifyNbRetriesScheduled(1);
+        Assert.assertEquals(getMeterCount("deferred"), 1);
+        Assert.assertNull(servlet.bodies.poll(500, TimeUnit.MILLISECONDS));
+
+        // Once the first callback completes, the budget is available again
+        servlet.release();
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (getMeterCount("delivered") < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        listener.triggerPushNotifications(createEvent(tenantId));
+        Assert.assertNotNull(servlet.nextBody());
+        verifyNbRetriesScheduled(1);
+    }
+
+    @Test(groups = "fast")
+    public void testNotificationAfterStop() throws Exception {
+        final Properties properties = new Properties();
+        properties.put("org.killbill.billing.server.notifications.batch.size", "3");
+        startListener(properties);
+
+        final UUID tenantId = UUID.randomUUID();
+        setCallbacks(CALLBACK_URL);
+        listener.triggerPushNotifications(createEvent(tenantId));
+        listener.stop();
+
+        // The pending batch was handed over to the retry queue
+        verifyNbRetriesScheduled(1);
+
+        // Late events don't fail the bus handler and aren't lost
+        listener.triggerPushNotifications(createEvent(tenantId));
+        verifyNbRetriesScheduled(2);
+        listener = null;
+    }
+
+    private void startListener(final Properties properties) throws Exception {
+        final NotificationConfig config = new ConfigurationObjectFactory(properties).build(NotificationConfig.class);
+
+        final CallContextFactory contextFactory = Mockito.mock(CallContextFactory.class);
+        Mockito.when(contextFactory.createTenantContext(Mockito.<UUID>any())).thenReturn(Mockito.mock(TenantContext.class));
+        final InternalCallContextFactory internalCallContextFactory = Mockito.mock(InternalCallContextFactory.class);
+        Mockito.when(internalCallContextFactory.createInternalTenantContext(Mockito.<TenantContext>any())).thenReturn(Mockito.mock(InternalTenantContext.class));
+        final NotificationQueueService notificationQueueService = Mockito.mock(NotificationQueueService.class);
+        Mockito.when(notificationQueueService.createNotificationQueue(Mockito.anyString(), Mockito.anyString(), Mockito.<NotificationQueueHandler>any())).thenReturn(retryQueue);
+
+        listener = new PushNotificationListener(mapper, tenantApi, contextFactory, internalCallContextFactory, notificationQueueService, config, new ClockMock(), metricRegistry);
+        listener.initialize("test-push-notification");
+        listener.start();
+    }
+
+    private void setCallbacks(final String... urls) throws Exception {
+        Mockito.when(tenantApi.getTenantValueForKey(Mockito.anyString(), Mockito.<TenantContext>any())).thenReturn(ImmutableList.<String>copyOf(urls));
+    }
+
+    private ExtBusEvent createEvent(final UUID tenantId) {
+        final UUID accountId = UUID.randomUUID();
+        final ExtBusEvent event = Mockito.mock(ExtBusEvent.class);
+        Mockito.when(event.getEventType()).thenReturn(ExtBusEventType.ACCOUNT_CREATION);
+        Mockito.when(event.getObjectType()).thenReturn(ObjectType.ACCOUNT);
+        Mockito.when(event.getObjectId()).thenReturn(accountId);
+        Mockito.when(event.getAccountId()).thenReturn(accountId);
+        Mockito.when(event.getTenantId()).thenReturn(tenantId);
+        return event;
+    }
+
+    private void verifyNbRetriesScheduled(final int nbRetries) throws Exception {
+        Mockito.verify(retryQueue, Mockito.times(nbRetries)).recordFutureNotification(Mockito.<DateTime>any(), Mockito.<NotificationEvent>any(), Mockito.<UUID>any(), Mockito.<Long>any(), Mockito.<Long>any());
+    }
+
+    private long getMeterCount(final String name) {
+        return metricRegistry.meter(MetricRegistry.name(PushNotificationListener.class, name)).getCount();
+    }
+
+    private static final class RecordingServlet extends HttpServlet {
+
+        private static final long serialVersionUID = 2358124568725314871L;
+
+        private final BlockingQueue<String> bodies = new LinkedBlockingQueue<String>();
+
+        private volatile CountDownLatch blocker = new CountDownLatch(0);
+
+        @Override
+        protected void doPost(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+            bodies.add(CharStreams.toString(new InputStreamReader(request.getInputStream(), "UTF-8")));
+            try {
+                blocker.await(10, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+
+        public String nextBody() throws InterruptedException {
+            final String body = bodies.poll(5, TimeUnit.SECONDS);
+            Assert.assertNotNull(body, "No push notification received");
+            return body;
+        }
+
+        public void block() {
+            blocker = new CountDownLatch(1);
+        }
+
+        public void release() {
+            blocker.countDown();
+        }
+    }
+}
@@ -26,6 +26,7 @@ import org.killbill.billing.currency.glue.CurrencyModule;
 import org.killbill.billing.entitlement.glue.DefaultEntitlementModule;
 import org.killbill.billing.invoice.glue.DefaultInvoiceModule;
 import org.killbill.billing.jaxrs.resources.AccountResource;
+import org.killbill.billing.jaxrs.resources.AdminResource;
 import org.killbill.billing.jaxrs.resources.CustomFieldResource;
 import org.killbill.billing.jaxrs.resources.ExportResource;
 import org.killbill.billing.jaxrs.resources.InvoicePaymentResource;
@@ -76,7 +77,7 @@ public class KillpayServerModule extends KillbillServerModule {
         install(new CustomFieldModule(configSource));
         install(new DefaultAccountModule(configSource));
         install(new ExportModule(configSource));
-        install(new GlobalLockerModule(embeddedDB.getDBEngine(), configSource));
+        install(new GlobalLockerModule(embeddedDB.getDBEngine(), daoConfig, configSource));
         install(new KillBillShiroAopModule());
         install(new KillbillApiAopModule());
         install(new KillBillShiroWebModule(servletContext, skifeConfigSource));
@@ -104,6 +105,7 @@ public class KillpayServerModule extends KillbillServerModule {
     @Override
     protected void configureResources() {
         bind(AccountResource.class).asEagerSingleton();
+        bind(AdminResource.class).asEagerSingleton();
         bind(CustomFieldResource.class).asEagerSingleton();
         bind(ExportResource.class).asEagerSingleton();
         bind(KillbillEventHandler.class).asEagerSingleton();
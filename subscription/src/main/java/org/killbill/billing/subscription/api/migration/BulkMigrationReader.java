@@ -0,0 +1,293 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.subscription.api.migration;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.killbill.billing.catalog.api.BillingPeriod;
+import org.killbill.billing.catalog.api.PhaseType;
+import org.killbill.billing.catalog.api.PlanPhaseSpecifier;
+import org.killbill.billing.catalog.api.ProductCategory;
+import org.killbill.billing.subscription.api.migration.SubscriptionBaseMigrationApi.AccountMigration;
+import org.killbill.billing.subscription.api.migration.SubscriptionBaseMigrationApi.BundleMigration;
+import org.killbill.billing.subscription.api.migration.SubscriptionBaseMigrationApi.SubscriptionMigration;
+import org.killbill.billing.subscription.api.migration.SubscriptionBaseMigrationApi.SubscriptionMigrationCase;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+
+/**
+ * Streaming reader for bulk migration files: one account is kept in memory at a time.
+ * <p/>
+ * The file is in UTF-8, with one record per line and tab separated fields. Empty lines and lines starting with # are ignored.
+ * Each record belongs to the last record of the enclosing type:
+ * <pre>
+ * ACCOUNT       accountId
+ * BUNDLE        externalKey
+ * SUBSCRIPTION  category            chargedThroughDate
+ * EVENT         effectiveDate       cancelledDate (can be empty)  productName  billingPeriod  priceList  phaseType
+ * </pre>
+ */
+public class BulkMigrationReader implements Closeable {
+
+    public static final String ACCOUNT = "ACCOUNT";
+    public static final String BUNDLE = "BUNDLE";
+    public static final String SUBSCRIPTION = "SUBSCRIPTION";
+    public static final String EVENT = "EVENT";
+
+    private static final String SEPARATOR = "\t";
+
+    private final BufferedReader reader;
+
+    private int lineNumber = 0;
+    private int accountLineNumber = 0;
+    // First line of the next account, already read
+    private String[] nextAccountRecord = null;
+
+    public BulkMigrationReader(final File input) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(input), Charsets.UTF_8));
+    }
+
+    /**
+     * @return the next account in the file, or null at the end of the file
+     * @throws SubscriptionBaseMigrationApiException if the file cannot be read or parsed
+     */
+    public AccountMigration next() throws SubscriptionBaseMigrationApiException {
+        String[] record = nextAccountRecord != null ? nextAccountRecord : nextRecord();
+        nextAccountRecord = null;
+        if (record == null) {
+            return null;
+        }
+        if (!ACCOUNT.equals(record[0])) {
+            throw parseError("expected an " + ACCOUNT + " record");
+        }
+
+        accountLineNumber = lineNumber;
+        final DefaultAccountMigration account = new DefaultAccountMigration(parseUUID(field(record, 1)));
+        DefaultBundleMigration bundle = null;
+        DefaultSubscriptionMigration subscription = null;
+        while ((record = nextRecord()) != null) {
+            if (ACCOUNT.equals(record[0])) {
+                nextAccountRecord = record;
+                break;
+            } else if (BUNDLE.equals(record[0])) {
+                bundle = new DefaultBundleMigration(field(record, 1));
+                subscription = null;
+                account.bundles.add(bundle);
+            } else if (SUBSCRIPTION.equals(record[0])) {
+                if (bundle == null) {
+                    throw parseError(SUBSCRIPTION + " record outside of a bundle");
+                }
+                subscription = new DefaultSubscriptionMigration(parseEnum(ProductCategory.class, field(record, 1)), parseDateTime(field(record, 2)));
+                bundle.subscriptions.add(subscription);
+            } else if (EVENT.equals(record[0])) {
+                if (subscription == null) {
+                    throw parseError(EVENT + " record outside of a subscription");
+                }
+                final PlanPhaseSpecifier spec = new PlanPhaseSpecifier(field(record, 3),
+                                                                       subscription.category,
+                                                                       parseEnum(BillingPeriod.class, field(record, 4)),
+                                                                       field(record, 5),
+                                                                       parseEnum(PhaseType.class, field(record, 6)));
+                subscription.cases.add(new DefaultSubscriptionMigrationCase(spec, parseDateTime(field(record, 1)), parseDateTime(field(record, 2))));
+            } else {
+                throw parseError("unknown record type " + record[0]);
+            }
+        }
+
+        for (final DefaultBundleMigration curBundle : account.bundles) {
+            for (final DefaultSubscriptionMigration curSubscription : curBundle.subscriptions) {
+                if (curSubscription.cases.isEmpty()) {
+                    throw new SubscriptionBaseMigrationApiException(String.format("Invalid account at line %d: subscription without any %s record in bundle %s",
+                                                                                  accountLineNumber, EVENT, curBundle.getBundleKey()));
+                }
+            }
+        }
+        return account;
+    }
+
+    /**
+     * @return the line number of the last account returned by next()
+     */
+    public int getAccountLineNumber() {
+        return accountLineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String[] nextRecord() throws SubscriptionBaseMigrationApiException {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.trim().isEmpty() && !line.startsWith("#")) {
+                    return line.split(SEPARATOR, -1);
+                }
+            }
+            return null;
+        } catch (final IOException e) {
+            throw new SubscriptionBaseMigrationApiException(String.format("Failed to read line %d", lineNumber + 1), e);
+        }
+    }
+
+    private String field(final String[] record, final int index) throws SubscriptionBaseMigrationApiException {
+        if (index >= record.length) {
+            throw parseError(String.format("missing field %d for %s record", index, record[0]));
+        }
+        return record[index].trim();
+    }
+
+    private UUID parseUUID(final String value) throws SubscriptionBaseMigrationApiException {
+        try {
+            return UUID.fromString(value);
+        } catch (final IllegalArgumentException e) {
+            throw parseError("invalid id " + value);
+        }
+    }
+
+    private DateTime parseDateTime(final String value) throws SubscriptionBaseMigrationApiException {
+        if (Strings.isNullOrEmpty(value)) {
+            return null;
+        }
+        try {
+            return new DateTime(value, DateTimeZone.UTC);
+        } catch (final IllegalArgumentException e) {
+            throw parseError("invalid date " + value);
+        }
+    }
+
+    private <T extends Enum<T>> T parseEnum(final Class<T> enumClass, final String value) throws SubscriptionBaseMigrationApiException {
+        try {
+            return Enum.valueOf(enumClass, value.toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            throw parseError(String.format("invalid %s %s", enumClass.getSimpleName(), value));
+        }
+    }
+
+    private SubscriptionBaseMigrationApiException parseError(final String message) {
+        return new SubscriptionBaseMigrationApiException(String.format("Invalid record at line %d: %s", lineNumber, message));
+    }
+
+    private static final class DefaultAccountMigration implements AccountMigration {
+
+        private final UUID accountId;
+        private final List<DefaultBundleMigration> bundles = new LinkedList<DefaultBundleMigration>();
+
+        private DefaultAccountMigration(final UUID accountId) {
+            this.accountId = accountId;
+        }
+
+        @Override
+        public UUID getAccountKey() {
+            return accountId;
+        }
+
+        @Override
+        public BundleMigration[] getBundles() {
+            return bundles.toArray(new BundleMigration[bundles.size()]);
+        }
+    }
+
+    private static final class DefaultBundleMigration implements BundleMigration {
+
+        private final String bundleKey;
+        private final List<DefaultSubscriptionMigration> subscriptions = new LinkedList<DefaultSubscriptionMigration>();
+
+        private DefaultBundleMigration(final String bundleKey) {
+            this.bundleKey = bundleKey;
+        }
+
+        @Override
+        public String getBundleKey() {
+            return bundleKey;
+        }
+
+        @Override
+        public SubscriptionMigration[] getSubscriptions() {
+            return subscriptions.toArray(new SubscriptionMigration[subscriptions.size()]);
+        }
+    }
+
+    private static final class DefaultSubscriptionMigration implements SubscriptionMigration {
+
+        private final ProductCategory category;
+        private final DateTime chargedThroughDate;
+        private final List<SubscriptionMigrationCase> cases = new LinkedList<SubscriptionMigrationCase>();
+
+        private DefaultSubscriptionMigration(final ProductCategory category, final DateTime chargedThroughDate) {
+            this.category = category;
+            this.chargedThroughDate = chargedThroughDate;
+        }
+
+        @Override
+        public ProductCategory getCategory() {
+            return category;
+        }
+
+        @Override
+        public DateTime getChargedThroughDate() {
+            return chargedThroughDate;
+        }
+
+        @Override
+        public SubscriptionMigrationCase[] getSubscriptionCases() {
+            return cases.toArray(new SubscriptionMigrationCase[cases.size()]);
+        }
+    }
+
+    private static final class DefaultSubscriptionMigrationCase implements SubscriptionMigrationCase {
+
+        private final PlanPhaseSpecifier planPhaseSpecifier;
+        private final DateTime effectiveDate;
+        private final DateTime cancelledDate;
+
+        private DefaultSubscriptionMigrationCase(final PlanPhaseSpecifier planPhaseSpecifier, final DateTime effectiveDate, final DateTime cancelledDate) {
+            this.planPhaseSpecifier = planPhaseSpecifier;
+            this.effectiveDate = effectiveDate;
+            this.cancelledDate = cancelledDate;
+        }
+
+        @Override
+        public PlanPhaseSpecifier getPlanPhaseSpecifier() {
+            return planPhaseSpecifier;
+        }
+
+        @Override
+        public DateTime getEffectiveDate() {
+            return effectiveDate;
+        }
+
+        @Override
+        public DateTime getCancelledDate() {
+            return cancelledDate;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.subscription.api.migration;
+
+import org.killbill.billing.subscription.api.migration.AccountMigrationData.BundleMigrationData;
+import org.killbill.billing.subscription.api.migration.AccountMigrationData.SubscriptionMigrationData;
+import org.killbill.billing.subscription.api.migration.SubscriptionBaseMigrationApi.BulkMigrationResult;
+
+public class DefaultBulkMigrationResult implements BulkMigrationResult {
+
+    private int nbAccounts = 0;
+    private int nbBundles = 0;
+    private int nbSkippedBundles = 0;
+    private int nbSubscriptions = 0;
+    private int nbEvents = 0;
+
+    public void addAccounts(final int nbAccounts) {
+        this.nbAccounts += nbAccounts;
+    }
+
+    public void addImportedBundle(final BundleMigrationData bundle) {
+        nbBundles++;
+        for (final SubscriptionMigrationData subscription : bundle.getSubscriptions()) {
+            nbSubscriptions++;
+            nbEvents += subscription.getInitialEvents().size();
+        }
+    }
+
+    public void addSkippedBundles(final int nbSkippedBundles) {
+        this.nbSkippedBundles += nbSkippedBundles;
+    }
+
+    @Override
+    public int getNbAccounts() {
+        return nbAccounts;
+    }
+
+    @Override
+    public int getNbBundles() {
+        return nbBundles;
+    }
+
+    @Override
+    public int getNbSkippedBundles() {
+        return nbSkippedBundles;
+    }
+
+    @Override
+    public int getNbSubscriptions() {
+        return nbSubscriptions;
+    }
+
+    @Override
+    public int getNbEvents() {
+        return nbEvents;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("DefaultBulkMigrationResult{");
+        sb.append("nbAccounts=").append(nbAccounts);
+        sb.append(", nbBundles=").append(nbBundles);
+        sb.append(", nbSkippedBundles=").append(nbSkippedBundles);
+        sb.append(", nbSubscriptions=").append(nbSubscriptions);
+        sb.append(", nbEvents=").append(nbEvents);
+        sb.append('}');
+        return sb.toString();
+    }
+}
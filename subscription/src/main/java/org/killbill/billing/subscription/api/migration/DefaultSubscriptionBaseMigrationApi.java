@@ -16,15 +16,22 @@
 
 package org.killbill.billing.subscription.api.migration;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.catalog.api.CatalogService;
 import org.killbill.billing.catalog.api.ProductCategory;
 import org.killbill.clock.Clock;
@@ -52,14 +59,22 @@ import org.killbill.billing.subscription.events.user.ApiEventType;
 import org.killbill.billing.subscription.exceptions.SubscriptionBaseError;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.SubscriptionConfig;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.inject.Inject;
 
 public class DefaultSubscriptionBaseMigrationApi extends SubscriptionApiBase implements SubscriptionBaseMigrationApi {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultSubscriptionBaseMigrationApi.class);
+
+    // Maximum number of errors reported when validating a bulk migration file
+    private static final int MAX_REPORTED_ERRORS = 100;
+
     private final MigrationPlanAligner migrationAligner;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final SubscriptionConfig config;
 
     @Inject
     public DefaultSubscriptionBaseMigrationApi(final MigrationPlanAligner migrationAligner,
@@ -67,10 +82,12 @@ public class DefaultSubscriptionBaseMigrationApi extends SubscriptionApiBase imp
                                                final CatalogService catalogService,
                                                final SubscriptionDao dao,
                                                final Clock clock,
-                                               final InternalCallContextFactory internalCallContextFactory) {
+                                               final InternalCallContextFactory internalCallContextFactory,
+                                               final SubscriptionConfig config) {
         super(dao, apiService, clock, catalogService);
         this.migrationAligner = migrationAligner;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.config = config;
     }
 
     @Override
@@ -80,6 +97,107 @@ public class DefaultSubscriptionBaseMigrationApi extends SubscriptionApiBase imp
         dao.migrate(toBeMigrated.getAccountKey(), accountMigrationData, internalCallContextFactory.createInternalCallContext(toBeMigrated.getAccountKey(), context));
     }
 
+    @Override
+    public BulkMigrationResult bulkMigrate(final File input, final CallContext context) throws SubscriptionBaseMigrationApiException {
+        final InternalCallContext internalCallContext = internalCallContextFactory.createInternalCallContext(context);
+
+        // First pass: validate the whole file (accounts and catalog), before writing anything
+        validate(input, context, internalCallContext);
+
+        // Second pass: import the accounts, one transaction per batch of accounts
+        final DefaultBulkMigrationResult result = new DefaultBulkMigrationResult();
+        final int batchSize = Math.max(1, config.getBulkMigrationBatchSize());
+
+        final List<BundleMigrationData> batch = new LinkedList<BundleMigrationData>();
+        final Map<UUID, InternalCallContext> contextByAccountId = new HashMap<UUID, InternalCallContext>();
+        final BulkMigrationReader reader = openReader(input);
+        try {
+            AccountMigration toBeMigrated;
+            while ((toBeMigrated = reader.next()) != null) {
+                batch.addAll(createAccountMigrationData(toBeMigrated, context).getData());
+                if (contextByAccountId.get(toBeMigrated.getAccountKey()) == null) {
+                    contextByAccountId.put(toBeMigrated.getAccountKey(), createAccountContext(toBeMigrated.getAccountKey(), context, internalCallContext));
+                }
+
+                if (contextByAccountId.size() >= batchSize) {
+                    bulkMigrateBatch(batch, contextByAccountId, internalCallContext, result);
+                }
+            }
+            bulkMigrateBatch(batch, contextByAccountId, internalCallContext, result);
+        } finally {
+            closeReader(reader);
+        }
+        return result;
+    }
+
+    private void bulkMigrateBatch(final List<BundleMigrationData> batch, final Map<UUID, InternalCallContext> contextByAccountId,
+                                  final InternalCallContext internalCallContext, final DefaultBulkMigrationResult result) {
+        if (contextByAccountId.isEmpty()) {
+            return;
+        }
+
+        final List<BundleMigrationData> importedBundles = dao.bulkMigrate(batch, contextByAccountId, internalCallContext);
+        for (final BundleMigrationData importedBundle : importedBundles) {
+            result.addImportedBundle(importedBundle);
+        }
+        result.addSkippedBundles(batch.size() - importedBundles.size());
+        result.addAccounts(contextByAccountId.size());
+        log.info("Bulk migration in progress: {}", result);
+
+        batch.clear();
+        contextByAccountId.clear();
+    }
+
+    private void validate(final File input, final CallContext context, final InternalCallContext internalCallContext) throws SubscriptionBaseMigrationApiException {
+        final List<String> errors = new LinkedList<String>();
+        final BulkMigrationReader reader = openReader(input);
+        try {
+            AccountMigration toBeMigrated;
+            while (errors.size() < MAX_REPORTED_ERRORS && (toBeMigrated = reader.next()) != null) {
+                try {
+                    createAccountContext(toBeMigrated.getAccountKey(), context, internalCallContext);
+                    createAccountMigrationData(toBeMigrated, context);
+                } catch (final SubscriptionBaseMigrationApiException e) {
+                    errors.add(String.format("account %s at line %d: %s", toBeMigrated.getAccountKey(), reader.getAccountLineNumber(), e.getMessage()));
+                } catch (final SubscriptionBaseError e) {
+                    errors.add(String.format("account %s at line %d: %s", toBeMigrated.getAccountKey(), reader.getAccountLineNumber(), e.getMessage()));
+                }
+            }
+        } finally {
+            closeReader(reader);
+        }
+
+        if (!errors.isEmpty()) {
+            throw new SubscriptionBaseMigrationApiException(String.format("Invalid migration file %s: %s", input, Joiner.on("; ").join(errors)));
+        }
+    }
+
+    // The accounts need to exist beforehand, in the tenant of the caller
+    private InternalCallContext createAccountContext(final UUID accountId, final CallContext context, final InternalCallContext internalCallContext) throws SubscriptionBaseMigrationApiException {
+        final InternalCallContext accountContext = internalCallContextFactory.createInternalCallContext(accountId, context);
+        // Same error for accounts of other tenants, so as not to disclose them
+        if (accountContext.getAccountRecordId() == null || !internalCallContext.getTenantRecordId().equals(accountContext.getTenantRecordId())) {
+            throw new SubscriptionBaseMigrationApiException(String.format("Account %s does not exist", accountId));
+        }
+        return accountContext;
+    }
+
+    private BulkMigrationReader openReader(final File input) throws SubscriptionBaseMigrationApiException {
+        try {
+            return new BulkMigrationReader(input);
+        } catch (final IOException e) {
+            throw new SubscriptionBaseMigrationApiException(String.format("Unable to open migration file %s", input), e);
+        }
+    }
+
+    private void closeReader(final BulkMigrationReader reader) {
+        try {
+            reader.close();
+        } catch (final IOException e) {
+            log.warn("Unable to close migration file", e);
+        }
+    }
+
     private AccountMigrationData createAccountMigrationData(final AccountMigration toBeMigrated, final CallContext context)
             throws SubscriptionBaseMigrationApiException {
         final UUID accountId = toBeMigrated.getAccountKey();
@@ -112,6 +112,7 @@ public class DefaultSubscriptionBaseTimelineApi extends SubscriptionApiBase impl
     }
 
     private BundleBaseTimeline getBundleTimelineInternal(final SubscriptionBaseBundle bundle, final String descBundle, final TenantContext context) throws SubscriptionBaseRepairException {
+        dao.enterTimelineScope();
         try {
             if (bundle == null) {
                 throw new SubscriptionBaseRepairException(ErrorCode.SUB_REPAIR_UNKNOWN_BUNDLE, descBundle);
@@ -127,6 +128,8 @@ public class DefaultSubscriptionBaseTimelineApi extends SubscriptionApiBase impl
             return createGetBundleRepair(bundle.getId(), bundle.getExternalKey(), viewId, repairs);
         } catch (CatalogApiException e) {
             throw new SubscriptionBaseRepairException(e);
+        } finally {
+            dao.exitTimelineScope();
         }
     }
 
@@ -145,6 +148,7 @@ public class DefaultSubscriptionBaseTimelineApi extends SubscriptionApiBase impl
     @Override
     public BundleBaseTimeline repairBundle(final BundleBaseTimeline input, final boolean dryRun, final CallContext context) throws SubscriptionBaseRepairException {
         final InternalTenantContext tenantContext = internalCallContextFactory.createInternalTenantContext(context);
+        dao.enterTimelineScope();
         try {
             final SubscriptionBaseBundle bundle = dao.getSubscriptionBundleFromId(input.getId(), tenantContext);
             if (bundle == null) {
@@ -270,6 +274,7 @@ public class DefaultSubscriptionBaseTimelineApi extends SubscriptionApiBase impl
             throw new SubscriptionBaseRepairException(e);
         } finally {
             repairDao.cleanup(tenantContext);
+            dao.exitTimelineScope();
         }
     }
 
@@ -18,6 +18,8 @@ package org.killbill.billing.subscription.api.transfer;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.UUID;
 
 import org.joda.time.DateTime;
@@ -56,9 +58,11 @@ import org.killbill.billing.subscription.events.user.ApiEventTransfer;
 import org.killbill.billing.subscription.exceptions.SubscriptionBaseError;
 import org.killbill.billing.util.callcontext.CallContext;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.SubscriptionConfig;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 
 public class DefaultSubscriptionBaseTransferApi extends SubscriptionApiBase implements SubscriptionBaseTransferApi {
@@ -66,14 +70,17 @@ public class DefaultSubscriptionBaseTransferApi extends SubscriptionApiBase impl
     private final CatalogService catalogService;
     private final SubscriptionBaseTimelineApi timelineApi;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final SubscriptionConfig config;
 
     @Inject
     public DefaultSubscriptionBaseTransferApi(final Clock clock, final SubscriptionDao dao, final SubscriptionBaseTimelineApi timelineApi, final CatalogService catalogService,
-                                              final SubscriptionBaseApiService apiService, final InternalCallContextFactory internalCallContextFactory) {
+                                              final SubscriptionBaseApiService apiService, final InternalCallContextFactory internalCallContextFactory,
+                                              final SubscriptionConfig config) {
         super(dao, apiService, clock, catalogService);
         this.catalogService = catalogService;
         this.timelineApi = timelineApi;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.config = config;
     }
 
     private SubscriptionBaseEvent createEvent(final boolean firstEvent, final ExistingEvent existingEvent, final DefaultSubscriptionBase subscription, final DateTime transferDate, final CallContext context)
@@ -192,6 +199,45 @@ public class DefaultSubscriptionBaseTransferApi extends SubscriptionApiBase impl
         final InternalCallContext fromInternalCallContext = internalCallContextFactory.createInternalCallContext(sourceAccountId, context);
         final InternalCallContext toInternalCallContext = internalCallContextFactory.createInternalCallContext(destAccountId, context);
 
+        final TransferBundleData transferBundleData = buildTransferBundleData(sourceAccountId, destAccountId, bundleKey, transferDate, transferAddOn, cancelImmediately, context, fromInternalCallContext);
+        final BundleMigrationData bundleMigrationData = transferBundleData.getBundleMigrationData();
+
+        // Atomically cancelWithRequestedDate all subscription on old account and create new bundle, subscriptions, events for new account
+        dao.transfer(sourceAccountId, destAccountId, bundleMigrationData, transferBundleData.getTransferCancelData(), fromInternalCallContext, toInternalCallContext);
+
+        return bundleMigrationData.getData();
+    }
+
+    @Override
+    public List<SubscriptionBaseBundle> transferBundles(final UUID sourceAccountId, final UUID destAccountId, final Map<String, DateTime> requestedDateByBundleKeys,
+                                                        final boolean transferAddOn, final boolean cancelImmediately, final CallContext context) throws SubscriptionBaseTransferApiException {
+        final InternalCallContext fromInternalCallContext = internalCallContextFactory.createInternalCallContext(sourceAccountId, context);
+        final InternalCallContext toInternalCallContext = internalCallContextFactory.createInternalCallContext(destAccountId, context);
+
+        final List<SubscriptionBaseBundle> result = new LinkedList<SubscriptionBaseBundle>();
+        final int batchSize = Math.max(1, config.getBulkTransferBatchSize());
+        for (final List<Entry<String, DateTime>> batch : Iterables.partition(requestedDateByBundleKeys.entrySet(), batchSize)) {
+            final List<TransferBundleData> transferBundleDataList = new LinkedList<TransferBundleData>();
+            for (final Entry<String, DateTime> entry : batch) {
+                transferBundleDataList.add(buildTransferBundleData(sourceAccountId, destAccountId, entry.getKey(), entry.getValue(), transferAddOn, cancelImmediately, context, fromInternalCallContext));
+            }
+
+            // One transaction per batch, with a single invoice trigger per account
+            dao.transferBundles(sourceAccountId, destAccountId, transferBundleDataList, fromInternalCallContext, toInternalCallContext);
+
+            for (final TransferBundleData transferBundleData : transferBundleDataList) {
+                result.add(transferBundleData.getBundleMigrationData().getData());
+            }
+        }
+        return result;
+    }
+
+    private TransferBundleData buildTransferBundleData(final UUID sourceAccountId, final UUID destAccountId,
+                                                       final String bundleKey, final DateTime transferDate, final boolean transferAddOn,
+                                                       final boolean cancelImmediately, final CallContext context,
+                                                       final InternalCallContext fromInternalCallContext) throws SubscriptionBaseTransferApiException {
+        // The bundle subscriptions are loaded several times below (active bundle lookup, timeline, each subscription)
+        dao.enterTimelineScope();
         try {
             final DateTime effectiveTransferDate = transferDate == null ? clock.getUTCNow() : transferDate;
             if (effectiveTransferDate.isAfter(clock.getUTCNow())) {
@@ -269,14 +315,12 @@ public class DefaultSubscriptionBaseTransferApi extends SubscriptionApiBase impl
                 final SubscriptionMigrationData curData = new SubscriptionMigrationData(defaultSubscriptionBase, events, null);
                 subscriptionMigrationDataList.add(curData);
             }
-            BundleMigrationData bundleMigrationData = new BundleMigrationData(subscriptionBundleData, subscriptionMigrationDataList);
-
-            // Atomically cancelWithRequestedDate all subscription on old account and create new bundle, subscriptions, events for new account
-            dao.transfer(sourceAccountId, destAccountId, bundleMigrationData, transferCancelDataList, fromInternalCallContext, toInternalCallContext);
-
-            return bundleMigrationData.getData();
+            final BundleMigrationData bundleMigrationData = new BundleMigrationData(subscriptionBundleData, subscriptionMigrationDataList);
+            return new TransferBundleData(bundleMigrationData, transferCancelDataList);
         } catch (SubscriptionBaseRepairException e) {
             throw new SubscriptionBaseTransferApiException(e);
+        } finally {
+            dao.exitTimelineScope();
         }
     }
 
@@ -530,6 +530,12 @@ public class DefaultSubscriptionBase extends EntityBase implements SubscriptionB
                 "Failed to find CurrentPhaseStart id = %s", getId().toString()));
     }
 
+    // Transitions are immutable: those already built from the same events for the same subscription and catalog can be shared
+    public void reuseTransitions(final List<SubscriptionBaseEvent> inputEvents, final List<SubscriptionBaseTransition> builtTransitions) {
+        this.events = inputEvents;
+        this.transitions = new LinkedList<SubscriptionBaseTransition>(builtTransitions);
+    }
+
     public void rebuildTransitions(final List<SubscriptionBaseEvent> inputEvents, final Catalog catalog) {
 
         if (inputEvents == null) {
@@ -176,7 +176,8 @@ public class DefaultSubscriptionBaseService implements EventListener, Subscripti
             onPhaseEvent(subscription, context);
         } else if (event.getType() == EventType.API_USER && subscription.getCategory() == ProductCategory.BASE) {
             final UUID tenantId = nonEntityDao.retrieveIdFromObject(context.getTenantRecordId(), ObjectType.TENANT, controllerDispatcher.getCacheController(CacheType.OBJECT_ID));
-            theRealSeqId = onBasePlanEvent(subscription, (ApiEvent) event, context.toCallContext(tenantId));
+            // Keep the seqId from the notification (set for bulk operations) if it is bigger than the number of add-ons cancelled
+            theRealSeqId = Math.max(seqId, onBasePlanEvent(subscription, (ApiEvent) event, context.toCallContext(tenantId)));
         }
 
         try {
@@ -16,6 +16,7 @@
 
 package org.killbill.billing.subscription.engine.dao;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -23,6 +24,7 @@ import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
@@ -57,6 +59,10 @@ public interface BundleSqlDao extends EntitySqlDao<SubscriptionBundleModelDao, S
     public List<SubscriptionBundleModelDao> getBundleFromAccount(@Bind("accountId") String accountId,
                                                                  @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    public List<SubscriptionBundleModelDao> getBundlesForAccountIds(@BindIn("accountIds") final Collection<String> accountIds,
+                                                                    @BindBean final InternalTenantContext context);
+
     @SqlQuery
     public List<SubscriptionBundleModelDao> getBundlesForKey(@Bind("externalKey") String externalKey,
                                                              @BindBean final InternalTenantContext context);
@@ -23,10 +23,12 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -38,10 +40,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.util.config.PaginationConfig;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.bus.api.PersistentBus.EventBusException;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.catalog.api.Catalog;
 import org.killbill.billing.catalog.api.CatalogService;
 import org.killbill.billing.catalog.api.Plan;
 import org.killbill.billing.catalog.api.ProductCategory;
@@ -60,12 +64,14 @@ import org.killbill.billing.subscription.api.migration.AccountMigrationData.Bund
 import org.killbill.billing.subscription.api.migration.AccountMigrationData.SubscriptionMigrationData;
 import org.killbill.billing.subscription.api.timeline.DefaultRepairSubscriptionEvent;
 import org.killbill.billing.subscription.api.timeline.SubscriptionDataRepair;
+import org.killbill.billing.subscription.api.transfer.TransferBundleData;
 import org.killbill.billing.subscription.api.transfer.TransferCancelData;
 import org.killbill.billing.subscription.api.user.DefaultEffectiveSubscriptionEvent;
 import org.killbill.billing.subscription.api.user.DefaultRequestedSubscriptionEvent;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBase;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseBundle;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseBundle;
+import org.killbill.billing.subscription.api.user.SubscriptionBaseTransition;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseTransitionData;
 import org.killbill.billing.subscription.api.user.SubscriptionBuilder;
 import org.killbill.billing.subscription.engine.addon.AddonUtils;
@@ -86,10 +92,13 @@ import org.killbill.billing.subscription.events.user.ApiEventType;
 import org.killbill.billing.subscription.exceptions.SubscriptionBaseError;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.PaginationIteratorBuilder;
 import org.killbill.billing.util.entity.dao.EntityDaoBase;
+import org.killbill.billing.util.entity.dao.EntityModelDaoBase;
 import org.killbill.billing.util.entity.dao.EntitySqlDao;
+import org.killbill.billing.util.entity.dao.EntitySqlDaoBulkHelper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
@@ -99,6 +108,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 
@@ -111,12 +121,16 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
     private final AddonUtils addonUtils;
     private final PersistentBus eventBus;
     private final CatalogService catalogService;
+    private final EntitySqlDaoBulkHelper bulkHelper = new EntitySqlDaoBulkHelper();
+    // Timeline views of the current thread, when in a timeline scope
+    private final ThreadLocal<TimelineScope> timelineScopes = new ThreadLocal<TimelineScope>();
 
     @Inject
     public DefaultSubscriptionDao(final IDBI dbi, final Clock clock, final AddonUtils addonUtils,
                                   final NotificationQueueService notificationQueueService, final PersistentBus eventBus, final CatalogService catalogService,
-                                  final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao), BundleSqlDao.class);
+                                  final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling,
+                                  final PaginationConfig paginationConfig) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, aggregatedProfiling), BundleSqlDao.class, paginationConfig);
         this.clock = clock;
         this.notificationQueueService = notificationQueueService;
         this.addonUtils = addonUtils;
@@ -202,6 +216,11 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
                                                   public Iterator<SubscriptionBundleModelDao> build(final BundleSqlDao bundleSqlDao, final Long limit, final InternalTenantContext context) {
                                                       return bundleSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
                                                   }
+
+                                                  @Override
+                                                  public String getQueryKey() {
+                                                      return "search:" + searchKey;
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -402,7 +421,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     @Override
     public void createNextPhaseEvent(final DefaultSubscriptionBase subscription, final SubscriptionBaseEvent nextPhase, final InternalCallContext context) {
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 final SubscriptionEventSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
@@ -434,13 +453,61 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     @Override
     public List<SubscriptionBaseEvent> getEventsForSubscription(final UUID subscriptionId, final InternalTenantContext context) {
-        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<SubscriptionBaseEvent>>() {
-            @Override
-            public List<SubscriptionBaseEvent> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
-                final List<SubscriptionEventModelDao> models = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class).getEventsForSubscription(subscriptionId.toString(), context);
-                return filterSubscriptionBaseEvents(models);
+        return getSubscriptionTimelineView(subscriptionId, context).getEvents();
+    }
+
+    @Override
+    public void enterTimelineScope() {
+        final TimelineScope timelineScope = timelineScopes.get();
+        if (timelineScope == null) {
+            timelineScopes.set(new TimelineScope());
+        } else {
+            timelineScope.depth++;
+        }
+    }
+
+    @Override
+    public void exitTimelineScope() {
+        final TimelineScope timelineScope = timelineScopes.get();
+        if (timelineScope == null) {
+            return;
+        }
+        if (timelineScope.depth == 0) {
+            timelineScopes.remove();
+        } else {
+            timelineScope.depth--;
+        }
+    }
+
+    // Outside of a timeline scope, a new view is loaded each time
+    public SubscriptionTimelineView getSubscriptionTimelineView(final UUID subscriptionId, final InternalTenantContext context) {
+        final TimelineScope timelineScope = timelineScopes.get();
+        SubscriptionTimelineView view = timelineScope != null ? timelineScope.views.get(subscriptionId) : null;
+        if (view == null) {
+            view = transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<SubscriptionTimelineView>() {
+                @Override
+                public SubscriptionTimelineView inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                    final List<SubscriptionEventModelDao> models = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class).getEventsForSubscription(subscriptionId.toString(), context);
+                    return new SubscriptionTimelineView(subscriptionId, filterSubscriptionBaseEventModels(models));
+                }
+            });
+            if (timelineScope != null) {
+                timelineScope.views.put(subscriptionId, view);
             }
-        });
+        }
+        return view;
+    }
+
+    private <T> T executeEventsWrite(final EntitySqlDaoTransactionWrapper<T> entitySqlDaoTransactionWrapper) {
+        try {
+            return transactionalSqlDao.execute(entitySqlDaoTransactionWrapper);
+        } finally {
+            // Views may have been (re)loaded while the transaction was in progress, so they are only dropped once it is over
+            final TimelineScope timelineScope = timelineScopes.get();
+            if (timelineScope != null) {
+                timelineScope.views.clear();
+            }
+        }
     }
 
     @Override
@@ -493,7 +560,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     @Override
     public void createSubscription(final DefaultSubscriptionBase subscription, final List<SubscriptionBaseEvent> initialEvents, final InternalCallContext context) {
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 final SubscriptionSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class);
@@ -518,7 +585,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     @Override
     public void recreateSubscription(final DefaultSubscriptionBase subscription, final List<SubscriptionBaseEvent> recreateEvents, final InternalCallContext context) {
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 final SubscriptionEventSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
@@ -541,7 +608,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
     @Override
     public void cancelSubscriptions(final List<DefaultSubscriptionBase> subscriptions, final List<SubscriptionBaseEvent> cancelEvents, final InternalCallContext context) {
 
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 for (int i = 0; i < subscriptions.size(); i++) {
@@ -556,7 +623,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     @Override
     public void cancelSubscription(final DefaultSubscriptionBase subscription, final SubscriptionBaseEvent cancelEvent, final InternalCallContext context, final int seqId) {
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 cancelSubscriptionFromTransaction(subscription, cancelEvent, entitySqlDaoWrapperFactory, context, seqId);
@@ -567,7 +634,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     @Override
     public void uncancelSubscription(final DefaultSubscriptionBase subscription, final List<SubscriptionBaseEvent> uncancelEvents, final InternalCallContext context) {
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 final SubscriptionEventSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
@@ -608,7 +675,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     @Override
     public void changePlan(final DefaultSubscriptionBase subscription, final List<SubscriptionBaseEvent> changeEvents, final InternalCallContext context) {
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
 
@@ -728,13 +795,17 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
         return changeEvents;
     }
 
-    private List<SubscriptionBaseEvent> filterSubscriptionBaseEvents(final List<SubscriptionEventModelDao> models) {
-        final Collection<SubscriptionEventModelDao> filteredModels = Collections2.filter(models, new Predicate<SubscriptionEventModelDao>() {
+    private List<SubscriptionEventModelDao> filterSubscriptionBaseEventModels(final List<SubscriptionEventModelDao> models) {
+        return new ArrayList<SubscriptionEventModelDao>(Collections2.filter(models, new Predicate<SubscriptionEventModelDao>() {
             @Override
             public boolean apply(@Nullable final SubscriptionEventModelDao input) {
                 return input.getUserType() != ApiEventType.UNCANCEL;
             }
-        });
+        }));
+    }
+
+    private List<SubscriptionBaseEvent> filterSubscriptionBaseEvents(final List<SubscriptionEventModelDao> models) {
+        final Collection<SubscriptionEventModelDao> filteredModels = filterSubscriptionBaseEventModels(models);
         return new ArrayList<SubscriptionBaseEvent>(Collections2.transform(filteredModels, new Function<SubscriptionEventModelDao, SubscriptionBaseEvent>() {
             @Override
             public SubscriptionBaseEvent apply(@Nullable final SubscriptionEventModelDao input) {
@@ -865,12 +936,13 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
         final List<SubscriptionBase> result = new ArrayList<SubscriptionBase>(input.size());
         for (final SubscriptionBase cur : input) {
 
-            final List<SubscriptionBaseEvent> events = eventsForSubscription != null ?
-                                                       (List<SubscriptionBaseEvent>) eventsForSubscription.get(cur.getId()) :
-                                                       getEventsForSubscription(cur.getId(), context);
+            // The transitions built from the on-disk events can be shared through the timeline view
+            final SubscriptionTimelineView view = eventsForSubscription != null ? null : getSubscriptionTimelineView(cur.getId(), context);
+            final List<SubscriptionBaseEvent> events = view != null ? view.getEvents() : (List<SubscriptionBaseEvent>) eventsForSubscription.get(cur.getId());
+            final boolean isOnDiskTimeline = dryRunEvents == null || dryRunEvents.isEmpty();
             mergeDryRunEvents(cur.getId(), events, dryRunEvents);
 
-            SubscriptionBase reloaded = createSubscriptionForInternalUse(cur, events);
+            SubscriptionBase reloaded = createSubscriptionForInternalUse(cur, events, isOnDiskTimeline ? view : null);
 
             switch (cur.getCategory()) {
                 case BASE:
@@ -944,22 +1016,95 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
 
     @Override
     public void migrate(final UUID accountId, final AccountMigrationData accountData, final InternalCallContext context) {
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 final SubscriptionEventSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
 
                 for (final BundleMigrationData curBundle : accountData.getData()) {
-                    migrateBundleDataFromTransaction(curBundle, transactional, entitySqlDaoWrapperFactory, context);
+                    migrateBundleDataFromTransaction(curBundle, transactional, entitySqlDaoWrapperFactory, ImmutableMap.<UUID, Integer>of(), context);
                 }
                 return null;
             }
         });
     }
 
+    @Override
+    public List<BundleMigrationData> bulkMigrate(final List<BundleMigrationData> data, final Map<UUID, InternalCallContext> contextByAccountId, final InternalCallContext context) {
+        return executeEventsWrite(new EntitySqlDaoTransactionWrapper<List<BundleMigrationData>>() {
+            @Override
+            public List<BundleMigrationData> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final BundleSqlDao transBundleDao = entitySqlDaoWrapperFactory.become(BundleSqlDao.class);
+                final SubscriptionSqlDao transSubDao = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class);
+                final SubscriptionEventSqlDao transEventDao = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
+
+                // As in migrate, skip the bundles which already exist (e.g. when an import is resumed)
+                final Set<String> accountIds = new HashSet<String>();
+                for (final BundleMigrationData curBundle : data) {
+                    accountIds.add(curBundle.getData().getAccountId().toString());
+                }
+                final Set<String> bundleKeys = new HashSet<String>();
+                for (final SubscriptionBundleModelDao existingBundle : transBundleDao.getBundlesForAccountIds(accountIds, context)) {
+                    bundleKeys.add(existingBundle.getAccountId() + "|" + existingBundle.getExternalKey());
+                }
+
+                final List<BundleMigrationData> importedBundles = new LinkedList<BundleMigrationData>();
+                final List<SubscriptionBundleModelDao> bundleModels = new LinkedList<SubscriptionBundleModelDao>();
+                final List<SubscriptionModelDao> subscriptionModels = new LinkedList<SubscriptionModelDao>();
+                final List<SubscriptionEventModelDao> eventModels = new LinkedList<SubscriptionEventModelDao>();
+                for (final BundleMigrationData curBundle : data) {
+                    final DefaultSubscriptionBaseBundle bundleData = curBundle.getData();
+                    if (!bundleKeys.add(bundleData.getAccountId() + "|" + bundleData.getExternalKey())) {
+                        log.info(String.format("Bundle for account %s and key %s already exists, skip...", bundleData.getAccountId(), bundleData.getExternalKey()));
+                        continue;
+                    }
+
+                    final InternalCallContext accountContext = contextByAccountId.get(bundleData.getAccountId());
+                    bundleModels.add(withRecordIds(new SubscriptionBundleModelDao(bundleData), accountContext));
+                    for (final SubscriptionMigrationData curSubscription : curBundle.getSubscriptions()) {
+                        subscriptionModels.add(withRecordIds(new SubscriptionModelDao(curSubscription.getData()), accountContext));
+                        for (final SubscriptionBaseEvent curEvent : curSubscription.getInitialEvents()) {
+                            eventModels.add(withRecordIds(new SubscriptionEventModelDao(curEvent), accountContext));
+                        }
+                    }
+                    importedBundles.add(curBundle);
+                }
+
+                bulkHelper.create(transBundleDao, bundleModels, context);
+                bulkHelper.create(transSubDao, subscriptionModels, context);
+                bulkHelper.create(transEventDao, eventModels, context);
+
+                // Unlike migrate, no bus event is sent: only the future events and the MIGRATE_BILLING ones (so that invoicing starts)
+                // go through the notification queue, the past ones are already reflected in the migrated state
+                final DateTime now = clock.getUTCNow();
+                for (final BundleMigrationData curBundle : importedBundles) {
+                    final InternalCallContext accountContext = contextByAccountId.get(curBundle.getData().getAccountId());
+                    for (final SubscriptionMigrationData curSubscription : curBundle.getSubscriptions()) {
+                        for (final SubscriptionBaseEvent curEvent : curSubscription.getInitialEvents()) {
+                            final boolean isMigrateBilling = curEvent.getType() == EventType.API_USER && ((ApiEvent) curEvent).getEventType() == ApiEventType.MIGRATE_BILLING;
+                            if (isMigrateBilling || curEvent.getEffectiveDate().isAfter(now)) {
+                                recordFutureNotificationFromTransaction(entitySqlDaoWrapperFactory,
+                                                                        curEvent.getEffectiveDate(),
+                                                                        new SubscriptionNotificationKey(curEvent.getId()),
+                                                                        accountContext);
+                            }
+                        }
+                    }
+                }
+                return importedBundles;
+            }
+        });
+    }
+
+    private <M extends EntityModelDaoBase> M withRecordIds(final M model, final InternalCallContext context) {
+        model.setAccountRecordId(context.getAccountRecordId());
+        model.setTenantRecordId(context.getTenantRecordId());
+        return model;
+    }
+
     @Override
     public void repair(final UUID accountId, final UUID bundleId, final List<SubscriptionDataRepair> inRepair, final InternalCallContext context) {
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 final SubscriptionSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class);
@@ -999,7 +1144,7 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
     public void transfer(final UUID srcAccountId, final UUID destAccountId, final BundleMigrationData bundleTransferData,
                          final List<TransferCancelData> transferCancelData, final InternalCallContext fromContext, final InternalCallContext toContext) {
 
-        transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Void>() {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
             @Override
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 final SubscriptionEventSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
@@ -1009,7 +1154,72 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
                     cancelSubscriptionFromTransaction(cancel.getSubscription(), cancel.getCancelEvent(), entitySqlDaoWrapperFactory, fromContext, 0);
                 }
 
-                migrateBundleDataFromTransaction(bundleTransferData, transactional, entitySqlDaoWrapperFactory, toContext);
+                migrateBundleDataFromTransaction(bundleTransferData, transactional, entitySqlDaoWrapperFactory, ImmutableMap.<UUID, Integer>of(), toContext);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public void transferBundles(final UUID srcAccountId, final UUID destAccountId, final List<TransferBundleData> transferBundleDataList,
+                                final InternalCallContext fromContext, final InternalCallContext toContext) {
+        executeEventsWrite(new EntitySqlDaoTransactionWrapper<Void>() {
+            @Override
+            public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final SubscriptionEventSqlDao transactional = entitySqlDaoWrapperFactory.become(SubscriptionEventSqlDao.class);
+                final DateTime now = clock.getUTCNow();
+
+                // Cancel the subscriptions for the old bundles. All immediate cancellations but the last one (by effective date)
+                // are flagged as having remaining events, so that only one invoice run is triggered for the source account
+                final List<TransferCancelData> transferCancelDataList = new ArrayList<TransferCancelData>();
+                for (final TransferBundleData transferBundleData : transferBundleDataList) {
+                    transferCancelDataList.addAll(transferBundleData.getTransferCancelData());
+                }
+                Collections.sort(transferCancelDataList, new Comparator<TransferCancelData>() {
+                    @Override
+                    public int compare(final TransferCancelData o1, final TransferCancelData o2) {
+                        return o1.getCancelEvent().getEffectiveDate().compareTo(o2.getCancelEvent().getEffectiveDate());
+                    }
+                });
+                int remainingImmediateCancellations = 0;
+                for (final TransferCancelData cancel : transferCancelDataList) {
+                    if (cancel.getCancelEvent().getEffectiveDate().compareTo(now) <= 0) {
+                        remainingImmediateCancellations++;
+                    }
+                }
+                for (final TransferCancelData cancel : transferCancelDataList) {
+                    final boolean isImmediate = cancel.getCancelEvent().getEffectiveDate().compareTo(now) <= 0;
+                    cancelSubscriptionFromTransaction(cancel.getSubscription(), cancel.getCancelEvent(), entitySqlDaoWrapperFactory, fromContext,
+                                                      isImmediate ? --remainingImmediateCancellations : 0);
+                }
+
+                // Same for the destination account: the notifications which are already due are all flagged as having remaining events,
+                // except for the last one (by effective date)
+                final List<SubscriptionBaseEvent> dueEvents = new ArrayList<SubscriptionBaseEvent>();
+                for (final TransferBundleData transferBundleData : transferBundleDataList) {
+                    for (final SubscriptionMigrationData subscriptionMigrationData : transferBundleData.getBundleMigrationData().getSubscriptions()) {
+                        for (final SubscriptionBaseEvent event : subscriptionMigrationData.getInitialEvents()) {
+                            if (event.getEffectiveDate().compareTo(now) <= 0) {
+                                dueEvents.add(event);
+                            }
+                        }
+                    }
+                }
+                Collections.sort(dueEvents, new Comparator<SubscriptionBaseEvent>() {
+                    @Override
+                    public int compare(final SubscriptionBaseEvent o1, final SubscriptionBaseEvent o2) {
+                        return o1.getEffectiveDate().compareTo(o2.getEffectiveDate());
+                    }
+                });
+                final Map<UUID, Integer> seqIdByEventId = new HashMap<UUID, Integer>();
+                int remainingDueEvents = dueEvents.size();
+                for (final SubscriptionBaseEvent event : dueEvents) {
+                    seqIdByEventId.put(event.getId(), --remainingDueEvents);
+                }
+
+                for (final TransferBundleData transferBundleData : transferBundleDataList) {
+                    migrateBundleDataFromTransaction(transferBundleData.getBundleMigrationData(), transactional, entitySqlDaoWrapperFactory, seqIdByEventId, toContext);
+                }
                 return null;
             }
         });
@@ -1029,9 +1239,22 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
     }
 
     private DefaultSubscriptionBase createSubscriptionForInternalUse(final SubscriptionBase shellSubscription, final List<SubscriptionBaseEvent> events) {
+        return createSubscriptionForInternalUse(shellSubscription, events, null);
+    }
+
+    private DefaultSubscriptionBase createSubscriptionForInternalUse(final SubscriptionBase shellSubscription, final List<SubscriptionBaseEvent> events, @Nullable final SubscriptionTimelineView view) {
         final DefaultSubscriptionBase result = new DefaultSubscriptionBase(new SubscriptionBuilder(((DefaultSubscriptionBase) shellSubscription)), null, clock);
         if (events.size() > 0) {
-            result.rebuildTransitions(events, catalogService.getFullCatalog());
+            final Catalog catalog = catalogService.getFullCatalog();
+            final List<SubscriptionBaseTransition> transitions = view != null ? view.getTransitions(result.getActiveVersion(), result.getAlignStartDate(), catalog) : null;
+            if (transitions != null) {
+                result.reuseTransitions(events, transitions);
+            } else {
+                result.rebuildTransitions(events, catalog);
+                if (view != null) {
+                    view.setTransitions(result.getActiveVersion(), result.getAlignStartDate(), catalog, result.getAllTransitions());
+                }
+            }
         }
         return result;
     }
@@ -1105,7 +1328,8 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
     }
 
     private void migrateBundleDataFromTransaction(final BundleMigrationData bundleTransferData, final SubscriptionEventSqlDao transactional,
-                                                  final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final InternalCallContext context) throws EntityPersistenceException {
+                                                  final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory,
+                                                  final Map<UUID, Integer> seqIdByEventId, final InternalCallContext context) throws EntityPersistenceException {
 
         final SubscriptionSqlDao transSubDao = entitySqlDaoWrapperFactory.become(SubscriptionSqlDao.class);
         final BundleSqlDao transBundleDao = entitySqlDaoWrapperFactory.become(BundleSqlDao.class);
@@ -1122,9 +1346,10 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
             final DefaultSubscriptionBase subData = curSubscription.getData();
             for (final SubscriptionBaseEvent curEvent : curSubscription.getInitialEvents()) {
                 transactional.create(new SubscriptionEventModelDao(curEvent), context);
+                final Integer seqId = seqIdByEventId.get(curEvent.getId());
                 recordFutureNotificationFromTransaction(entitySqlDaoWrapperFactory,
                                                         curEvent.getEffectiveDate(),
-                                                        new SubscriptionNotificationKey(curEvent.getId()),
+                                                        new SubscriptionNotificationKey(curEvent.getId(), seqId == null ? 0 : seqId),
                                                         context);
             }
             transSubDao.create(new SubscriptionModelDao(subData), context);
@@ -1152,4 +1377,11 @@ public class DefaultSubscriptionDao extends EntityDaoBase<SubscriptionBundleMode
         return subscriptionWithNewEvent;
     }
 
+
+    private static final class TimelineScope {
+
+        private final Map<UUID, SubscriptionTimelineView> views = new HashMap<UUID, SubscriptionTimelineView>();
+        // Number of nested enterTimelineScope calls
+        private int depth = 0;
+    }
 }
@@ -34,6 +34,7 @@ import org.skife.jdbi.v2.IDBI;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.config.PaginationConfig;
 import org.killbill.clock.Clock;
 import org.killbill.billing.entitlement.api.SubscriptionApiException;
 import org.killbill.billing.subscription.api.SubscriptionBase;
@@ -41,6 +42,7 @@ import org.killbill.billing.subscription.api.migration.AccountMigrationData;
 import org.killbill.billing.subscription.api.migration.AccountMigrationData.BundleMigrationData;
 import org.killbill.billing.subscription.api.timeline.RepairSubscriptionLifecycleDao;
 import org.killbill.billing.subscription.api.timeline.SubscriptionDataRepair;
+import org.killbill.billing.subscription.api.transfer.TransferBundleData;
 import org.killbill.billing.subscription.api.transfer.TransferCancelData;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBase;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseBundle;
@@ -50,6 +52,7 @@ import org.killbill.billing.subscription.events.SubscriptionBaseEvent;
 import org.killbill.billing.subscription.exceptions.SubscriptionBaseError;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.EntityDaoBase;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
@@ -64,8 +67,9 @@ public class RepairSubscriptionDao extends EntityDaoBase<SubscriptionBundleModel
     private final ThreadLocal<Map<UUID, SubscriptionRepairEvent>> preThreadsInRepairSubscriptions = new ThreadLocal<Map<UUID, SubscriptionRepairEvent>>();
 
     @Inject
-    public RepairSubscriptionDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao), BundleSqlDao.class);
+    public RepairSubscriptionDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling,
+                                 final PaginationConfig paginationConfig) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, aggregatedProfiling), BundleSqlDao.class, paginationConfig);
     }
 
     @Override
@@ -301,6 +305,15 @@ public class RepairSubscriptionDao extends EntityDaoBase<SubscriptionBundleModel
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
     }
 
+    // Events are already kept in memory for the duration of the repair
+    @Override
+    public void enterTimelineScope() {
+    }
+
+    @Override
+    public void exitTimelineScope() {
+    }
+
     @Override
     public List<SubscriptionBaseEvent> getPendingEventsForSubscription(final UUID subscriptionId, final InternalTenantContext context) {
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
@@ -311,6 +324,11 @@ public class RepairSubscriptionDao extends EntityDaoBase<SubscriptionBundleModel
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
     }
 
+    @Override
+    public List<BundleMigrationData> bulkMigrate(final List<BundleMigrationData> data, final Map<UUID, InternalCallContext> contextByAccountId, final InternalCallContext context) {
+        throw new SubscriptionBaseError(NOT_IMPLEMENTED);
+    }
+
     @Override
     public void repair(final UUID accountId, final UUID bundleId, final List<SubscriptionDataRepair> inRepair, final InternalCallContext context) {
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
@@ -323,6 +341,12 @@ public class RepairSubscriptionDao extends EntityDaoBase<SubscriptionBundleModel
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
     }
 
+    @Override
+    public void transferBundles(final UUID srcAccountId, final UUID destAccountId, final List<TransferBundleData> transferBundleData,
+                                final InternalCallContext fromContext, final InternalCallContext toContext) {
+        throw new SubscriptionBaseError(NOT_IMPLEMENTED);
+    }
+
     @Override
     public void updateBundleExternalKey(final UUID bundleId, final String externalKey, final InternalCallContext context) {
         throw new SubscriptionBaseError(NOT_IMPLEMENTED);
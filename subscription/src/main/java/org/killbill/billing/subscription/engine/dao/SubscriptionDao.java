@@ -27,6 +27,7 @@ import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.migration.AccountMigrationData;
 import org.killbill.billing.subscription.api.migration.AccountMigrationData.BundleMigrationData;
 import org.killbill.billing.subscription.api.timeline.SubscriptionDataRepair;
+import org.killbill.billing.subscription.api.transfer.TransferBundleData;
 import org.killbill.billing.subscription.api.transfer.TransferCancelData;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBase;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseBundle;
@@ -79,6 +80,12 @@ public interface SubscriptionDao extends EntityDao<SubscriptionBundleModelDao, S
 
     public List<SubscriptionBaseEvent> getPendingEventsForSubscription(UUID subscriptionId, InternalTenantContext context);
 
+    // Within a timeline scope, the events of each subscription are loaded (and their transitions built) once for the current thread,
+    // until the next events write. Scopes can be nested, and each enterTimelineScope call must be matched by a call to exitTimelineScope.
+    public void enterTimelineScope();
+
+    public void exitTimelineScope();
+
     // SubscriptionBase creation, cancellation, changePlanWithRequestedDate apis
     public void createSubscription(DefaultSubscriptionBase subscription, List<SubscriptionBaseEvent> initialEvents, InternalCallContext context);
 
@@ -94,8 +101,13 @@ public interface SubscriptionDao extends EntityDao<SubscriptionBundleModelDao, S
 
     public void migrate(UUID accountId, AccountMigrationData data, InternalCallContext context);
 
+    // Returns the bundles actually imported (existing bundles are skipped)
+    public List<BundleMigrationData> bulkMigrate(List<BundleMigrationData> data, Map<UUID, InternalCallContext> contextByAccountId, InternalCallContext context);
+
     public void transfer(UUID srcAccountId, UUID destAccountId, BundleMigrationData data, List<TransferCancelData> transferCancelData, InternalCallContext fromContext, InternalCallContext toContext);
 
+    public void transferBundles(UUID srcAccountId, UUID destAccountId, List<TransferBundleData> transferBundleData, InternalCallContext fromContext, InternalCallContext toContext);
+
     public void updateBundleExternalKey(UUID bundleId, String externalKey, InternalCallContext context);
 
     // Repair
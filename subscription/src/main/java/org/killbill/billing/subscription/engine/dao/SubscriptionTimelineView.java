@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.subscription.engine.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.joda.time.DateTime;
+import org.killbill.billing.catalog.api.Catalog;
+import org.killbill.billing.subscription.api.user.SubscriptionBaseTransition;
+import org.killbill.billing.subscription.engine.dao.model.SubscriptionEventModelDao;
+import org.killbill.billing.subscription.events.SubscriptionBaseEvent;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Snapshot of the events of a subscription, as stored on disk, shared by all the subscription objects rebuilt
+ * in the same timeline scope (see {@link SubscriptionDao#enterTimelineScope()}).
+ * <p/>
+ * The events of the snapshot are never modified: callers (dry-run, repair) modify the events they work on, so each call
+ * to getEvents() returns new event objects. The only mutable state is the transitions last built from these events
+ * (see setTransitions), which the scope's thread keeps up to date.
+ */
+public class SubscriptionTimelineView {
+
+    private final UUID subscriptionId;
+    private final List<SubscriptionEventModelDao> eventModels;
+
+    // Transitions last built from these events, with the subscription activeVersion, alignStartDate and catalog used
+    private List<SubscriptionBaseTransition> transitions;
+    private long transitionsActiveVersion;
+    private DateTime transitionsAlignStartDate;
+    private Catalog transitionsCatalog;
+
+    public SubscriptionTimelineView(final UUID subscriptionId, final List<SubscriptionEventModelDao> eventModels) {
+        this.subscriptionId = subscriptionId;
+        this.eventModels = ImmutableList.<SubscriptionEventModelDao>copyOf(eventModels);
+    }
+
+    public UUID getSubscriptionId() {
+        return subscriptionId;
+    }
+
+    public List<SubscriptionBaseEvent> getEvents() {
+        final List<SubscriptionBaseEvent> events = new ArrayList<SubscriptionBaseEvent>(eventModels.size());
+        for (final SubscriptionEventModelDao eventModel : eventModels) {
+            events.add(SubscriptionEventModelDao.toSubscriptionEvent(eventModel));
+        }
+        return events;
+    }
+
+    /**
+     * @return the transitions previously built from these events for the same subscription state and catalog, or null
+     */
+    public List<SubscriptionBaseTransition> getTransitions(final long activeVersion, final DateTime alignStartDate, final Catalog catalog) {
+        if (transitions == null ||
+            transitionsActiveVersion != activeVersion ||
+            !Objects.equal(transitionsAlignStartDate, alignStartDate) ||
+            transitionsCatalog != catalog) {
+            return null;
+        }
+        return transitions;
+    }
+
+    public void setTransitions(final long activeVersion, final DateTime alignStartDate, final Catalog catalog, final List<SubscriptionBaseTransition> transitions) {
+        this.transitions = ImmutableList.<SubscriptionBaseTransition>copyOf(transitions);
+        this.transitionsActiveVersion = activeVersion;
+        this.transitionsAlignStartDate = alignStartDate;
+        this.transitionsCatalog = catalog;
+    }
+}
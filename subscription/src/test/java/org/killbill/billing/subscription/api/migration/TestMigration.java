@@ -16,12 +16,20 @@
 
 package org.killbill.billing.subscription.api.migration;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.UUID;
 
 import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
+import org.killbill.billing.account.dao.AccountModelDao;
+import org.killbill.billing.account.dao.AccountSqlDao;
 import org.killbill.billing.api.TestApiListener.NextEvent;
+import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.catalog.api.BillingPeriod;
+import org.killbill.billing.catalog.api.Currency;
 import org.killbill.billing.catalog.api.PhaseType;
 import org.killbill.billing.catalog.api.PriceListSet;
 import org.killbill.billing.catalog.api.ProductCategory;
@@ -29,14 +37,20 @@ import org.killbill.billing.entitlement.api.Entitlement.EntitlementState;
 import org.killbill.billing.subscription.SubscriptionTestSuiteWithEmbeddedDB;
 import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.migration.SubscriptionBaseMigrationApi.AccountMigration;
+import org.killbill.billing.subscription.api.migration.SubscriptionBaseMigrationApi.BulkMigrationResult;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBase;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseApiException;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseBundle;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseTransition;
 import org.killbill.billing.subscription.api.user.SubscriptionBaseTransitionData;
 import org.killbill.billing.subscription.events.user.ApiEventType;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
@@ -299,4 +313,142 @@ public class TestMigration extends SubscriptionTestSuiteWithEmbeddedDB {
         assertEquals(newBillingTransitions.size(), 1);
         assertEquals(newBillingTransitions.get(0), newMigrateBilling);
     }
+
+    @Test(groups = "slow")
+    public void testBulkMigrate() throws Exception {
+        final DateTime startDate = clock.getUTCNow().minusMonths(2);
+        final UUID firstAccountId = createAccount(internalCallContext);
+        final UUID secondAccountId = createAccount(internalCallContext);
+        final File input = createBulkMigrationFile("# Bulk migration test",
+                                                   record(BulkMigrationReader.ACCOUNT, firstAccountId),
+                                                   record(BulkMigrationReader.BUNDLE, UUID.randomUUID()),
+                                                   record(BulkMigrationReader.SUBSCRIPTION, ProductCategory.BASE, startDate.plusYears(1)),
+                                                   record(BulkMigrationReader.EVENT, startDate, "", "Shotgun", BillingPeriod.ANNUAL, PriceListSet.DEFAULT_PRICELIST_NAME, PhaseType.EVERGREEN),
+                                                   "",
+                                                   record(BulkMigrationReader.ACCOUNT, secondAccountId),
+                                                   record(BulkMigrationReader.BUNDLE, UUID.randomUUID()),
+                                                   record(BulkMigrationReader.SUBSCRIPTION, ProductCategory.BASE, startDate.plusYears(1)),
+                                                   record(BulkMigrationReader.EVENT, startDate, "", "Shotgun", BillingPeriod.ANNUAL, PriceListSet.DEFAULT_PRICELIST_NAME, PhaseType.EVERGREEN));
+
+        // No bus event is posted by the bulk import, and the MIGRATE_BILLING events are in the future
+        final BulkMigrationResult result = migrationApi.bulkMigrate(input, callContext);
+        assertListenerStatus();
+        assertEquals(result.getNbAccounts(), 2);
+        assertEquals(result.getNbBundles(), 2);
+        assertEquals(result.getNbSkippedBundles(), 0);
+        assertEquals(result.getNbSubscriptions(), 2);
+
+        for (final UUID accountId : new UUID[]{firstAccountId, secondAccountId}) {
+            final List<SubscriptionBaseBundle> bundles = subscriptionInternalApi.getBundlesForAccount(accountId, internalCallContext);
+            assertEquals(bundles.size(), 1);
+
+            final List<SubscriptionBase> subscriptions = subscriptionInternalApi.getSubscriptionsForBundle(bundles.get(0).getId(), null, internalCallContext);
+            assertEquals(subscriptions.size(), 1);
+            final SubscriptionBase subscription = subscriptions.get(0);
+            assertTrue(subscription.getStartDate().compareTo(startDate) == 0);
+            assertEquals(subscription.getEndDate(), null);
+            assertEquals(subscription.getCurrentPhase().getPhaseType(), PhaseType.EVERGREEN);
+            assertEquals(subscription.getState(), EntitlementState.ACTIVE);
+            assertEquals(subscription.getCurrentPlan().getName(), "shotgun-annual");
+            assertEquals(subscription.getChargedThroughDate(), startDate.plusYears(1));
+        }
+
+        // Re-running the same file is a no-op
+        final BulkMigrationResult secondResult = migrationApi.bulkMigrate(input, callContext);
+        assertEquals(secondResult.getNbAccounts(), 2);
+        assertEquals(secondResult.getNbBundles(), 0);
+        assertEquals(secondResult.getNbSkippedBundles(), 2);
+        assertEquals(subscriptionInternalApi.getBundlesForAccount(firstAccountId, internalCallContext).size(), 1);
+        assertEquals(subscriptionInternalApi.getBundlesForAccount(secondAccountId, internalCallContext).size(), 1);
+
+        assertListenerStatus();
+    }
+
+    @Test(groups = "slow")
+    public void testBulkMigrateInvalidFile() throws Exception {
+        final DateTime startDate = clock.getUTCNow().minusMonths(2);
+        final UUID validAccountId = createAccount(internalCallContext);
+        final File input = createBulkMigrationFile(record(BulkMigrationReader.ACCOUNT, validAccountId),
+                                                   record(BulkMigrationReader.BUNDLE, UUID.randomUUID()),
+                                                   record(BulkMigrationReader.SUBSCRIPTION, ProductCategory.BASE, startDate.plusYears(1)),
+                                                   record(BulkMigrationReader.EVENT, startDate, "", "Shotgun", BillingPeriod.ANNUAL, PriceListSet.DEFAULT_PRICELIST_NAME, PhaseType.EVERGREEN),
+                                                   record(BulkMigrationReader.ACCOUNT, createAccount(internalCallContext)),
+                                                   record(BulkMigrationReader.BUNDLE, UUID.randomUUID()),
+                                                   record(BulkMigrationReader.SUBSCRIPTION, ProductCategory.BASE, startDate.plusYears(1)),
+                                                   record(BulkMigrationReader.EVENT, startDate, "", "Shotgun", BillingPeriod.MONTHLY, "doesNotExist", PhaseType.EVERGREEN));
+
+        try {
+            migrationApi.bulkMigrate(input, callContext);
+            Assert.fail("Bulk migration should have failed");
+        } catch (final SubscriptionBaseMigrationApiException e) {
+            assertTrue(e.getMessage().contains("line 5"), e.getMessage());
+        }
+
+        // The file is validated before anything is written
+        assertEquals(subscriptionInternalApi.getBundlesForAccount(validAccountId, internalCallContext).size(), 0);
+
+        final File malformedInput = createBulkMigrationFile(record(BulkMigrationReader.ACCOUNT, validAccountId),
+                                                            record(BulkMigrationReader.SUBSCRIPTION, ProductCategory.BASE, startDate.plusYears(1)));
+        try {
+            migrationApi.bulkMigrate(malformedInput, callContext);
+            Assert.fail("Bulk migration should have failed");
+        } catch (final SubscriptionBaseMigrationApiException e) {
+            assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+        }
+
+        assertListenerStatus();
+    }
+
+    @Test(groups = "slow")
+    public void testBulkMigrateUnknownAccounts() throws Exception {
+        final DateTime startDate = clock.getUTCNow().minusMonths(2);
+        final UUID validAccountId = createAccount(internalCallContext);
+        final UUID missingAccountId = UUID.randomUUID();
+        final UUID otherTenantAccountId = createAccount(new InternalCallContext(internalCallContext.getTenantRecordId() + 1, null, callContext));
+        final File input = createBulkMigrationFile(record(BulkMigrationReader.ACCOUNT, validAccountId),
+                                                   record(BulkMigrationReader.BUNDLE, UUID.randomUUID()),
+                                                   record(BulkMigrationReader.SUBSCRIPTION, ProductCategory.BASE, startDate.plusYears(1)),
+                                                   record(BulkMigrationReader.EVENT, startDate, "", "Shotgun", BillingPeriod.ANNUAL, PriceListSet.DEFAULT_PRICELIST_NAME, PhaseType.EVERGREEN),
+                                                   record(BulkMigrationReader.ACCOUNT, missingAccountId),
+                                                   record(BulkMigrationReader.BUNDLE, UUID.randomUUID()),
+                                                   record(BulkMigrationReader.SUBSCRIPTION, ProductCategory.BASE, startDate.plusYears(1)),
+                                                   record(BulkMigrationReader.EVENT, startDate, "", "Shotgun", BillingPeriod.ANNUAL, PriceListSet.DEFAULT_PRICELIST_NAME, PhaseType.EVERGREEN),
+                                                   record(BulkMigrationReader.ACCOUNT, otherTenantAccountId),
+                                                   record(BulkMigrationReader.BUNDLE, UUID.randomUUID()),
+                                                   record(BulkMigrationReader.SUBSCRIPTION, ProductCategory.BASE, startDate.plusYears(1)),
+                                                   record(BulkMigrationReader.EVENT, startDate, "", "Shotgun", BillingPeriod.ANNUAL, PriceListSet.DEFAULT_PRICELIST_NAME, PhaseType.EVERGREEN));
+
+        try {
+            migrationApi.bulkMigrate(input, callContext);
+            Assert.fail("Bulk migration should have failed");
+        } catch (final SubscriptionBaseMigrationApiException e) {
+            assertTrue(e.getMessage().contains("account " + missingAccountId + " at line 5"), e.getMessage());
+            assertTrue(e.getMessage().contains("account " + otherTenantAccountId + " at line 9"), e.getMessage());
+            assertTrue(!e.getMessage().contains(validAccountId.toString()), e.getMessage());
+        }
+
+        // The file is validated before anything is written
+        assertEquals(subscriptionInternalApi.getBundlesForAccount(validAccountId, internalCallContext).size(), 0);
+
+        assertListenerStatus();
+    }
+
+    private UUID createAccount(final InternalCallContext context) {
+        final AccountModelDao account = new AccountModelDao(UUID.randomUUID(), clock.getUTCNow(), clock.getUTCNow(), UUID.randomUUID().toString(),
+                                                            UUID.randomUUID().toString().substring(0, 8) + "@example.com", UUID.randomUUID().toString(), 0, Currency.USD,
+                                                            1, null, DateTimeZone.UTC, null, null, null, null, null, null, null, null, null, false, false);
+        dbi.onDemand(AccountSqlDao.class).create(account, context);
+        return account.getId();
+    }
+
+    private File createBulkMigrationFile(final String... lines) throws IOException {
+        final File input = File.createTempFile("migration", ".tsv");
+        input.deleteOnExit();
+        Files.write(Joiner.on("\n").join(lines), input, Charsets.UTF_8);
+        return input;
+    }
+
+    private String record(final Object... fields) {
+        return Joiner.on("\t").join(fields);
+    }
 }
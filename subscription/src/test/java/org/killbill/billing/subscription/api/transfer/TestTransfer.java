@@ -18,6 +18,8 @@ package org.killbill.billing.subscription.api.transfer;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.joda.time.DateTime;
 import org.killbill.billing.api.TestApiListener.NextEvent;
@@ -27,6 +29,7 @@ import org.killbill.billing.catalog.api.Plan;
 import org.killbill.billing.catalog.api.PriceListSet;
 import org.killbill.billing.catalog.api.Product;
 import org.killbill.billing.entitlement.api.Entitlement.EntitlementState;
+import org.killbill.billing.events.EffectiveSubscriptionInternalEvent;
 import org.killbill.billing.subscription.SubscriptionTestSuiteWithEmbeddedDB;
 import org.killbill.billing.subscription.api.SubscriptionBase;
 import org.killbill.billing.subscription.api.SubscriptionBaseTransitionType;
@@ -38,6 +41,13 @@ import org.slf4j.LoggerFactory;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
+import com.google.common.eventbus.Subscribe;
+
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
@@ -150,6 +160,57 @@ public class TestTransfer extends SubscriptionTestSuiteWithEmbeddedDB {
         assertEquals(newBaseSubscription.getCurrentPhase().getPhaseType(), PhaseType.TRIAL);
     }
 
+    @Test(groups = "slow")
+    public void testTransferBundles() throws Exception {
+        final UUID newAccountId = UUID.randomUUID();
+
+        // CREATE TWO BUNDLES ON THE SAME ACCOUNT
+        final SubscriptionBaseBundle secondBundle = subscriptionInternalApi.createBundleForAccount(bundle.getAccountId(), "secondBundleKey", internalCallContext);
+        final SubscriptionBase firstBaseSubscription = testUtil.createSubscription(bundle, "Shotgun", BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME);
+        final SubscriptionBase secondBaseSubscription = testUtil.createSubscription(secondBundle, "Assault-Rifle", BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME);
+
+        // MOVE A LITTLE, STILL IN TRIAL
+        clock.addDays(20);
+
+        final DateTime transferRequestedDate = clock.getUTCNow();
+
+        final RemainingEventsListener remainingEventsListener = new RemainingEventsListener(4);
+        busService.getBus().register(remainingEventsListener);
+        final List<SubscriptionBaseBundle> newBundles;
+        try {
+            testListener.pushExpectedEvents(NextEvent.TRANSFER, NextEvent.TRANSFER, NextEvent.CANCEL, NextEvent.CANCEL);
+            newBundles = transferApi.transferBundles(bundle.getAccountId(), newAccountId,
+                                                     ImmutableMap.<String, DateTime>of(bundle.getExternalKey(), transferRequestedDate,
+                                                                                       secondBundle.getExternalKey(), transferRequestedDate),
+                                                     false, true, callContext);
+            assertListenerStatus();
+            assertTrue(remainingEventsListener.await());
+        } finally {
+            busService.getBus().unregister(remainingEventsListener);
+        }
+
+        // CHECK ONLY THE LAST EVENT ON EACH ACCOUNT TRIGGERS AN INVOICE RUN (NO REMAINING EVENTS FOR THE USER OPERATION)
+        assertEquals(remainingEventsListener.getRemainingEvents(SubscriptionBaseTransitionType.CANCEL), ImmutableList.<Integer>of(0, 1));
+        assertEquals(remainingEventsListener.getRemainingEvents(SubscriptionBaseTransitionType.TRANSFER), ImmutableList.<Integer>of(0, 1));
+
+        // CHECK OLD BASE SUBSCRIPTIONS ARE CANCELLED
+        assertEquals(subscriptionInternalApi.getSubscriptionFromId(firstBaseSubscription.getId(), internalCallContext).getState(), EntitlementState.CANCELLED);
+        assertEquals(subscriptionInternalApi.getSubscriptionFromId(secondBaseSubscription.getId(), internalCallContext).getState(), EntitlementState.CANCELLED);
+
+        // CHECK NEW BUNDLES EXIST ON THE NEW ACCOUNT, IN THE REQUESTED ORDER
+        assertEquals(newBundles.size(), 2);
+        assertEquals(newBundles.get(0).getExternalKey(), bundle.getExternalKey());
+        assertEquals(newBundles.get(1).getExternalKey(), secondBundle.getExternalKey());
+        assertEquals(subscriptionInternalApi.getBundlesForAccount(newAccountId, internalCallContext).size(), 2);
+        for (final SubscriptionBaseBundle newBundle : newBundles) {
+            assertEquals(newBundle.getAccountId(), newAccountId);
+            final List<SubscriptionBase> subscriptions = subscriptionInternalApi.getSubscriptionsForBundle(newBundle.getId(), null, internalCallContext);
+            assertEquals(subscriptions.size(), 1);
+            assertEquals(subscriptions.get(0).getState(), EntitlementState.ACTIVE);
+            assertEquals(subscriptions.get(0).getCurrentPhase().getPhaseType(), PhaseType.TRIAL);
+        }
+    }
+
     @Test(groups = "slow")
     public void testTransferBPInTrialWithCTD() throws Exception {
         final UUID newAccountId = UUID.randomUUID();
@@ -517,4 +578,32 @@ public class TestTransfer extends SubscriptionTestSuiteWithEmbeddedDB {
         final List<SubscriptionBase> subscriptions = subscriptionInternalApi.getSubscriptionsForBundle(newBundle.getId(), null, internalCallContext);
         assertEquals(subscriptions.size(), 1);
     }
+
+    public static class RemainingEventsListener {
+
+        private final Multimap<SubscriptionBaseTransitionType, Integer> remainingEventsByTransitionType = ArrayListMultimap.<SubscriptionBaseTransitionType, Integer>create();
+        private final CountDownLatch latch;
+
+        public RemainingEventsListener(final int expectedEvents) {
+            this.latch = new CountDownLatch(expectedEvents);
+        }
+
+        @Subscribe
+        public void handleSubscriptionEvents(final EffectiveSubscriptionInternalEvent event) {
+            synchronized (remainingEventsByTransitionType) {
+                remainingEventsByTransitionType.put(event.getTransitionType(), event.getRemainingEventsForUserOperation());
+            }
+            latch.countDown();
+        }
+
+        public boolean await() throws InterruptedException {
+            return latch.await(5, TimeUnit.SECONDS);
+        }
+
+        public List<Integer> getRemainingEvents(final SubscriptionBaseTransitionType transitionType) {
+            synchronized (remainingEventsByTransitionType) {
+                return Ordering.<Integer>natural().sortedCopy(remainingEventsByTransitionType.get(transitionType));
+            }
+        }
+    }
 }
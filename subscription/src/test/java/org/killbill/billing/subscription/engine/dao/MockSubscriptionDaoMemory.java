@@ -46,6 +46,7 @@ import org.killbill.billing.subscription.api.migration.AccountMigrationData;
 import org.killbill.billing.subscription.api.migration.AccountMigrationData.BundleMigrationData;
 import org.killbill.billing.subscription.api.migration.AccountMigrationData.SubscriptionMigrationData;
 import org.killbill.billing.subscription.api.timeline.SubscriptionDataRepair;
+import org.killbill.billing.subscription.api.transfer.TransferBundleData;
 import org.killbill.billing.subscription.api.transfer.TransferCancelData;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBase;
 import org.killbill.billing.subscription.api.user.DefaultSubscriptionBaseBundle;
@@ -64,6 +65,7 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 import org.killbill.billing.util.entity.dao.MockEntityDaoBase;
 
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Inject;
 
 public class MockSubscriptionDaoMemory extends MockEntityDaoBase<SubscriptionBundleModelDao, SubscriptionBaseBundle, SubscriptionApiException> implements SubscriptionDao {
@@ -251,6 +253,14 @@ public class MockSubscriptionDaoMemory extends MockEntityDaoBase<SubscriptionBun
         }
     }
 
+    @Override
+    public void enterTimelineScope() {
+    }
+
+    @Override
+    public void exitTimelineScope() {
+    }
+
     @Override
     public List<SubscriptionBaseEvent> getPendingEventsForSubscription(final UUID subscriptionId, final InternalTenantContext context) {
         synchronized (events) {
@@ -439,6 +449,17 @@ public class MockSubscriptionDaoMemory extends MockEntityDaoBase<SubscriptionBun
         }
     }
 
+    @Override
+    public List<BundleMigrationData> bulkMigrate(final List<BundleMigrationData> data, final Map<UUID, InternalCallContext> contextByAccountId, final InternalCallContext context) {
+        final List<BundleMigrationData> imported = new LinkedList<BundleMigrationData>();
+        for (final BundleMigrationData curBundle : data) {
+            final UUID accountId = curBundle.getData().getAccountId();
+            migrate(accountId, new AccountMigrationData(ImmutableList.<BundleMigrationData>of(curBundle)), contextByAccountId.get(accountId));
+            imported.add(curBundle);
+        }
+        return imported;
+    }
+
     @Override
     public SubscriptionBaseEvent getEventById(final UUID eventId, final InternalTenantContext context) {
         synchronized (events) {
@@ -480,6 +501,11 @@ public class MockSubscriptionDaoMemory extends MockEntityDaoBase<SubscriptionBun
                          final InternalCallContext toContext) {
     }
 
+    @Override
+    public void transferBundles(final UUID srcAccountId, final UUID destAccountId, final List<TransferBundleData> transferBundleData,
+                                final InternalCallContext fromContext, final InternalCallContext toContext) {
+    }
+
     @Override
     public void updateBundleExternalKey(final UUID bundleId, final String externalKey, final InternalCallContext context) {
     }
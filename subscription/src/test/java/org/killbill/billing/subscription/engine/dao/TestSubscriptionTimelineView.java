@@ -0,0 +1,92 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.subscription.engine.dao;
+
+import java.util.List;
+
+import org.killbill.billing.api.TestApiListener.NextEvent;
+import org.killbill.billing.catalog.api.BillingPeriod;
+import org.killbill.billing.catalog.api.PriceListSet;
+import org.killbill.billing.subscription.SubscriptionTestSuiteWithEmbeddedDB;
+import org.killbill.billing.subscription.api.user.DefaultSubscriptionBase;
+import org.killbill.billing.subscription.events.SubscriptionBaseEvent;
+import org.killbill.billing.subscription.events.user.ApiEvent;
+import org.killbill.billing.subscription.events.user.ApiEventType;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestSubscriptionTimelineView extends SubscriptionTestSuiteWithEmbeddedDB {
+
+    @Test(groups = "slow")
+    public void testTimelineScope() throws Exception {
+        final DefaultSubscriptionBase subscription = testUtil.createSubscription(bundle, "Shotgun", BillingPeriod.MONTHLY, PriceListSet.DEFAULT_PRICELIST_NAME);
+        final DefaultSubscriptionDao subscriptionDao = (DefaultSubscriptionDao) dao;
+
+        // Outside of a scope, the events are reloaded each time
+        Assert.assertNotSame(subscriptionDao.getSubscriptionTimelineView(subscription.getId(), internalCallContext),
+                             subscriptionDao.getSubscriptionTimelineView(subscription.getId(), internalCallContext));
+
+        dao.enterTimelineScope();
+        try {
+            final SubscriptionTimelineView view = subscriptionDao.getSubscriptionTimelineView(subscription.getId(), internalCallContext);
+            Assert.assertSame(subscriptionDao.getSubscriptionTimelineView(subscription.getId(), internalCallContext), view);
+            Assert.assertEquals(view.getEvents().size(), 2);
+
+            // Events handed out can be modified without affecting the view
+            final List<SubscriptionBaseEvent> events = view.getEvents();
+            events.get(0).deactivate();
+            events.remove(1);
+            Assert.assertEquals(view.getEvents().size(), 2);
+            Assert.assertTrue(view.getEvents().get(0).isActive());
+
+            // Transitions are built once and shared by the subscription objects rebuilt in the scope
+            final DefaultSubscriptionBase reloaded = (DefaultSubscriptionBase) dao.getSubscriptionFromId(subscription.getId(), internalCallContext);
+            Assert.assertNotNull(view.getTransitions(reloaded.getActiveVersion(), reloaded.getAlignStartDate(), catalogService.getFullCatalog()));
+            final DefaultSubscriptionBase reloadedAgain = (DefaultSubscriptionBase) dao.getSubscriptionFromId(subscription.getId(), internalCallContext);
+            Assert.assertEquals(reloadedAgain.getAllTransitions(), reloaded.getAllTransitions());
+            Assert.assertEquals(reloadedAgain.getCurrentPhase(), subscription.getCurrentPhase());
+
+            // Nested scopes share the views of the enclosing one
+            dao.enterTimelineScope();
+            try {
+                Assert.assertSame(subscriptionDao.getSubscriptionTimelineView(subscription.getId(), internalCallContext), view);
+            } finally {
+                dao.exitTimelineScope();
+            }
+            Assert.assertSame(subscriptionDao.getSubscriptionTimelineView(subscription.getId(), internalCallContext), view);
+
+            // Any events write invalidates the views
+            testListener.pushExpectedEvent(NextEvent.CANCEL);
+            subscription.cancel(callContext);
+            assertListenerStatus();
+
+            final SubscriptionTimelineView newView = subscriptionDao.getSubscriptionTimelineView(subscription.getId(), internalCallContext);
+            Assert.assertNotSame(newView, view);
+            final List<SubscriptionBaseEvent> newEvents = newView.getEvents();
+            final SubscriptionBaseEvent lastEvent = newEvents.get(newEvents.size() - 1);
+            Assert.assertTrue(lastEvent instanceof ApiEvent);
+            Assert.assertEquals(((ApiEvent) lastEvent).getEventType(), ApiEventType.CANCEL);
+            Assert.assertNull(dao.getSubscriptionFromId(subscription.getId(), internalCallContext).getCurrentPhase());
+        } finally {
+            dao.exitTimelineScope();
+        }
+
+        Assert.assertNotSame(subscriptionDao.getSubscriptionTimelineView(subscription.getId(), internalCallContext),
+                             subscriptionDao.getSubscriptionTimelineView(subscription.getId(), internalCallContext));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.tenant.api;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.killbill.billing.util.config.TenantConfig;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Tenants and api credentials which have already been verified against the (expensive) salted hash stored in the tenants table.
+ * <p/>
+ * The api secrets are never kept: we only store a keyed MAC of them, the key being randomly generated at startup.
+ */
+@Singleton
+public class TenantCache {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, Tenant> tenantsByApiKey;
+    private final Cache<UUID, Tenant> tenantsById;
+    private final Cache<String, byte[]> verifiedSecretMacsByApiKey;
+    private final ThreadLocal<Mac> macs;
+
+    @Inject
+    public TenantCache(final TenantConfig tenantConfig) {
+        final long ttlMillis = tenantConfig.getTenantCacheTTL().getMillis();
+        final int maxSize = tenantConfig.getTenantCacheMaxSize();
+        this.tenantsByApiKey = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS).build();
+        this.tenantsById = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS).build();
+        this.verifiedSecretMacsByApiKey = CacheBuilder.newBuilder().maximumSize(maxSize).expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS).build();
+
+        final byte[] macKey = new byte[32];
+        new SecureRandom().nextBytes(macKey);
+        final SecretKeySpec macKeySpec = new SecretKeySpec(macKey, MAC_ALGORITHM);
+        this.macs = new ThreadLocal<Mac>() {
+            @Override
+            protected Mac initialValue() {
+                try {
+                    final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                    mac.init(macKeySpec);
+                    return mac;
+                } catch (final GeneralSecurityException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    @Nullable
+    public Tenant getTenantByApiKey(final String apiKey) {
+        return tenantsByApiKey.getIfPresent(apiKey);
+    }
+
+    @Nullable
+    public Tenant getTenantById(final UUID tenantId) {
+        return tenantsById.getIfPresent(tenantId);
+    }
+
+    public void cacheTenant(final Tenant tenant) {
+        tenantsByApiKey.put(tenant.getApiKey(), tenant);
+        tenantsById.put(tenant.getId(), tenant);
+    }
+
+    public boolean isVerified(final String apiKey, final String apiSecret) {
+        final byte[] verifiedSecretMac = verifiedSecretMacsByApiKey.getIfPresent(apiKey);
+        // Constant time comparison
+        return verifiedSecretMac != null && MessageDigest.isEqual(verifiedSecretMac, computeMac(apiSecret));
+    }
+
+    // To be called once the credentials have been successfully verified
+    public void cacheVerifiedCredentials(final String apiKey, final String apiSecret) {
+        verifiedSecretMacsByApiKey.put(apiKey, computeMac(apiSecret));
+    }
+
+    public void invalidate(final String apiKey) {
+        final Tenant tenant = tenantsByApiKey.getIfPresent(apiKey);
+        if (tenant != null) {
+            tenantsById.invalidate(tenant.getId());
+        }
+        tenantsByApiKey.invalidate(apiKey);
+        verifiedSecretMacsByApiKey.invalidate(apiKey);
+    }
+
+    public void invalidateAll() {
+        tenantsByApiKey.invalidateAll();
+        tenantsById.invalidateAll();
+        verifiedSecretMacsByApiKey.invalidateAll();
+    }
+
+    private byte[] computeMac(final String apiSecret) {
+        return macs.get().doFinal(apiSecret.getBytes(Charsets.UTF_8));
+    }
+}
@@ -23,6 +23,7 @@ import org.killbill.billing.ErrorCode;
 import org.killbill.billing.tenant.api.DefaultTenant;
 import org.killbill.billing.tenant.api.Tenant;
 import org.killbill.billing.tenant.api.TenantApiException;
+import org.killbill.billing.tenant.api.TenantCache;
 import org.killbill.billing.tenant.api.TenantData;
 import org.killbill.billing.tenant.api.TenantUserApi;
 import org.killbill.billing.tenant.dao.TenantDao;
@@ -39,11 +40,13 @@ public class DefaultTenantUserApi implements TenantUserApi {
 
     private final TenantDao tenantDao;
     private final InternalCallContextFactory internalCallContextFactory;
+    private final TenantCache tenantCache;
 
     @Inject
-    public DefaultTenantUserApi(final TenantDao tenantDao, final InternalCallContextFactory internalCallContextFactory) {
+    public DefaultTenantUserApi(final TenantDao tenantDao, final InternalCallContextFactory internalCallContextFactory, final TenantCache tenantCache) {
         this.tenantDao = tenantDao;
         this.internalCallContextFactory = internalCallContextFactory;
+        this.tenantCache = tenantCache;
     }
 
     @Override
@@ -54,6 +57,9 @@ public class DefaultTenantUserApi implements TenantUserApi {
             tenantDao.create(new TenantModelDao(tenant), internalCallContextFactory.createInternalCallContext(context));
         } catch (final TenantApiException e) {
             throw new TenantApiException(e, ErrorCode.TENANT_CREATION_FAILED);
+        } finally {
+            // Creating a tenant is rare: make sure nothing stale is left around (e.g. a previous tenant with the same api key)
+            tenantCache.invalidateAll();
         }
 
         return tenant;
@@ -61,21 +67,35 @@ public class DefaultTenantUserApi implements TenantUserApi {
 
     @Override
     public Tenant getTenantByApiKey(final String key) throws TenantApiException {
+        final Tenant cachedTenant = tenantCache.getTenantByApiKey(key);
+        if (cachedTenant != null) {
+            return cachedTenant;
+        }
+
         final TenantModelDao tenant = tenantDao.getTenantByApiKey(key);
         if (tenant == null) {
             throw new TenantApiException(ErrorCode.TENANT_DOES_NOT_EXIST_FOR_API_KEY, key);
         }
-        return new DefaultTenant(tenant);
+        final Tenant result = new DefaultTenant(tenant);
+        tenantCache.cacheTenant(result);
+        return result;
     }
 
     @Override
     public Tenant getTenantById(final UUID id) throws TenantApiException {
+        final Tenant cachedTenant = tenantCache.getTenantById(id);
+        if (cachedTenant != null) {
+            return cachedTenant;
+        }
+
         // TODO - API cleanup?
         final TenantModelDao tenant = tenantDao.getById(id, new InternalTenantContext(null, null));
         if (tenant == null) {
             throw new TenantApiException(ErrorCode.TENANT_DOES_NOT_EXIST_FOR_ID, id);
         }
-        return new DefaultTenant(tenant);
+        final Tenant result = new DefaultTenant(tenant);
+        tenantCache.cacheTenant(result);
+        return result;
     }
 
     @Override
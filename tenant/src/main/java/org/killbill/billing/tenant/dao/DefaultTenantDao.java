@@ -18,6 +18,8 @@ package org.killbill.billing.tenant.dao;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.SimpleAuthenticationInfo;
@@ -29,14 +31,22 @@ import org.apache.shiro.util.ByteSource;
 import org.skife.jdbi.v2.IDBI;
 
 import org.killbill.billing.ErrorCode;
+import org.killbill.billing.ObjectType;
 import org.killbill.billing.tenant.api.Tenant;
 import org.killbill.billing.tenant.api.TenantApiException;
 import org.killbill.billing.tenant.security.KillbillCredentialsMatcher;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.cache.CacheLoaderArgument;
+import org.killbill.billing.util.cache.TenantKVCacheLoader.LoaderCallback;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.config.PaginationConfig;
+import org.killbill.billing.util.config.TenantConfig;
 import org.killbill.clock.Clock;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.entity.dao.EntityDaoBase;
 import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
@@ -53,9 +63,18 @@ public class DefaultTenantDao extends EntityDaoBase<TenantModelDao, Tenant, Tena
 
     private final RandomNumberGenerator rng = new SecureRandomNumberGenerator();
 
+    private final Clock clock;
+    private final CacheControllerDispatcher cacheControllerDispatcher;
+    private final TenantConfig tenantConfig;
+    // Last version of the KV entries seen by this node, per tenant record id
+    private final ConcurrentMap<Long, TenantKVVersion> tenantKVVersions = new ConcurrentHashMap<Long, TenantKVVersion>();
+
     @Inject
-    public DefaultTenantDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao), TenantSqlDao.class);
+    public DefaultTenantDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling, final PaginationConfig paginationConfig, final TenantConfig tenantConfig) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, aggregatedProfiling), TenantSqlDao.class, paginationConfig);
+        this.clock = clock;
+        this.cacheControllerDispatcher = cacheControllerDispatcher;
+        this.tenantConfig = tenantConfig;
     }
 
     @Override
@@ -110,16 +129,49 @@ public class DefaultTenantDao extends EntityDaoBase<TenantModelDao, Tenant, Tena
 
     @Override
     public List<String> getTenantValueForKey(final String key, final InternalTenantContext context) {
-        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<String>>() {
+        final CacheController<Object, Object> cache = cacheControllerDispatcher.getCacheController(CacheType.TENANT_KV);
+        if (cache == null) {
+            return getTenantValueForKeyFromDb(key, context).getValues();
+        }
+
+        // Keys can be modified by other nodes, and a slow reader can cache values older than the last write:
+        // cached values are only trusted if they are at least as recent as the last version of the tenant entries we know of
+        final long version = getTenantKVVersion(context);
+
+        final LoaderCallback loaderCallback = new LoaderCallback() {
+            @Override
+            public Object loadTenantValues(final String key, final InternalTenantContext context) {
+                return getTenantValueForKeyFromDb(key, context);
+            }
+        };
+        final CacheLoaderArgument arg = new CacheLoaderArgument(ObjectType.TENANT_KVS, new Object[]{loaderCallback}, context);
+        final String cacheKey = getTenantKVCacheKey(key, context.getTenantRecordId());
+
+        final TenantKVCacheEntry cachedEntry = (TenantKVCacheEntry) cache.get(cacheKey, arg);
+        if (cachedEntry.getVersion() >= version) {
+            return cachedEntry.getValues();
+        }
+
+        // Stale entry: the reload is at least as recent as the version we just read
+        cache.remove(cacheKey);
+        return ((TenantKVCacheEntry) cache.get(cacheKey, arg)).getValues();
+    }
+
+    private TenantKVCacheEntry getTenantValueForKeyFromDb(final String key, final InternalTenantContext context) {
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<TenantKVCacheEntry>() {
             @Override
-            public List<String> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
-                final List<TenantKVModelDao> tenantKV = entitySqlDaoWrapperFactory.become(TenantKVSqlDao.class).getTenantValueForKey(key, context);
-                return ImmutableList.copyOf(Collections2.transform(tenantKV, new Function<TenantKVModelDao, String>() {
+            public TenantKVCacheEntry inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final TenantKVSqlDao tenantKVSqlDao = entitySqlDaoWrapperFactory.become(TenantKVSqlDao.class);
+                // Read the version first: if the key is modified in between, the entry looks older than it is and will be reloaded
+                final long version = toVersion(tenantKVSqlDao.getTenantKVVersion(context));
+                final List<TenantKVModelDao> tenantKV = tenantKVSqlDao.getTenantValueForKey(key, context);
+                final List<String> values = ImmutableList.copyOf(Collections2.transform(tenantKV, new Function<TenantKVModelDao, String>() {
                     @Override
                     public String apply(final TenantKVModelDao in) {
                         return in.getTenantValue();
                     }
                 }));
+                return new TenantKVCacheEntry(version, values);
             }
         });
     }
@@ -131,6 +183,7 @@ public class DefaultTenantDao extends EntityDaoBase<TenantModelDao, Tenant, Tena
             public Void inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
                 final TenantKVModelDao tenantKVModelDao = new TenantKVModelDao(UUID.randomUUID(), context.getCreatedDate(), context.getUpdatedDate(), key, value);
                 entitySqlDaoWrapperFactory.become(TenantKVSqlDao.class).create(tenantKVModelDao, context);
+                incrementTenantKVVersion(entitySqlDaoWrapperFactory, context);
                 return null;
             }
         });
@@ -147,8 +200,103 @@ public class DefaultTenantDao extends EntityDaoBase<TenantModelDao, Tenant, Tena
                         entitySqlDaoWrapperFactory.become(TenantKVSqlDao.class).markTenantKeyAsDeleted(cur.getId().toString(), context);
                     }
                 }
+                incrementTenantKVVersion(entitySqlDaoWrapperFactory, context);
                 return null;
             }
         });
     }
+
+    // Invalidates the cached entries of the tenant on all nodes (each node checks the version periodically)
+    private void incrementTenantKVVersion(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory, final InternalCallContext context) {
+        final TenantKVSqlDao tenantKVSqlDao = entitySqlDaoWrapperFactory.become(TenantKVSqlDao.class);
+        if (tenantKVSqlDao.incrementTenantKVVersion(context) == 0) {
+            // First change for that tenant
+            tenantKVSqlDao.createTenantKVVersion(context);
+        }
+        // Make the change visible right away on this node. If the transaction rolls back, the only impact is a spurious reload
+        recordTenantKVVersion(context.getTenantRecordId(), toVersion(tenantKVSqlDao.getTenantKVVersion(context)), clock.getUTCNow().getMillis());
+    }
+
+    // The database is hit at most once per check interval per tenant: cache hits in between don't cost any query
+    private long getTenantKVVersion(final InternalTenantContext context) {
+        final long now = clock.getUTCNow().getMillis();
+        final TenantKVVersion knownVersion = tenantKVVersions.get(context.getTenantRecordId());
+        if (knownVersion != null && now < knownVersion.getCheckedAtMillis() + tenantConfig.getTenantKVVersionCheckInterval().getMillis()) {
+            return knownVersion.getVersion();
+        }
+
+        final Long version = transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Long>() {
+            @Override
+            public Long inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                return entitySqlDaoWrapperFactory.become(TenantKVSqlDao.class).getTenantKVVersion(context);
+            }
+        });
+        return recordTenantKVVersion(context.getTenantRecordId(), toVersion(version), now);
+    }
+
+    // Versions only go up: a slow reader can't overwrite a more recent version recorded by a writer
+    private long recordTenantKVVersion(final Long tenantRecordId, final long version, final long checkedAtMillis) {
+        while (true) {
+            final TenantKVVersion knownVersion = tenantKVVersions.get(tenantRecordId);
+            if (knownVersion == null) {
+                if (tenantKVVersions.putIfAbsent(tenantRecordId, new TenantKVVersion(version, checkedAtMillis)) == null) {
+                    return version;
+                }
+            } else {
+                final TenantKVVersion newVersion = new TenantKVVersion(Math.max(knownVersion.getVersion(), version), Math.max(knownVersion.getCheckedAtMillis(), checkedAtMillis));
+                if (tenantKVVersions.replace(tenantRecordId, knownVersion, newVersion)) {
+                    return newVersion.getVersion();
+                }
+            }
+        }
+    }
+
+    private static long toVersion(final Long version) {
+        // No row until the first change of the tenant entries
+        return version == null ? 0L : version;
+    }
+
+    @VisibleForTesting
+    static String getTenantKVCacheKey(final String key, final Long tenantRecordId) {
+        return tenantRecordId + CacheControllerDispatcher.CACHE_KEY_SEPARATOR + key;
+    }
+
+    private static final class TenantKVVersion {
+
+        private final long version;
+        private final long checkedAtMillis;
+
+        private TenantKVVersion(final long version, final long checkedAtMillis) {
+            this.version = version;
+            this.checkedAtMillis = checkedAtMillis;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public long getCheckedAtMillis() {
+            return checkedAtMillis;
+        }
+    }
+
+    @VisibleForTesting
+    static final class TenantKVCacheEntry {
+
+        private final long version;
+        private final List<String> values;
+
+        TenantKVCacheEntry(final long version, final List<String> values) {
+            this.version = version;
+            this.values = values;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public List<String> getValues() {
+            return values;
+        }
+    }
 }
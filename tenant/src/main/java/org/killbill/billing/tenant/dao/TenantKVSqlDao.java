@@ -38,6 +38,15 @@ public interface TenantKVSqlDao extends EntitySqlDao<TenantKVModelDao, TenantKV>
     public List<TenantKVModelDao> getTenantValueForKey(@Bind("tenantKey") final String key,
                                                        @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    public Long getTenantKVVersion(@BindBean final InternalTenantContext context);
+
+    @SqlUpdate
+    public int incrementTenantKVVersion(@BindBean final InternalCallContext context);
+
+    @SqlUpdate
+    public void createTenantKVVersion(@BindBean final InternalCallContext context);
+
     @SqlUpdate
     @Audited(ChangeType.DELETE)
     public void markTenantKeyAsDeleted(@Bind("id")final String id,
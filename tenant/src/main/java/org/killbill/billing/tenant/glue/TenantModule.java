@@ -20,12 +20,15 @@ package org.killbill.billing.tenant.glue;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.tenant.api.DefaultTenantService;
+import org.killbill.billing.tenant.api.TenantCache;
 import org.killbill.billing.tenant.api.TenantService;
 import org.killbill.billing.tenant.api.TenantUserApi;
 import org.killbill.billing.tenant.api.user.DefaultTenantUserApi;
 import org.killbill.billing.tenant.dao.DefaultTenantDao;
 import org.killbill.billing.tenant.dao.TenantDao;
+import org.killbill.billing.util.config.TenantConfig;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class TenantModule extends KillBillModule {
 
@@ -34,6 +37,8 @@ public class TenantModule extends KillBillModule {
     }
 
     private void installConfig() {
+        final TenantConfig tenantConfig = new ConfigurationObjectFactory(skifeConfigSource).build(TenantConfig.class);
+        bind(TenantConfig.class).toInstance(tenantConfig);
     }
 
     protected void installTenantDao() {
@@ -41,6 +46,7 @@ public class TenantModule extends KillBillModule {
     }
 
     protected void installTenantUserApi() {
+        bind(TenantCache.class).asEagerSingleton();
         bind(TenantUserApi.class).to(DefaultTenantUserApi.class).asEagerSingleton();
     }
 
@@ -33,3 +33,11 @@ CREATE TABLE tenant_kvs (
    PRIMARY KEY(record_id)
 ) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
 CREATE INDEX tenant_kvs_key ON tenant_kvs(tenant_key);
+CREATE INDEX tenant_kvs_trid_key ON tenant_kvs(tenant_record_id, tenant_key);
+
+DROP TABLE IF EXISTS tenant_kv_versions;
+CREATE TABLE tenant_kv_versions (
+   tenant_record_id int(11) unsigned NOT NULL,
+   version bigint NOT NULL,
+   PRIMARY KEY(tenant_record_id)
+) /*! CHARACTER SET utf8 COLLATE utf8_bin */;
@@ -23,6 +23,8 @@ import org.testng.annotations.BeforeMethod;
 import org.killbill.billing.GuicyKillbillTestSuiteWithEmbeddedDB;
 import org.killbill.billing.tenant.dao.DefaultTenantDao;
 import org.killbill.billing.tenant.glue.TestTenantModuleWithEmbeddedDB;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.config.TenantConfig;
 
 import com.google.inject.Guice;
 import com.google.inject.Inject;
@@ -33,6 +35,12 @@ public class TenantTestSuiteWithEmbeddedDb extends GuicyKillbillTestSuiteWithEmb
     @Inject
     protected DefaultTenantDao tenantDao;
 
+    @Inject
+    protected CacheControllerDispatcher controllerDispatcher;
+
+    @Inject
+    protected TenantConfig tenantConfig;
+
     @BeforeClass(groups = "slow")
     protected void beforeClass() throws Exception {
         final Injector injector = Guice.createInjector(new TestTenantModuleWithEmbeddedDB(configSource));
@@ -42,6 +50,7 @@ public class TenantTestSuiteWithEmbeddedDb extends GuicyKillbillTestSuiteWithEmb
     @BeforeMethod(groups = "slow")
     public void beforeMethod() throws Exception {
         super.beforeMethod();
+        controllerDispatcher.clearAll();
     }
 
     @AfterMethod(groups = "slow")
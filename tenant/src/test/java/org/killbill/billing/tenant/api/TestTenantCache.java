@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.tenant.api;
+
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.apache.shiro.authc.SimpleAuthenticationInfo;
+import org.apache.shiro.authc.UsernamePasswordToken;
+import org.apache.shiro.authc.credential.CredentialsMatcher;
+import org.apache.shiro.crypto.SecureRandomNumberGenerator;
+import org.apache.shiro.crypto.hash.SimpleHash;
+import org.apache.shiro.util.ByteSource;
+import org.killbill.billing.tenant.TenantTestSuiteNoDB;
+import org.killbill.billing.tenant.security.KillbillCredentialsMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestTenantCache extends TenantTestSuiteNoDB {
+
+    private static final Logger log = LoggerFactory.getLogger(TestTenantCache.class);
+
+    @Inject
+    protected TenantCache tenantCache;
+
+    @Test(groups = "fast")
+    public void testVerifiedCredentials() throws Exception {
+        final String apiKey = UUID.randomUUID().toString();
+        final String apiSecret = UUID.randomUUID().toString();
+
+        Assert.assertFalse(tenantCache.isVerified(apiKey, apiSecret));
+
+        tenantCache.cacheVerifiedCredentials(apiKey, apiSecret);
+        Assert.assertTrue(tenantCache.isVerified(apiKey, apiSecret));
+        Assert.assertFalse(tenantCache.isVerified(apiKey, apiSecret + "T"));
+        Assert.assertFalse(tenantCache.isVerified(apiKey + "U", apiSecret));
+
+        tenantCache.invalidate(apiKey);
+        Assert.assertFalse(tenantCache.isVerified(apiKey, apiSecret));
+    }
+
+    @Test(groups = "fast")
+    public void testTenants() throws Exception {
+        final DefaultTenant tenant = new DefaultTenant(UUID.randomUUID(), null, null, UUID.randomUUID().toString(),
+                                                       UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        tenantCache.cacheTenant(tenant);
+        Assert.assertEquals(tenantCache.getTenantByApiKey(tenant.getApiKey()), tenant);
+        Assert.assertEquals(tenantCache.getTenantById(tenant.getId()), tenant);
+
+        tenantCache.invalidate(tenant.getApiKey());
+        Assert.assertNull(tenantCache.getTenantByApiKey(tenant.getApiKey()));
+        Assert.assertNull(tenantCache.getTenantById(tenant.getId()));
+    }
+
+    @Test(groups = "external", enabled = false, description = "Per-request authentication cost: hashed credentials matching vs cached verification")
+    public void testAuthenticationCost() throws Exception {
+        // Convenience benchmark (timings are too noisy to be asserted in the build)
+        final String apiKey = UUID.randomUUID().toString();
+        final String apiSecret = UUID.randomUUID().toString();
+
+        // Same setup as DefaultTenantDao and KillbillJdbcRealm
+        final ByteSource salt = new SecureRandomNumberGenerator().nextBytes();
+        final String hashedPasswordBase64 = new SimpleHash(KillbillCredentialsMatcher.HASH_ALGORITHM_NAME, apiSecret, salt, KillbillCredentialsMatcher.HASH_ITERATIONS).toBase64();
+        final SimpleAuthenticationInfo authenticationInfo = new SimpleAuthenticationInfo(apiKey, hashedPasswordBase64.toCharArray(), salt, getClass().getSimpleName());
+        final CredentialsMatcher credentialsMatcher = KillbillCredentialsMatcher.getCredentialsMatcher();
+        final UsernamePasswordToken token = new UsernamePasswordToken(apiKey, apiSecret);
+
+        final int nbHashedIterations = 5;
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < nbHashedIterations; i++) {
+            Assert.assertTrue(credentialsMatcher.doCredentialsMatch(token, authenticationInfo));
+        }
+        final long hashedNanosPerRequest = (System.nanoTime() - startNanos) / nbHashedIterations;
+
+        tenantCache.cacheVerifiedCredentials(apiKey, apiSecret);
+        final int nbCachedIterations = 10000;
+        startNanos = System.nanoTime();
+        for (int i = 0; i < nbCachedIterations; i++) {
+            Assert.assertTrue(tenantCache.isVerified(apiKey, apiSecret));
+        }
+        final long cachedNanosPerRequest = (System.nanoTime() - startNanos) / nbCachedIterations;
+
+        log.info("Authentication cost per request ({} hash iterations): hashed={}us, cached={}us",
+                 KillbillCredentialsMatcher.HASH_ITERATIONS, hashedNanosPerRequest / 1000, cachedNanosPerRequest / 1000);
+    }
+}
@@ -16,8 +16,15 @@
 
 package org.killbill.billing.tenant.dao;
 
+import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
@@ -28,7 +35,13 @@ import org.testng.annotations.Test;
 
 import org.killbill.billing.tenant.TenantTestSuiteWithEmbeddedDb;
 import org.killbill.billing.tenant.api.DefaultTenant;
+import org.killbill.billing.tenant.dao.DefaultTenantDao.TenantKVCacheEntry;
 import org.killbill.billing.tenant.security.KillbillCredentialsMatcher;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheController;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 public class TestDefaultTenantDao extends TenantTestSuiteWithEmbeddedDb {
 
@@ -73,4 +86,98 @@ public class TestDefaultTenantDao extends TenantTestSuiteWithEmbeddedDb {
         value = tenantDao.getTenantValueForKey("TheKey", internalCallContext);
         Assert.assertEquals(value.size(), 0);
     }
+
+    @Test(groups = "slow")
+    public void testTenantKeyValueCache() throws Exception {
+        final DefaultTenant tenant = new DefaultTenant(UUID.randomUUID(), null, null, UUID.randomUUID().toString(),
+                                                       UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        tenantDao.create(new TenantModelDao(tenant), internalCallContext);
+
+        tenantDao.addTenantKeyValue("TheCachedKey", "TheValue", internalCallContext);
+        Assert.assertEquals(tenantDao.getTenantValueForKey("TheCachedKey", internalCallContext), ImmutableList.<String>of("TheValue"));
+        Assert.assertEquals(controllerDispatcher.getCacheController(CacheType.TENANT_KV).size(), 1);
+
+        // Modify the table behind the DAO back, as another node would
+        final TenantKVSqlDao tenantKVSqlDao = dbi.onDemand(TenantKVSqlDao.class);
+        tenantKVSqlDao.create(new TenantKVModelDao(UUID.randomUUID(), clock.getUTCNow(), clock.getUTCNow(), "TheCachedKey", "TheSecondValue"), internalCallContext);
+        Assert.assertEquals(tenantKVSqlDao.incrementTenantKVVersion(internalCallContext), 1);
+
+        // Cache hits don't go to the database: the change isn't seen until the version is checked again
+        Assert.assertEquals(tenantDao.getTenantValueForKey("TheCachedKey", internalCallContext), ImmutableList.<String>of("TheValue"));
+        clock.addDeltaFromReality(tenantConfig.getTenantKVVersionCheckInterval().getMillis() + 1);
+        Assert.assertEquals(ImmutableSet.<String>copyOf(tenantDao.getTenantValueForKey("TheCachedKey", internalCallContext)), ImmutableSet.<String>of("TheValue", "TheSecondValue"));
+
+        for (final TenantKVModelDao tenantKV : tenantKVSqlDao.getTenantValueForKey("TheCachedKey", internalCallContext)) {
+            if ("TheValue".equals(tenantKV.getTenantValue())) {
+                tenantKVSqlDao.markTenantKeyAsDeleted(tenantKV.getId().toString(), internalCallContext);
+            }
+        }
+        Assert.assertEquals(tenantKVSqlDao.incrementTenantKVVersion(internalCallContext), 1);
+        clock.addDeltaFromReality(tenantConfig.getTenantKVVersionCheckInterval().getMillis() + 1);
+        Assert.assertEquals(tenantDao.getTenantValueForKey("TheCachedKey", internalCallContext), ImmutableList.<String>of("TheSecondValue"));
+
+        // Changes made through the DAO are seen right away on this node
+        tenantDao.addTenantKeyValue("TheCachedKey", "TheThirdValue", internalCallContext);
+        Assert.assertEquals(ImmutableSet.<String>copyOf(tenantDao.getTenantValueForKey("TheCachedKey", internalCallContext)), ImmutableSet.<String>of("TheSecondValue", "TheThirdValue"));
+    }
+
+    @Test(groups = "slow", description = "A reader which loaded the values before a write but populates the cache after it must not hide the write")
+    public void testTenantKeyValueCacheWithStaleReader() throws Exception {
+        final DefaultTenant tenant = new DefaultTenant(UUID.randomUUID(), null, null, UUID.randomUUID().toString(),
+                                                       UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        tenantDao.create(new TenantModelDao(tenant), internalCallContext);
+
+        tenantDao.addTenantKeyValue("TheRacyKey", "TheValue", internalCallContext);
+        final Long staleVersion = dbi.onDemand(TenantKVSqlDao.class).getTenantKVVersion(internalCallContext);
+
+        tenantDao.deleteTenantKey("TheRacyKey", internalCallContext);
+        tenantDao.addTenantKeyValue("TheRacyKey", "TheNewValue", internalCallContext);
+
+        // The slow reader populates the cache with what it read before the writes
+        final CacheController<Object, Object> cache = controllerDispatcher.getCacheController(CacheType.TENANT_KV);
+        final String cacheKey = DefaultTenantDao.getTenantKVCacheKey("TheRacyKey", internalCallContext.getTenantRecordId());
+        cache.remove(cacheKey);
+        cache.add(cacheKey, new TenantKVCacheEntry(staleVersion, ImmutableList.<String>of("TheValue")));
+
+        Assert.assertEquals(tenantDao.getTenantValueForKey("TheRacyKey", internalCallContext), ImmutableList.<String>of("TheNewValue"));
+        Assert.assertEquals(((TenantKVCacheEntry) cache.get(cacheKey, null)).getValues(), ImmutableList.<String>of("TheNewValue"));
+    }
+
+    @Test(groups = "slow", description = "Concurrent readers and writer: once the writes are done, all readers see the last value")
+    public void testTenantKeyValueCacheWithConcurrentReaders() throws Exception {
+        final DefaultTenant tenant = new DefaultTenant(UUID.randomUUID(), null, null, UUID.randomUUID().toString(),
+                                                       UUID.randomUUID().toString(), UUID.randomUUID().toString());
+        tenantDao.create(new TenantModelDao(tenant), internalCallContext);
+
+        final int nbWrites = 20;
+        final AtomicBoolean writesDone = new AtomicBoolean(false);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> readers = new LinkedList<Future<?>>();
+            for (int i = 0; i < 3; i++) {
+                readers.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        while (!writesDone.get()) {
+                            tenantDao.getTenantValueForKey("TheBusyKey", internalCallContext);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (int i = 0; i < nbWrites; i++) {
+                tenantDao.deleteTenantKey("TheBusyKey", internalCallContext);
+                tenantDao.addTenantKeyValue("TheBusyKey", "value-" + i, internalCallContext);
+            }
+            writesDone.set(true);
+            for (final Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertEquals(tenantDao.getTenantValueForKey("TheBusyKey", internalCallContext), ImmutableList.<String>of("value-" + (nbWrites - 1)));
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.audit.api;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.audit.AuditInternalApi;
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.api.AuditLevel;
+import org.killbill.billing.util.audit.AccountAuditLogs;
+import org.killbill.billing.util.audit.DefaultAccountAuditLogs;
+import org.killbill.billing.util.audit.dao.AuditDao;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.cache.CacheControllerDispatcher;
+import org.killbill.billing.util.dao.NonEntityDao;
+
+public class DefaultAuditInternalApi implements AuditInternalApi {
+
+    private final AuditDao auditDao;
+    private final NonEntityDao nonEntityDao;
+    private final CacheControllerDispatcher cacheControllerDispatcher;
+
+    @Inject
+    public DefaultAuditInternalApi(final AuditDao auditDao, final NonEntityDao nonEntityDao, final CacheControllerDispatcher cacheControllerDispatcher) {
+        this.auditDao = auditDao;
+        this.nonEntityDao = nonEntityDao;
+        this.cacheControllerDispatcher = cacheControllerDispatcher;
+    }
+
+    @Override
+    public Map<UUID, AccountAuditLogs> getAccountAuditLogs(final Collection<UUID> accountIds, final AuditLevel auditLevel, final InternalTenantContext context) {
+        final Map<UUID, AccountAuditLogs> result = new HashMap<UUID, AccountAuditLogs>();
+
+        // Optimization - bail early
+        if (AuditLevel.NONE.equals(auditLevel)) {
+            for (final UUID accountId : accountIds) {
+                result.put(accountId, new DefaultAccountAuditLogs(accountId));
+            }
+            return result;
+        }
+
+        // The record ids are cached, this doesn't hit the database in the common case
+        final Map<Long, UUID> accountIdsByRecordId = new LinkedHashMap<Long, UUID>();
+        for (final UUID accountId : accountIds) {
+            final Long accountRecordId = nonEntityDao.retrieveAccountRecordIdFromObject(accountId, ObjectType.ACCOUNT, cacheControllerDispatcher.getCacheController(CacheType.ACCOUNT_RECORD_ID));
+            if (accountRecordId == null) {
+                result.put(accountId, new DefaultAccountAuditLogs(accountId));
+            } else {
+                accountIdsByRecordId.put(accountRecordId, accountId);
+            }
+        }
+
+        result.putAll(auditDao.getAuditLogsForAccounts(accountIdsByRecordId, auditLevel, context));
+        return result;
+    }
+}
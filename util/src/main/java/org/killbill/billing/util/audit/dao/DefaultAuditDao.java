@@ -18,6 +18,7 @@ package org.killbill.billing.util.audit.dao;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -37,6 +38,7 @@ import org.killbill.billing.util.audit.DefaultAccountAuditLogsForObjectType;
 import org.killbill.billing.util.audit.DefaultAuditLog;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.dao.NonEntitySqlDao;
 import org.killbill.billing.util.dao.RecordIdIdMappings;
 import org.killbill.billing.util.dao.TableName;
@@ -56,9 +58,9 @@ public class DefaultAuditDao implements AuditDao {
     private final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao;
 
     @Inject
-    public DefaultAuditDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao) {
+    public DefaultAuditDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher cacheControllerDispatcher, final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling) {
         this.nonEntitySqlDao = dbi.onDemand(NonEntitySqlDao.class);
-        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao);
+        this.transactionalSqlDao = new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, cacheControllerDispatcher, nonEntityDao, aggregatedProfiling);
     }
 
     @Override
@@ -94,6 +96,39 @@ public class DefaultAuditDao implements AuditDao {
         return new DefaultAccountAuditLogsForObjectType(auditLevel, allAuditLogs);
     }
 
+    @Override
+    public Map<UUID, DefaultAccountAuditLogs> getAuditLogsForAccounts(final Map<Long, UUID> accountIds, final AuditLevel auditLevel, final InternalTenantContext context) {
+        final Map<UUID, List<AuditLog>> auditLogsPerAccountId = new HashMap<UUID, List<AuditLog>>();
+        for (final UUID accountId : accountIds.values()) {
+            auditLogsPerAccountId.put(accountId, new LinkedList<AuditLog>());
+        }
+
+        if (!accountIds.isEmpty()) {
+            // Single query for all accounts - the audited entity id is the account id itself, no need to resolve the history record ids
+            final List<AuditLogModelDao> auditLogs = transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<List<AuditLogModelDao>>() {
+                @Override
+                public List<AuditLogModelDao> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                    return entitySqlDaoWrapperFactory.become(EntitySqlDao.class).getAuditLogsForTableNameAndAccountRecordIds(TableName.ACCOUNT.getHistoryTableName().name(),
+                                                                                                                          accountIds.keySet(),
+                                                                                                                          context);
+                }
+            });
+
+            for (final AuditLogModelDao auditLog : auditLogs) {
+                final UUID accountId = accountIds.get(auditLog.getAccountRecordId());
+                if (accountId != null) {
+                    auditLogsPerAccountId.get(accountId).add(new DefaultAuditLog(auditLog, ObjectType.ACCOUNT, accountId));
+                }
+            }
+        }
+
+        final Map<UUID, DefaultAccountAuditLogs> result = new HashMap<UUID, DefaultAccountAuditLogs>();
+        for (final Map.Entry<UUID, List<AuditLog>> entry : auditLogsPerAccountId.entrySet()) {
+            result.put(entry.getKey(), new DefaultAccountAuditLogs(entry.getKey(), auditLevel, entry.getValue().iterator()));
+        }
+        return result;
+    }
+
     private Iterator<AuditLog> buildAuditLogsFromModelDao(final Iterator<AuditLogModelDao> auditLogsForAccountRecordId, final InternalTenantContext tenantContext) {
         final Map<TableName, Map<Long, UUID>> recordIdIdsCache = new HashMap<TableName, Map<Long, UUID>>();
         final Map<TableName, Map<Long, UUID>> historyRecordIdIdsCache = new HashMap<TableName, Map<Long, UUID>>();
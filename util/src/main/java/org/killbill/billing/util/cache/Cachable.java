@@ -31,6 +31,8 @@ public @interface Cachable {
     public final String OBJECT_ID_CACHE_NAME = "object-id";
     public final String AUDIT_LOG_CACHE_NAME = "audit-log";
     public final String AUDIT_LOG_VIA_HISTORY_CACHE_NAME = "audit-log-via-history";
+    public final String PAYMENT_METHOD_PLUGIN_NAME_CACHE_NAME = "payment-method-plugin-name";
+    public final String TENANT_KV_CACHE_NAME = "tenant-kv";
 
     public CacheType value();
 
@@ -51,7 +53,13 @@ public @interface Cachable {
         AUDIT_LOG(AUDIT_LOG_CACHE_NAME, true),
 
         /* Mapping from object 'tableName::historyTableName::targetRecordId' -> matching objects 'Iterable<AuditLog>' */
-        AUDIT_LOG_VIA_HISTORY(AUDIT_LOG_VIA_HISTORY_CACHE_NAME, true);
+        AUDIT_LOG_VIA_HISTORY(AUDIT_LOG_VIA_HISTORY_CACHE_NAME, true),
+
+        /* Mapping from 'tenantRecordId::paymentMethodId' -> matching payment plugin name 'String' */
+        PAYMENT_METHOD_PLUGIN_NAME(PAYMENT_METHOD_PLUGIN_NAME_CACHE_NAME, false),
+
+        /* Mapping from 'tenantRecordId::key' -> matching tenant values and their version */
+        TENANT_KV(TENANT_KV_CACHE_NAME, false);
 
         private final String cacheName;
         private final boolean isKeyPrefixedWithTableName;
@@ -25,6 +25,7 @@ import javax.inject.Provider;
 
 import org.killbill.billing.util.cache.Cachable.CacheType;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
 import net.sf.ehcache.Cache;
@@ -36,10 +37,12 @@ import net.sf.ehcache.loader.CacheLoader;
 public class CacheControllerDispatcherProvider implements Provider<CacheControllerDispatcher> {
 
     private final CacheManager cacheManager;
+    private final MetricRegistry metricRegistry;
 
     @Inject
-    public CacheControllerDispatcherProvider(final CacheManager cacheManager) {
+    public CacheControllerDispatcherProvider(final CacheManager cacheManager, final MetricRegistry metricRegistry) {
         this.cacheManager = cacheManager;
+        this.metricRegistry = metricRegistry;
     }
 
     @Override
@@ -64,7 +67,7 @@ public class CacheControllerDispatcherProvider implements Provider<CacheControll
         return Collections2.transform(cache.getRegisteredCacheLoaders(), new Function<CacheLoader, EhCacheBasedCacheController<Object, Object>>() {
             @Override
             public EhCacheBasedCacheController<Object, Object> apply(final CacheLoader input) {
-                return new EhCacheBasedCacheController<Object, Object>(cache, cacheType);
+                return new EhCacheBasedCacheController<Object, Object>(cache, cacheType, metricRegistry);
             }
         });
     }
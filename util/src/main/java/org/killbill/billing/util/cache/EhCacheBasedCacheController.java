@@ -18,6 +18,9 @@ package org.killbill.billing.util.cache;
 
 import org.killbill.billing.util.cache.Cachable.CacheType;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.Element;
 
@@ -25,10 +28,25 @@ public class EhCacheBasedCacheController<K, V> implements CacheController<K, V>
 
     private final Cache cache;
     private final CacheType cacheType;
+    private final Meter hits;
+    private final Meter misses;
 
-    public EhCacheBasedCacheController(final Cache cache, final CacheType cacheType) {
+    public EhCacheBasedCacheController(final Cache cache, final CacheType cacheType, final MetricRegistry metricRegistry) {
         this.cache = cache;
         this.cacheType = cacheType;
+
+        final String metricPrefix = MetricRegistry.name(EhCacheBasedCacheController.class, cache.getName());
+        this.hits = metricRegistry.meter(MetricRegistry.name(metricPrefix, "hits"));
+        this.misses = metricRegistry.meter(MetricRegistry.name(metricPrefix, "misses"));
+        final String hitRatioName = MetricRegistry.name(metricPrefix, "hit-ratio");
+        if (!metricRegistry.getGauges().containsKey(hitRatioName)) {
+            metricRegistry.register(hitRatioName, new RatioGauge() {
+                @Override
+                protected Ratio getRatio() {
+                    return Ratio.of(hits.getCount(), hits.getCount() + misses.getCount());
+                }
+            });
+        }
     }
 
     @Override
@@ -38,6 +56,13 @@ public class EhCacheBasedCacheController<K, V> implements CacheController<K, V>
 
     @Override
     public V get(final K key, final CacheLoaderArgument cacheLoaderArgument) {
+        final Element cachedElement = cache.get(key);
+        if (cachedElement != null) {
+            hits.mark();
+            return (V) cachedElement.getObjectValue();
+        }
+
+        misses.mark();
         final Element element = cache.getWithLoader(key, null, cacheLoaderArgument);
         if (element == null) {
             return null;
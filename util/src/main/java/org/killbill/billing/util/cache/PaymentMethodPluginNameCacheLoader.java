@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.cache;
+
+import java.util.UUID;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.cache.Cachable.CacheType;
+import org.killbill.billing.util.dao.NonEntityDao;
+import org.skife.jdbi.v2.IDBI;
+
+import net.sf.ehcache.loader.CacheLoader;
+
+@Singleton
+public class PaymentMethodPluginNameCacheLoader extends BaseCacheLoader implements CacheLoader {
+
+    @Inject
+    public PaymentMethodPluginNameCacheLoader(final IDBI dbi, final NonEntityDao nonEntityDao) {
+        super(dbi, nonEntityDao);
+    }
+
+    @Override
+    public CacheType getCacheType() {
+        return CacheType.PAYMENT_METHOD_PLUGIN_NAME;
+    }
+
+    @Override
+    public Object load(final Object key, final Object argument) {
+        checkCacheLoaderStatus();
+
+        if (!(key instanceof String)) {
+            throw new IllegalArgumentException("Unexpected key type of " + key.getClass().getName());
+        }
+        if (!(argument instanceof CacheLoaderArgument)) {
+            throw new IllegalArgumentException("Unexpected key type of " + argument.getClass().getName());
+        }
+
+        final Object[] args = ((CacheLoaderArgument) argument).getArgs();
+        if (args.length < 1 || !(args[0] instanceof LoaderCallback)) {
+            throw new IllegalArgumentException("Missing LoaderCallback from the arguments");
+        }
+
+        final LoaderCallback callback = (LoaderCallback) args[0];
+        final InternalTenantContext internalTenantContext = ((CacheLoaderArgument) argument).getInternalTenantContext();
+        final String cacheKey = (String) key;
+        final String paymentMethodId = cacheKey.substring(cacheKey.indexOf(CacheControllerDispatcher.CACHE_KEY_SEPARATOR) + CacheControllerDispatcher.CACHE_KEY_SEPARATOR.length());
+        return callback.loadPluginName(UUID.fromString(paymentMethodId), internalTenantContext);
+    }
+
+    // The payment_methods table lives in the payment module: the caller provides the lookup
+    public interface LoaderCallback {
+
+        public String loadPluginName(final UUID paymentMethodId, final InternalTenantContext context);
+    }
+}
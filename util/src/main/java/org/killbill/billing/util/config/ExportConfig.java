@@ -0,0 +1,39 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.config;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
+public interface ExportConfig extends KillbillConfig {
+
+    @Config("org.killbill.export.threads")
+    @Default("4")
+    @Description("Maximum number of tables read at the same time, across all account exports (each reader uses its own database connection)")
+    public int getExportNbThreads();
+
+    @Config("org.killbill.export.buffer.rows")
+    @Default("1000")
+    @Description("Maximum number of rows read ahead for each table being exported")
+    public int getExportBufferRows();
+
+    @Config("org.killbill.export.max.concurrent")
+    @Default("4")
+    @Description("Maximum number of account exports running at the same time, additional exports wait for their turn")
+    public int getExportMaxConcurrent();
+}
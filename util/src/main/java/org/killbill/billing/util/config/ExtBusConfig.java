@@ -0,0 +1,36 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+import org.skife.config.TimeSpan;
+
+public interface ExtBusConfig extends KillbillConfig {
+
+    @Config("org.killbill.extbus.batch.size")
+    @Default("100")
+    @Description("Maximum number of external bus events written in a single transaction, 1 to post each event on its own")
+    public int getExtBusBatchSize();
+
+    @Config("org.killbill.extbus.flush.timeout")
+    @Default("30s")
+    @Description("Maximum time a bus handler waits for its external bus event to be written, before failing so that the internal bus event is retried")
+    public TimeSpan getExtBusFlushTimeout();
+}
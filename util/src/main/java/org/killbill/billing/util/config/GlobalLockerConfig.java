@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+import org.skife.config.TimeSpan;
+
+public interface GlobalLockerConfig extends KillbillConfig {
+
+    @Config("org.killbill.globallocker.tryTimeout")
+    @Default("100ms")
+    @Description("Time spent waiting for a lock per try (the total wait time is this value times the number of tries requested by the caller)")
+    public TimeSpan getLockTryTimeout();
+
+    @Config("org.killbill.globallocker.pool.minIdle")
+    @Default("1")
+    @Description("Minimum number of idle connections in the dedicated lock connection pool (database lockers only)")
+    public int getPoolMinIdle();
+
+    @Config("org.killbill.globallocker.pool.maxActive")
+    @Default("100")
+    @Description("Maximum number of connections in the dedicated lock connection pool, i.e. maximum number of locks held concurrently (database lockers only): once exhausted, lock requests fail")
+    public int getPoolMaxActive();
+
+    @Config("org.killbill.globallocker.slowHoldThreshold")
+    @Default("1s")
+    @Description("Locks held longer than this are logged with their key, to help spot hot accounts")
+    public TimeSpan getSlowHoldThreshold();
+}
@@ -19,6 +19,7 @@ package org.killbill.billing.util.config;
 import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 public interface InvoiceConfig extends KillbillConfig {
 
@@ -37,4 +38,29 @@ public interface InvoiceConfig extends KillbillConfig {
     @Description("Whether to insert usage items with a zero amount")
     public boolean isInsertZeroUsageItems();
 
+    @Config("org.killbill.invoice.coalescing.window")
+    @Default("5s")
+    @Description("Window during which next billing date notifications already covered by a run for the same account are collapsed (0s to disable coalescing)")
+    public TimeSpan getNextBillingDateCoalescingWindow();
+
+    @Config("org.killbill.invoice.email.maxRetries")
+    @Default("5")
+    @Description("Maximum number of retries for an invoice email which couldn't be delivered")
+    public int getEmailMaxRetries();
+
+    @Config("org.killbill.invoice.email.retryDelay")
+    @Default("1m")
+    @Description("Delay before the first retry of an invoice email delivery (doubled on each subsequent retry)")
+    public TimeSpan getEmailRetryDelay();
+
+    @Config("org.killbill.invoice.email.retryMaxDelay")
+    @Default("1h")
+    @Description("Upper bound for the delay between two retries of an invoice email delivery")
+    public TimeSpan getEmailRetryMaxDelay();
+
+    @Config("org.killbill.invoice.email.rateLimit")
+    @Default("10")
+    @Description("Maximum number of invoice emails delivered per second (0 for no limit)")
+    public double getEmailRateLimit();
+
 }
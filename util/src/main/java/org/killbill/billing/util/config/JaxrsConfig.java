@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
+public interface JaxrsConfig extends KillbillConfig {
+
+    @Config("org.killbill.jaxrs.threads.pool.nb")
+    @Default("30")
+    @Description("Number of threads for the executor used by JAX-RS resources to run independent queries concurrently")
+    public int getJaxrsThreadNb();
+
+    @Config("org.killbill.jaxrs.threads.pool.queue.size")
+    @Default("500")
+    @Description("Maximum number of queries waiting for a JAX-RS executor thread, requests beyond that are rejected with a 503")
+    public int getJaxrsQueueSize();
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+import org.skife.config.TimeSpan;
+
+public interface NotificationConfig extends KillbillConfig {
+
+    @Config("org.killbill.billing.server.notifications.timeout")
+    @Default("15s")
+    @Description("Timeout for each push notification callback")
+    public TimeSpan getPushNotificationTimeout();
+
+    @Config("org.killbill.billing.server.notifications.maxInFlight")
+    @Default("200")
+    @Description("Maximum number of push notification callbacks in flight across all endpoints")
+    public int getPushNotificationMaxInFlight();
+
+    @Config("org.killbill.billing.server.notifications.maxInFlightPerEndpoint")
+    @Default("10")
+    @Description("Maximum number of push notification callbacks in flight per callback URL")
+    public int getPushNotificationMaxInFlightPerEndpoint();
+
+    @Config("org.killbill.billing.server.notifications.retry.delay")
+    @Default("15s")
+    @Description("Delay before the first retry of a failed push notification (doubled for each subsequent retry)")
+    public TimeSpan getPushNotificationRetryDelay();
+
+    @Config("org.killbill.billing.server.notifications.retry.maxDelay")
+    @Default("1h")
+    @Description("Upper bound for the delay between two retries of a failed push notification")
+    public TimeSpan getPushNotificationRetryMaxDelay();
+
+    @Config("org.killbill.billing.server.notifications.retry.max")
+    @Default("8")
+    @Description("Maximum number of retries for a failed push notification before giving up")
+    public int getPushNotificationMaxRetries();
+
+    @Config("org.killbill.billing.server.notifications.batch.size")
+    @Default("1")
+    @Description("Maximum number of notifications sent in a single POST (as a JSON array) per callback URL, 1 to disable batching")
+    public int getPushNotificationBatchSize();
+
+    @Config("org.killbill.billing.server.notifications.batch.delay")
+    @Default("500ms")
+    @Description("Maximum time a notification waits for a batch to fill up before being sent")
+    public TimeSpan getPushNotificationBatchDelay();
+}
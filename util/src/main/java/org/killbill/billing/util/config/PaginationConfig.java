@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+import org.skife.config.TimeSpan;
+
+public interface PaginationConfig extends KillbillConfig {
+
+    @Config("org.killbill.dao.pagination.count")
+    @Default("EXACT")
+    @Description("How to compute the number of records of paginated queries: EXACT (count on each page), ESTIMATE (count reused for a while) or NONE (no count)")
+    public String getPaginationCountMode();
+
+    @Config("org.killbill.dao.pagination.count.estimate.ttl")
+    @Default("60s")
+    @Description("How long an estimated count is reused, when org.killbill.dao.pagination.count is ESTIMATE")
+    public TimeSpan getPaginationCountEstimateTtl();
+
+    @Config("org.killbill.dao.search.mode")
+    @Default("PREFIX")
+    @Description("How search keys are matched: PREFIX (indexed, beginning of the values), EXACT (indexed, whole values) or LIKE (legacy substring match, not indexed)")
+    public String getSearchMode();
+
+    @Config("org.killbill.dao.search.backfillOnStart")
+    @Default("false")
+    @Description("Whether to compute on start the search keys of the accounts which don't have any yet (enable once after upgrading, then disable)")
+    public boolean isSearchKeysBackfillOnStart();
+}
@@ -42,6 +42,11 @@ public interface PaymentConfig extends KillbillConfig {
     @Description("Interval in days between payment retries")
     public List<Integer> getPaymentRetryDays();
 
+    @Config("org.killbill.payment.retry.jitter")
+    @Default("0s")
+    @Description("Window over which payment retries scheduled for the same time are randomly spread")
+    public TimeSpan getPaymentRetryJitter();
+
     @Config("org.killbill.payment.failure.retry.start.sec")
     @Default("300")
     public int getPluginFailureRetryStart();
@@ -27,4 +27,9 @@ public interface RbacConfig extends KillbillConfig {
     @Default("1h")
     @Description("System-wide default time that any session may remain idle before expiring")
     public TimeSpan getGlobalSessionTimeout();
+
+    @Config("org.killbill.rbac.session.flushInterval")
+    @Default("30s")
+    @Description("Interval at which session last access times are written to the database (0 to write them on each request)")
+    public TimeSpan getSessionFlushInterval();
 }
@@ -16,5 +16,19 @@
 
 package org.killbill.billing.util.config;
 
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+
 public interface SubscriptionConfig extends KillbillConfig {
+
+    @Config("org.killbill.subscription.transfer.batchSize")
+    @Default("100")
+    @Description("Maximum number of bundles moved in a single transaction by a bulk transfer")
+    public int getBulkTransferBatchSize();
+
+    @Config("org.killbill.subscription.migration.batchSize")
+    @Default("500")
+    @Description("Number of accounts written in a single transaction by a bulk migration")
+    public int getBulkMigrationBatchSize();
 }
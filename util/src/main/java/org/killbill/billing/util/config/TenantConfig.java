@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.config;
+
+import org.skife.config.Config;
+import org.skife.config.Default;
+import org.skife.config.Description;
+import org.skife.config.TimeSpan;
+
+public interface TenantConfig extends KillbillConfig {
+
+    @Config("org.killbill.tenant.cache.ttl")
+    @Default("10m")
+    @Description("How long tenants and verified api credentials are cached")
+    public TimeSpan getTenantCacheTTL();
+
+    @Config("org.killbill.tenant.cache.maxSize")
+    @Default("10000")
+    @Description("Maximum number of tenants and verified api credentials to cache")
+    public int getTenantCacheMaxSize();
+
+    @Config("org.killbill.tenant.kv.version.checkInterval")
+    @Default("5s")
+    @Description("How often the version of the tenant KV entries is checked, i.e. how long a change made by another node can go unnoticed")
+    public TimeSpan getTenantKVVersionCheckInterval();
+}
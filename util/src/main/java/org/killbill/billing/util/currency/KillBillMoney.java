@@ -17,8 +17,10 @@
 package org.killbill.billing.util.currency;
 
 import java.math.BigDecimal;
+import java.math.BigInteger;
 
 import org.joda.money.CurrencyUnit;
+import org.joda.money.IllegalCurrencyException;
 
 import org.killbill.billing.catalog.api.Currency;
 
@@ -27,10 +29,63 @@ public class KillBillMoney {
     public static final int ROUNDING_METHOD = BigDecimal.ROUND_HALF_UP;
     public static final int MAX_SCALE = 9;
 
+    // Number of decimal places for each currency, indexed by ordinal (resolving the CurrencyUnit each time is costly on hot paths)
+    private static final int UNKNOWN_CURRENCY = -1;
+    private static final int[] CURRENCY_SCALES = new int[Currency.values().length];
+
+    static {
+        for (final Currency currency : Currency.values()) {
+            try {
+                CURRENCY_SCALES[currency.ordinal()] = CurrencyUnit.getInstance(currency.toString()).getDecimalPlaces();
+            } catch (final IllegalCurrencyException e) {
+                CURRENCY_SCALES[currency.ordinal()] = UNKNOWN_CURRENCY;
+            }
+        }
+    }
+
     private KillBillMoney() {}
 
     public static BigDecimal of(final BigDecimal amount, final Currency currency) {
-        final CurrencyUnit currencyUnit = CurrencyUnit.getInstance(currency.toString());
-        return amount.setScale(currencyUnit.getDecimalPlaces(), ROUNDING_METHOD);
+        return amount.setScale(getScale(currency), ROUNDING_METHOD);
+    }
+
+    /**
+     * @param currency the currency
+     * @return the number of decimal places of the currency (e.g. 2 for USD, 0 for JPY)
+     */
+    public static int getScale(final Currency currency) {
+        final int scale = CURRENCY_SCALES[currency.ordinal()];
+        if (scale == UNKNOWN_CURRENCY) {
+            // Let Joda-Money throw the same exception as before
+            return CurrencyUnit.getInstance(currency.toString()).getDecimalPlaces();
+        }
+        return scale;
+    }
+
+    /**
+     * Convert an amount to its number of minor units (e.g. cents), rounded like {@link #of(BigDecimal, Currency)}
+     *
+     * @param amount   the amount
+     * @param currency the currency
+     * @return the number of minor units
+     * @throws ArithmeticException if the amount doesn't fit in a long
+     */
+    public static long toMinorUnits(final BigDecimal amount, final Currency currency) {
+        final BigInteger minorUnits = of(amount, currency).unscaledValue();
+        if (minorUnits.bitLength() > 63) {
+            throw new ArithmeticException("Amount " + amount + " " + currency + " is too large");
+        }
+        return minorUnits.longValue();
+    }
+
+    /**
+     * Convert a number of minor units back to an amount, at the currency scale
+     *
+     * @param minorUnits the number of minor units (e.g. cents)
+     * @param currency   the currency
+     * @return the amount, equal to what {@link #of(BigDecimal, Currency)} returns
+     */
+    public static BigDecimal fromMinorUnits(final long minorUnits, final Currency currency) {
+        return BigDecimal.valueOf(minorUnits, getScale(currency));
     }
 }
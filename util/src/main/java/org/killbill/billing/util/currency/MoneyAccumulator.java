@@ -0,0 +1,222 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.currency;
+
+import java.math.BigDecimal;
+
+import org.killbill.billing.catalog.api.Currency;
+
+import com.google.common.math.LongMath;
+
+/**
+ * Fixed-point accumulator for amounts (sums and sums of products), to be used on hot paths such as invoice generation and usage rating.
+ * <p/>
+ * Amounts are kept as an unscaled long and a scale, exactly like {@link BigDecimal} would: the result of {@link #toBigDecimal()}
+ * is equal (same unscaled value and scale) to the one obtained by chaining {@link BigDecimal#add(BigDecimal)} and
+ * {@link BigDecimal#multiply(BigDecimal)} from {@link BigDecimal#ZERO}. The running total is a primitive long, so no intermediate
+ * BigDecimal is created; if a value doesn't fit in a long, the accumulator transparently falls back to {@link BigDecimal} arithmetic.
+ * <p/>
+ * Callers which already hold amounts as an unscaled long and a scale (e.g. minor units) can use the long variants together with
+ * {@link #toMinorUnits(Currency)}, which don't allocate at all as long as the scale is between 0 and 18 and nothing overflows.
+ * <p/>
+ * Not thread-safe.
+ */
+public class MoneyAccumulator {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+        }
+    }
+
+    private long unscaledValue = 0L;
+    private int scale = 0;
+    // Non null once the fixed-point representation overflowed
+    private BigDecimal bigDecimalValue = null;
+
+    public MoneyAccumulator add(final BigDecimal amount) {
+        if (bigDecimalValue == null && isFastPathEligible(amount)) {
+            return add(unscaledValue(amount), amount.scale());
+        }
+        bigDecimalValue = toBigDecimal().add(amount);
+        return this;
+    }
+
+    /**
+     * Non-allocating variant of {@link #add(BigDecimal)}, for amounts already held as an unscaled long and a scale
+     *
+     * @param unscaledAmount the unscaled amount
+     * @param amountScale    the scale of the amount
+     * @return this accumulator
+     */
+    public MoneyAccumulator add(final long unscaledAmount, final int amountScale) {
+        if (bigDecimalValue == null && isFastPathScale(amountScale) && addExact(unscaledAmount, amountScale)) {
+            return this;
+        }
+        bigDecimalValue = toBigDecimal().add(BigDecimal.valueOf(unscaledAmount, amountScale));
+        return this;
+    }
+
+    public MoneyAccumulator addProduct(final BigDecimal amount, final long quantity) {
+        if (bigDecimalValue == null && isFastPathEligible(amount)) {
+            return addProduct(unscaledValue(amount), amount.scale(), quantity);
+        }
+        bigDecimalValue = toBigDecimal().add(amount.multiply(BigDecimal.valueOf(quantity)));
+        return this;
+    }
+
+    /**
+     * Non-allocating variant of {@link #addProduct(BigDecimal, long)}, for amounts already held as an unscaled long and a scale
+     *
+     * @param unscaledAmount the unscaled amount
+     * @param amountScale    the scale of the amount
+     * @param quantity       the quantity
+     * @return this accumulator
+     */
+    public MoneyAccumulator addProduct(final long unscaledAmount, final int amountScale, final long quantity) {
+        if (bigDecimalValue == null && isFastPathScale(amountScale)) {
+            try {
+                if (addExact(LongMath.checkedMultiply(unscaledAmount, quantity), amountScale)) {
+                    return this;
+                }
+            } catch (final ArithmeticException ignored) {
+                // Overflow, fall back to BigDecimal
+            }
+        }
+        bigDecimalValue = toBigDecimal().add(BigDecimal.valueOf(unscaledAmount, amountScale).multiply(BigDecimal.valueOf(quantity)));
+        return this;
+    }
+
+    public MoneyAccumulator addProduct(final BigDecimal amount, final BigDecimal factor) {
+        if (bigDecimalValue == null && isFastPathEligible(factor)) {
+            final int productScale = amount.scale() + factor.scale();
+            if (factor.scale() == 0) {
+                // Integral factor (e.g. a number of billing cycles), same as a quantity
+                return addProduct(amount, unscaledValue(factor));
+            } else if (isFastPathEligible(amount) && isFastPathScale(productScale)) {
+                return addProduct(unscaledValue(amount), productScale, unscaledValue(factor));
+            }
+        }
+        bigDecimalValue = toBigDecimal().add(amount.multiply(factor));
+        return this;
+    }
+
+    /**
+     * @return the exact accumulated amount
+     */
+    public BigDecimal toBigDecimal() {
+        return bigDecimalValue != null ? bigDecimalValue : BigDecimal.valueOf(unscaledValue, scale);
+    }
+
+    /**
+     * @param currency the currency
+     * @return the accumulated amount, rounded like {@link KillBillMoney#of(BigDecimal, Currency)}
+     */
+    public BigDecimal toMoney(final Currency currency) {
+        final int currencyScale = KillBillMoney.getScale(currency);
+        if (bigDecimalValue == null) {
+            final int scaleDifference = scale - currencyScale;
+            if (scaleDifference <= 0 && -scaleDifference < POWERS_OF_TEN.length) {
+                try {
+                    return BigDecimal.valueOf(LongMath.checkedMultiply(unscaledValue, POWERS_OF_TEN[-scaleDifference]), currencyScale);
+                } catch (final ArithmeticException ignored) {
+                    // Overflow, fall back to BigDecimal
+                }
+            } else if (scaleDifference > 0 && scaleDifference < POWERS_OF_TEN.length) {
+                return BigDecimal.valueOf(divideHalfUp(unscaledValue, POWERS_OF_TEN[scaleDifference]), currencyScale);
+            }
+        }
+        return KillBillMoney.of(toBigDecimal(), currency);
+    }
+
+    /**
+     * Non-allocating variant of {@link #toMoney(Currency)}
+     *
+     * @param currency the currency
+     * @return the accumulated amount in minor units (e.g. cents), rounded like {@link KillBillMoney#toMinorUnits(BigDecimal, Currency)}
+     * @throws ArithmeticException if the amount doesn't fit in a long
+     */
+    public long toMinorUnits(final Currency currency) {
+        final int currencyScale = KillBillMoney.getScale(currency);
+        if (bigDecimalValue == null) {
+            final int scaleDifference = scale - currencyScale;
+            if (scaleDifference <= 0 && -scaleDifference < POWERS_OF_TEN.length) {
+                try {
+                    return LongMath.checkedMultiply(unscaledValue, POWERS_OF_TEN[-scaleDifference]);
+                } catch (final ArithmeticException ignored) {
+                    // Overflow, fall back to BigDecimal
+                }
+            } else if (scaleDifference > 0 && scaleDifference < POWERS_OF_TEN.length) {
+                return divideHalfUp(unscaledValue, POWERS_OF_TEN[scaleDifference]);
+            }
+        }
+        return KillBillMoney.toMinorUnits(toBigDecimal(), currency);
+    }
+
+    // Same as BigDecimal#add: the result scale is the max of both scales
+    private boolean addExact(final long otherUnscaledValue, final int otherScale) {
+        try {
+            if (otherScale == scale) {
+                unscaledValue = LongMath.checkedAdd(unscaledValue, otherUnscaledValue);
+            } else if (otherScale > scale) {
+                if (otherScale - scale >= POWERS_OF_TEN.length) {
+                    return false;
+                }
+                unscaledValue = LongMath.checkedAdd(LongMath.checkedMultiply(unscaledValue, POWERS_OF_TEN[otherScale - scale]), otherUnscaledValue);
+                scale = otherScale;
+            } else {
+                if (scale - otherScale >= POWERS_OF_TEN.length) {
+                    return false;
+                }
+                unscaledValue = LongMath.checkedAdd(unscaledValue, LongMath.checkedMultiply(otherUnscaledValue, POWERS_OF_TEN[scale - otherScale]));
+            }
+            return true;
+        } catch (final ArithmeticException e) {
+            return false;
+        }
+    }
+
+    // Same as BigDecimal.ROUND_HALF_UP: round towards the nearest neighbor, away from zero when equidistant
+    private static long divideHalfUp(final long dividend, final long divisor) {
+        final long quotient = dividend / divisor;
+        final long remainder = dividend % divisor;
+        // |remainder| < divisor <= 10^18, so this cannot overflow
+        if (Math.abs(remainder) * 2 >= divisor) {
+            return dividend < 0 ? quotient - 1 : quotient + 1;
+        }
+        return quotient;
+    }
+
+    // The fixed-point representation is only used for non negative scales up to 10^18: beyond that, rescaling can't be done with a long multiplier
+    private static boolean isFastPathScale(final int scale) {
+        return scale >= 0 && scale < POWERS_OF_TEN.length;
+    }
+
+    // BigDecimal#precision is cheap for compact values: up to 18 digits, the unscaled value is guaranteed to fit in a long
+    private static boolean isFastPathEligible(final BigDecimal amount) {
+        return isFastPathScale(amount.scale()) && amount.precision() <= 18;
+    }
+
+    private static long unscaledValue(final BigDecimal amount) {
+        // BigDecimal#longValue doesn't allocate for compact integral values, the common case for quantities and number of cycles
+        return amount.scale() == 0 ? amount.longValue() : amount.unscaledValue().longValue();
+    }
+}
@@ -16,8 +16,12 @@
 
 package org.killbill.billing.util.customfield.dao;
 
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.annotation.Nullable;
@@ -29,6 +33,7 @@ import org.slf4j.LoggerFactory;
 import org.killbill.billing.BillingExceptionBase;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
+import org.killbill.billing.util.config.PaginationConfig;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
@@ -41,6 +46,7 @@ import org.killbill.billing.util.customfield.CustomField;
 import org.killbill.billing.util.customfield.api.DefaultCustomFieldCreationEvent;
 import org.killbill.billing.util.customfield.api.DefaultCustomFieldDeletionEvent;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.PaginationIteratorBuilder;
 import org.killbill.billing.util.entity.dao.EntityDaoBase;
@@ -49,20 +55,26 @@ import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
 
+import com.google.common.base.Functions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.inject.Inject;
 
 public class DefaultCustomFieldDao extends EntityDaoBase<CustomFieldModelDao, CustomField, CustomFieldApiException> implements CustomFieldDao {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultCustomFieldDao.class);
 
+    // Keep the IN clauses of bulk lookups reasonably sized
+    private static final int MAX_OBJECT_IDS_PER_QUERY = 1000;
+
     private final PersistentBus bus;
 
     @Inject
-    public DefaultCustomFieldDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher controllerDispatcher, final NonEntityDao nonEntityDao, final PersistentBus bus) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, controllerDispatcher, nonEntityDao), CustomFieldSqlDao.class);
+    public DefaultCustomFieldDao(final IDBI dbi, final Clock clock, final CacheControllerDispatcher controllerDispatcher, final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling, final PersistentBus bus,
+                                 final PaginationConfig paginationConfig) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, controllerDispatcher, nonEntityDao, aggregatedProfiling), CustomFieldSqlDao.class, paginationConfig);
         this.bus = bus;
     }
 
@@ -76,6 +88,31 @@ public class DefaultCustomFieldDao extends EntityDaoBase<CustomFieldModelDao, Cu
         });
     }
 
+    @Override
+    public Map<UUID, List<CustomFieldModelDao>> getCustomFieldsForObjects(final Collection<UUID> objectIds, final ObjectType objectType, final InternalTenantContext context) {
+        final Map<UUID, List<CustomFieldModelDao>> fieldsByObjectId = new LinkedHashMap<UUID, List<CustomFieldModelDao>>();
+        for (final UUID objectId : objectIds) {
+            fieldsByObjectId.put(objectId, new LinkedList<CustomFieldModelDao>());
+        }
+        if (fieldsByObjectId.isEmpty()) {
+            return fieldsByObjectId;
+        }
+
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Map<UUID, List<CustomFieldModelDao>>>() {
+            @Override
+            public Map<UUID, List<CustomFieldModelDao>> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final CustomFieldSqlDao customFieldSqlDao = entitySqlDaoWrapperFactory.become(CustomFieldSqlDao.class);
+                for (final List<UUID> objectIdsChunk : Iterables.partition(fieldsByObjectId.keySet(), MAX_OBJECT_IDS_PER_QUERY)) {
+                    final Collection<String> objectIdsAsStrings = Collections2.transform(objectIdsChunk, Functions.toStringFunction());
+                    for (final CustomFieldModelDao field : customFieldSqlDao.getCustomFieldsForObjects(objectIdsAsStrings, objectType, context)) {
+                        fieldsByObjectId.get(field.getObjectId()).add(field);
+                    }
+                }
+                return fieldsByObjectId;
+            }
+        });
+    }
+
     @Override
     public List<CustomFieldModelDao> getCustomFieldsForAccountType(final ObjectType objectType, final InternalTenantContext context) {
         final List<CustomFieldModelDao> allFields = getCustomFieldsForAccount(context);
@@ -155,6 +192,11 @@ public class DefaultCustomFieldDao extends EntityDaoBase<CustomFieldModelDao, Cu
                                                   public Iterator<CustomFieldModelDao> build(final CustomFieldSqlDao customFieldSqlDao, final Long limit, final InternalTenantContext context) {
                                                       return customFieldSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
                                                   }
+
+                                                  @Override
+                                                  public String getQueryKey() {
+                                                      return "search:" + searchKey;
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -16,14 +16,17 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
@@ -51,6 +54,10 @@ public interface AuditSqlDao {
     public void insertAuditFromTransaction(@BindBean final EntityAudit audit,
                                            @BindBean final InternalCallContext context);
 
+    @SqlBatch
+    public void insertAuditsFromTransaction(@BindBean final InternalCallContext context,
+                                            @BindBean final Iterable<EntityAudit> audits);
+
     @SqlQuery
     @SmartFetchSize(shouldStream = true)
     public Iterator<AuditLogModelDao> getAuditLogsForAccountRecordId(@BindBean final InternalTenantContext context);
@@ -60,6 +67,11 @@ public interface AuditSqlDao {
     public Iterator<AuditLogModelDao> getAuditLogsForTableNameAndAccountRecordId(@Bind("tableName") final String tableName,
                                                                                  @BindBean final InternalTenantContext context);
 
+    @SqlQuery
+    public List<AuditLogModelDao> getAuditLogsForTableNameAndAccountRecordIds(@Bind("tableName") final String tableName,
+                                                                             @BindIn("accountRecordIds") final Collection<Long> accountRecordIds,
+                                                                             @BindBean final InternalTenantContext context);
+
     @SqlQuery
     @Cachable(CacheType.AUDIT_LOG)
     public List<AuditLogModelDao> getAuditLogsForTargetRecordId(@CachableKey(1) @Bind("tableName") final String tableName,
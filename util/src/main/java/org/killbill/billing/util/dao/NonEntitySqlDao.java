@@ -16,6 +16,7 @@
 
 package org.killbill.billing.util.dao;
 
+import java.util.Collection;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.sqlobject.Bind;
@@ -25,6 +26,7 @@ import org.skife.jdbi.v2.sqlobject.customizers.Define;
 import org.skife.jdbi.v2.sqlobject.mixins.CloseMe;
 import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
 import org.skife.jdbi.v2.sqlobject.stringtemplate.UseStringTemplate3StatementLocator;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
 
@@ -76,4 +78,16 @@ public interface NonEntitySqlDao extends Transactional<NonEntitySqlDao>, CloseMe
     @SqlQuery
     public Iterable<RecordIdIdMappings> getRecordIdIdMappings(@Define("tableName") String tableName,
                                                               @BindBean final InternalTenantContext context);
+
+    // The tenant is the one of the rows (bulk inserts set it on each entity), not necessarily the one of the context
+    @SqlQuery
+    public Iterable<RecordIdIdMappings> getRecordIdIdMappingsForIds(@Define("tableName") String tableName,
+                                                                    @BindIn("ids") final Collection<String> ids,
+                                                                    @Bind("tenantRecordId") final Long tenantRecordId);
+
+    @SqlQuery
+    public Iterable<RecordIdIdMappings> getHistoryRecordIdIdMappingsForIds(@Define("tableName") String tableName,
+                                                                           @Define("historyTableName") String historyTableName,
+                                                                           @BindIn("ids") final Collection<String> ids,
+                                                                           @Bind("tenantRecordId") final Long tenantRecordId);
 }
@@ -33,7 +33,7 @@ import com.google.inject.Inject;
 public class DefaultEmailSender implements EmailSender {
 
     private final Logger log = LoggerFactory.getLogger(EmailSender.class);
-    private final EmailConfig config;
+    protected final EmailConfig config;
 
     @Inject
     public DefaultEmailSender(final EmailConfig emailConfig) {
@@ -90,9 +90,14 @@ public class DefaultEmailSender implements EmailSender {
             email.setSSL(config.useSSL());
 
             log.info("Sending email to {}, cc {}, subject {}", new Object[]{to, cc, subject});
-            email.send();
+            deliver(email);
         } catch (EmailException ee) {
             throw new EmailApiException(ee, ErrorCode.EMAIL_SENDING_FAILED);
         }
     }
+
+    // Opens a new SMTP connection for each email
+    protected void deliver(final Email email) throws EmailException {
+        email.send();
+    }
 }
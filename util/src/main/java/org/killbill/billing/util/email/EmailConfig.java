@@ -20,6 +20,7 @@ import org.skife.config.Config;
 import org.skife.config.Default;
 import org.skife.config.DefaultNull;
 import org.skife.config.Description;
+import org.skife.config.TimeSpan;
 
 import org.killbill.billing.util.config.KillbillConfig;
 
@@ -50,6 +51,11 @@ public interface EmailConfig extends KillbillConfig {
     @Description("Password to use to authenticate against the MTA")
     public String getSmtpPassword();
 
+    @Config("org.killbill.mail.smtp.connectionIdleTimeout")
+    @Default("30s")
+    @Description("How long an idle SMTP connection is kept open to be reused for the next email")
+    public TimeSpan getSmtpConnectionIdleTimeout();
+
     @Config("org.killbill.mail.from")
     @Default("support@example.com")
     @Description("Default From: field for email notifications")
@@ -33,8 +33,13 @@ public class EmailModule extends KillBillModule {
         bind(EmailConfig.class).toInstance(config);
     }
 
+    protected void installEmailSender() {
+        bind(EmailSender.class).to(PersistentConnectionEmailSender.class).asEagerSingleton();
+    }
+
     @Override
     protected void configure() {
         installEmailConfig();
+        installEmailSender();
     }
 }
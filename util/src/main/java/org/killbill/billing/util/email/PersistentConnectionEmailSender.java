@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.email;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.commons.mail.Email;
+import org.apache.commons.mail.EmailException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.inject.Inject;
+
+/**
+ * EmailSender which keeps its SMTP connection open between emails: consecutive deliveries (e.g. the invoice emails
+ * after a billing run) only pay for the SMTP handshake and authentication once.
+ * <p/>
+ * Deliveries are serialized on the connection. Connections idle for longer than the configured timeout, or dropped
+ * by the server, are re-opened transparently before sending.
+ */
+public class PersistentConnectionEmailSender extends DefaultEmailSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistentConnectionEmailSender.class);
+
+    private final long idleTimeoutMillis;
+
+    // Guarded by this
+    private Transport transport;
+    private long lastUsedMillis;
+
+    @Inject
+    public PersistentConnectionEmailSender(final EmailConfig emailConfig) {
+        super(emailConfig);
+        this.idleTimeoutMillis = emailConfig.getSmtpConnectionIdleTimeout().getMillis();
+    }
+
+    @Override
+    protected synchronized void deliver(final Email email) throws EmailException {
+        email.buildMimeMessage();
+        final MimeMessage message = email.getMimeMessage();
+        try {
+            message.saveChanges();
+            getConnectedTransport(email.getMailSession()).sendMessage(message, message.getAllRecipients());
+            lastUsedMillis = System.currentTimeMillis();
+        } catch (final MessagingException e) {
+            // Don't reuse a connection in an unknown state
+            close();
+            throw new EmailException(e);
+        }
+    }
+
+    public synchronized void close() {
+        if (transport == null) {
+            return;
+        }
+
+        try {
+            transport.close();
+        } catch (final MessagingException e) {
+            logger.debug("Unable to close SMTP connection", e);
+        } finally {
+            transport = null;
+        }
+    }
+
+    private Transport getConnectedTransport(final Session session) throws MessagingException {
+        if (transport != null && (System.currentTimeMillis() - lastUsedMillis > idleTimeoutMillis || !transport.isConnected())) {
+            close();
+        }
+
+        if (transport == null) {
+            final Transport newTransport = session.getTransport();
+            newTransport.connect();
+            transport = newTransport;
+        }
+        return transport;
+    }
+}
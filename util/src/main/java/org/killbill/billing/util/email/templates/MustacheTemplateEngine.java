@@ -20,6 +20,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.killbill.billing.util.io.IOUtils;
 import org.killbill.xmlloader.UriAccessor;
 
@@ -29,18 +32,32 @@ import com.samskivert.mustache.Template;
 
 public class MustacheTemplateEngine implements TemplateEngine {
 
+    // Compiled templates are immutable and thread-safe: read and parse each template only once
+    private final ConcurrentMap<String, Template> compiledTemplates = new ConcurrentHashMap<String, Template>();
+    private final Mustache.Compiler compiler = Mustache.compiler();
+
     @Override
     public String executeTemplate(final String templateName, final Map<String, Object> data) throws IOException {
-        final String templateText = getTemplateText(templateName);
-        return executeTemplateText(templateText, data);
+        Template template = compiledTemplates.get(templateName);
+        if (template == null) {
+            // Racing threads may compile the same template twice, which is harmless
+            template = compiler.compile(getTemplateText(templateName));
+            compiledTemplates.put(templateName, template);
+        }
+        return template.execute(data);
     }
 
     @VisibleForTesting
     public String executeTemplateText(final String templateText, final Map<String, Object> data) {
-        final Template template = Mustache.compiler().compile(templateText);
+        final Template template = compiler.compile(templateText);
         return template.execute(data);
     }
 
+    @Override
+    public void invalidateTemplates() {
+        compiledTemplates.clear();
+    }
+
     private String getTemplateText(final String templateName) throws IOException {
         final InputStream templateStream;
         try {
@@ -21,4 +21,7 @@ import java.util.Map;
 
 public interface TemplateEngine {
     public String executeTemplate(String templateName, Map<String, Object> data) throws IOException;
+
+    // Force templates to be re-read on next use (e.g. after the template files have been updated)
+    public void invalidateTemplates();
 }
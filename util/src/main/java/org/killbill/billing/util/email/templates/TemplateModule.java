@@ -20,6 +20,7 @@ package org.killbill.billing.util.email.templates;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.killbill.billing.util.template.translation.TranslationBundleCache;
 
 public class TemplateModule extends KillBillModule {
 
@@ -30,6 +31,7 @@ public class TemplateModule extends KillBillModule {
     @Override
     protected void configure() {
         bind(TemplateEngine.class).to(MustacheTemplateEngine.class).asEagerSingleton();
+        bind(TranslationBundleCache.class).asEagerSingleton();
     }
 
 }
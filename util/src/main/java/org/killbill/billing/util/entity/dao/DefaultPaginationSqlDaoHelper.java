@@ -17,18 +17,41 @@
 package org.killbill.billing.util.entity.dao;
 
 import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
 
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.config.PaginationConfig;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.billing.util.entity.Pagination;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 public class DefaultPaginationSqlDaoHelper {
 
+    // How to compute the number of records: EXACT (count on each page), ESTIMATE (count reused for a while) or NONE
+    public enum CountMode {
+        EXACT,
+        ESTIMATE,
+        NONE
+    }
+
+    private static final long MAX_NB_COUNT_ESTIMATES = 10000;
+
     private final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao;
+    private final CountMode countMode;
+    private final Cache<String, Long> countEstimates;
 
-    public DefaultPaginationSqlDaoHelper(final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao) {
+    public DefaultPaginationSqlDaoHelper(final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao, final PaginationConfig paginationConfig) {
         this.transactionalSqlDao = transactionalSqlDao;
+        this.countMode = CountMode.valueOf(paginationConfig.getPaginationCountMode().toUpperCase());
+        this.countEstimates = CacheBuilder.newBuilder()
+                                          .maximumSize(MAX_NB_COUNT_ESTIMATES)
+                                          .expireAfterWrite(paginationConfig.getPaginationCountEstimateTtl().getMillis(), TimeUnit.MILLISECONDS)
+                                          .build();
     }
 
     public <E extends Entity, M extends EntityModelDao<E>, S extends EntitySqlDao<M, E>> Pagination<M> getPagination(final Class<? extends EntitySqlDao<M, E>> sqlDaoClazz,
@@ -36,31 +59,80 @@ public class DefaultPaginationSqlDaoHelper {
                                                                                                                      final Long offset,
                                                                                                                      final Long limit,
                                                                                                                      final InternalTenantContext context) {
+        final String queryKey = paginationIteratorBuilder.getQueryKey() == null ? null : sqlDaoClazz.getName() + "|" + context.getTenantRecordId() + "|" + paginationIteratorBuilder.getQueryKey();
+
         // Note: the connection will be busy as we stream the results out: hence we cannot use
         // SQL_CALC_FOUND_ROWS / FOUND_ROWS on the actual query.
         // We still need to know the actual number of results, mainly for the UI so that it knows if it needs to fetch
         // more pages.
-        final Long count = transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Long>() {
+        final Long count = getCount(queryKey, new CountCallback() {
             @Override
-            public Long inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
-                final EntitySqlDao<M, E> sqlDao = entitySqlDaoWrapperFactory.become(sqlDaoClazz);
-                return paginationIteratorBuilder.getCount((S) sqlDao, context);
+            public Long doCount() {
+                return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Long>() {
+                    @Override
+                    public Long inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                        final EntitySqlDao<M, E> sqlDao = entitySqlDaoWrapperFactory.become(sqlDaoClazz);
+                        return paginationIteratorBuilder.getCount((S) sqlDao, context);
+                    }
+                });
             }
         });
 
         // We usually always want to wrap our queries in an EntitySqlDaoTransactionWrapper... except here.
         // Since we want to stream the results out, we don't want to auto-commit when this method returns.
         final EntitySqlDao<M, E> sqlDao = transactionalSqlDao.onDemand(sqlDaoClazz);
-        final Long totalCount = sqlDao.getCount(context);
-        final Iterator<M> results = paginationIteratorBuilder.build((S) sqlDao, limit, context);
+        final Long totalCount = getCount(sqlDaoClazz.getName() + "|" + context.getTenantRecordId(), new CountCallback() {
+            @Override
+            public Long doCount() {
+                return sqlDao.getCount(context);
+            }
+        });
 
+        final Iterator<M> results = paginationIteratorBuilder.build((S) sqlDao, limit, context);
         return new DefaultPagination<M>(offset, limit, count, totalCount, results);
     }
 
+    private Long getCount(@Nullable final String key, final CountCallback countCallback) {
+        switch (countMode) {
+            case NONE:
+                return null;
+            case ESTIMATE:
+                if (key != null) {
+                    final Long estimate = countEstimates.getIfPresent(key);
+                    if (estimate != null) {
+                        return estimate;
+                    }
+                    final Long count = countCallback.doCount();
+                    if (count != null) {
+                        countEstimates.put(key, count);
+                    }
+                    return count;
+                }
+                // Fall through: we don't know how to identify the query
+            case EXACT:
+            default:
+                return countCallback.doCount();
+        }
+    }
+
+    private interface CountCallback {
+
+        Long doCount();
+    }
+
     public abstract static class PaginationIteratorBuilder<M extends EntityModelDao<E>, E extends Entity, S extends EntitySqlDao<M, E>> {
 
         public abstract Long getCount(final S sqlDao, final InternalTenantContext context);
 
         public abstract Iterator<M> build(final S sqlDao, final Long limit, final InternalTenantContext context);
+
+        /**
+         * Identifies the query (e.g. the search key), so that its count can be estimated
+         *
+         * @return the query key or null if the count should always be exact
+         */
+        public String getQueryKey() {
+            return null;
+        }
     }
 }
@@ -23,6 +23,7 @@ import org.killbill.billing.BillingExceptionBase;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
 import org.killbill.billing.util.audit.ChangeType;
+import org.killbill.billing.util.config.PaginationConfig;
 import org.killbill.billing.util.entity.DefaultPagination;
 import org.killbill.billing.util.entity.Entity;
 import org.killbill.billing.util.entity.Pagination;
@@ -35,10 +36,10 @@ public abstract class EntityDaoBase<M extends EntityModelDao<E>, E extends Entit
 
     private final Class<? extends EntitySqlDao<M, E>> realSqlDao;
 
-    public EntityDaoBase(final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao, final Class<? extends EntitySqlDao<M, E>> realSqlDao) {
+    public EntityDaoBase(final EntitySqlDaoTransactionalJdbiWrapper transactionalSqlDao, final Class<? extends EntitySqlDao<M, E>> realSqlDao, final PaginationConfig paginationConfig) {
         this.transactionalSqlDao = transactionalSqlDao;
         this.realSqlDao = realSqlDao;
-        this.paginationHelper = new DefaultPaginationSqlDaoHelper(transactionalSqlDao);
+        this.paginationHelper = new DefaultPaginationSqlDaoHelper(transactionalSqlDao, paginationConfig);
     }
 
     @Override
@@ -144,6 +145,11 @@ public abstract class EntityDaoBase<M extends EntityModelDao<E>, E extends Entit
                                                   public Iterator<M> build(final EntitySqlDao<M, E> sqlDao, final Long limit, final InternalTenantContext context) {
                                                       return sqlDao.get(offset, limit, getNaturalOrderingColumns(), context);
                                                   }
+
+                                                  @Override
+                                                  public String getQueryKey() {
+                                                      return "get";
+                                                  }
                                               },
                                               offset,
                                               limit,
@@ -34,6 +34,7 @@ import org.killbill.billing.util.entity.Entity;
 import org.killbill.commons.jdbi.statement.SmartFetchSize;
 import org.skife.jdbi.v2.sqlobject.Bind;
 import org.skife.jdbi.v2.sqlobject.BindBean;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.customizers.Define;
@@ -52,6 +53,11 @@ public interface EntitySqlDao<M extends EntityModelDao<E>, E extends Entity> ext
     public void create(@BindBean final M entity,
                        @BindBean final InternalCallContext context) throws EntityPersistenceException;
 
+    // Not audited: see EntitySqlDaoBulkHelper. Note that the context is bound first, so that the account and tenant record ids of each entity take precedence
+    @SqlBatch
+    public void createBatch(@BindBean final InternalCallContext context,
+                            @BindBean final Iterable<M> entities);
+
     @SqlQuery
     public M getById(@Bind("id") final String id,
                      @BindBean final InternalTenantContext context);
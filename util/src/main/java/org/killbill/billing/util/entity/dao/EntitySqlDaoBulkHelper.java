@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.entity.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.killbill.billing.callcontext.InternalCallContext;
+import org.killbill.billing.util.audit.ChangeType;
+import org.killbill.billing.util.dao.EntityAudit;
+import org.killbill.billing.util.dao.EntityHistoryModelDao;
+import org.killbill.billing.util.dao.NonEntitySqlDao;
+import org.killbill.billing.util.dao.RecordIdIdMappings;
+import org.killbill.billing.util.dao.TableName;
+import org.killbill.billing.util.entity.Entity;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Bulk version of the audited create calls, used for imports. The entities are inserted in a single JDBC batch,
+ * and the history and audit rows are generated with one batch each, instead of the handful of queries per row
+ * issued by EntitySqlDaoWrapperInvocationHandler. Caches are not populated.
+ */
+public class EntitySqlDaoBulkHelper {
+
+    /**
+     * Create the entities, and their history and audit rows
+     *
+     * @param sqlDao   the SqlDao for the entities table, within the current transaction
+     * @param entities the entities to create: their account and tenant record ids need to be set, as they can belong to different accounts
+     * @param context  the context, used for the user fields (created by, user token, etc.)
+     * @return the record ids of the created entities
+     */
+    public <M extends EntityModelDao<E>, E extends Entity> Map<UUID, Long> create(final EntitySqlDao<M, E> sqlDao,
+                                                                                  final Collection<M> entities,
+                                                                                  final InternalCallContext context) {
+        if (entities.isEmpty()) {
+            return ImmutableMap.<UUID, Long>of();
+        }
+
+        final TableName tableName = entities.iterator().next().getTableName();
+        // The rows are looked up within their own tenant, which isn't necessarily the one of the context
+        final Multimap<Long, String> idsByTenantRecordId = ArrayListMultimap.<Long, String>create();
+        for (final M entity : entities) {
+            idsByTenantRecordId.put(entity.getTenantRecordId(), entity.getId().toString());
+        }
+
+        sqlDao.createBatch(context, entities);
+
+        final NonEntitySqlDao nonEntitySqlDao = sqlDao.become(NonEntitySqlDao.class);
+        final Map<UUID, Long> recordIds = new HashMap<UUID, Long>();
+        for (final Long tenantRecordId : idsByTenantRecordId.keySet()) {
+            recordIds.putAll(toMap(nonEntitySqlDao.getRecordIdIdMappingsForIds(tableName.getTableName(), idsByTenantRecordId.get(tenantRecordId), tenantRecordId)));
+        }
+
+        // Note: audit entries point to the history record id
+        final Map<UUID, Long> auditTargetRecordIds;
+        if (tableName.getHistoryTableName() != null) {
+            final List<EntityHistoryModelDao<M, E>> histories = new ArrayList<EntityHistoryModelDao<M, E>>(entities.size());
+            for (final M entity : entities) {
+                histories.add(new EntityHistoryModelDao<M, E>(entity, recordIds.get(entity.getId()), ChangeType.INSERT, context.getCreatedDate()));
+            }
+            sqlDao.addHistoriesFromTransaction(context, histories);
+            auditTargetRecordIds = new HashMap<UUID, Long>();
+            for (final Long tenantRecordId : idsByTenantRecordId.keySet()) {
+                auditTargetRecordIds.putAll(toMap(nonEntitySqlDao.getHistoryRecordIdIdMappingsForIds(tableName.getTableName(), tableName.getHistoryTableName().getTableName(),
+                                                                                                     idsByTenantRecordId.get(tenantRecordId), tenantRecordId)));
+            }
+        } else {
+            auditTargetRecordIds = recordIds;
+        }
+
+        final TableName auditTableName = Objects.firstNonNull(tableName.getHistoryTableName(), tableName);
+        final List<EntityAudit> audits = new ArrayList<EntityAudit>(entities.size());
+        for (final M entity : entities) {
+            final EntityAudit audit = new EntityAudit(auditTableName, auditTargetRecordIds.get(entity.getId()), ChangeType.INSERT, context.getCreatedDate());
+            // Populate the account record id when creating the account record
+            audit.setAccountRecordId(TableName.ACCOUNT.equals(tableName) ? recordIds.get(entity.getId()) : entity.getAccountRecordId());
+            audit.setTenantRecordId(entity.getTenantRecordId());
+            audits.add(audit);
+        }
+        sqlDao.insertAuditsFromTransaction(context, audits);
+
+        return recordIds;
+    }
+
+    private Map<UUID, Long> toMap(final Iterable<RecordIdIdMappings> mappings) {
+        final Map<UUID, Long> result = new HashMap<UUID, Long>();
+        for (final RecordIdIdMappings mapping : mappings) {
+            result.put(mapping.getId(), mapping.getRecordId());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.entity.dao;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+import org.killbill.billing.util.config.PaginationConfig;
+
+/**
+ * Helpers to build search patterns which can be served by an index.
+ * <p/>
+ * A leading wildcard (<code>like '%key%'</code>) forces the database to scan the whole table (twice, as we also count the results).
+ * By default, we only match on the beginning of the values, which an index can serve. The legacy substring match
+ * is available via <code>org.killbill.dao.search.mode=LIKE</code> (see PaginationConfig).
+ */
+public class SearchKeys {
+
+    public enum SearchMode {
+        // Indexed match on the beginning of the value
+        PREFIX,
+        // Indexed match on the whole value
+        EXACT,
+        // Legacy substring match (leading wildcard, not indexed)
+        LIKE
+    }
+
+    // Size of the search_key columns
+    public static final int MAX_SEARCH_KEY_LENGTH = 255;
+
+    // Separators used to split a value into individual tokens (e.g. first and last name, user and domain of an email)
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[\\s@.,;:_/()+\\-]+");
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    private final SearchMode searchMode;
+
+    public SearchKeys(final PaginationConfig paginationConfig) {
+        this.searchMode = SearchMode.valueOf(paginationConfig.getSearchMode().toUpperCase());
+    }
+
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    public boolean isIndexedSearch() {
+        return searchMode != SearchMode.LIKE;
+    }
+
+    /**
+     * Build the value to bind to <code>:likeSearchKey</code>
+     *
+     * @param searchKey the search key, as specified by the user
+     * @return the pattern to use, depending on the configured search mode
+     */
+    public String toLikeSearchKey(final String searchKey) {
+        return toLikeSearchKey(searchKey, searchMode);
+    }
+
+    public static String toLikeSearchKey(final String searchKey, final SearchMode mode) {
+        switch (mode) {
+            case LIKE:
+                return String.format("%%%s%%", searchKey);
+            case EXACT:
+                return escapeWildcards(searchKey);
+            case PREFIX:
+            default:
+                return escapeWildcards(searchKey) + "%";
+        }
+    }
+
+    /**
+     * Compute the search keys for a set of values: each normalized value and each of its tokens.
+     * For example, "John Doe" and "john.doe@example.com" give "john doe", "john", "doe", "john.doe@example.com" and "example".
+     *
+     * @param values values to index (null values are ignored)
+     * @return the normalized search keys
+     */
+    public static Set<String> tokenize(final String... values) {
+        final Set<String> searchKeys = new LinkedHashSet<String>();
+        for (final String value : values) {
+            final String normalizedValue = normalize(value);
+            if (normalizedValue == null) {
+                continue;
+            }
+
+            searchKeys.add(normalizedValue);
+            for (final String token : TOKEN_SEPARATOR.split(normalizedValue)) {
+                if (!token.isEmpty()) {
+                    searchKeys.add(token);
+                }
+            }
+        }
+        return searchKeys;
+    }
+
+    /**
+     * Normalize a value (or a user specified search key) the same way search keys are stored
+     *
+     * @param value value to normalize
+     * @return the trimmed, lower-cased value, or null if there is nothing to index
+     */
+    public static String normalize(@Nullable final String value) {
+        if (value == null) {
+            return null;
+        }
+
+        final String normalizedValue = WHITESPACES.matcher(value.trim()).replaceAll(" ").toLowerCase(Locale.ENGLISH);
+        if (normalizedValue.isEmpty()) {
+            return null;
+        } else if (normalizedValue.length() > MAX_SEARCH_KEY_LENGTH) {
+            return normalizedValue.substring(0, MAX_SEARCH_KEY_LENGTH);
+        } else {
+            return normalizedValue;
+        }
+    }
+
+    // The default escape character is the backslash for MySQL, H2 and PostgreSQL
+    private static String escapeWildcards(final String searchKey) {
+        return searchKey.replace("\\", "\\\\")
+                        .replace("%", "\\%")
+                        .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.killbill.billing.util.api.ColumnInfo;
+import org.killbill.billing.util.api.DatabaseExportOutputStream;
+
+/**
+ * Compact binary export format, column oriented: rows are buffered in blocks and each block is written column by column,
+ * with a per-block dictionary for repeated strings (created_by, currency, states, etc.).
+ * <p/>
+ * Layout (varints are unsigned LEB128, signed values are zigzag encoded first):
+ * <pre>
+ * export := MAGIC version:byte (table | block)*
+ * table  := 'T' name:string nbColumns:varint (columnName:string dataType:string)*
+ * block  := 'B' nbRows:varint (value{nbRows})*        -- one run of values per column, for the last table seen
+ * value  := NULL | LONG zigzag-varint | DECIMAL string | TIMESTAMP zigzag-varint (epoch millis)
+ *         | TRUE | FALSE | BYTES length:varint byte* | STRING string | STRING_REF dictionary-index:varint
+ * string := length:varint utf8-byte*
+ * </pre>
+ */
+public class ColumnarExportOutputStream extends OutputStream implements DatabaseExportOutputStream {
+
+    public static final byte[] MAGIC = {'K', 'B', 'E', 'X'};
+    public static final byte VERSION = 1;
+
+    public static final byte TABLE_MARKER = 'T';
+    public static final byte BLOCK_MARKER = 'B';
+
+    public static final byte NULL = 0;
+    public static final byte LONG = 1;
+    public static final byte DECIMAL = 2;
+    public static final byte TIMESTAMP = 3;
+    public static final byte TRUE = 4;
+    public static final byte FALSE = 5;
+    public static final byte BYTES = 6;
+    public static final byte STRING = 7;
+    public static final byte STRING_REF = 8;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int DEFAULT_BLOCK_SIZE = 1000;
+
+    private final OutputStream delegate;
+    private final int blockSize;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private List<ColumnInfo> currentColumns;
+    private List<Map<String, Object>> currentRows;
+    private boolean headerWritten = false;
+
+    public ColumnarExportOutputStream(final OutputStream delegate) {
+        this(delegate, DEFAULT_BLOCK_SIZE);
+    }
+
+    public ColumnarExportOutputStream(final OutputStream delegate, final int blockSize) {
+        this.delegate = delegate;
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        delegate.write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        delegate.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writeBlock();
+        delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        delegate.close();
+    }
+
+    @Override
+    public void newTable(final String tableName, final List<ColumnInfo> columnsForTable) {
+        try {
+            writeBlock();
+            writeHeaderIfNeeded();
+
+            buffer.write(TABLE_MARKER);
+            writeString(tableName);
+            writeVarint(columnsForTable.size());
+            for (final ColumnInfo columnInfo : columnsForTable) {
+                writeString(columnInfo.getColumnName());
+                writeString(columnInfo.getDataType() == null ? "" : columnInfo.getDataType());
+            }
+            flushBuffer();
+        } catch (final IOException e) {
+            // The interface doesn't let us throw IOException here
+            throw new RuntimeException(e);
+        }
+
+        currentColumns = new ArrayList<ColumnInfo>(columnsForTable);
+        currentRows = new ArrayList<Map<String, Object>>(blockSize);
+    }
+
+    @Override
+    public void write(final Map<String, Object> row) throws IOException {
+        if (currentRows == null) {
+            throw new IllegalStateException("newTable must be called before writing rows");
+        }
+
+        currentRows.add(row);
+        if (currentRows.size() >= blockSize) {
+            writeBlock();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (currentRows == null || currentRows.isEmpty()) {
+            return;
+        }
+
+        buffer.write(BLOCK_MARKER);
+        writeVarint(currentRows.size());
+        for (final ColumnInfo columnInfo : currentColumns) {
+            final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+            for (final Map<String, Object> row : currentRows) {
+                writeValue(row.get(columnInfo.getColumnName()), dictionary);
+            }
+        }
+        currentRows.clear();
+        flushBuffer();
+    }
+
+    private void writeValue(final Object value, final Map<String, Integer> dictionary) throws IOException {
+        if (value == null) {
+            buffer.write(NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            buffer.write(LONG);
+            writeSignedVarint(((Number) value).longValue());
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+            // e.g. bigint unsigned
+            buffer.write(LONG);
+            writeSignedVarint(((BigInteger) value).longValue());
+        } else if (value instanceof BigDecimal) {
+            buffer.write(DECIMAL);
+            writeString(((BigDecimal) value).toPlainString());
+        } else if (value instanceof java.util.Date) {
+            // Covers java.sql.Timestamp, java.sql.Date and java.sql.Time, the column data type tells them apart
+            buffer.write(TIMESTAMP);
+            writeSignedVarint(((java.util.Date) value).getTime());
+        } else if (value instanceof Boolean) {
+            buffer.write((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof byte[]) {
+            buffer.write(BYTES);
+            writeVarint(((byte[]) value).length);
+            buffer.write((byte[]) value);
+        } else {
+            final String string = value.toString();
+            final Integer index = dictionary.get(string);
+            if (index != null) {
+                buffer.write(STRING_REF);
+                writeVarint(index);
+            } else {
+                dictionary.put(string, dictionary.size());
+                buffer.write(STRING);
+                writeString(string);
+            }
+        }
+    }
+
+    private void writeHeaderIfNeeded() throws IOException {
+        if (!headerWritten) {
+            buffer.write(MAGIC);
+            buffer.write(VERSION);
+            headerWritten = true;
+        }
+    }
+
+    private void writeString(final String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF_8);
+        writeVarint(bytes.length);
+        buffer.write(bytes);
+    }
+
+    private void writeSignedVarint(final long value) {
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    private void writeVarint(final long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            buffer.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.write((int) remaining);
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.writeTo(delegate);
+        buffer.reset();
+    }
+}
@@ -16,9 +16,23 @@
 
 package org.killbill.billing.util.export.dao;
 
+import java.io.Flushable;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -31,21 +45,65 @@ import org.skife.jdbi.v2.tweak.HandleCallback;
 import org.killbill.billing.util.api.ColumnInfo;
 import org.killbill.billing.util.api.DatabaseExportOutputStream;
 import org.killbill.billing.callcontext.InternalTenantContext;
+import org.killbill.billing.util.config.ExportConfig;
 import org.killbill.billing.util.dao.TableName;
 import org.killbill.billing.util.validation.DefaultColumnInfo;
 import org.killbill.billing.util.validation.dao.DatabaseSchemaDao;
 
+/**
+ * Exports all rows of an account. Tables are read concurrently, each on its own connection, into bounded buffers,
+ * while the calling thread writes them out one table at a time (the output stream doesn't need to be thread safe).
+ * <p/>
+ * Readers run on a pool shared by all the exports, which caps the number of connections used. Each export keeps at most
+ * that many tables in flight, and the number of concurrent exports is capped as well, so the pool queue is bounded.
+ * <p/>
+ * Note that tables are not read in the same transaction, so the export isn't a consistent snapshot
+ * if the account is being modified at the same time.
+ */
 @Singleton
 public class DatabaseExportDao {
 
+    private static final String EXPORT_THREAD_PREFIX = "export-th-";
+    private static final long IDLE_THREAD_KEEP_ALIVE_SEC = 60;
+    // How often a reader blocked on a full buffer checks whether its export was aborted
+    private static final long ABORT_CHECK_INTERVAL_MS = 1000;
+
+    // Marker for the end of a table in the buffers
+    private static final Object END_OF_TABLE = new Object();
+
     private final DatabaseSchemaDao databaseSchemaDao;
     private final IDBI dbi;
+    private final int nbReadersPerExport;
+    private final int bufferSize;
+    private final Semaphore exportPermits;
+    private final ThreadPoolExecutor executor;
 
     @Inject
     public DatabaseExportDao(final DatabaseSchemaDao databaseSchemaDao,
-                             final IDBI dbi) {
+                             final IDBI dbi,
+                             final ExportConfig exportConfig) {
         this.databaseSchemaDao = databaseSchemaDao;
         this.dbi = dbi;
+        this.nbReadersPerExport = Math.max(1, exportConfig.getExportNbThreads());
+        this.bufferSize = Math.max(1, exportConfig.getExportBufferRows());
+
+        final int maxConcurrentExports = Math.max(1, exportConfig.getExportMaxConcurrent());
+        this.exportPermits = new Semaphore(maxConcurrentExports, true);
+        // FIFO, and large enough for the tables in flight of all the concurrent exports: submissions are never rejected
+        this.executor = new ThreadPoolExecutor(nbReadersPerExport, nbReadersPerExport,
+                                               IDLE_THREAD_KEEP_ALIVE_SEC, TimeUnit.SECONDS,
+                                               new LinkedBlockingQueue<Runnable>(maxConcurrentExports * nbReadersPerExport),
+                                               new ThreadFactory() {
+                                                   @Override
+                                                   public Thread newThread(final Runnable r) {
+                                                       final Thread th = new Thread(r);
+                                                       th.setName(EXPORT_THREAD_PREFIX + th.getId());
+                                                       th.setDaemon(true);
+                                                       return th;
+                                                   }
+                                               });
+        // Don't keep the threads (and their connections) around between exports
+        executor.allowCoreThreadTimeOut(true);
     }
 
     public void exportDataForAccount(final DatabaseExportOutputStream out, final InternalTenantContext context) {
@@ -53,26 +111,113 @@ public class DatabaseExportDao {
             return;
         }
 
+        try {
+            exportPermits.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to export account " + context.getAccountRecordId(), e);
+        }
+        try {
+            doExportDataForAccount(out, context);
+        } finally {
+            exportPermits.release();
+        }
+    }
+
+    private void doExportDataForAccount(final DatabaseExportOutputStream out, final InternalTenantContext context) {
+
         final List<DefaultColumnInfo> columns = databaseSchemaDao.getColumnInfoList();
         if (columns.size() == 0) {
             return;
         }
 
-        final List<ColumnInfo> columnsForTable = new ArrayList<ColumnInfo>();
+        final List<TableExport> tableExports = new LinkedList<TableExport>();
+        List<ColumnInfo> columnsForTable = new ArrayList<ColumnInfo>();
         // The list of columns is ordered by table name first
         String lastSeenTableName = columns.get(0).getTableName();
         for (final ColumnInfo column : columns) {
             if (!column.getTableName().equals(lastSeenTableName)) {
-                exportDataForAccountAndTable(out, columnsForTable, context);
+                addTableExport(tableExports, columnsForTable);
                 lastSeenTableName = column.getTableName();
-                columnsForTable.clear();
+                columnsForTable = new ArrayList<ColumnInfo>();
             }
             columnsForTable.add(column);
         }
-        exportDataForAccountAndTable(out, columnsForTable, context);
+        addTableExport(tableExports, columnsForTable);
+
+        if (tableExports.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Tables are submitted in the order they are written, at most nbReadersPerExport ahead of the one being written.
+            // Since the pool is FIFO, the oldest table submitted and not yet read is always being read, and is the table
+            // being written for its export (or will be, once the tables before it are drained): a full buffer can never
+            // block the exports, even when they share the pool
+            final Iterator<TableExport> tablesToSubmit = tableExports.iterator();
+            for (int i = 0; i < nbReadersPerExport && tablesToSubmit.hasNext(); i++) {
+                submitTable(tablesToSubmit.next(), context);
+            }
+
+            for (final TableExport tableExport : tableExports) {
+                writeTable(out, tableExport);
+                if (tablesToSubmit.hasNext()) {
+                    submitTable(tablesToSubmit.next(), context);
+                }
+            }
+
+            if (out instanceof Flushable) {
+                ((Flushable) out).flush();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while exporting account " + context.getAccountRecordId(), e);
+        } catch (final ExecutionException e) {
+            throw new RuntimeException("Error while exporting account " + context.getAccountRecordId(), e.getCause());
+        } catch (final IOException e) {
+            throw new RuntimeException("Error while exporting account " + context.getAccountRecordId(), e);
+        } finally {
+            // Abort the readers on failure (this will interrupt them if blocked on a full buffer), no-op otherwise
+            boolean cancelled = false;
+            for (final TableExport tableExport : tableExports) {
+                tableExport.aborted = true;
+                if (tableExport.future != null) {
+                    cancelled = tableExport.future.cancel(true) || cancelled;
+                }
+            }
+            // Free the queue slots of the readers which didn't start, before letting another export in
+            if (cancelled) {
+                executor.purge();
+            }
+        }
+    }
+
+    private void submitTable(final TableExport tableExport, final InternalTenantContext context) {
+        tableExport.future = executor.submit(new TableReader(tableExport, context));
+    }
+
+    private void writeTable(final DatabaseExportOutputStream out, final TableExport tableExport) throws InterruptedException, ExecutionException, IOException {
+        // Notify the stream that we're about to write data for a different table
+        out.newTable(tableExport.tableName, tableExport.columns);
+
+        while (true) {
+            final Object row = tableExport.rows.take();
+            if (row == END_OF_TABLE) {
+                break;
+            }
+            out.write(castRow(row));
+        }
+
+        // Propagate read errors, if any
+        tableExport.future.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> castRow(final Object row) {
+        return (Map<String, Object>) row;
     }
 
-    private void exportDataForAccountAndTable(final DatabaseExportOutputStream out, final List<ColumnInfo> columnsForTable, final InternalTenantContext context) {
+    private void addTableExport(final List<TableExport> tableExports, final List<ColumnInfo> columnsForTable) {
         boolean hasAccountRecordIdColumn = false;
         boolean firstColumn = true;
         final StringBuilder queryBuilder = new StringBuilder("select ");
@@ -106,27 +251,81 @@ public class DatabaseExportDao {
             queryBuilder.append(" where account_record_id = :accountRecordId and tenant_record_id = :tenantRecordId");
         }
 
-        // Notify the stream that we're about to write data for a different table
-        out.newTable(tableName, columnsForTable);
-
-        dbi.withHandle(new HandleCallback<Void>() {
-            @Override
-            public Void withHandle(final Handle handle) throws Exception {
-                final ResultIterator<Map<String, Object>> iterator = handle.createQuery(queryBuilder.toString())
-                                                                           .bind("accountRecordId", context.getAccountRecordId())
-                                                                           .bind("tenantRecordId", context.getTenantRecordId())
-                                                                           .iterator();
-                try {
-                    while (iterator.hasNext()) {
-                        final Map<String, Object> row = iterator.next();
-                        out.write(row);
+        tableExports.add(new TableExport(tableName, columnsForTable, queryBuilder.toString(), bufferSize));
+    }
+
+    private final class TableReader implements Callable<Void> {
+
+        private final TableExport tableExport;
+        private final InternalTenantContext context;
+
+        private TableReader(final TableExport tableExport, final InternalTenantContext context) {
+            this.tableExport = tableExport;
+            this.context = context;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            boolean completed = false;
+            try {
+                dbi.withHandle(new HandleCallback<Void>() {
+                    @Override
+                    public Void withHandle(final Handle handle) throws Exception {
+                        final ResultIterator<Map<String, Object>> iterator = handle.createQuery(tableExport.query)
+                                                                                   .bind("accountRecordId", context.getAccountRecordId())
+                                                                                   .bind("tenantRecordId", context.getTenantRecordId())
+                                                                                   .iterator();
+                        try {
+                            while (iterator.hasNext()) {
+                                enqueue(iterator.next());
+                            }
+                        } finally {
+                            iterator.close();
+                        }
+
+                        return null;
                     }
-                } finally {
-                    iterator.close();
-                }
+                });
 
+                // The writer will drain the buffer up to the marker
+                enqueue(END_OF_TABLE);
+                completed = true;
                 return null;
+            } finally {
+                if (!completed) {
+                    // Failed or aborted: never block here, the writer may be gone (this thread would be lost for the pool). If the writer
+                    // is still there, the rows it didn't read are discarded anyway, since it fails the export once it sees the marker
+                    tableExport.rows.clear();
+                    tableExport.rows.offer(END_OF_TABLE);
+                }
             }
-        });
+        }
+
+        private void enqueue(final Object row) throws InterruptedException {
+            // Don't rely on the interrupt only: the JDBC driver may have swallowed it
+            do {
+                if (tableExport.aborted || Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Export of table " + tableExport.tableName + " aborted");
+                }
+            } while (!tableExport.rows.offer(row, ABORT_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static final class TableExport {
+
+        private final String tableName;
+        private final List<ColumnInfo> columns;
+        private final String query;
+        private final BlockingQueue<Object> rows;
+
+        private Future<Void> future;
+        private volatile boolean aborted = false;
+
+        private TableExport(final String tableName, final List<ColumnInfo> columns, final String query, final int bufferSize) {
+            this.tableName = tableName;
+            this.columns = columns;
+            this.query = query;
+            this.rows = new ArrayBlockingQueue<Object>(bufferSize);
+        }
     }
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.globallocker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.LockFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Records acquisition and hold times of the delegate locker (used to size the lock connection pool) and logs
+ * the keys of locks held for too long (used to spot hot accounts).
+ */
+public class InstrumentedGlobalLocker implements GlobalLocker {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentedGlobalLocker.class);
+
+    private final GlobalLocker delegate;
+    private final long slowHoldThresholdNanos;
+    private final Timer acquireTime;
+    private final Timer holdTime;
+    private final Meter failures;
+
+    public InstrumentedGlobalLocker(final GlobalLocker delegate, final long slowHoldThresholdMillis, final MetricRegistry metricRegistry) {
+        this.delegate = delegate;
+        this.slowHoldThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowHoldThresholdMillis);
+
+        final String delegateName = delegate.getClass().getSimpleName();
+        this.acquireTime = metricRegistry.timer(MetricRegistry.name(InstrumentedGlobalLocker.class, delegateName, "acquire"));
+        this.holdTime = metricRegistry.timer(MetricRegistry.name(InstrumentedGlobalLocker.class, delegateName, "hold"));
+        this.failures = metricRegistry.meter(MetricRegistry.name(InstrumentedGlobalLocker.class, delegateName, "failures"));
+    }
+
+    @Override
+    public GlobalLock lockWithNumberOfTries(final String service, final String lockKey, final int retry) throws LockFailedException {
+        final long startNanos = System.nanoTime();
+        final GlobalLock lock;
+        try {
+            lock = delegate.lockWithNumberOfTries(service, lockKey, retry);
+        } catch (final LockFailedException e) {
+            failures.mark();
+            throw e;
+        } finally {
+            acquireTime.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        return new InstrumentedGlobalLock(lock, service, lockKey);
+    }
+
+    @Override
+    public boolean isFree(final String service, final String lockKey) {
+        return delegate.isFree(service, lockKey);
+    }
+
+    private final class InstrumentedGlobalLock implements GlobalLock {
+
+        private final GlobalLock lock;
+        private final String service;
+        private final String lockKey;
+        private final long acquiredNanos;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private InstrumentedGlobalLock(final GlobalLock lock, final String service, final String lockKey) {
+            this.lock = lock;
+            this.service = service;
+            this.lockKey = lockKey;
+            this.acquiredNanos = System.nanoTime();
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                final long heldNanos = System.nanoTime() - acquiredNanos;
+                holdTime.update(heldNanos, TimeUnit.NANOSECONDS);
+                if (heldNanos > slowHoldThresholdNanos) {
+                    logger.info("Lock {} for service {} was held for {} ms", new Object[]{lockKey, service, TimeUnit.NANOSECONDS.toMillis(heldNanos)});
+                }
+            }
+            lock.release();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.globallocker;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.LockFailedException;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+import org.skife.jdbi.v2.exceptions.UnableToObtainConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+
+/**
+ * GlobalLocker based on PostgreSQL session level advisory locks.
+ * <p/>
+ * Each lock pins one connection of the (dedicated) data source for the duration of the critical section, which makes
+ * the lock non-reentrant: two acquisitions from the same thread use two different sessions.
+ * <p/>
+ * Only contention (the lock being held by another session) is retried: database errors are propagated, the same way
+ * the DAOs surface them.
+ */
+public class PostgreSQLGlobalLocker implements GlobalLocker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgreSQLGlobalLocker.class);
+
+    private static final String TRY_LOCK_QUERY = "select pg_try_advisory_lock(?)";
+    private static final String UNLOCK_QUERY = "select pg_advisory_unlock(?)";
+
+    private final DataSource dataSource;
+    private final long tryTimeoutMillis;
+
+    public PostgreSQLGlobalLocker(final DataSource dataSource, final long tryTimeoutMillis) {
+        this.dataSource = dataSource;
+        this.tryTimeoutMillis = tryTimeoutMillis;
+    }
+
+    @Override
+    public GlobalLock lockWithNumberOfTries(final String service, final String lockKey, final int retry) throws LockFailedException {
+        final long lockId = getLockId(service, lockKey);
+
+        int triesLeft = retry;
+        while (triesLeft-- > 0) {
+            final GlobalLock lock = tryLock(lockId);
+            if (lock != null) {
+                return lock;
+            }
+            if (triesLeft > 0) {
+                try {
+                    Thread.sleep(tryTimeoutMillis);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        logger.warn("Failed to acquire lock {} for service {} after {} retries", new Object[]{lockKey, service, retry});
+        throw new LockFailedException();
+    }
+
+    @Override
+    public boolean isFree(final String service, final String lockKey) {
+        final GlobalLock lock = tryLock(getLockId(service, lockKey));
+        if (lock == null) {
+            return false;
+        }
+        lock.release();
+        return true;
+    }
+
+    // Returns null if the lock is held by another session
+    private GlobalLock tryLock(final long lockId) {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (final SQLException e) {
+            throw new UnableToObtainConnectionException(e);
+        }
+
+        try {
+            if (execute(connection, TRY_LOCK_QUERY, lockId)) {
+                final GlobalLock lock = new PostgreSQLGlobalLock(connection, lockId);
+                // The connection is now owned by the lock
+                connection = null;
+                return lock;
+            }
+            return null;
+        } catch (final SQLException e) {
+            throw new UnableToExecuteStatementException("Unable to acquire advisory lock " + lockId, e);
+        } finally {
+            closeQuietly(connection);
+        }
+    }
+
+    private static boolean execute(final Connection connection, final String query, final long lockId) throws SQLException {
+        final PreparedStatement statement = connection.prepareStatement(query);
+        try {
+            statement.setLong(1, lockId);
+            final ResultSet resultSet = statement.executeQuery();
+            try {
+                return resultSet.next() && resultSet.getBoolean(1);
+            } finally {
+                resultSet.close();
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void closeQuietly(final Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (final SQLException e) {
+            logger.warn("Unable to close lock connection", e);
+        }
+    }
+
+    // Advisory locks are keyed by a bigint: use a 64 bits hash of the service and key to keep collisions negligible
+    private static long getLockId(final String service, final String lockKey) {
+        return Hashing.murmur3_128().hashString(service + "-" + lockKey, Charsets.UTF_8).asLong();
+    }
+
+    private static final class PostgreSQLGlobalLock implements GlobalLock {
+
+        private final Connection connection;
+        private final long lockId;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private PostgreSQLGlobalLock(final Connection connection, final long lockId) {
+            this.connection = connection;
+            this.lockId = lockId;
+        }
+
+        @Override
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                if (!execute(connection, UNLOCK_QUERY, lockId)) {
+                    logger.warn("Advisory lock {} was not held at release time", lockId);
+                }
+            } catch (final SQLException e) {
+                // The session is most likely broken: the pool will discard it, which releases the advisory lock
+                logger.warn("Unable to release advisory lock " + lockId, e);
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+    }
+}
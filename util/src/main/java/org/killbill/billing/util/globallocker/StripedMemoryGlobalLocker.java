@@ -0,0 +1,204 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.globallocker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+import javax.inject.Inject;
+
+import org.killbill.billing.util.config.GlobalLockerConfig;
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.LockFailedException;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * In-process GlobalLocker (single node deployments and tests).
+ * <p/>
+ * Each lock is a fair, non-reentrant, single permit semaphore: waiters are parked in FIFO order (no sleep/retry loop)
+ * and give up after the configured try timeout times the number of tries. Lock entries are reference counted and
+ * dropped when unused; their creation and removal are guarded by striped locks so that unrelated accounts don't contend.
+ */
+public class StripedMemoryGlobalLocker implements GlobalLocker {
+
+    private static final int NB_STRIPES = 64;
+
+    private final ConcurrentMap<String, LockEntry> locks = new ConcurrentHashMap<String, LockEntry>();
+    private final Striped<Lock> stripes = Striped.lock(NB_STRIPES);
+    private final AtomicInteger holders = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final long tryTimeoutMillis;
+    private final Timer waitTime;
+    private final Meter failures;
+
+    @Inject
+    public StripedMemoryGlobalLocker(final GlobalLockerConfig config, final MetricRegistry metricRegistry) {
+        this.tryTimeoutMillis = config.getLockTryTimeout().getMillis();
+
+        this.waitTime = metricRegistry.timer(MetricRegistry.name(StripedMemoryGlobalLocker.class, "wait"));
+        this.failures = metricRegistry.meter(MetricRegistry.name(StripedMemoryGlobalLocker.class, "failures"));
+        final String holdersName = MetricRegistry.name(StripedMemoryGlobalLocker.class, "holders");
+        if (!metricRegistry.getGauges().containsKey(holdersName)) {
+            metricRegistry.register(holdersName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return holders.get();
+                }
+            });
+        }
+        final String waitersName = MetricRegistry.name(StripedMemoryGlobalLocker.class, "waiters");
+        if (!metricRegistry.getGauges().containsKey(waitersName)) {
+            metricRegistry.register(waitersName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return waiters.get();
+                }
+            });
+        }
+    }
+
+    @Override
+    public GlobalLock lockWithNumberOfTries(final String service, final String lockKey, final int retry) throws LockFailedException {
+        final String lockName = getLockName(service, lockKey);
+        final LockEntry entry = acquireEntry(lockName);
+
+        boolean locked = false;
+        try {
+            // Fast path: nobody holds nor waits for the lock
+            locked = !entry.getSemaphore().hasQueuedThreads() && entry.getSemaphore().tryAcquire();
+            if (!locked) {
+                locked = waitForLock(entry, Math.max(retry, 1) * tryTimeoutMillis);
+            }
+        } finally {
+            if (!locked) {
+                releaseEntry(lockName, entry);
+            }
+        }
+
+        if (!locked) {
+            failures.mark();
+            throw new LockFailedException();
+        }
+
+        holders.incrementAndGet();
+        return new MemoryGlobalLock(lockName, entry);
+    }
+
+    @Override
+    public boolean isFree(final String service, final String lockKey) {
+        final LockEntry entry = locks.get(getLockName(service, lockKey));
+        return entry == null || entry.getSemaphore().availablePermits() > 0;
+    }
+
+    private boolean waitForLock(final LockEntry entry, final long timeoutMillis) {
+        waiters.incrementAndGet();
+        final Timer.Context timerContext = waitTime.time();
+        try {
+            return entry.getSemaphore().tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            timerContext.stop();
+            waiters.decrementAndGet();
+        }
+    }
+
+    private LockEntry acquireEntry(final String lockName) {
+        final Lock stripe = stripes.get(lockName);
+        stripe.lock();
+        try {
+            LockEntry entry = locks.get(lockName);
+            if (entry == null) {
+                entry = new LockEntry();
+                locks.put(lockName, entry);
+            }
+            entry.incrementReferences();
+            return entry;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private void releaseEntry(final String lockName, final LockEntry entry) {
+        final Lock stripe = stripes.get(lockName);
+        stripe.lock();
+        try {
+            if (entry.decrementReferences() == 0) {
+                locks.remove(lockName);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    private String getLockName(final String service, final String lockKey) {
+        return service + "-" + lockKey;
+    }
+
+    private final class MemoryGlobalLock implements GlobalLock {
+
+        private final String lockName;
+        private final LockEntry entry;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        private MemoryGlobalLock(final String lockName, final LockEntry entry) {
+            this.lockName = lockName;
+            this.entry = entry;
+        }
+
+        @Override
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                holders.decrementAndGet();
+                entry.getSemaphore().release();
+                releaseEntry(lockName, entry);
+            }
+        }
+    }
+
+    // Reference count is only modified under the stripe lock
+    private static final class LockEntry {
+
+        private final Semaphore semaphore = new Semaphore(1, true);
+        private int references = 0;
+
+        public Semaphore getSemaphore() {
+            return semaphore;
+        }
+
+        public void incrementReferences() {
+            references++;
+        }
+
+        public int decrementReferences() {
+            return --references;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.glue;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.sql.DataSource;
+
+import org.killbill.billing.util.config.GlobalLockerConfig;
+import org.killbill.billing.util.globallocker.InstrumentedGlobalLocker;
+import org.killbill.billing.util.globallocker.PostgreSQLGlobalLocker;
+import org.killbill.commons.jdbi.guice.DaoConfig;
+import org.killbill.commons.jdbi.guice.DataSourceConnectionPoolingType;
+import org.killbill.commons.jdbi.guice.DataSourceProvider;
+import org.killbill.commons.jdbi.log.LogLevel;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.mysql.MySqlGlobalLocker;
+import org.skife.config.TimeSpan;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Database backed GlobalLocker, using a small dedicated connection pool so that connections pinned by held locks
+ * don't compete with the DAO transactions for the main pool.
+ */
+public class DatabaseGlobalLockerProvider implements Provider<GlobalLocker> {
+
+    private static final String LOCKER_DATA_SOURCE_ID = "locker";
+
+    private final DaoConfig daoConfig;
+    private final GlobalLockerConfig lockerConfig;
+    private final MetricRegistry metricRegistry;
+
+    @Inject
+    public DatabaseGlobalLockerProvider(final DaoConfig daoConfig, final GlobalLockerConfig lockerConfig, final MetricRegistry metricRegistry) {
+        this.daoConfig = daoConfig;
+        this.lockerConfig = lockerConfig;
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public GlobalLocker get() {
+        final DataSource lockDataSource = new DataSourceProvider(new LockerDaoConfig(daoConfig, lockerConfig), LOCKER_DATA_SOURCE_ID).get();
+
+        final GlobalLocker locker;
+        if (isPostgreSQL(daoConfig.getJdbcUrl())) {
+            locker = new PostgreSQLGlobalLocker(lockDataSource, lockerConfig.getLockTryTimeout().getMillis());
+        } else {
+            locker = new MySqlGlobalLocker(lockDataSource);
+        }
+        return new InstrumentedGlobalLocker(locker, lockerConfig.getSlowHoldThreshold().getMillis(), metricRegistry);
+    }
+
+    public static boolean isPostgreSQL(final String jdbcUrl) {
+        return jdbcUrl != null && jdbcUrl.startsWith("jdbc:postgresql:");
+    }
+
+    // Same database as the DAOs, with the pool sizing of the locker
+    @VisibleForTesting
+    static final class LockerDaoConfig implements DaoConfig {
+
+        private final DaoConfig delegate;
+        private final GlobalLockerConfig lockerConfig;
+
+        LockerDaoConfig(final DaoConfig delegate, final GlobalLockerConfig lockerConfig) {
+            this.delegate = delegate;
+            this.lockerConfig = lockerConfig;
+        }
+
+        @Override
+        public int getMinIdle() {
+            return lockerConfig.getPoolMinIdle();
+        }
+
+        @Override
+        public int getMaxActive() {
+            return lockerConfig.getPoolMaxActive();
+        }
+
+        @Override
+        public String getJdbcUrl() {
+            return delegate.getJdbcUrl();
+        }
+
+        @Override
+        public String getUsername() {
+            return delegate.getUsername();
+        }
+
+        @Override
+        public String getPassword() {
+            return delegate.getPassword();
+        }
+
+        @Override
+        public TimeSpan getConnectionTimeout() {
+            return delegate.getConnectionTimeout();
+        }
+
+        @Override
+        public TimeSpan getIdleMaxAge() {
+            return delegate.getIdleMaxAge();
+        }
+
+        @Override
+        public TimeSpan getMaxConnectionAge() {
+            return delegate.getMaxConnectionAge();
+        }
+
+        @Override
+        public TimeSpan getIdleConnectionTestPeriod() {
+            return delegate.getIdleConnectionTestPeriod();
+        }
+
+        @Override
+        public int getPreparedStatementsCacheSize() {
+            return delegate.getPreparedStatementsCacheSize();
+        }
+
+        @Override
+        public int getPreparedStatementsCacheSqlLimit() {
+            return delegate.getPreparedStatementsCacheSqlLimit();
+        }
+
+        @Override
+        public boolean isPreparedStatementsCacheEnabled() {
+            return delegate.isPreparedStatementsCacheEnabled();
+        }
+
+        @Override
+        public boolean isServerSidePreparedStatementsEnabled() {
+            return delegate.isServerSidePreparedStatementsEnabled();
+        }
+
+        @Override
+        public String getDataSourceClassName() {
+            return delegate.getDataSourceClassName();
+        }
+
+        @Override
+        public String getDriverClassName() {
+            return delegate.getDriverClassName();
+        }
+
+        @Override
+        public String getMySQLServerVersion() {
+            return delegate.getMySQLServerVersion();
+        }
+
+        @Override
+        public LogLevel getLogLevel() {
+            return delegate.getLogLevel();
+        }
+
+        @Override
+        public DataSourceConnectionPoolingType getConnectionPoolingType() {
+            return delegate.getConnectionPoolingType();
+        }
+    }
+}
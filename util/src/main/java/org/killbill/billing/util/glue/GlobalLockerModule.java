@@ -18,24 +18,38 @@
 
 package org.killbill.billing.util.glue;
 
+import javax.annotation.Nullable;
+
 import org.killbill.billing.platform.api.KillbillConfigSource;
 import org.killbill.commons.embeddeddb.EmbeddedDB;
 import org.killbill.commons.embeddeddb.EmbeddedDB.DBEngine;
+import org.killbill.commons.jdbi.guice.DaoConfig;
 
 public class GlobalLockerModule extends KillBillModule {
 
     private final DBEngine engine;
+    private final DaoConfig daoConfig;
 
     public GlobalLockerModule(final DBEngine engine, final KillbillConfigSource configSource) {
+        this(engine, null, configSource);
+    }
+
+    // When the DaoConfig is specified (server), database locks are taken through a dedicated connection pool
+    public GlobalLockerModule(final DBEngine engine, @Nullable final DaoConfig daoConfig, final KillbillConfigSource configSource) {
         super(configSource);
         this.engine = engine;
+        this.daoConfig = daoConfig;
     }
 
     @Override
     protected void configure() {
-        if (EmbeddedDB.DBEngine.MYSQL.equals(engine)) {
+        if (daoConfig != null &&
+            (EmbeddedDB.DBEngine.MYSQL.equals(engine) || DatabaseGlobalLockerProvider.isPostgreSQL(daoConfig.getJdbcUrl()))) {
+            install(new DatabaseGlobalLockerModule(configSource));
+        } else if (EmbeddedDB.DBEngine.MYSQL.equals(engine)) {
             install(new MySqlGlobalLockerModule(configSource));
         } else {
+            // H2 (embedded, single JVM) and other generic databases
             install(new MemoryGlobalLockerModule(configSource));
         }
     }
@@ -18,10 +18,15 @@
 package org.killbill.billing.util.glue;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.killbill.billing.KillbillApi;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.commons.profiling.Profiling;
 import org.killbill.commons.profiling.Profiling.WithProfilingCallback;
 import org.killbill.commons.profiling.ProfilingFeature.ProfilingFeatureType;
@@ -34,24 +39,47 @@ public class KillbillApiAopModule extends AbstractModule {
 
     @Override
     protected void configure() {
+        final ProfilingMethodInterceptor methodInterceptor = new ProfilingMethodInterceptor();
+        // Inject the aggregated profiling registry
+        requestInjection(methodInterceptor);
 
         bindInterceptor(Matchers.subclassesOf(KillbillApi.class),
                         Matchers.not(SYNTHETIC_METHOD_MATCHER),
-                        new ProfilingMethodInterceptor());
+                        methodInterceptor);
     }
 
     public static class ProfilingMethodInterceptor implements MethodInterceptor {
 
         private final Profiling prof = new Profiling<Object>();
+        // Avoid building the aggregated profiling name on each call
+        private final ConcurrentMap<Method, String> aggregatedProfilingNames = new ConcurrentHashMap<Method, String>();
+
+        @Inject
+        AggregatedProfiling aggregatedProfiling;
 
         @Override
         public Object invoke(final MethodInvocation invocation) throws Throwable {
-            return prof.executeWithProfiling(ProfilingFeatureType.API, invocation.getMethod().getName(), new WithProfilingCallback() {
-                @Override
-                public Object execute() throws Throwable {
-                    return invocation.proceed();
-                }
-            });
+            final long startNanos = System.nanoTime();
+            try {
+                return prof.executeWithProfiling(ProfilingFeatureType.API, invocation.getMethod().getName(), new WithProfilingCallback() {
+                    @Override
+                    public Object execute() throws Throwable {
+                        return invocation.proceed();
+                    }
+                });
+            } finally {
+                aggregatedProfiling.record(ProfilingFeatureType.API, getAggregatedProfilingName(invocation.getMethod()), System.nanoTime() - startNanos);
+            }
+        }
+
+        private String getAggregatedProfilingName(final Method method) {
+            String name = aggregatedProfilingNames.get(method);
+            if (name == null) {
+                // The method name alone is ambiguous across APIs (e.g. getAccountById)
+                name = method.getDeclaringClass().getSimpleName() + ":" + method.getName();
+                aggregatedProfilingNames.put(method, name);
+            }
+            return name;
         }
     }
 
@@ -19,8 +19,10 @@
 package org.killbill.billing.util.glue;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.GlobalLockerConfig;
+import org.killbill.billing.util.globallocker.StripedMemoryGlobalLocker;
 import org.killbill.commons.locker.GlobalLocker;
-import org.killbill.commons.locker.memory.MemoryGlobalLocker;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class MemoryGlobalLockerModule extends KillBillModule {
 
@@ -30,6 +32,9 @@ public class MemoryGlobalLockerModule extends KillBillModule {
 
     @Override
     protected void configure() {
-        bind(GlobalLocker.class).to(MemoryGlobalLocker.class).asEagerSingleton();
+        final GlobalLockerConfig config = new ConfigurationObjectFactory(skifeConfigSource).build(GlobalLockerConfig.class);
+        bind(GlobalLockerConfig.class).toInstance(config);
+
+        bind(GlobalLocker.class).to(StripedMemoryGlobalLocker.class).asEagerSingleton();
     }
 }
@@ -19,8 +19,12 @@
 package org.killbill.billing.util.glue;
 
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.PaginationConfig;
+import org.killbill.billing.util.config.ProfilingConfig;
 import org.killbill.billing.util.dao.DefaultNonEntityDao;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class NonEntityDaoModule extends KillBillModule {
 
@@ -30,6 +34,14 @@ public class NonEntityDaoModule extends KillBillModule {
 
     @Override
     protected void configure() {
+        final PaginationConfig paginationConfig = new ConfigurationObjectFactory(skifeConfigSource).build(PaginationConfig.class);
+        bind(PaginationConfig.class).toInstance(paginationConfig);
+
+        // The SqlDao wrappers record into the aggregated latency histograms
+        final ProfilingConfig profilingConfig = new ConfigurationObjectFactory(skifeConfigSource).build(ProfilingConfig.class);
+        bind(ProfilingConfig.class).toInstance(profilingConfig);
+        bind(AggregatedProfiling.class).asEagerSingleton();
+
         bind(NonEntityDao.class).to(DefaultNonEntityDao.class).asEagerSingleton();
     }
 }
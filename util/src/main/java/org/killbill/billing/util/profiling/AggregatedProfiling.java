@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.profiling;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.killbill.billing.util.config.ProfilingConfig;
+import org.killbill.commons.profiling.ProfilingFeature.ProfilingFeatureType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Always-on latency histograms, aggregated per API and per SqlDao method. Contrary to the per-request
+ * ProfilingData (opt-in via the X-Killbill-Profiling-Req header), this doesn't build any per-thread state.
+ */
+@Singleton
+public class AggregatedProfiling implements AggregatedProfilingMXBean {
+
+    public static final String OBJECT_NAME = "org.killbill.billing:type=AggregatedProfiling";
+
+    private static final Logger log = LoggerFactory.getLogger(AggregatedProfiling.class);
+
+    private static final Comparator<LatencySnapshot> SLOWEST_FIRST = new Comparator<LatencySnapshot>() {
+        @Override
+        public int compare(final LatencySnapshot o1, final LatencySnapshot o2) {
+            return Long.valueOf(o2.getTotalUsec()).compareTo(o1.getTotalUsec());
+        }
+    };
+
+    // Read-only after construction, one map per feature type to avoid building composite keys on the hot path
+    private final Map<ProfilingFeatureType, ConcurrentMap<String, LatencyHistogram>> histograms;
+
+    private volatile boolean enabled;
+    private volatile boolean mBeanRegistered;
+
+    @Inject
+    public AggregatedProfiling(final ProfilingConfig profilingConfig) {
+        this(profilingConfig.isAggregatedProfilingEnabled());
+    }
+
+    AggregatedProfiling(final boolean enabled) {
+        this.enabled = enabled;
+        this.histograms = new EnumMap<ProfilingFeatureType, ConcurrentMap<String, LatencyHistogram>>(ProfilingFeatureType.class);
+        for (final ProfilingFeatureType type : ProfilingFeatureType.values()) {
+            histograms.put(type, new ConcurrentHashMap<String, LatencyHistogram>());
+        }
+    }
+
+    public void record(final ProfilingFeatureType type, final String name, final long durationNanos) {
+        if (!enabled) {
+            return;
+        }
+
+        final ConcurrentMap<String, LatencyHistogram> histogramsForType = histograms.get(type);
+        LatencyHistogram histogram = histogramsForType.get(name);
+        if (histogram == null) {
+            final LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histogramsForType.putIfAbsent(name, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        histogram.record(durationNanos);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public List<LatencySnapshot> getSnapshots() {
+        final List<LatencySnapshot> snapshots = new ArrayList<LatencySnapshot>();
+        for (final Entry<ProfilingFeatureType, ConcurrentMap<String, LatencyHistogram>> entry : histograms.entrySet()) {
+            for (final Entry<String, LatencyHistogram> histogramEntry : entry.getValue().entrySet()) {
+                snapshots.add(histogramEntry.getValue().snapshot(entry.getKey().name(), histogramEntry.getKey()));
+            }
+        }
+        Collections.sort(snapshots, SLOWEST_FIRST);
+        return snapshots;
+    }
+
+    @Override
+    public void reset() {
+        // In-flight recordings against a removed histogram are simply lost
+        for (final ConcurrentMap<String, LatencyHistogram> histogramsForType : histograms.values()) {
+            histogramsForType.clear();
+        }
+    }
+
+    public void registerMBean(final MBeanServer mBeanServer) {
+        try {
+            mBeanServer.registerMBean(this, new ObjectName(OBJECT_NAME));
+            mBeanRegistered = true;
+        } catch (final InstanceAlreadyExistsException e) {
+            // Multiple Kill Bill instances in the same JVM: only the first one is exposed
+            log.warn("Aggregated profiling MBean already registered", e);
+        } catch (final JMException e) {
+            log.warn("Unable to register the aggregated profiling MBean", e);
+        }
+    }
+
+    public void unregisterMBean(final MBeanServer mBeanServer) {
+        if (!mBeanRegistered) {
+            return;
+        }
+
+        try {
+            mBeanServer.unregisterMBean(new ObjectName(OBJECT_NAME));
+            mBeanRegistered = false;
+        } catch (final InstanceNotFoundException ignored) {
+            mBeanRegistered = false;
+        } catch (final JMException e) {
+            log.warn("Unable to unregister the aggregated profiling MBean", e);
+        }
+    }
+}
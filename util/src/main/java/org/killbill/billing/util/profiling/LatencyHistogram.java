@@ -0,0 +1,110 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.profiling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram, with log-linear buckets (8 sub-buckets per power of two, i.e. ~12.5% precision)
+ * covering the full range of nanosecond values. Recording is a handful of atomic increments, no allocation.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int NB_SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int NB_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * NB_SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NB_BUCKETS);
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(final long durationNanos) {
+        // System.nanoTime() is monotonic, but be defensive
+        final long value = durationNanos < 0 ? 0 : durationNanos;
+
+        buckets.incrementAndGet(bucketIndex(value));
+        totalNanos.addAndGet(value);
+
+        long currentMax = maxNanos.get();
+        while (value > currentMax && !maxNanos.compareAndSet(currentMax, value)) {
+            currentMax = maxNanos.get();
+        }
+    }
+
+    public LatencySnapshot snapshot(final String type, final String name) {
+        // The snapshot isn't atomic across buckets, which is fine for monitoring purposes
+        final long[] counts = new long[NB_BUCKETS];
+        long count = 0;
+        for (int i = 0; i < NB_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        final long max = maxNanos.get();
+
+        return new LatencySnapshot(type,
+                                   name,
+                                   count,
+                                   nanoToMicro(totalNanos.get()),
+                                   nanoToMicro(valueAtPercentile(counts, count, max, 50.0)),
+                                   nanoToMicro(valueAtPercentile(counts, count, max, 90.0)),
+                                   nanoToMicro(valueAtPercentile(counts, count, max, 99.0)),
+                                   nanoToMicro(max));
+    }
+
+    static long valueAtPercentile(final long[] counts, final long count, final long max, final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // Never report more than what was actually observed
+                return Math.min(bucketUpperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketIndex(final long value) {
+        if (value < NB_SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        final int msb = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (msb - SUB_BUCKET_BITS)) & (NB_SUB_BUCKETS - 1);
+        return (msb - SUB_BUCKET_BITS + 1) * NB_SUB_BUCKETS + subBucket;
+    }
+
+    static long bucketUpperBound(final int index) {
+        if (index < NB_SUB_BUCKETS) {
+            return index;
+        }
+
+        final int shift = index / NB_SUB_BUCKETS - 1;
+        final long lowerBound = ((long) (NB_SUB_BUCKETS + index % NB_SUB_BUCKETS)) << shift;
+        return lowerBound + ((1L << shift) - 1);
+    }
+
+    private static long nanoToMicro(final long nanos) {
+        return nanos / 1000;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.profiling;
+
+import java.beans.ConstructorProperties;
+
+public class LatencySnapshot {
+
+    private final String type;
+    private final String name;
+    private final long count;
+    private final long totalUsec;
+    private final long p50Usec;
+    private final long p90Usec;
+    private final long p99Usec;
+    private final long maxUsec;
+
+    @ConstructorProperties({"type", "name", "count", "totalUsec", "p50Usec", "p90Usec", "p99Usec", "maxUsec"})
+    public LatencySnapshot(final String type, final String name, final long count, final long totalUsec,
+                           final long p50Usec, final long p90Usec, final long p99Usec, final long maxUsec) {
+        this.type = type;
+        this.name = name;
+        this.count = count;
+        this.totalUsec = totalUsec;
+        this.p50Usec = p50Usec;
+        this.p90Usec = p90Usec;
+        this.p99Usec = p99Usec;
+        this.maxUsec = maxUsec;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalUsec() {
+        return totalUsec;
+    }
+
+    public long getMeanUsec() {
+        return count == 0 ? 0 : totalUsec / count;
+    }
+
+    public long getP50Usec() {
+        return p50Usec;
+    }
+
+    public long getP90Usec() {
+        return p90Usec;
+    }
+
+    public long getP99Usec() {
+        return p99Usec;
+    }
+
+    public long getMaxUsec() {
+        return maxUsec;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LatencySnapshot{");
+        sb.append("type='").append(type).append('\'');
+        sb.append(", name='").append(name).append('\'');
+        sb.append(", count=").append(count);
+        sb.append(", totalUsec=").append(totalUsec);
+        sb.append(", p50Usec=").append(p50Usec);
+        sb.append(", p90Usec=").append(p90Usec);
+        sb.append(", p99Usec=").append(p99Usec);
+        sb.append(", maxUsec=").append(maxUsec);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -22,6 +22,10 @@ import javax.inject.Inject;
 
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.mgt.SecurityManager;
+import org.apache.shiro.mgt.SessionsSecurityManager;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
+import org.apache.shiro.session.mgt.SessionManager;
+import org.apache.shiro.util.LifecycleUtils;
 import org.killbill.billing.platform.api.LifecycleHandlerType;
 import org.killbill.billing.platform.api.LifecycleHandlerType.LifecycleLevel;
 
@@ -48,6 +52,14 @@ public class DefaultSecurityService implements SecurityService {
 
     @LifecycleHandlerType(LifecycleLevel.STOP_SERVICE)
     public void stop() {
+        // Write the session updates not flushed yet (see JDBCSessionDao)
+        if (securityManager instanceof SessionsSecurityManager) {
+            final SessionManager sessionManager = ((SessionsSecurityManager) securityManager).getSessionManager();
+            if (sessionManager instanceof DefaultSessionManager) {
+                LifecycleUtils.destroy(((DefaultSessionManager) sessionManager).getSessionDAO());
+            }
+        }
+
         SecurityUtils.setSecurityManager(null);
     }
 }
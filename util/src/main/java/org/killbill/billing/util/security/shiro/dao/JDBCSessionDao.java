@@ -18,11 +18,27 @@ package org.killbill.billing.util.security.shiro.dao;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 
 import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.SimpleSession;
 import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
+import org.apache.shiro.util.Destroyable;
+import org.joda.time.DateTime;
+import org.killbill.billing.util.config.RbacConfig;
+import org.killbill.commons.concurrent.Executors;
 import org.killbill.commons.jdbi.mapper.LowerToCamelBeanMapperFactory;
 import org.skife.jdbi.v2.DBI;
 import org.skife.jdbi.v2.IDBI;
@@ -31,28 +47,90 @@ import org.skife.jdbi.v2.TransactionStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class JDBCSessionDao extends CachingSessionDAO {
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+
+// Shiro touches the session on every request: when the flush interval is set, updates which only change the last access time
+// are coalesced in memory and written in batches. Attribute changes and deletes are still written right away, except for
+// the deletion of expired sessions, which is batched as well.
+public class JDBCSessionDao extends CachingSessionDAO implements Destroyable {
 
     private static final Logger log = LoggerFactory.getLogger(JDBCSessionDao.class);
 
-    private JDBCSessionSqlDao jdbcSessionSqlDao;
+    private static final String SESSION_FLUSH_THREAD_NAME = "SessionFlush";
+    private static final int MAX_DELETE_BATCH_SIZE = 1000;
+
+    private final JDBCSessionSqlDao jdbcSessionSqlDao;
+    private final boolean writeBehind;
+    // Last state written to the database, per session id
+    private final Cache<Serializable, SessionModelDao> persistedSessions;
+    // Last access times not written yet, per session id
+    private final ConcurrentMap<Serializable, DateTime> pendingLastAccessTimes = new ConcurrentHashMap<Serializable, DateTime>();
+    private final Queue<Long> pendingExpiredSessionIds = new ConcurrentLinkedQueue<Long>();
+
+    private ScheduledExecutorService flushExecutor;
 
-    @Inject
     public JDBCSessionDao(final IDBI dbi) {
+        this(dbi, 0, 0);
+    }
+
+    @Inject
+    public JDBCSessionDao(final IDBI dbi, final RbacConfig rbacConfig) {
+        this(dbi, rbacConfig.getSessionFlushInterval().getMillis(), rbacConfig.getGlobalSessionTimeout().getMillis());
+    }
+
+    private JDBCSessionDao(final IDBI dbi, final long flushIntervalMillis, final long sessionTimeoutMillis) {
         if (dbi instanceof DBI) {
             // TODO PIERRE Move to DBIProvider, once it's in util
             ((DBI) dbi).registerMapper(new LowerToCamelBeanMapperFactory(SessionModelDao.class));
         }
         this.jdbcSessionSqlDao = dbi.onDemand(JDBCSessionSqlDao.class);
+        this.writeBehind = flushIntervalMillis > 0;
+        this.persistedSessions = CacheBuilder.newBuilder()
+                                             .expireAfterAccess(Math.max(sessionTimeoutMillis, flushIntervalMillis) + 1, TimeUnit.MILLISECONDS)
+                                             .build();
+
+        if (writeBehind) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(SESSION_FLUSH_THREAD_NAME);
+            flushExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flush();
+                    } catch (final RuntimeException e) {
+                        log.warn("Failed to flush sessions", e);
+                    }
+                }
+            }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     protected void doUpdate(final Session session) {
-        jdbcSessionSqlDao.update(new SessionModelDao(session));
+        final SessionModelDao sessionModelDao = new SessionModelDao(session);
+        if (writeBehind && sessionModelDao.isSameSessionState(persistedSessions.getIfPresent(session.getId()))) {
+            // Simple touch, will be written on the next flush
+            pendingLastAccessTimes.put(session.getId(), sessionModelDao.getLastAccessTime());
+            return;
+        }
+
+        pendingLastAccessTimes.remove(session.getId());
+        jdbcSessionSqlDao.update(sessionModelDao);
+        rememberPersistedSession(sessionModelDao);
     }
 
     @Override
     protected void doDelete(final Session session) {
+        pendingLastAccessTimes.remove(session.getId());
+        persistedSessions.invalidate(session.getId());
+
+        if (writeBehind && session instanceof SimpleSession && ((SimpleSession) session).isExpired()) {
+            // Cleanup of expired sessions by the session validation scheduler, will be deleted on the next flush
+            pendingExpiredSessionIds.add((Long) session.getId());
+            return;
+        }
+
         jdbcSessionSqlDao.delete(new SessionModelDao(session));
     }
 
@@ -66,6 +144,7 @@ public class JDBCSessionDao extends CachingSessionDAO {
             }
         });
         assignSessionId(session, sessionId);
+        rememberPersistedSession(new SessionModelDao(session));
         return sessionId;
     }
 
@@ -89,11 +168,63 @@ public class JDBCSessionDao extends CachingSessionDAO {
             return null;
         }
 
+        final SimpleSession session;
         try {
-            return sessionModelDao.toSimpleSession();
+            session = (SimpleSession) sessionModelDao.toSimpleSession();
         } catch (final IOException e) {
             log.warn("Corrupted cookie", e);
             return null;
         }
+
+        rememberPersistedSession(sessionModelDao);
+
+        // The session may have been touched since the last flush
+        final DateTime pendingLastAccessTime = pendingLastAccessTimes.get(sessionModelDao.getRecordId());
+        if (pendingLastAccessTime != null && pendingLastAccessTime.isAfter(sessionModelDao.getLastAccessTime())) {
+            session.setLastAccessTime(pendingLastAccessTime.toDate());
+        }
+        return session;
+    }
+
+    // Write pending last access times and delete expired sessions, in batches
+    public void flush() {
+        final List<Long> touchedSessionIds = new ArrayList<Long>();
+        final List<Date> lastAccessTimes = new ArrayList<Date>();
+        for (final Entry<Serializable, DateTime> entry : pendingLastAccessTimes.entrySet()) {
+            if (pendingLastAccessTimes.remove(entry.getKey(), entry.getValue())) {
+                touchedSessionIds.add((Long) entry.getKey());
+                lastAccessTimes.add(entry.getValue().toDate());
+            }
+        }
+        if (!touchedSessionIds.isEmpty()) {
+            jdbcSessionSqlDao.updateLastAccessTime(touchedSessionIds, lastAccessTimes);
+        }
+
+        final Collection<Long> expiredSessionIds = new ArrayList<Long>();
+        Long expiredSessionId;
+        while ((expiredSessionId = pendingExpiredSessionIds.poll()) != null) {
+            expiredSessionIds.add(expiredSessionId);
+        }
+        for (final List<Long> batch : Iterables.partition(expiredSessionIds, MAX_DELETE_BATCH_SIZE)) {
+            jdbcSessionSqlDao.deleteByRecordIds(batch);
+        }
+    }
+
+    // Called on shutdown, see DefaultSecurityService
+    @Override
+    public void destroy() throws Exception {
+        if (flushExecutor != null) {
+            // Let a running flush complete
+            flushExecutor.shutdown();
+            flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            flushExecutor = null;
+        }
+        flush();
+    }
+
+    private void rememberPersistedSession(final SessionModelDao sessionModelDao) {
+        if (writeBehind && sessionModelDao.getRecordId() != null) {
+            persistedSessions.put(sessionModelDao.getRecordId(), sessionModelDao);
+        }
     }
 }
@@ -16,12 +16,18 @@
 
 package org.killbill.billing.util.security.shiro.dao;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
 import org.killbill.commons.jdbi.binder.SmartBindBean;
 import org.skife.jdbi.v2.sqlobject.Bind;
+import org.skife.jdbi.v2.sqlobject.SqlBatch;
 import org.skife.jdbi.v2.sqlobject.SqlQuery;
 import org.skife.jdbi.v2.sqlobject.SqlUpdate;
 import org.skife.jdbi.v2.sqlobject.mixins.Transactional;
 import org.skife.jdbi.v2.sqlobject.stringtemplate.UseStringTemplate3StatementLocator;
+import org.skife.jdbi.v2.unstable.BindIn;
 
 @UseStringTemplate3StatementLocator
 public interface JDBCSessionSqlDao extends Transactional<JDBCSessionSqlDao> {
@@ -35,9 +41,16 @@ public interface JDBCSessionSqlDao extends Transactional<JDBCSessionSqlDao> {
     @SqlUpdate
     public void update(@SmartBindBean final SessionModelDao sessionModelDao);
 
+    @SqlBatch
+    public void updateLastAccessTime(@Bind("recordId") final List<Long> recordIds,
+                                     @Bind("lastAccessTime") final List<Date> lastAccessTimes);
+
     @SqlUpdate
     public void delete(@SmartBindBean final SessionModelDao sessionModelDao);
 
+    @SqlUpdate
+    public void deleteByRecordIds(@BindIn("recordIds") final Collection<Long> recordIds);
+
     @SqlQuery
     public Long getLastInsertId();
 }
@@ -93,6 +93,26 @@ public class SessionModelDao {
         return sessionData;
     }
 
+    // Whether the two sessions only differ by their last access time (i.e. the session was simply touched)
+    public boolean isSameSessionState(final SessionModelDao that) {
+        if (that == null) {
+            return false;
+        }
+        if (timeout != that.timeout) {
+            return false;
+        }
+        if (host != null ? !host.equals(that.host) : that.host != null) {
+            return false;
+        }
+        if (recordId != null ? !recordId.equals(that.recordId) : that.recordId != null) {
+            return false;
+        }
+        if (startTimestamp != null ? !startTimestamp.equals(that.startTimestamp) : that.startTimestamp != null) {
+            return false;
+        }
+        return Arrays.equals(sessionData, that.sessionData);
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("SessionModelDao{");
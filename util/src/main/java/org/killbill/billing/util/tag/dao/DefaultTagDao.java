@@ -16,8 +16,12 @@
 
 package org.killbill.billing.util.tag.dao;
 
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.skife.jdbi.v2.IDBI;
@@ -27,6 +31,7 @@ import org.slf4j.LoggerFactory;
 import org.killbill.billing.BillingExceptionBase;
 import org.killbill.billing.ErrorCode;
 import org.killbill.billing.ObjectType;
+import org.killbill.billing.util.config.PaginationConfig;
 import org.killbill.bus.api.PersistentBus;
 import org.killbill.billing.callcontext.InternalCallContext;
 import org.killbill.billing.callcontext.InternalTenantContext;
@@ -36,6 +41,7 @@ import org.killbill.billing.util.api.TagApiException;
 import org.killbill.billing.util.audit.ChangeType;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.dao.NonEntityDao;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.entity.Pagination;
 import org.killbill.billing.util.entity.dao.DefaultPaginationSqlDaoHelper.PaginationIteratorBuilder;
 import org.killbill.billing.util.entity.dao.EntityDaoBase;
@@ -43,10 +49,12 @@ import org.killbill.billing.util.entity.dao.EntitySqlDao;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoTransactionalJdbiWrapper;
 import org.killbill.billing.util.entity.dao.EntitySqlDaoWrapperFactory;
+import org.killbill.billing.util.entity.dao.SearchKeys;
 import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.Tag;
 import org.killbill.billing.util.tag.api.user.TagEventBuilder;
 
+import com.google.common.base.Functions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
@@ -57,15 +65,20 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
 
     private static final Logger log = LoggerFactory.getLogger(DefaultTagDao.class);
 
+    // Keep the IN clauses of bulk lookups reasonably sized
+    private static final int MAX_OBJECT_IDS_PER_QUERY = 1000;
+
     private final TagEventBuilder tagEventBuilder;
     private final PersistentBus bus;
+    private final SearchKeys searchKeys;
 
     @Inject
     public DefaultTagDao(final IDBI dbi, final TagEventBuilder tagEventBuilder, final PersistentBus bus, final Clock clock,
-                         final CacheControllerDispatcher controllerDispatcher, final NonEntityDao nonEntityDao) {
-        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, controllerDispatcher, nonEntityDao), TagSqlDao.class);
+                         final CacheControllerDispatcher controllerDispatcher, final NonEntityDao nonEntityDao, final AggregatedProfiling aggregatedProfiling, final PaginationConfig paginationConfig) {
+        super(new EntitySqlDaoTransactionalJdbiWrapper(dbi, clock, controllerDispatcher, nonEntityDao, aggregatedProfiling), TagSqlDao.class, paginationConfig);
         this.tagEventBuilder = tagEventBuilder;
         this.bus = bus;
+        this.searchKeys = new SearchKeys(paginationConfig);
     }
 
     @Override
@@ -83,6 +96,34 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
         });
     }
 
+    @Override
+    public Map<UUID, List<TagModelDao>> getTagsForObjects(final Collection<UUID> objectIds, final ObjectType objectType, final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
+        final Map<UUID, List<TagModelDao>> tagsByObjectId = new LinkedHashMap<UUID, List<TagModelDao>>();
+        for (final UUID objectId : objectIds) {
+            tagsByObjectId.put(objectId, new LinkedList<TagModelDao>());
+        }
+        if (tagsByObjectId.isEmpty()) {
+            return tagsByObjectId;
+        }
+
+        return transactionalSqlDao.execute(new EntitySqlDaoTransactionWrapper<Map<UUID, List<TagModelDao>>>() {
+            @Override
+            public Map<UUID, List<TagModelDao>> inTransaction(final EntitySqlDaoWrapperFactory<EntitySqlDao> entitySqlDaoWrapperFactory) throws Exception {
+                final TagSqlDao tagSqlDao = entitySqlDaoWrapperFactory.become(TagSqlDao.class);
+                for (final List<UUID> objectIdsChunk : Iterables.partition(tagsByObjectId.keySet(), MAX_OBJECT_IDS_PER_QUERY)) {
+                    final Collection<String> objectIdsAsStrings = Collections2.transform(objectIdsChunk, Functions.toStringFunction());
+                    final List<TagModelDao> tags = includedDeleted ?
+                                                   tagSqlDao.getTagsForObjectsIncludedDeleted(objectIdsAsStrings, objectType, internalTenantContext) :
+                                                   tagSqlDao.getTagsForObjects(objectIdsAsStrings, objectType, internalTenantContext);
+                    for (final TagModelDao tag : tags) {
+                        tagsByObjectId.get(tag.getObjectId()).add(tag);
+                    }
+                }
+                return tagsByObjectId;
+            }
+        });
+    }
+
     @Override
     public List<TagModelDao> getTagsForAccountType(final UUID accountId, final ObjectType objectType, final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
         final List<TagModelDao> allTags = getTagsForAccount(includedDeleted, internalTenantContext);
@@ -223,12 +264,17 @@ public class DefaultTagDao extends EntityDaoBase<TagModelDao, Tag, TagApiExcepti
                                               new PaginationIteratorBuilder<TagModelDao, Tag, TagSqlDao>() {
                                                   @Override
                                                   public Long getCount(final TagSqlDao tagSqlDao, final InternalTenantContext context) {
-                                                      return tagSqlDao.getSearchCount(searchKey, String.format("%%%s%%", searchKey), context);
+                                                      return tagSqlDao.getSearchCount(searchKey, searchKeys.toLikeSearchKey(searchKey), context);
                                                   }
 
                                                   @Override
                                                   public Iterator<TagModelDao> build(final TagSqlDao tagSqlDao, final Long limit, final InternalTenantContext context) {
-                                                      return tagSqlDao.search(searchKey, String.format("%%%s%%", searchKey), offset, limit, context);
+                                                      return tagSqlDao.search(searchKey, searchKeys.toLikeSearchKey(searchKey), offset, limit, context);
+                                                  }
+
+                                                  @Override
+                                                  public String getQueryKey() {
+                                                      return "search:" + searchKey;
                                                   }
                                               },
                                               offset,
@@ -16,7 +16,9 @@
 
 package org.killbill.billing.util.tag.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.killbill.billing.ObjectType;
@@ -35,6 +37,9 @@ public interface TagDao extends EntityDao<TagModelDao, Tag, TagApiException> {
 
     List<TagModelDao> getTagsForObject(UUID objectId, ObjectType objectType, boolean includedDeleted, InternalTenantContext internalTenantContext);
 
+    // Tags for all the specified objects, grouped by object id (in the order of the specified ids)
+    Map<UUID, List<TagModelDao>> getTagsForObjects(Collection<UUID> objectIds, ObjectType objectType, boolean includedDeleted, InternalTenantContext internalTenantContext);
+
     List<TagModelDao> getTagsForAccountType(UUID accountId, ObjectType objectType, boolean includedDeleted, InternalTenantContext internalTenantContext);
 
     List<TagModelDao> getTagsForAccount(boolean includedDeleted, InternalTenantContext internalTenantContext);
@@ -20,6 +20,10 @@ import com.google.inject.Inject;
 
 public class DefaultCatalogTranslator extends DefaultTranslatorBase {
     @Inject
+    public DefaultCatalogTranslator(final TranslatorConfig config, final TranslationBundleCache bundleCache) {
+        super(config, bundleCache);
+    }
+
     public DefaultCatalogTranslator(final TranslatorConfig config) {
         super(config);
     }
@@ -16,15 +16,10 @@
 
 package org.killbill.billing.util.template.translation;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URISyntaxException;
 import java.util.Locale;
 import java.util.MissingResourceException;
-import java.util.PropertyResourceBundle;
 import java.util.ResourceBundle;
 
-import org.killbill.xmlloader.UriAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,9 +32,17 @@ public abstract class DefaultTranslatorBase implements Translator {
     protected final TranslatorConfig config;
     protected final Logger log = LoggerFactory.getLogger(DefaultTranslatorBase.class);
 
+    private final TranslationBundleCache bundleCache;
+
     @Inject
-    public DefaultTranslatorBase(final TranslatorConfig config) {
+    public DefaultTranslatorBase(final TranslatorConfig config, final TranslationBundleCache bundleCache) {
         this.config = config;
+        this.bundleCache = bundleCache;
+    }
+
+    // Bundles are only cached for the lifetime of this translator
+    public DefaultTranslatorBase(final TranslatorConfig config) {
+        this(config, new TranslationBundleCache());
     }
 
     protected abstract String getBundlePath();
@@ -52,7 +55,7 @@ public abstract class DefaultTranslatorBase implements Translator {
     @Override
     public String getTranslation(final Locale locale, final String originalText) {
         final String bundlePath = getBundlePath();
-        ResourceBundle bundle = getBundle(locale, bundlePath);
+        ResourceBundle bundle = bundleCache.getBundle(locale, bundlePath);
 
         if ((bundle != null) && (bundle.containsKey(originalText))) {
             return bundle.getString(originalText);
@@ -64,7 +67,7 @@ public abstract class DefaultTranslatorBase implements Translator {
 
             final Locale defaultLocale = LocaleUtils.toLocale(config.getDefaultLocale());
             try {
-                bundle = getBundle(defaultLocale, bundlePath);
+                bundle = bundleCache.getBundle(defaultLocale, bundlePath);
 
                 if ((bundle != null) && (bundle.containsKey(originalText))) {
                     return bundle.getString(originalText);
@@ -77,43 +80,4 @@ public abstract class DefaultTranslatorBase implements Translator {
             }
         }
     }
-
-    private ResourceBundle getBundle(final Locale locale, final String bundlePath) {
-        try {
-            // Try to load the bundle from the classpath first
-            return ResourceBundle.getBundle(bundlePath, locale);
-        } catch (MissingResourceException ignored) {
-        }
-
-        // Try to load it from a properties file
-        final String propertiesFileNameWithCountry = bundlePath + "_" + locale.getLanguage() + "_" + locale.getCountry() + ".properties";
-        ResourceBundle bundle = getBundleFromPropertiesFile(propertiesFileNameWithCountry);
-        if (bundle != null) {
-            return bundle;
-        } else {
-            final String propertiesFileName = bundlePath + "_" + locale.getLanguage() + ".properties";
-            bundle = getBundleFromPropertiesFile(propertiesFileName);
-        }
-
-        return bundle;
-    }
-
-    private ResourceBundle getBundleFromPropertiesFile(final String propertiesFileName) {
-        try {
-            final InputStream inputStream = UriAccessor.accessUri(propertiesFileName);
-            if (inputStream == null) {
-                return null;
-            } else {
-                return new PropertyResourceBundle(inputStream);
-            }
-        } catch (IllegalArgumentException iae) {
-            return null;
-        } catch (MissingResourceException mrex) {
-            return null;
-        } catch (URISyntaxException e) {
-            return null;
-        } catch (IOException e) {
-            return null;
-        }
-    }
 }
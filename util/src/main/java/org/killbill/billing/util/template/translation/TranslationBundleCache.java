@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.template.translation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.MissingResourceException;
+import java.util.PropertyResourceBundle;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+
+import org.killbill.xmlloader.UriAccessor;
+
+import com.google.common.base.Optional;
+
+/**
+ * Resolved translation bundles (including missing ones), by bundle path and locale.
+ * <p/>
+ * Translators are created for each invoice rendered: they share the bundles through this cache, which has to be
+ * invalidated when the translation files are updated.
+ */
+@Singleton
+public class TranslationBundleCache {
+
+    private final ConcurrentMap<String, Optional<ResourceBundle>> resolvedBundles = new ConcurrentHashMap<String, Optional<ResourceBundle>>();
+
+    @Nullable
+    public ResourceBundle getBundle(final Locale locale, final String bundlePath) {
+        final String cacheKey = bundlePath + "|" + locale;
+        Optional<ResourceBundle> bundle = resolvedBundles.get(cacheKey);
+        if (bundle == null) {
+            bundle = Optional.fromNullable(resolveBundle(locale, bundlePath));
+            resolvedBundles.put(cacheKey, bundle);
+        }
+        return bundle.orNull();
+    }
+
+    // Force bundles to be resolved again on next use
+    public void invalidate() {
+        // Bundles loaded from the classpath are also cached by the JDK
+        ResourceBundle.clearCache();
+        resolvedBundles.clear();
+    }
+
+    private ResourceBundle resolveBundle(final Locale locale, final String bundlePath) {
+        try {
+            // Try to load the bundle from the classpath first
+            return ResourceBundle.getBundle(bundlePath, locale);
+        } catch (MissingResourceException ignored) {
+        }
+
+        // Try to load it from a properties file
+        final String propertiesFileNameWithCountry = bundlePath + "_" + locale.getLanguage() + "_" + locale.getCountry() + ".properties";
+        ResourceBundle bundle = getBundleFromPropertiesFile(propertiesFileNameWithCountry);
+        if (bundle != null) {
+            return bundle;
+        } else {
+            final String propertiesFileName = bundlePath + "_" + locale.getLanguage() + ".properties";
+            bundle = getBundleFromPropertiesFile(propertiesFileName);
+        }
+
+        return bundle;
+    }
+
+    private ResourceBundle getBundleFromPropertiesFile(final String propertiesFileName) {
+        try {
+            final InputStream inputStream = UriAccessor.accessUri(propertiesFileName);
+            if (inputStream == null) {
+                return null;
+            } else {
+                return new PropertyResourceBundle(inputStream);
+            }
+        } catch (IllegalArgumentException iae) {
+            return null;
+        } catch (MissingResourceException mrex) {
+            return null;
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
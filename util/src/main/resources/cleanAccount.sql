@@ -30,6 +30,7 @@ BEGIN
 
     DELETE FROM accounts WHERE record_id = v_account_record_id;
     DELETE FROM account_emails WHERE account_record_id = v_account_record_id;
+    DELETE FROM account_search_keys WHERE account_record_id = v_account_record_id;
     DELETE FROM account_email_history WHERE account_record_id = v_account_record_id;
     DELETE FROM account_history WHERE target_record_id = v_account_record_id;
     DELETE FROM audit_log WHERE account_record_id = v_account_record_id;
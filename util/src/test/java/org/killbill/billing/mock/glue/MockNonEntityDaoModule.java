@@ -20,8 +20,12 @@ package org.killbill.billing.mock.glue;
 
 import org.killbill.billing.dao.MockNonEntityDao;
 import org.killbill.billing.platform.api.KillbillConfigSource;
+import org.killbill.billing.util.config.PaginationConfig;
+import org.killbill.billing.util.config.ProfilingConfig;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.glue.KillBillModule;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class MockNonEntityDaoModule extends KillBillModule {
 
@@ -31,6 +35,14 @@ public class MockNonEntityDaoModule extends KillBillModule {
 
     @Override
     protected void configure() {
+        final PaginationConfig paginationConfig = new ConfigurationObjectFactory(skifeConfigSource).build(PaginationConfig.class);
+        bind(PaginationConfig.class).toInstance(paginationConfig);
+
+        // The SqlDao wrappers record into the aggregated latency histograms
+        final ProfilingConfig profilingConfig = new ConfigurationObjectFactory(skifeConfigSource).build(ProfilingConfig.class);
+        bind(ProfilingConfig.class).toInstance(profilingConfig);
+        bind(AggregatedProfiling.class).asEagerSingleton();
+
         bind(NonEntityDao.class).to(MockNonEntityDao.class);
     }
 }
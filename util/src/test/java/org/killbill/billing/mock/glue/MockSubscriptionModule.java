@@ -25,8 +25,10 @@ import org.killbill.billing.subscription.api.SubscriptionBaseService;
 import org.killbill.billing.subscription.api.migration.SubscriptionBaseMigrationApi;
 import org.killbill.billing.subscription.api.timeline.SubscriptionBaseTimelineApi;
 import org.killbill.billing.subscription.api.transfer.SubscriptionBaseTransferApi;
+import org.killbill.billing.util.config.SubscriptionConfig;
 import org.killbill.billing.util.glue.KillBillModule;
 import org.mockito.Mockito;
+import org.skife.config.ConfigurationObjectFactory;
 
 public class MockSubscriptionModule extends KillBillModule implements SubscriptionModule {
 
@@ -51,6 +53,7 @@ public class MockSubscriptionModule extends KillBillModule implements Subscripti
 
     @Override
     protected void configure() {
+        bind(SubscriptionConfig.class).toInstance(new ConfigurationObjectFactory(skifeConfigSource).build(SubscriptionConfig.class));
         installSubscriptionService();
         installSubscriptionMigrationApi();
         installSubscriptionInternalApi();
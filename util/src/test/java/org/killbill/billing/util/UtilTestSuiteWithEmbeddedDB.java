@@ -33,11 +33,13 @@ import org.killbill.notificationq.api.NotificationQueueService;
 import org.killbill.billing.util.audit.dao.AuditDao;
 import org.killbill.billing.util.cache.CacheControllerDispatcher;
 import org.killbill.billing.util.callcontext.InternalCallContextFactory;
+import org.killbill.billing.util.config.ExportConfig;
 import org.killbill.billing.util.customfield.api.DefaultCustomFieldUserApi;
 import org.killbill.billing.util.customfield.dao.CustomFieldDao;
 import org.killbill.billing.util.dao.NonEntityDao;
 import org.killbill.billing.util.export.dao.DatabaseExportDao;
 import org.killbill.billing.util.glue.TestUtilModuleWithEmbeddedDB;
+import org.killbill.billing.util.profiling.AggregatedProfiling;
 import org.killbill.billing.util.tag.dao.DefaultTagDao;
 import org.killbill.billing.util.tag.dao.TagDefinitionDao;
 
@@ -56,6 +58,8 @@ public abstract class UtilTestSuiteWithEmbeddedDB extends GuicyKillbillTestSuite
     @Inject
     protected NonEntityDao nonEntityDao;
     @Inject
+    protected AggregatedProfiling aggregatedProfiling;
+    @Inject
     protected InternalCallContextFactory internalCallContextFactory;
     @Inject
     protected DefaultCustomFieldUserApi customFieldUserApi;
@@ -64,6 +68,8 @@ public abstract class UtilTestSuiteWithEmbeddedDB extends GuicyKillbillTestSuite
     @Inject
     protected DatabaseExportDao dao;
     @Inject
+    protected ExportConfig exportConfig;
+    @Inject
     protected NotificationQueueService queueService;
     @Inject
     protected TagDefinitionDao tagDefinitionDao;
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.currency;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.IllegalCurrencyException;
+import org.killbill.billing.catalog.api.Currency;
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestMoneyAccumulator extends UtilTestSuiteNoDB {
+
+    private static final int NB_ITERATIONS = 10000;
+
+    @Test(groups = "fast")
+    public void testSimpleOperations() throws Exception {
+        Assert.assertEquals(new MoneyAccumulator().toBigDecimal(), BigDecimal.ZERO);
+        Assert.assertEquals(new MoneyAccumulator().add(new BigDecimal("1.5")).add(new BigDecimal("2.25")).toBigDecimal(), new BigDecimal("3.75"));
+        Assert.assertEquals(new MoneyAccumulator().addProduct(BigDecimal.ONE, 10).addProduct(BigDecimal.ONE, 5).toBigDecimal(), new BigDecimal("15"));
+        Assert.assertEquals(new MoneyAccumulator().addProduct(new BigDecimal("0.333333333"), new BigDecimal("29.95")).toMoney(Currency.USD), new BigDecimal("9.98"));
+        Assert.assertEquals(new MoneyAccumulator().add(new BigDecimal("-2.5")).toMoney(Currency.JPY), new BigDecimal("-3"));
+        Assert.assertEquals(new MoneyAccumulator().add(new BigDecimal("2.5")).toMoney(Currency.JPY), new BigDecimal("3"));
+        Assert.assertEquals(new MoneyAccumulator().add(new BigDecimal("1E+3")).toBigDecimal(), new BigDecimal("1000"));
+    }
+
+    @Test(groups = "fast")
+    public void testOverflow() throws Exception {
+        final BigDecimal large = new BigDecimal(Long.MAX_VALUE).movePointLeft(2);
+        final MoneyAccumulator accumulator = new MoneyAccumulator().add(large).add(large).addProduct(large, 1000L);
+        final BigDecimal expected = large.add(large).add(large.multiply(new BigDecimal(1000L)));
+        Assert.assertEquals(accumulator.toBigDecimal(), expected);
+        Assert.assertEquals(accumulator.toMoney(Currency.USD), legacyRounding(expected, Currency.USD));
+
+        final BigDecimal huge = new BigDecimal(BigInteger.TEN.pow(30), 4);
+        Assert.assertEquals(new MoneyAccumulator().add(BigDecimal.ONE).add(huge).toBigDecimal(), BigDecimal.ONE.add(huge));
+    }
+
+    @Test(groups = "fast")
+    public void testMinorUnits() throws Exception {
+        Assert.assertEquals(KillBillMoney.toMinorUnits(new BigDecimal("12.345"), Currency.USD), 1235L);
+        Assert.assertEquals(KillBillMoney.toMinorUnits(new BigDecimal("-12.345"), Currency.USD), -1235L);
+        Assert.assertEquals(KillBillMoney.fromMinorUnits(1235L, Currency.USD), new BigDecimal("12.35"));
+        Assert.assertEquals(KillBillMoney.fromMinorUnits(1235L, Currency.JPY), new BigDecimal("1235"));
+
+        Assert.assertEquals(new MoneyAccumulator().addProduct(1999L, 2, 3L).add(5L, 3).toMinorUnits(Currency.USD), 5998L);
+        Assert.assertEquals(new MoneyAccumulator().add(-12345L, 3).toMinorUnits(Currency.USD), -1235L);
+        Assert.assertEquals(new MoneyAccumulator().add(12L, 0).toMinorUnits(Currency.JPY), 12L);
+        Assert.assertEquals(new MoneyAccumulator().add(12L, -2).toMinorUnits(Currency.USD), 120000L);
+    }
+
+    // Property test: the fast path must give exactly the same results (value and scale) as the BigDecimal arithmetic it replaces
+    @Test(groups = "fast")
+    public void testSameResultsAsBigDecimal() throws Exception {
+        final Random random = new Random(42L);
+        final List<Currency> currencies = getSupportedCurrencies();
+
+        for (int i = 0; i < NB_ITERATIONS; i++) {
+            final Currency currency = currencies.get(random.nextInt(currencies.size()));
+
+            final MoneyAccumulator accumulator = new MoneyAccumulator();
+            final MoneyAccumulator unscaledAccumulator = new MoneyAccumulator();
+            BigDecimal expected = BigDecimal.ZERO;
+            final int nbOperations = 1 + random.nextInt(10);
+            for (int j = 0; j < nbOperations; j++) {
+                final BigDecimal amount = randomAmount(random);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        accumulator.add(amount);
+                        unscaledAccumulator.add(amount.unscaledValue().longValue(), amount.scale());
+                        expected = expected.add(amount);
+                        break;
+                    case 1:
+                        final int quantity = random.nextInt(100000);
+                        accumulator.addProduct(amount, quantity);
+                        unscaledAccumulator.addProduct(amount.unscaledValue().longValue(), amount.scale(), quantity);
+                        expected = expected.add(amount.multiply(new BigDecimal(quantity)));
+                        break;
+                    default:
+                        final BigDecimal factor = randomAmount(random);
+                        accumulator.addProduct(amount, factor);
+                        unscaledAccumulator.addProduct(amount, factor);
+                        expected = expected.add(amount.multiply(factor));
+                        break;
+                }
+            }
+
+            Assert.assertEquals(accumulator.toBigDecimal(), expected);
+            Assert.assertEquals(accumulator.toMoney(currency), legacyRounding(expected, currency), expected.toPlainString());
+            Assert.assertEquals(KillBillMoney.of(expected, currency), legacyRounding(expected, currency));
+
+            Assert.assertEquals(unscaledAccumulator.toBigDecimal(), expected);
+            final BigInteger expectedMinorUnits = legacyRounding(expected, currency).unscaledValue();
+            if (expectedMinorUnits.bitLength() <= 63) {
+                Assert.assertEquals(unscaledAccumulator.toMinorUnits(currency), expectedMinorUnits.longValue(), expected.toPlainString());
+            } else {
+                try {
+                    unscaledAccumulator.toMinorUnits(currency);
+                    Assert.fail("Expected overflow for " + expected.toPlainString());
+                } catch (final ArithmeticException ignored) {
+                }
+            }
+        }
+    }
+
+    @Test(groups = "external", enabled = false)
+    public void testBenchmark() throws Exception {
+        // Convenience method to compare the BigDecimal arithmetic with both accumulator paths (ns and bytes allocated per operation)
+        final int nbAmounts = 1000;
+        final int nbRounds = 2000;
+        final Random random = new Random(42L);
+        final BigDecimal[] amounts = new BigDecimal[nbAmounts];
+        final long[] unscaledAmounts = new long[nbAmounts];
+        final int[] scales = new int[nbAmounts];
+        final long[] quantities = new long[nbAmounts];
+        for (int i = 0; i < nbAmounts; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextInt(10000000), random.nextInt(KillBillMoney.MAX_SCALE + 1));
+            unscaledAmounts[i] = amounts[i].unscaledValue().longValue();
+            scales[i] = amounts[i].scale();
+            quantities[i] = random.nextInt(1000);
+        }
+
+        long bigDecimalMinorUnits = 0;
+        long accumulatorMinorUnits = 0;
+        long unscaledMinorUnits = 0;
+        // The first pass is the warm-up, only the second one is reported
+        for (int warmup = 1; warmup >= 0; warmup--) {
+            final long[] bigDecimalStats = startMeasure();
+            for (int round = 0; round < nbRounds; round++) {
+                BigDecimal total = BigDecimal.ZERO;
+                for (int i = 0; i < nbAmounts; i++) {
+                    total = total.add(amounts[i].multiply(BigDecimal.valueOf(quantities[i])));
+                }
+                bigDecimalMinorUnits = KillBillMoney.toMinorUnits(total, Currency.USD);
+            }
+            stopMeasure("BigDecimal", bigDecimalStats, nbRounds * nbAmounts, warmup == 0);
+
+            final long[] accumulatorStats = startMeasure();
+            for (int round = 0; round < nbRounds; round++) {
+                final MoneyAccumulator accumulator = new MoneyAccumulator();
+                for (int i = 0; i < nbAmounts; i++) {
+                    accumulator.addProduct(amounts[i], quantities[i]);
+                }
+                accumulatorMinorUnits = accumulator.toMinorUnits(Currency.USD);
+            }
+            stopMeasure("MoneyAccumulator (BigDecimal)", accumulatorStats, nbRounds * nbAmounts, warmup == 0);
+
+            final long[] unscaledStats = startMeasure();
+            for (int round = 0; round < nbRounds; round++) {
+                final MoneyAccumulator accumulator = new MoneyAccumulator();
+                for (int i = 0; i < nbAmounts; i++) {
+                    accumulator.addProduct(unscaledAmounts[i], scales[i], quantities[i]);
+                }
+                unscaledMinorUnits = accumulator.toMinorUnits(Currency.USD);
+            }
+            stopMeasure("MoneyAccumulator (long)", unscaledStats, nbRounds * nbAmounts, warmup == 0);
+        }
+
+        Assert.assertEquals(accumulatorMinorUnits, bigDecimalMinorUnits);
+        Assert.assertEquals(unscaledMinorUnits, bigDecimalMinorUnits);
+    }
+
+    private long[] startMeasure() {
+        return new long[]{System.nanoTime(), getAllocatedBytes()};
+    }
+
+    private void stopMeasure(final String name, final long[] stats, final long nbOperations, final boolean report) {
+        final long elapsedNanos = System.nanoTime() - stats[0];
+        final long allocatedBytes = getAllocatedBytes() - stats[1];
+        if (report) {
+            log.info(String.format("%s: %.1f ns/op, %s bytes/op", name, (double) elapsedNanos / nbOperations, stats[1] < 0 ? "?" : String.format("%.1f", (double) allocatedBytes / nbOperations)));
+        }
+    }
+
+    // HotSpot only, -1 if not available
+    private long getAllocatedBytes() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private BigDecimal randomAmount(final Random random) {
+        // Mostly realistic amounts, with the occasional value at the edge of the long range
+        final long unscaledValue = random.nextInt(20) == 0 ? random.nextLong() : (long) random.nextInt(10000000) - 5000000;
+        final int scale = random.nextInt(20) == 0 ? -random.nextInt(3) : random.nextInt(KillBillMoney.MAX_SCALE + 1);
+        return BigDecimal.valueOf(unscaledValue, scale);
+    }
+
+    private List<Currency> getSupportedCurrencies() {
+        final List<Currency> currencies = new ArrayList<Currency>();
+        for (final Currency currency : Currency.values()) {
+            try {
+                CurrencyUnit.getInstance(currency.toString());
+                currencies.add(currency);
+            } catch (final IllegalCurrencyException ignored) {
+            }
+        }
+        return currencies;
+    }
+
+    // Rounding as implemented before the per-currency scale cache
+    private BigDecimal legacyRounding(final BigDecimal amount, final Currency currency) {
+        return amount.setScale(CurrencyUnit.getInstance(currency.toString()).getDecimalPlaces(), KillBillMoney.ROUNDING_METHOD);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.customfield.dao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import org.killbill.billing.ObjectType;
+import org.killbill.billing.api.TestApiListener.NextEvent;
+import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.api.CustomFieldApiException;
+import org.killbill.billing.util.customfield.StringCustomField;
+
+import com.google.common.collect.ImmutableList;
+
+public class TestDefaultCustomFieldDao extends UtilTestSuiteWithEmbeddedDB {
+
+    @Test(groups = "slow")
+    public void testGetCustomFieldsForObjects() throws CustomFieldApiException {
+        final UUID firstObjectId = UUID.randomUUID();
+        final UUID secondObjectId = UUID.randomUUID();
+        final UUID objectIdWithoutFields = UUID.randomUUID();
+        final ObjectType objectType = ObjectType.BUNDLE;
+
+        eventsListener.pushExpectedEvent(NextEvent.CUSTOM_FIELD);
+        customFieldDao.create(new CustomFieldModelDao(new StringCustomField("first", "1", objectType, firstObjectId, internalCallContext.getCreatedDate())), internalCallContext);
+        assertListenerStatus();
+
+        eventsListener.pushExpectedEvent(NextEvent.CUSTOM_FIELD);
+        customFieldDao.create(new CustomFieldModelDao(new StringCustomField("second", "2", objectType, firstObjectId, internalCallContext.getCreatedDate())), internalCallContext);
+        assertListenerStatus();
+
+        eventsListener.pushExpectedEvent(NextEvent.CUSTOM_FIELD);
+        customFieldDao.create(new CustomFieldModelDao(new StringCustomField("first", "3", objectType, secondObjectId, internalCallContext.getCreatedDate())), internalCallContext);
+        assertListenerStatus();
+
+        final Map<UUID, List<CustomFieldModelDao>> fieldsByObjectId = customFieldDao.getCustomFieldsForObjects(ImmutableList.<UUID>of(firstObjectId, secondObjectId, objectIdWithoutFields), objectType, internalCallContext);
+        Assert.assertEquals(fieldsByObjectId.size(), 3);
+        Assert.assertEquals(fieldsByObjectId.get(firstObjectId).size(), 2);
+        Assert.assertEquals(fieldsByObjectId.get(secondObjectId).size(), 1);
+        Assert.assertEquals(fieldsByObjectId.get(secondObjectId).get(0).getFieldValue(), "3");
+        Assert.assertTrue(fieldsByObjectId.get(objectIdWithoutFields).isEmpty());
+
+        // Same ids, different object type
+        final Map<UUID, List<CustomFieldModelDao>> fieldsForOtherType = customFieldDao.getCustomFieldsForObjects(ImmutableList.<UUID>of(firstObjectId, secondObjectId), ObjectType.ACCOUNT, internalCallContext);
+        Assert.assertTrue(fieldsForOtherType.get(firstObjectId).isEmpty());
+        Assert.assertTrue(fieldsForOtherType.get(secondObjectId).isEmpty());
+
+        // Deleted fields aren't returned
+        customFieldDao.deleteCustomField(fieldsByObjectId.get(secondObjectId).get(0).getId(), internalCallContext);
+        Assert.assertTrue(customFieldDao.getCustomFieldsForObjects(ImmutableList.<UUID>of(secondObjectId), objectType, internalCallContext).get(secondObjectId).isEmpty());
+
+        // Empty input
+        Assert.assertTrue(customFieldDao.getCustomFieldsForObjects(ImmutableList.<UUID>of(), objectType, internalCallContext).isEmpty());
+    }
+}
@@ -23,8 +23,15 @@ import org.testng.annotations.Test;
 
 import org.killbill.billing.api.TestApiListener.NextEvent;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.config.PaginationConfig;
+import org.killbill.billing.util.entity.Pagination;
+import org.killbill.billing.util.tag.api.user.TagEventBuilder;
+import org.killbill.billing.util.tag.dao.DefaultTagDefinitionDao;
+import org.killbill.billing.util.tag.dao.TagDefinitionDao;
 import org.killbill.billing.util.tag.dao.TagDefinitionModelDao;
 import org.killbill.billing.util.tag.dao.TagDefinitionSqlDao;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
 
 import com.google.common.collect.ImmutableList;
 
@@ -74,4 +81,63 @@ public class TestPagination extends UtilTestSuiteWithEmbeddedDB {
             }
         }
     }
+
+    @Test(groups = "slow", description = "Test Pagination: walk the pages via the nextOffset")
+    public void testTagDefinitionsPaginationByPages() throws Exception {
+        createTagDefinitions(10);
+
+        int nb = 0;
+        Long offset = 0L;
+        while (offset != null) {
+            final Pagination<TagDefinitionModelDao> page = tagDefinitionDao.get(offset, 3L, internalCallContext);
+            for (final TagDefinitionModelDao tagDefinition : ImmutableList.<TagDefinitionModelDao>copyOf(page)) {
+                Assert.assertEquals(tagDefinition.getName(), "name-" + nb);
+                nb++;
+            }
+            offset = page.getNextOffset();
+        }
+        Assert.assertEquals(nb, 10);
+    }
+
+    @Test(groups = "slow", description = "Test Pagination: relaxed counts")
+    public void testTagDefinitionsPaginationCountModes() throws Exception {
+        createTagDefinitions(3);
+
+        final TagDefinitionDao noCountDao = createTagDefinitionDao("NONE");
+        final Pagination<TagDefinitionModelDao> noCountPage = noCountDao.get(0L, 2L, internalCallContext);
+        Assert.assertNull(noCountPage.getTotalNbRecords());
+        Assert.assertNull(noCountPage.getMaxNbRecords());
+        // Without the total, the client stops once a page comes back empty
+        Assert.assertEquals(noCountPage.getNextOffset(), (Long) 2L);
+        Assert.assertEquals(ImmutableList.<TagDefinitionModelDao>copyOf(noCountPage).size(), 2);
+
+        final TagDefinitionDao estimatingDao = createTagDefinitionDao("estimate");
+        Assert.assertEquals(estimatingDao.get(0L, 2L, internalCallContext).getMaxNbRecords(), (Long) 3L);
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG_DEFINITION);
+        tagDefinitionDao.create("name-3", "description-3", internalCallContext);
+        assertListenerStatus();
+
+        // The estimate is reused until it expires...
+        final Pagination<TagDefinitionModelDao> estimatedPage = estimatingDao.get(0L, 2L, internalCallContext);
+        Assert.assertEquals(estimatedPage.getMaxNbRecords(), (Long) 3L);
+        Assert.assertEquals(ImmutableList.<TagDefinitionModelDao>copyOf(estimatedPage).size(), 2);
+        // ...while exact counts see the new record right away
+        Assert.assertEquals(tagDefinitionDao.get(0L, 2L, internalCallContext).getMaxNbRecords(), (Long) 4L);
+    }
+
+    private void createTagDefinitions(final int nb) throws Exception {
+        for (int i = 0; i < nb; i++) {
+            eventsListener.pushExpectedEvent(NextEvent.TAG_DEFINITION);
+            tagDefinitionDao.create("name-" + i, "description-" + i, internalCallContext);
+            assertListenerStatus();
+        }
+    }
+
+    private TagDefinitionDao createTagDefinitionDao(final String countMode) {
+        final PaginationConfig paginationConfig = Mockito.mock(PaginationConfig.class);
+        Mockito.when(paginationConfig.getPaginationCountMode()).thenReturn(countMode);
+        Mockito.when(paginationConfig.getPaginationCountEstimateTtl()).thenReturn(new TimeSpan("1h"));
+        return new DefaultTagDefinitionDao(dbi, new TagEventBuilder(), eventBus, clock, controlCacheDispatcher, nonEntityDao, aggregatedProfiling, paginationConfig);
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Minimal in-process SMTP server: accepts everything and counts connections and messages.
+ */
+public class SmtpStandIn {
+
+    private final ServerSocket serverSocket;
+    private final AtomicInteger nbConnections = new AtomicInteger();
+    private final AtomicInteger nbMessages = new AtomicInteger();
+
+    public SmtpStandIn() throws IOException {
+        this.serverSocket = new ServerSocket(0);
+
+        final Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        nbConnections.incrementAndGet();
+                        final Thread session = new Thread(new Runnable() {
+                            @Override
+                            public void run() {
+                                handleSession(socket);
+                            }
+                        });
+                        session.setDaemon(true);
+                        session.start();
+                    } catch (final IOException ignored) {
+                        // Closed
+                    }
+                }
+            }
+        }, "smtp-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getNbConnections() {
+        return nbConnections.get();
+    }
+
+    public int getNbMessages() {
+        return nbMessages.get();
+    }
+
+    public void stop() throws IOException {
+        serverSocket.close();
+    }
+
+    private void handleSession(final Socket socket) {
+        try {
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), Charsets.US_ASCII));
+            final Writer writer = new OutputStreamWriter(socket.getOutputStream(), Charsets.US_ASCII);
+            reply(writer, "220 localhost SMTP stand-in");
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String command = line.toUpperCase();
+                if (command.startsWith("DATA")) {
+                    reply(writer, "354 End data with <CR><LF>.<CR><LF>");
+                    while ((line = reader.readLine()) != null && !".".equals(line)) {
+                        // Skip the message content
+                    }
+                    nbMessages.incrementAndGet();
+                    reply(writer, "250 OK");
+                } else if (command.startsWith("QUIT")) {
+                    reply(writer, "221 Bye");
+                    break;
+                } else {
+                    // EHLO, HELO, MAIL, RCPT, RSET, NOOP...
+                    reply(writer, "250 OK");
+                }
+            }
+        } catch (final IOException ignored) {
+            // Client went away
+        } finally {
+            try {
+                socket.close();
+            } catch (final IOException ignored) {
+            }
+        }
+    }
+
+    private void reply(final Writer writer, final String response) throws IOException {
+        writer.write(response + "\r\n");
+        writer.flush();
+    }
+}
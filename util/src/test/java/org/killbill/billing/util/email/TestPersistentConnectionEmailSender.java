@@ -0,0 +1,77 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.email;
+
+import java.util.List;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TestPersistentConnectionEmailSender extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testConnectionIsReused() throws Exception {
+        final SmtpStandIn smtpServer = new SmtpStandIn();
+        try {
+            final PersistentConnectionEmailSender sender = new PersistentConnectionEmailSender(createConfig(smtpServer.getPort(), "1h"));
+            final List<String> to = ImmutableList.<String>of("john@example.com");
+            for (int i = 0; i < 3; i++) {
+                sender.sendHTMLEmail(to, null, "Invoice " + i, "<html><body>Invoice " + i + "</body></html>");
+            }
+            sender.close();
+
+            Assert.assertEquals(smtpServer.getNbMessages(), 3);
+            Assert.assertEquals(smtpServer.getNbConnections(), 1);
+        } finally {
+            smtpServer.stop();
+        }
+    }
+
+    @Test(groups = "fast")
+    public void testIdleConnectionIsReopened() throws Exception {
+        final SmtpStandIn smtpServer = new SmtpStandIn();
+        try {
+            final PersistentConnectionEmailSender sender = new PersistentConnectionEmailSender(createConfig(smtpServer.getPort(), "0ms"));
+            final List<String> to = ImmutableList.<String>of("john@example.com");
+            sender.sendPlainTextEmail(to, null, "First", "First email");
+            Thread.sleep(10);
+            sender.sendPlainTextEmail(to, null, "Second", "Second email");
+            sender.close();
+
+            Assert.assertEquals(smtpServer.getNbMessages(), 2);
+            Assert.assertEquals(smtpServer.getNbConnections(), 2);
+        } finally {
+            smtpServer.stop();
+        }
+    }
+
+    private EmailConfig createConfig(final int port, final String idleTimeout) {
+        final EmailConfig config = Mockito.mock(EmailConfig.class);
+        Mockito.when(config.getSmtpServerName()).thenReturn("127.0.0.1");
+        Mockito.when(config.getSmtpPort()).thenReturn(port);
+        Mockito.when(config.useSmtpAuth()).thenReturn(false);
+        Mockito.when(config.useSSL()).thenReturn(false);
+        Mockito.when(config.getDefaultFrom()).thenReturn("billing@example.com");
+        Mockito.when(config.getSmtpConnectionIdleTimeout()).thenReturn(new TimeSpan(idleTimeout));
+        return config;
+    }
+}
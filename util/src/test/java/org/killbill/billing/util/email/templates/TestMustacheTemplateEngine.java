@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.email.templates;
+
+import java.io.File;
+import java.util.Map;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+
+public class TestMustacheTemplateEngine extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testTemplatesAreCompiledOnce() throws Exception {
+        final File templateFile = File.createTempFile("template", ".mustache");
+        templateFile.deleteOnExit();
+        Files.write("Hello {{name}}", templateFile, Charsets.UTF_8);
+        final String templateName = templateFile.toURI().toString();
+
+        final MustacheTemplateEngine templateEngine = new MustacheTemplateEngine();
+        final Map<String, Object> data = ImmutableMap.<String, Object>of("name", "Kill Bill");
+        Assert.assertEquals(templateEngine.executeTemplate(templateName, data), "Hello Kill Bill");
+
+        // The compiled template is reused: changes on disk aren't seen until the cache is invalidated
+        Files.write("Goodbye {{name}}", templateFile, Charsets.UTF_8);
+        Assert.assertEquals(templateEngine.executeTemplate(templateName, data), "Hello Kill Bill");
+
+        templateEngine.invalidateTemplates();
+        Assert.assertEquals(templateEngine.executeTemplate(templateName, data), "Goodbye Kill Bill");
+    }
+}
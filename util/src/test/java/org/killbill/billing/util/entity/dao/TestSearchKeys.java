@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.entity.dao;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.entity.dao.SearchKeys.SearchMode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+
+public class TestSearchKeys extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testTokenize() throws Exception {
+        Assert.assertEquals(SearchKeys.tokenize("  John   DOE ", "john.doe@Example.com", null, ""),
+                            ImmutableSet.<String>of("john doe", "john", "doe", "john.doe@example.com", "example", "com"));
+        Assert.assertEquals(SearchKeys.tokenize("Jean-Pierre"), ImmutableSet.<String>of("jean-pierre", "jean", "pierre"));
+        Assert.assertTrue(SearchKeys.tokenize().isEmpty());
+    }
+
+    @Test(groups = "fast")
+    public void testNormalize() throws Exception {
+        Assert.assertNull(SearchKeys.normalize(null));
+        Assert.assertNull(SearchKeys.normalize("   "));
+        Assert.assertEquals(SearchKeys.normalize(" Foo\tBar "), "foo bar");
+        Assert.assertEquals(SearchKeys.normalize(Strings.repeat("a", 300)).length(), SearchKeys.MAX_SEARCH_KEY_LENGTH);
+    }
+
+    @Test(groups = "fast")
+    public void testToLikeSearchKey() throws Exception {
+        Assert.assertEquals(SearchKeys.toLikeSearchKey("foo", SearchMode.PREFIX), "foo%");
+        Assert.assertEquals(SearchKeys.toLikeSearchKey("foo", SearchMode.EXACT), "foo");
+        Assert.assertEquals(SearchKeys.toLikeSearchKey("foo", SearchMode.LIKE), "%foo%");
+
+        // Wildcards specified by the user are matched literally in indexed modes
+        Assert.assertEquals(SearchKeys.toLikeSearchKey("50%_off\\", SearchMode.PREFIX), "50\\%\\_off\\\\%");
+        Assert.assertEquals(SearchKeys.toLikeSearchKey("50%_off", SearchMode.EXACT), "50\\%\\_off");
+    }
+}
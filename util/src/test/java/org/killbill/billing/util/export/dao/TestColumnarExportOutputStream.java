@@ -0,0 +1,207 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.export.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.api.ColumnInfo;
+import org.killbill.billing.util.validation.DefaultColumnInfo;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TestColumnarExportOutputStream extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testRoundTrip() throws Exception {
+        final ByteArrayOutputStream delegate = new ByteArrayOutputStream();
+        // Small blocks to exercise the block boundaries
+        final ColumnarExportOutputStream out = new ColumnarExportOutputStream(delegate, 2);
+
+        final List<ColumnInfo> accountColumns = ImmutableList.<ColumnInfo>of(new DefaultColumnInfo("accounts", "record_id", 0, 0, false, 0, "int"),
+                                                                             new DefaultColumnInfo("accounts", "name", 0, 0, true, 0, "varchar"),
+                                                                             new DefaultColumnInfo("accounts", "balance", 0, 0, true, 0, "decimal"),
+                                                                             new DefaultColumnInfo("accounts", "migrated", 0, 0, true, 0, "bool"),
+                                                                             new DefaultColumnInfo("accounts", "created_date", 0, 0, true, 0, "datetime"));
+        final List<Map<String, Object>> accountRows = new ArrayList<Map<String, Object>>();
+        accountRows.add(row(accountColumns, 1L, "jean", new BigDecimal("12.50"), true, new Timestamp(12421982000L)));
+        accountRows.add(row(accountColumns, 2L, "jean", new BigDecimal("-3"), false, new Timestamp(0L)));
+        accountRows.add(row(accountColumns, -3L, null, null, null, null));
+
+        final List<ColumnInfo> tagColumns = ImmutableList.<ColumnInfo>of(new DefaultColumnInfo("tags", "created_by", 0, 0, true, 0, "varchar"));
+        final List<Map<String, Object>> tagRows = new ArrayList<Map<String, Object>>();
+        tagRows.add(row(tagColumns, "admin"));
+        tagRows.add(row(tagColumns, "admin"));
+        tagRows.add(row(tagColumns, "été"));
+
+        out.newTable("accounts", accountColumns);
+        for (final Map<String, Object> row : accountRows) {
+            out.write(row);
+        }
+        out.newTable("empty", tagColumns);
+        out.newTable("tags", tagColumns);
+        for (final Map<String, Object> row : tagRows) {
+            out.write(row);
+        }
+        out.flush();
+
+        final Map<String, List<Map<String, Object>>> tables = decode(delegate.toByteArray());
+        Assert.assertEquals(new ArrayList<String>(tables.keySet()), ImmutableList.<String>of("accounts", "empty", "tags"));
+        Assert.assertEquals(tables.get("accounts"), accountRows);
+        Assert.assertTrue(tables.get("empty").isEmpty());
+        Assert.assertEquals(tables.get("tags"), tagRows);
+    }
+
+    @Test(groups = "fast")
+    public void testSmallerThanCSV() throws Exception {
+        final List<ColumnInfo> columns = ImmutableList.<ColumnInfo>of(new DefaultColumnInfo("invoice_items", "record_id", 0, 0, false, 0, "int"),
+                                                                      new DefaultColumnInfo("invoice_items", "currency", 0, 0, true, 0, "varchar"),
+                                                                      new DefaultColumnInfo("invoice_items", "created_by", 0, 0, true, 0, "varchar"));
+        final ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        final ByteArrayOutputStream columnar = new ByteArrayOutputStream();
+        final CSVExportOutputStream csvOut = new CSVExportOutputStream(csv);
+        final ColumnarExportOutputStream columnarOut = new ColumnarExportOutputStream(columnar);
+        csvOut.newTable("invoice_items", columns);
+        columnarOut.newTable("invoice_items", columns);
+        for (long i = 0; i < 5000; i++) {
+            final Map<String, Object> row = row(columns, i, "USD", "InvoiceGeneration");
+            csvOut.write(row);
+            columnarOut.write(row);
+        }
+        columnarOut.flush();
+
+        Assert.assertTrue(columnar.size() * 3 < csv.size(), columnar.size() + " vs " + csv.size());
+    }
+
+    private Map<String, Object> row(final List<ColumnInfo> columns, final Object... values) {
+        final Map<String, Object> row = new HashMap<String, Object>();
+        for (int i = 0; i < values.length; i++) {
+            row.put(columns.get(i).getColumnName(), values[i]);
+        }
+        return row;
+    }
+
+    // Reference decoder for the format
+    private Map<String, List<Map<String, Object>>> decode(final byte[] bytes) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        final byte[] magic = new byte[ColumnarExportOutputStream.MAGIC.length];
+        in.readFully(magic);
+        Assert.assertTrue(Arrays.equals(magic, ColumnarExportOutputStream.MAGIC));
+        Assert.assertEquals(in.readByte(), ColumnarExportOutputStream.VERSION);
+
+        final Map<String, List<Map<String, Object>>> tables = new LinkedHashMap<String, List<Map<String, Object>>>();
+        List<String> columnNames = null;
+        List<Map<String, Object>> rows = null;
+        int marker;
+        while ((marker = in.read()) != -1) {
+            if (marker == ColumnarExportOutputStream.TABLE_MARKER) {
+                final String tableName = readString(in);
+                final int nbColumns = (int) readVarint(in);
+                columnNames = new ArrayList<String>();
+                for (int i = 0; i < nbColumns; i++) {
+                    columnNames.add(readString(in));
+                    // Data type
+                    readString(in);
+                }
+                rows = new ArrayList<Map<String, Object>>();
+                tables.put(tableName, rows);
+            } else {
+                Assert.assertEquals((byte) marker, ColumnarExportOutputStream.BLOCK_MARKER);
+                final int nbRows = (int) readVarint(in);
+                final List<Map<String, Object>> blockRows = new ArrayList<Map<String, Object>>();
+                for (int i = 0; i < nbRows; i++) {
+                    blockRows.add(new HashMap<String, Object>());
+                }
+                for (final String columnName : columnNames) {
+                    final List<String> dictionary = new ArrayList<String>();
+                    for (final Map<String, Object> row : blockRows) {
+                        row.put(columnName, readValue(in, dictionary));
+                    }
+                }
+                rows.addAll(blockRows);
+            }
+        }
+        return tables;
+    }
+
+    private Object readValue(final DataInputStream in, final List<String> dictionary) throws IOException {
+        final byte type = in.readByte();
+        switch (type) {
+            case ColumnarExportOutputStream.NULL:
+                return null;
+            case ColumnarExportOutputStream.LONG:
+                return readSignedVarint(in);
+            case ColumnarExportOutputStream.DECIMAL:
+                return new BigDecimal(readString(in));
+            case ColumnarExportOutputStream.TIMESTAMP:
+                return new Timestamp(readSignedVarint(in));
+            case ColumnarExportOutputStream.TRUE:
+                return Boolean.TRUE;
+            case ColumnarExportOutputStream.FALSE:
+                return Boolean.FALSE;
+            case ColumnarExportOutputStream.BYTES:
+                final byte[] value = new byte[(int) readVarint(in)];
+                in.readFully(value);
+                return value;
+            case ColumnarExportOutputStream.STRING:
+                final String string = readString(in);
+                dictionary.add(string);
+                return string;
+            case ColumnarExportOutputStream.STRING_REF:
+                return dictionary.get((int) readVarint(in));
+            default:
+                throw new IllegalStateException("Unexpected type " + type);
+        }
+    }
+
+    private String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[(int) readVarint(in)];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private long readSignedVarint(final DataInputStream in) throws IOException {
+        final long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarint(final DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -17,8 +17,17 @@
 package org.killbill.billing.util.export.dao;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.tweak.HandleCallback;
@@ -89,9 +98,153 @@ public class TestDatabaseExportDao extends UtilTestSuiteWithEmbeddedDB {
                                      "1,b," + internalCallContext.getAccountRecordId() + "," + internalCallContext.getTenantRecordId() + "\n");
     }
 
+    @Test(groups = "slow")
+    public void testExportLargeTables() throws Exception {
+        // More rows than the per-table buffer, in several tables, to exercise the concurrent readers
+        final int nbRows = exportConfig.getExportBufferRows() * 2 + 1;
+        final String tableNameC = "test_database_export_dao_c";
+        final String tableNameD = "test_database_export_dao_d";
+        createLargeTables(nbRows, tableNameC, tableNameD);
+
+        final String dump = getDump();
+        verifyLargeTables(dump, nbRows, tableNameC, tableNameD);
+
+        dropTables(tableNameC, tableNameD);
+    }
+
+    @Test(groups = "slow")
+    public void testConcurrentExportsShareReaders() throws Exception {
+        // More exports than allowed at the same time, each with more tables than readers, all sharing the same pool
+        final int nbRows = exportConfig.getExportBufferRows() + 1;
+        final String tableNameE = "test_database_export_dao_e";
+        final String tableNameF = "test_database_export_dao_f";
+        createLargeTables(nbRows, tableNameE, tableNameF);
+
+        final int nbExports = exportConfig.getExportMaxConcurrent() * 2 + 1;
+        final ExecutorService exporters = Executors.newFixedThreadPool(nbExports);
+        try {
+            final List<Future<String>> dumps = new ArrayList<Future<String>>();
+            for (int i = 0; i < nbExports; i++) {
+                dumps.add(exporters.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return getDump();
+                    }
+                }));
+            }
+
+            final String firstDump = dumps.get(0).get(1, TimeUnit.MINUTES);
+            verifyLargeTables(firstDump, nbRows, tableNameE, tableNameF);
+            for (final Future<String> dump : dumps) {
+                Assert.assertEquals(dump.get(1, TimeUnit.MINUTES), firstDump);
+            }
+        } finally {
+            exporters.shutdownNow();
+        }
+
+        dropTables(tableNameE, tableNameF);
+    }
+
+    @Test(groups = "slow")
+    public void testAbortedExportsReleaseReaders() throws Exception {
+        // Tables larger than the buffers, so that their readers are blocked when the output stream fails
+        final int nbRows = exportConfig.getExportBufferRows() * 2 + 1;
+        final String tableNameG = "test_database_export_dao_g";
+        final String tableNameH = "test_database_export_dao_h";
+        createLargeTables(nbRows, tableNameG, tableNameH);
+
+        // More aborted exports than readers: none of them should keep a reader thread
+        for (int i = 0; i < exportConfig.getExportNbThreads() + 1; i++) {
+            final DatabaseExportOutputStream out = new FailingExportOutputStream(exportConfig.getExportBufferRows());
+            try {
+                dao.exportDataForAccount(out, internalCallContext);
+                Assert.fail("The export should have failed");
+            } catch (final RuntimeException e) {
+                Assert.assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+
+        final ExecutorService exporter = Executors.newSingleThreadExecutor();
+        try {
+            final Future<String> dump = exporter.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return getDump();
+                }
+            });
+            verifyLargeTables(dump.get(1, TimeUnit.MINUTES), nbRows, tableNameG, tableNameH);
+        } finally {
+            exporter.shutdownNow();
+        }
+
+        dropTables(tableNameG, tableNameH);
+    }
+
+    private void createLargeTables(final int nbRows, final String... tableNames) {
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                for (final String tableName : tableNames) {
+                    handle.execute("drop table if exists " + tableName);
+                    handle.execute("create table " + tableName + "(record_id int(11) unsigned not null auto_increment," +
+                                   "account_record_id int(11) unsigned not null," +
+                                   "tenant_record_id int(11) unsigned default 0," +
+                                   "primary key(record_id));");
+                    for (int i = 0; i < nbRows; i++) {
+                        handle.execute("insert into " + tableName + " (account_record_id, tenant_record_id) values (?, ?)",
+                                       internalCallContext.getAccountRecordId(), internalCallContext.getTenantRecordId());
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private void verifyLargeTables(final String dump, final int nbRows, final String firstTableName, final String secondTableName) {
+        final int firstTableIndex = dump.indexOf("-- " + firstTableName + " ");
+        final int secondTableIndex = dump.indexOf("-- " + secondTableName + " ");
+        Assert.assertTrue(firstTableIndex >= 0);
+        Assert.assertTrue(secondTableIndex > firstTableIndex);
+        // Header + rows for each table, no interleaving
+        Assert.assertEquals(dump.substring(firstTableIndex, secondTableIndex).split("\n").length, nbRows + 1);
+        Assert.assertTrue(dump.substring(secondTableIndex).split("\n").length >= nbRows + 1);
+    }
+
+    private void dropTables(final String... tableNames) {
+        dbi.withHandle(new HandleCallback<Void>() {
+            @Override
+            public Void withHandle(final Handle handle) throws Exception {
+                for (final String tableName : tableNames) {
+                    handle.execute("drop table if exists " + tableName);
+                }
+                return null;
+            }
+        });
+    }
+
     private String getDump() {
         final DatabaseExportOutputStream out = new CSVExportOutputStream(new ByteArrayOutputStream());
         dao.exportDataForAccount(out, internalCallContext);
         return out.toString();
     }
+
+    // Simulates a client disconnecting in the middle of a download
+    private static final class FailingExportOutputStream extends CSVExportOutputStream {
+
+        private final int nbRowsBeforeFailure;
+        private int nbRows = 0;
+
+        private FailingExportOutputStream(final int nbRowsBeforeFailure) {
+            super(new ByteArrayOutputStream());
+            this.nbRowsBeforeFailure = nbRowsBeforeFailure;
+        }
+
+        @Override
+        public void write(final Map<String, Object> row) throws IOException {
+            if (++nbRows > nbRowsBeforeFailure) {
+                throw new IOException("Broken pipe");
+            }
+            super.write(row);
+        }
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.globallocker;
+
+import java.util.UUID;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.config.GlobalLockerConfig;
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.LockFailedException;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class TestInstrumentedGlobalLocker extends UtilTestSuiteNoDB {
+
+    private static final String SERVICE = LockerType.ACCOUNT_FOR_INVOICE_PAYMENTS.toString();
+
+    @Test(groups = "fast")
+    public void testAcquisitionAndHoldTimes() throws Exception {
+        final GlobalLockerConfig config = Mockito.mock(GlobalLockerConfig.class);
+        Mockito.when(config.getLockTryTimeout()).thenReturn(new TimeSpan("10ms"));
+
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final InstrumentedGlobalLocker instrumentedLocker = new InstrumentedGlobalLocker(new StripedMemoryGlobalLocker(config, metricRegistry), 1000L, metricRegistry);
+
+        final String lockName = UUID.randomUUID().toString();
+        final GlobalLock lock = instrumentedLocker.lockWithNumberOfTries(SERVICE, lockName, 1);
+        try {
+            instrumentedLocker.lockWithNumberOfTries(SERVICE, lockName, 1);
+            Assert.fail("Lock should be held");
+        } catch (final LockFailedException e) {
+            // Expected
+        }
+        lock.release();
+        // Releasing twice doesn't record the hold time twice
+        lock.release();
+        Assert.assertTrue(instrumentedLocker.isFree(SERVICE, lockName));
+
+        final String delegateName = StripedMemoryGlobalLocker.class.getSimpleName();
+        Assert.assertEquals(metricRegistry.getTimers().get(MetricRegistry.name(InstrumentedGlobalLocker.class, delegateName, "acquire")).getCount(), 2);
+        Assert.assertEquals(metricRegistry.getTimers().get(MetricRegistry.name(InstrumentedGlobalLocker.class, delegateName, "hold")).getCount(), 1);
+        Assert.assertEquals(metricRegistry.getMeters().get(MetricRegistry.name(InstrumentedGlobalLocker.class, delegateName, "failures")).getCount(), 1);
+    }
+}
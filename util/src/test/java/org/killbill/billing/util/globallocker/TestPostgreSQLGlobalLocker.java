@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.globallocker;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.LockFailedException;
+import org.mockito.Mockito;
+import org.skife.jdbi.v2.exceptions.UnableToExecuteStatementException;
+import org.skife.jdbi.v2.exceptions.UnableToObtainConnectionException;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TestPostgreSQLGlobalLocker extends UtilTestSuiteNoDB {
+
+    private static final String SERVICE = LockerType.ACCOUNT_FOR_INVOICE_PAYMENTS.toString();
+
+    private DataSource dataSource;
+    private Connection connection;
+    private PreparedStatement tryLockStatement;
+    private ResultSet tryLockResultSet;
+    private PreparedStatement unlockStatement;
+    private PostgreSQLGlobalLocker locker;
+
+    @Override
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        super.beforeMethod();
+
+        tryLockResultSet = Mockito.mock(ResultSet.class);
+        tryLockStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(tryLockStatement.executeQuery()).thenReturn(tryLockResultSet);
+
+        final ResultSet unlockResultSet = Mockito.mock(ResultSet.class);
+        Mockito.when(unlockResultSet.next()).thenReturn(true);
+        Mockito.when(unlockResultSet.getBoolean(1)).thenReturn(true);
+        unlockStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(unlockStatement.executeQuery()).thenReturn(unlockResultSet);
+
+        connection = Mockito.mock(Connection.class);
+        Mockito.when(connection.prepareStatement("select pg_try_advisory_lock(?)")).thenReturn(tryLockStatement);
+        Mockito.when(connection.prepareStatement("select pg_advisory_unlock(?)")).thenReturn(unlockStatement);
+
+        dataSource = Mockito.mock(DataSource.class);
+        Mockito.when(dataSource.getConnection()).thenReturn(connection);
+
+        locker = new PostgreSQLGlobalLocker(dataSource, 1L);
+    }
+
+    @Test(groups = "fast")
+    public void testLockPinsConnectionUntilRelease() throws Exception {
+        Mockito.when(tryLockResultSet.next()).thenReturn(true);
+        Mockito.when(tryLockResultSet.getBoolean(1)).thenReturn(true);
+
+        final GlobalLock lock = locker.lockWithNumberOfTries(SERVICE, UUID.randomUUID().toString(), 1);
+        Mockito.verify(connection, Mockito.never()).close();
+
+        lock.release();
+        Mockito.verify(unlockStatement).executeQuery();
+        Mockito.verify(connection).close();
+
+        // Releasing twice is a no-op
+        lock.release();
+        Mockito.verify(unlockStatement).executeQuery();
+        Mockito.verify(connection).close();
+    }
+
+    @Test(groups = "fast")
+    public void testContentionIsRetried() throws Exception {
+        Mockito.when(tryLockResultSet.next()).thenReturn(true);
+        Mockito.when(tryLockResultSet.getBoolean(1)).thenReturn(false);
+
+        try {
+            locker.lockWithNumberOfTries(SERVICE, UUID.randomUUID().toString(), 3);
+            Assert.fail("Lock should be held by another session");
+        } catch (final LockFailedException e) {
+            // Expected
+        }
+        Mockito.verify(tryLockStatement, Mockito.times(3)).executeQuery();
+        // The connection is given back to the pool after each try
+        Mockito.verify(connection, Mockito.times(3)).close();
+
+        Assert.assertFalse(locker.isFree(SERVICE, UUID.randomUUID().toString()));
+    }
+
+    @Test(groups = "fast")
+    public void testIsFree() throws Exception {
+        Mockito.when(tryLockResultSet.next()).thenReturn(true);
+        Mockito.when(tryLockResultSet.getBoolean(1)).thenReturn(true);
+
+        Assert.assertTrue(locker.isFree(SERVICE, UUID.randomUUID().toString()));
+        Mockito.verify(unlockStatement).executeQuery();
+        Mockito.verify(connection).close();
+    }
+
+    @Test(groups = "fast")
+    public void testConnectionFailureIsNotRetried() throws Exception {
+        Mockito.when(dataSource.getConnection()).thenThrow(new SQLException("Pool exhausted"));
+
+        try {
+            locker.lockWithNumberOfTries(SERVICE, UUID.randomUUID().toString(), 3);
+            Assert.fail("Database errors should be propagated");
+        } catch (final UnableToObtainConnectionException e) {
+            Assert.assertEquals(e.getCause().getMessage(), "Pool exhausted");
+        }
+        Mockito.verify(dataSource, Mockito.times(1)).getConnection();
+    }
+
+    @Test(groups = "fast")
+    public void testStatementFailureIsNotRetried() throws Exception {
+        Mockito.when(tryLockStatement.executeQuery()).thenThrow(new SQLException("Connection reset"));
+
+        try {
+            locker.lockWithNumberOfTries(SERVICE, UUID.randomUUID().toString(), 3);
+            Assert.fail("Database errors should be propagated");
+        } catch (final UnableToExecuteStatementException e) {
+            Assert.assertEquals(e.getCause().getMessage(), "Connection reset");
+        }
+        Mockito.verify(tryLockStatement, Mockito.times(1)).executeQuery();
+        Mockito.verify(connection, Mockito.times(1)).close();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.killbill.billing.util.globallocker;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.config.GlobalLockerConfig;
+import org.killbill.commons.locker.GlobalLock;
+import org.killbill.commons.locker.GlobalLocker;
+import org.killbill.commons.locker.LockFailedException;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+public class TestStripedMemoryGlobalLocker extends UtilTestSuiteNoDB {
+
+    private static final String SERVICE = LockerType.ACCOUNT_FOR_INVOICE_PAYMENTS.toString();
+
+    private MetricRegistry metricRegistry;
+    private GlobalLocker memoryLocker;
+
+    @BeforeMethod(groups = "fast")
+    public void beforeMethod() throws Exception {
+        super.beforeMethod();
+        final GlobalLockerConfig config = Mockito.mock(GlobalLockerConfig.class);
+        Mockito.when(config.getLockTryTimeout()).thenReturn(new TimeSpan("100ms"));
+        metricRegistry = new MetricRegistry();
+        memoryLocker = new StripedMemoryGlobalLocker(config, metricRegistry);
+    }
+
+    @Test(groups = "fast")
+    public void testLockIsNotReentrant() throws Exception {
+        final String lockName = UUID.randomUUID().toString();
+        Assert.assertTrue(memoryLocker.isFree(SERVICE, lockName));
+
+        final GlobalLock lock = memoryLocker.lockWithNumberOfTries(SERVICE, lockName, 3);
+        Assert.assertFalse(memoryLocker.isFree(SERVICE, lockName));
+        // Other keys are independent
+        Assert.assertTrue(memoryLocker.isFree(SERVICE, UUID.randomUUID().toString()));
+
+        try {
+            memoryLocker.lockWithNumberOfTries(SERVICE, lockName, 1);
+            Assert.fail("Lock should not be reentrant");
+        } catch (final LockFailedException e) {
+            // Expected
+        }
+
+        lock.release();
+        // Releasing twice is a no-op
+        lock.release();
+        Assert.assertTrue(memoryLocker.isFree(SERVICE, lockName));
+    }
+
+    @Test(groups = "fast")
+    public void testWaiterAcquiresLockOnRelease() throws Exception {
+        final String lockName = UUID.randomUUID().toString();
+        final GlobalLock lock = memoryLocker.lockWithNumberOfTries(SERVICE, lockName, 1);
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicBoolean acquired = new AtomicBoolean(false);
+        final Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // Waits up to 50 * 100ms
+                    final GlobalLock waiterLock = memoryLocker.lockWithNumberOfTries(SERVICE, lockName, 50);
+                    acquired.set(true);
+                    waiterLock.release();
+                } catch (final LockFailedException ignored) {
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        waiter.start();
+
+        // Only release the lock once the waiter is parked on it, to exercise the hand-off rather than the fast path
+        awaitParked(waiter);
+        lock.release();
+
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(acquired.get());
+        Assert.assertTrue(memoryLocker.isFree(SERVICE, lockName));
+    }
+
+    // The waiters gauge is incremented right before parking on the lock
+    private void awaitParked(final Thread thread) throws InterruptedException {
+        final Gauge waiters = metricRegistry.getGauges().get(MetricRegistry.name(StripedMemoryGlobalLocker.class, "waiters"));
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!Integer.valueOf(1).equals(waiters.getValue()) ||
+               (thread.getState() != Thread.State.TIMED_WAITING && thread.getState() != Thread.State.WAITING)) {
+            Assert.assertTrue(System.currentTimeMillis() < deadline, "Waiter never parked, state " + thread.getState());
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.glue;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.config.GlobalLockerConfig;
+import org.killbill.billing.util.glue.DatabaseGlobalLockerProvider.LockerDaoConfig;
+import org.killbill.commons.jdbi.guice.DaoConfig;
+import org.mockito.Mockito;
+import org.skife.config.TimeSpan;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestDatabaseGlobalLockerProvider extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testIsPostgreSQL() throws Exception {
+        Assert.assertTrue(DatabaseGlobalLockerProvider.isPostgreSQL("jdbc:postgresql://127.0.0.1:5432/killbill"));
+        Assert.assertFalse(DatabaseGlobalLockerProvider.isPostgreSQL("jdbc:mysql://127.0.0.1:3306/killbill"));
+        Assert.assertFalse(DatabaseGlobalLockerProvider.isPostgreSQL("jdbc:h2:file:/var/tmp/killbill;MODE=MYSQL"));
+        Assert.assertFalse(DatabaseGlobalLockerProvider.isPostgreSQL(null));
+    }
+
+    @Test(groups = "fast")
+    public void testLockerPoolUsesLockerSizing() throws Exception {
+        final DaoConfig daoConfig = Mockito.mock(DaoConfig.class);
+        Mockito.when(daoConfig.getJdbcUrl()).thenReturn("jdbc:postgresql://127.0.0.1:5432/killbill");
+        Mockito.when(daoConfig.getUsername()).thenReturn("killbill");
+        Mockito.when(daoConfig.getPassword()).thenReturn("killbill");
+        Mockito.when(daoConfig.getConnectionTimeout()).thenReturn(new TimeSpan("10s"));
+        Mockito.when(daoConfig.getMinIdle()).thenReturn(25);
+        Mockito.when(daoConfig.getMaxActive()).thenReturn(250);
+
+        final GlobalLockerConfig lockerConfig = Mockito.mock(GlobalLockerConfig.class);
+        Mockito.when(lockerConfig.getPoolMinIdle()).thenReturn(1);
+        Mockito.when(lockerConfig.getPoolMaxActive()).thenReturn(100);
+
+        final DaoConfig lockerDaoConfig = new LockerDaoConfig(daoConfig, lockerConfig);
+        // Pool sizing comes from the locker configuration...
+        Assert.assertEquals(lockerDaoConfig.getMinIdle(), 1);
+        Assert.assertEquals(lockerDaoConfig.getMaxActive(), 100);
+        // ...everything else from the main data source
+        Assert.assertEquals(lockerDaoConfig.getJdbcUrl(), "jdbc:postgresql://127.0.0.1:5432/killbill");
+        Assert.assertEquals(lockerDaoConfig.getUsername(), "killbill");
+        Assert.assertEquals(lockerDaoConfig.getPassword(), "killbill");
+        Assert.assertEquals(lockerDaoConfig.getConnectionTimeout().getMillis(), 10000L);
+    }
+}
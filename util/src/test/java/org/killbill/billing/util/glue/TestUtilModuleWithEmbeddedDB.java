@@ -38,6 +38,7 @@ public class TestUtilModuleWithEmbeddedDB extends TestUtilModule {
         install(new TagStoreModule(configSource));
         install(new CustomFieldModule(configSource));
         install(new NonEntityDaoModule(configSource));
+        install(new ExportModule(configSource));
         install(new GlobalLockerModule(DBTestingHelper.get().getInstance().getDBEngine(), configSource));
 
         bind(TestApiListener.class).asEagerSingleton();
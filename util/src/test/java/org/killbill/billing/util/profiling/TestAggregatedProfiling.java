@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.profiling;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+import org.killbill.billing.util.config.ProfilingConfig;
+import org.killbill.commons.profiling.ProfilingFeature.ProfilingFeatureType;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TestAggregatedProfiling extends UtilTestSuiteNoDB {
+
+    @Test(groups = "fast")
+    public void testBuckets() throws Exception {
+        long previousUpperBound = -1;
+        for (long value = 0; value < 100000; value++) {
+            final int index = LatencyHistogram.bucketIndex(value);
+            Assert.assertTrue(LatencyHistogram.bucketUpperBound(index) >= value);
+            // Relative precision of 1/8th
+            Assert.assertTrue(LatencyHistogram.bucketUpperBound(index) - value <= value / 8);
+            Assert.assertTrue(LatencyHistogram.bucketUpperBound(index) >= previousUpperBound);
+            previousUpperBound = LatencyHistogram.bucketUpperBound(index);
+        }
+        Assert.assertEquals(LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)), Long.MAX_VALUE);
+    }
+
+    @Test(groups = "fast")
+    public void testPercentiles() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        final LatencySnapshot snapshot = histogram.snapshot("API", "test");
+        Assert.assertEquals(snapshot.getCount(), 1000);
+        Assert.assertEquals(snapshot.getMaxUsec(), 1000000);
+        Assert.assertEquals(snapshot.getMeanUsec(), 500500);
+        assertWithinPrecision(snapshot.getP50Usec(), 500000);
+        assertWithinPrecision(snapshot.getP90Usec(), 900000);
+        assertWithinPrecision(snapshot.getP99Usec(), 990000);
+
+        final LatencySnapshot emptySnapshot = new LatencyHistogram().snapshot("API", "test");
+        Assert.assertEquals(emptySnapshot.getCount(), 0);
+        Assert.assertEquals(emptySnapshot.getP99Usec(), 0);
+        Assert.assertEquals(emptySnapshot.getMeanUsec(), 0);
+    }
+
+    @Test(groups = "fast")
+    public void testRegistry() throws Exception {
+        final AggregatedProfiling aggregatedProfiling = new AggregatedProfiling(true);
+        aggregatedProfiling.record(ProfilingFeatureType.DAO, "AccountSqlDao:getById", TimeUnit.MILLISECONDS.toNanos(1));
+        aggregatedProfiling.record(ProfilingFeatureType.API, "DefaultAccountUserApi:getAccountById", TimeUnit.MILLISECONDS.toNanos(3));
+        aggregatedProfiling.record(ProfilingFeatureType.API, "DefaultAccountUserApi:getAccountById", TimeUnit.MILLISECONDS.toNanos(2));
+
+        final List<LatencySnapshot> snapshots = aggregatedProfiling.getSnapshots();
+        Assert.assertEquals(snapshots.size(), 2);
+        // Slowest first
+        Assert.assertEquals(snapshots.get(0).getType(), "API");
+        Assert.assertEquals(snapshots.get(0).getName(), "DefaultAccountUserApi:getAccountById");
+        Assert.assertEquals(snapshots.get(0).getCount(), 2);
+        Assert.assertEquals(snapshots.get(1).getType(), "DAO");
+        Assert.assertEquals(snapshots.get(1).getCount(), 1);
+
+        aggregatedProfiling.setEnabled(false);
+        aggregatedProfiling.record(ProfilingFeatureType.DAO, "AccountSqlDao:getById", TimeUnit.MILLISECONDS.toNanos(1));
+        Assert.assertEquals(aggregatedProfiling.getSnapshots().get(1).getCount(), 1);
+
+        aggregatedProfiling.reset();
+        Assert.assertTrue(aggregatedProfiling.getSnapshots().isEmpty());
+    }
+
+    @Test(groups = "fast")
+    public void testDisabledFromConfig() throws Exception {
+        final ProfilingConfig profilingConfig = Mockito.mock(ProfilingConfig.class);
+        Mockito.when(profilingConfig.isAggregatedProfilingEnabled()).thenReturn(false);
+        final AggregatedProfiling aggregatedProfiling = new AggregatedProfiling(profilingConfig);
+        Assert.assertFalse(aggregatedProfiling.isEnabled());
+
+        aggregatedProfiling.record(ProfilingFeatureType.API, "DefaultAccountUserApi:getAccountById", TimeUnit.MILLISECONDS.toNanos(1));
+        Assert.assertTrue(aggregatedProfiling.getSnapshots().isEmpty());
+    }
+
+    @Test(groups = "fast")
+    public void testMBeanRegistration() throws Exception {
+        final MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        final ObjectName objectName = new ObjectName(AggregatedProfiling.OBJECT_NAME);
+        final AggregatedProfiling aggregatedProfiling = new AggregatedProfiling(true);
+        final AggregatedProfiling otherAggregatedProfiling = new AggregatedProfiling(true);
+
+        aggregatedProfiling.registerMBean(mBeanServer);
+        Assert.assertTrue(mBeanServer.isRegistered(objectName));
+
+        // Only the first instance is exposed, and the other one doesn't remove it
+        otherAggregatedProfiling.registerMBean(mBeanServer);
+        otherAggregatedProfiling.unregisterMBean(mBeanServer);
+        Assert.assertTrue(mBeanServer.isRegistered(objectName));
+
+        aggregatedProfiling.unregisterMBean(mBeanServer);
+        Assert.assertFalse(mBeanServer.isRegistered(objectName));
+    }
+
+    @Test(groups = "fast")
+    public void testConcurrentRecording() throws Exception {
+        final AggregatedProfiling aggregatedProfiling = new AggregatedProfiling(true);
+        final int nbThreads = 8;
+        final int nbRecordsPerThread = 10000;
+
+        final ExecutorService executor = Executors.newFixedThreadPool(nbThreads);
+        final CountDownLatch latch = new CountDownLatch(nbThreads);
+        try {
+            for (int i = 0; i < nbThreads; i++) {
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < nbRecordsPerThread; j++) {
+                            aggregatedProfiling.record(ProfilingFeatureType.DAO, "AccountSqlDao:getById", j);
+                        }
+                        latch.countDown();
+                    }
+                });
+            }
+            Assert.assertTrue(latch.await(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final List<LatencySnapshot> snapshots = aggregatedProfiling.getSnapshots();
+        Assert.assertEquals(snapshots.size(), 1);
+        Assert.assertEquals(snapshots.get(0).getCount(), nbThreads * nbRecordsPerThread);
+    }
+
+    private void assertWithinPrecision(final long actual, final long expected) {
+        Assert.assertTrue(actual >= expected && actual <= expected + expected / 8, actual + " vs " + expected);
+    }
+}
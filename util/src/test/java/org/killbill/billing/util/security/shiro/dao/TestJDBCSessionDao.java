@@ -20,9 +20,17 @@ import java.io.Serializable;
 import java.util.Date;
 import java.util.UUID;
 
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.UnavailableSecurityManagerException;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.mgt.SecurityManager;
 import org.apache.shiro.session.Session;
+import org.apache.shiro.session.mgt.DefaultSessionManager;
 import org.apache.shiro.session.mgt.SimpleSession;
 import org.killbill.billing.util.UtilTestSuiteWithEmbeddedDB;
+import org.killbill.billing.util.config.RbacConfig;
+import org.killbill.billing.util.security.api.DefaultSecurityService;
+import org.skife.config.TimeSpan;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -67,6 +75,96 @@ public class TestJDBCSessionDao extends UtilTestSuiteWithEmbeddedDB {
         Assert.assertNull(jdbcSessionDao.doReadSession(session.getId()));
     }
 
+    @Test(groups = "slow")
+    public void testWriteBehind() throws Exception {
+        final JDBCSessionDao jdbcSessionDao = createWriteBehindSessionDao();
+
+        final SimpleSession session = createSession();
+        final Serializable sessionId = jdbcSessionDao.doCreate(session);
+        final Date initialLastAccessTime = jdbcSessionDao.doReadSession(sessionId).getLastAccessTime();
+
+        // Touches are coalesced in memory
+        final Date newLastAccessTime = new Date(initialLastAccessTime.getTime() + 60 * 1000);
+        session.setLastAccessTime(newLastAccessTime);
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertEquals(readPersistedSession(sessionId).getLastAccessTime(), initialLastAccessTime);
+        // ...but are visible when reading the session back
+        Assert.assertEquals(jdbcSessionDao.doReadSession(sessionId).getLastAccessTime(), newLastAccessTime);
+
+        jdbcSessionDao.flush();
+        Assert.assertEquals(readPersistedSession(sessionId).getLastAccessTime(), newLastAccessTime);
+
+        // Attribute changes are written right away
+        final String attributeKey = UUID.randomUUID().toString();
+        session.setAttribute(attributeKey, "value");
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertEquals(readPersistedSession(sessionId).getAttribute(attributeKey), "value");
+
+        // Expired sessions are deleted in batch
+        session.setExpired(true);
+        jdbcSessionDao.doDelete(session);
+        Assert.assertNotNull(readPersistedSession(sessionId));
+        jdbcSessionDao.flush();
+        Assert.assertNull(readPersistedSession(sessionId));
+
+        // Other deletes are immediate
+        final SimpleSession otherSession = createSession();
+        final Serializable otherSessionId = jdbcSessionDao.doCreate(otherSession);
+        jdbcSessionDao.doDelete(otherSession);
+        Assert.assertNull(readPersistedSession(otherSessionId));
+
+        jdbcSessionDao.destroy();
+    }
+
+    @Test(groups = "slow")
+    public void testPendingTouchesAreWrittenOnStop() throws Exception {
+        final JDBCSessionDao jdbcSessionDao = createWriteBehindSessionDao();
+        final DefaultSessionManager sessionManager = new DefaultSessionManager();
+        sessionManager.setSessionDAO(jdbcSessionDao);
+        final DefaultSecurityManager securityManager = new DefaultSecurityManager();
+        securityManager.setSessionManager(sessionManager);
+
+        final SimpleSession session = createSession();
+        final Serializable sessionId = jdbcSessionDao.doCreate(session);
+        final Date newLastAccessTime = new Date(jdbcSessionDao.doReadSession(sessionId).getLastAccessTime().getTime() + 60 * 1000);
+        session.setLastAccessTime(newLastAccessTime);
+        jdbcSessionDao.doUpdate(session);
+        Assert.assertNotEquals(readPersistedSession(sessionId).getLastAccessTime(), newLastAccessTime);
+
+        // The service resets the global security manager on stop
+        SecurityManager globalSecurityManager = null;
+        try {
+            globalSecurityManager = SecurityUtils.getSecurityManager();
+        } catch (final UnavailableSecurityManagerException ignored) {
+        }
+        try {
+            new DefaultSecurityService(securityManager).stop();
+        } finally {
+            SecurityUtils.setSecurityManager(globalSecurityManager);
+        }
+        Assert.assertEquals(readPersistedSession(sessionId).getLastAccessTime(), newLastAccessTime);
+    }
+
+    // Long flush interval: we flush manually
+    private JDBCSessionDao createWriteBehindSessionDao() {
+        return new JDBCSessionDao(dbi, new RbacConfig() {
+            @Override
+            public TimeSpan getGlobalSessionTimeout() {
+                return new TimeSpan("1h");
+            }
+
+            @Override
+            public TimeSpan getSessionFlushInterval() {
+                return new TimeSpan("1h");
+            }
+        });
+    }
+
+    private Session readPersistedSession(final Serializable sessionId) {
+        // Bypass any pending write
+        return new JDBCSessionDao(dbi).doReadSession(sessionId);
+    }
+
     private SimpleSession createSession() {
         final SimpleSession simpleSession = new SimpleSession();
         simpleSession.setStartTimestamp(new Date(System.currentTimeMillis() - 5000));
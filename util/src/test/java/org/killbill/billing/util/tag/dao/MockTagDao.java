@@ -17,8 +17,10 @@
 package org.killbill.billing.util.tag.dao;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -86,6 +88,15 @@ public class MockTagDao extends MockEntityDaoBase<TagModelDao, Tag, TagApiExcept
         }));
     }
 
+    @Override
+    public Map<UUID, List<TagModelDao>> getTagsForObjects(final Collection<UUID> objectIds, final ObjectType objectType, final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
+        final Map<UUID, List<TagModelDao>> result = new LinkedHashMap<UUID, List<TagModelDao>>();
+        for (final UUID objectId : objectIds) {
+            result.put(objectId, getTagsForObject(objectId, objectType, includedDeleted, internalTenantContext));
+        }
+        return result;
+    }
+
     @Override
     public List<TagModelDao> getTagsForAccountType(final UUID accountId, final ObjectType objectType, final boolean includedDeleted, final InternalTenantContext internalTenantContext) {
         throw new UnsupportedOperationException();
@@ -18,6 +18,7 @@ package org.killbill.billing.util.tag.dao;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import org.testng.Assert;
@@ -33,6 +34,8 @@ import org.killbill.billing.util.tag.ControlTagType;
 import org.killbill.billing.util.tag.DescriptiveTag;
 import org.killbill.billing.util.tag.Tag;
 
+import com.google.common.collect.ImmutableList;
+
 import static org.testng.Assert.assertEquals;
 
 public class TestDefaultTagDao extends UtilTestSuiteWithEmbeddedDB {
@@ -176,4 +179,39 @@ public class TestDefaultTagDao extends UtilTestSuiteWithEmbeddedDB {
         }
     }
 
+    @Test(groups = "slow")
+    public void testGetTagsForObjects() throws TagApiException {
+        final UUID firstObjectId = UUID.randomUUID();
+        final UUID secondObjectId = UUID.randomUUID();
+        final UUID objectIdWithoutTags = UUID.randomUUID();
+        final ObjectType objectType = ObjectType.BUNDLE;
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.create(new TagModelDao(new DescriptiveTag(ControlTagType.AUTO_INVOICING_OFF.getId(), objectType, firstObjectId, internalCallContext.getCreatedDate())), internalCallContext);
+        assertListenerStatus();
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.create(new TagModelDao(new DescriptiveTag(ControlTagType.AUTO_PAY_OFF.getId(), objectType, firstObjectId, internalCallContext.getCreatedDate())), internalCallContext);
+        assertListenerStatus();
+
+        eventsListener.pushExpectedEvent(NextEvent.TAG);
+        tagDao.create(new TagModelDao(new DescriptiveTag(ControlTagType.AUTO_INVOICING_OFF.getId(), objectType, secondObjectId, internalCallContext.getCreatedDate())), internalCallContext);
+        assertListenerStatus();
+
+        final Map<UUID, List<TagModelDao>> tagsByObjectId = tagDao.getTagsForObjects(ImmutableList.<UUID>of(firstObjectId, secondObjectId, objectIdWithoutTags), objectType, false, internalCallContext);
+        Assert.assertEquals(tagsByObjectId.size(), 3);
+        Assert.assertEquals(tagsByObjectId.get(firstObjectId).size(), 2);
+        Assert.assertEquals(tagsByObjectId.get(secondObjectId).size(), 1);
+        Assert.assertEquals(tagsByObjectId.get(secondObjectId).get(0).getTagDefinitionId(), ControlTagType.AUTO_INVOICING_OFF.getId());
+        Assert.assertTrue(tagsByObjectId.get(objectIdWithoutTags).isEmpty());
+
+        // Same ids, different object type
+        final Map<UUID, List<TagModelDao>> tagsForOtherType = tagDao.getTagsForObjects(ImmutableList.<UUID>of(firstObjectId, secondObjectId), ObjectType.ACCOUNT, false, internalCallContext);
+        Assert.assertTrue(tagsForOtherType.get(firstObjectId).isEmpty());
+        Assert.assertTrue(tagsForOtherType.get(secondObjectId).isEmpty());
+
+        // Empty input
+        Assert.assertTrue(tagDao.getTagsForObjects(ImmutableList.<UUID>of(), objectType, false, internalCallContext).isEmpty());
+    }
+
 }
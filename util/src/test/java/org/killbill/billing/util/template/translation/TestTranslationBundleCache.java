@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014 Groupon, Inc
+ * Copyright 2014 The Billing Project, LLC
+ *
+ * The Billing Project licenses this file to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.killbill.billing.util.template.translation;
+
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.UUID;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import org.killbill.billing.util.UtilTestSuiteNoDB;
+
+public class TestTranslationBundleCache extends UtilTestSuiteNoDB {
+
+    private static final String BUNDLE_PATH = "org/killbill/billing/util/template/translation/CatalogTranslation";
+
+    @Test(groups = "fast")
+    public void testBundlesAreResolvedOnce() throws Exception {
+        final TranslationBundleCache bundleCache = new TranslationBundleCache();
+
+        final ResourceBundle bundle = bundleCache.getBundle(Locale.US, BUNDLE_PATH);
+        Assert.assertNotNull(bundle);
+        Assert.assertEquals(bundle.getString("shotgun-monthly"), "Monthly shotgun plan");
+        Assert.assertSame(bundleCache.getBundle(Locale.US, BUNDLE_PATH), bundle);
+
+        // Bundles are cached per locale
+        final ResourceBundle frenchBundle = bundleCache.getBundle(Locale.CANADA_FRENCH, BUNDLE_PATH);
+        Assert.assertNotNull(frenchBundle);
+        Assert.assertNotSame(frenchBundle, bundle);
+        Assert.assertEquals(frenchBundle.getString("shotgun-monthly"), "Fusil de chasse mensuel");
+
+        // Once invalidated, bundles are resolved again
+        bundleCache.invalidate();
+        final ResourceBundle reloadedBundle = bundleCache.getBundle(Locale.US, BUNDLE_PATH);
+        Assert.assertNotNull(reloadedBundle);
+        Assert.assertNotSame(reloadedBundle, bundle);
+        Assert.assertEquals(reloadedBundle.getString("shotgun-monthly"), "Monthly shotgun plan");
+    }
+
+    @Test(groups = "fast")
+    public void testMissingBundle() throws Exception {
+        final TranslationBundleCache bundleCache = new TranslationBundleCache();
+        final String bundlePath = UUID.randomUUID().toString();
+
+        Assert.assertNull(bundleCache.getBundle(Locale.FRANCE, bundlePath));
+        // The miss is cached as well
+        Assert.assertNull(bundleCache.getBundle(Locale.FRANCE, bundlePath));
+    }
+
+    @Test(groups = "fast")
+    public void testCachesAreNotShared() throws Exception {
+        final TranslationBundleCache bundleCache = new TranslationBundleCache();
+        final ResourceBundle bundle = bundleCache.getBundle(Locale.US, BUNDLE_PATH);
+        Assert.assertNotNull(bundle);
+
+        // Invalidating another cache doesn't affect this one
+        new TranslationBundleCache().invalidate();
+        Assert.assertSame(bundleCache.getBundle(Locale.US, BUNDLE_PATH), bundle);
+    }
+}